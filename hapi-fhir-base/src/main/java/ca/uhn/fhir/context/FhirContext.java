@@ -31,6 +31,7 @@ import ca.uhn.fhir.model.api.IResource;
 import ca.uhn.fhir.model.api.annotation.ResourceDef;
 import ca.uhn.fhir.model.view.ViewGenerator;
 import ca.uhn.fhir.narrative.INarrativeGenerator;
+import ca.uhn.fhir.parser.CompiledParserPlans;
 import ca.uhn.fhir.parser.DataFormatException;
 import ca.uhn.fhir.parser.IParser;
 import ca.uhn.fhir.parser.IParserErrorHandler;
@@ -112,6 +113,7 @@ public class FhirContext {
 	private final Set<PerformanceOptionsEnum> myPerformanceOptions = new HashSet<>();
 	private final Collection<Class<? extends IBaseResource>> myResourceTypesToScan;
 	private AddProfileTagEnum myAddProfileTagWhenEncoding = AddProfileTagEnum.ONLY_FOR_CUSTOM;
+	private volatile CompiledParserPlans myCompiledParserPlans;
 	private volatile Map<Class<? extends IBase>, BaseRuntimeElementDefinition<?>> myClassToElementDefinition =
 			Collections.emptyMap();
 	private ArrayList<Class<? extends IBase>> myCustomTypes;
@@ -442,6 +444,27 @@ public class FhirContext {
 		return myPerformanceOptions;
 	}
 
+	/**
+	 * Returns the parser plans shared by all parsers created by this context, or <code>null</code>
+	 * if {@link PerformanceOptionsEnum#COMPILED_PARSER_PLANS} is not enabled.
+	 * <p>
+	 * This method is intended for use by the parsers and is not intended to be called by client code.
+	 * </p>
+	 *
+	 * @since 7.6.0
+	 */
+	public CompiledParserPlans getCompiledParserPlans() {
+		if (!myPerformanceOptions.contains(PerformanceOptionsEnum.COMPILED_PARSER_PLANS)) {
+			return null;
+		}
+		CompiledParserPlans retVal = myCompiledParserPlans;
+		if (retVal == null) {
+			retVal = new CompiledParserPlans();
+			myCompiledParserPlans = retVal;
+		}
+		return retVal;
+	}
+
 	// /**
 	// * Return an unmodifiable collection containing all known resource definitions
 	// */
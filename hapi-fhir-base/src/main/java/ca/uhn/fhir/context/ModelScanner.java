@@ -68,11 +68,14 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static org.apache.commons.lang3.StringUtils.isBlank;
 
 class ModelScanner {
 	private static final org.slf4j.Logger ourLog = org.slf4j.LoggerFactory.getLogger(ModelScanner.class);
+	private static final Map<FhirVersionEnum, Map<String, String>> ourVersionPropertyFiles =
+			new ConcurrentHashMap<>();
 	private Map<Class<? extends IBase>, BaseRuntimeElementDefinition<?>> myClassToElementDefinitions = new HashMap<>();
 	private FhirContext myContext;
 	private Map<String, RuntimeResourceDefinition> myIdToResourceDefinition = new HashMap<>();
@@ -563,78 +566,105 @@ class ModelScanner {
 			Map<Class<? extends IBase>, BaseRuntimeElementDefinition<?>> theExistingElementDefinitions) {
 		Set<Class<? extends IBase>> retVal = new HashSet<>();
 
-		try (InputStream str = theVersion.getVersionImplementation().getFhirVersionPropertiesFile()) {
-			Properties prop = new Properties();
-			prop.load(str);
-			for (Entry<Object, Object> nextEntry : prop.entrySet()) {
-				String nextKey = nextEntry.getKey().toString();
-				String nextValue = nextEntry.getValue().toString();
-
-				if (nextKey.startsWith("datatype.")) {
-					if (theDatatypes != null) {
-						try {
-							// Datatypes
+		for (Entry<String, String> nextEntry : getVersionPropertyFile(theVersion).entrySet()) {
+			String nextKey = nextEntry.getKey();
+			String nextValue = nextEntry.getValue();
 
-							@SuppressWarnings("unchecked")
-							Class<? extends IBase> dtType = (Class<? extends IBase>) Class.forName(nextValue);
-							if (theExistingElementDefinitions.containsKey(dtType)) {
-								continue;
-							}
-							retVal.add(dtType);
-
-							if (IElement.class.isAssignableFrom(dtType)) {
-								@SuppressWarnings("unchecked")
-								Class<? extends IElement> nextClass = (Class<? extends IElement>) dtType;
-								theDatatypes.add(nextClass);
-							} else if (IBaseDatatype.class.isAssignableFrom(dtType)) {
-								@SuppressWarnings("unchecked")
-								Class<? extends IBaseDatatype> nextClass = (Class<? extends IBaseDatatype>) dtType;
-								theDatatypes.add(nextClass);
-							} else {
-								ourLog.warn("Class is not assignable from " + IElement.class.getSimpleName() + " or "
-										+ IBaseDatatype.class.getSimpleName() + ": " + nextValue);
-								continue;
-							}
-
-						} catch (ClassNotFoundException e) {
-							throw new ConfigurationException(
-									Msg.code(1725) + "Unknown class[" + nextValue + "] for data type definition: "
-											+ nextKey.substring("datatype.".length()),
-									e);
-						}
-					}
-				} else if (nextKey.startsWith("resource.")) {
-					// Resources
-					String resName = nextKey.substring("resource.".length()).toLowerCase();
+			if (nextKey.startsWith("datatype.")) {
+				if (theDatatypes != null) {
 					try {
+						// Datatypes
+
 						@SuppressWarnings("unchecked")
-						Class<? extends IBaseResource> nextClass =
-								(Class<? extends IBaseResource>) Class.forName(nextValue);
-						if (theExistingElementDefinitions.containsKey(nextClass)) {
+						Class<? extends IBase> dtType = (Class<? extends IBase>) loadModelClass(nextValue);
+						if (theExistingElementDefinitions.containsKey(dtType)) {
 							continue;
 						}
-						if (!IBaseResource.class.isAssignableFrom(nextClass)) {
-							throw new ConfigurationException(Msg.code(1726) + "Class is not assignable from "
-									+ IBaseResource.class.getSimpleName() + ": " + nextValue);
+						retVal.add(dtType);
+
+						if (IElement.class.isAssignableFrom(dtType)) {
+							@SuppressWarnings("unchecked")
+							Class<? extends IElement> nextClass = (Class<? extends IElement>) dtType;
+							theDatatypes.add(nextClass);
+						} else if (IBaseDatatype.class.isAssignableFrom(dtType)) {
+							@SuppressWarnings("unchecked")
+							Class<? extends IBaseDatatype> nextClass = (Class<? extends IBaseDatatype>) dtType;
+							theDatatypes.add(nextClass);
+						} else {
+							ourLog.warn("Class is not assignable from " + IElement.class.getSimpleName() + " or "
+									+ IBaseDatatype.class.getSimpleName() + ": " + nextValue);
+							continue;
 						}
 
-						theResourceTypes.put(resName, nextClass);
 					} catch (ClassNotFoundException e) {
 						throw new ConfigurationException(
-								Msg.code(1727) + "Unknown class[" + nextValue + "] for resource definition: "
-										+ nextKey.substring("resource.".length()),
+								Msg.code(1725) + "Unknown class[" + nextValue + "] for data type definition: "
+										+ nextKey.substring("datatype.".length()),
 								e);
 					}
-				} else {
-					throw new ConfigurationException(Msg.code(1728) + "Unexpected property in version property file: "
-							+ nextKey + "=" + nextValue);
 				}
+			} else if (nextKey.startsWith("resource.")) {
+				// Resources
+				String resName = nextKey.substring("resource.".length()).toLowerCase();
+				try {
+					@SuppressWarnings("unchecked")
+					Class<? extends IBaseResource> nextClass =
+							(Class<? extends IBaseResource>) loadModelClass(nextValue);
+					if (theExistingElementDefinitions.containsKey(nextClass)) {
+						continue;
+					}
+					if (!IBaseResource.class.isAssignableFrom(nextClass)) {
+						throw new ConfigurationException(Msg.code(1726) + "Class is not assignable from "
+								+ IBaseResource.class.getSimpleName() + ": " + nextValue);
+					}
+
+					theResourceTypes.put(resName, nextClass);
+				} catch (ClassNotFoundException e) {
+					throw new ConfigurationException(
+							Msg.code(1727) + "Unknown class[" + nextValue + "] for resource definition: "
+									+ nextKey.substring("resource.".length()),
+							e);
+				}
+			} else {
+				throw new ConfigurationException(Msg.code(1728) + "Unexpected property in version property file: "
+						+ nextKey + "=" + nextValue);
 			}
+		}
+
+		return retVal;
+	}
+
+	/**
+	 * Loads a model class without initializing it. Initialization of the structure classes
+	 * (which e.g. creates the search parameter constants for each resource type) is deferred
+	 * until a type is actually used, which keeps the cost of creating a context down when
+	 * only a handful of the types are ever needed.
+	 */
+	private static Class<?> loadModelClass(String theClassName) throws ClassNotFoundException {
+		return Class.forName(theClassName, false, ModelScanner.class.getClassLoader());
+	}
+
+	/**
+	 * Returns the contents of the property file listing the model classes for the given
+	 * version. The file is only read once, since it is consulted every time a new
+	 * type is scanned.
+	 */
+	private static Map<String, String> getVersionPropertyFile(FhirVersionEnum theVersion) {
+		return ourVersionPropertyFiles.computeIfAbsent(theVersion, ModelScanner::loadVersionPropertyFile);
+	}
+
+	private static Map<String, String> loadVersionPropertyFile(FhirVersionEnum theVersion) {
+		try (InputStream str = theVersion.getVersionImplementation().getFhirVersionPropertiesFile()) {
+			Properties prop = new Properties();
+			prop.load(str);
+			Map<String, String> retVal = new HashMap<>();
+			for (Entry<Object, Object> nextEntry : prop.entrySet()) {
+				retVal.put(nextEntry.getKey().toString(), nextEntry.getValue().toString());
+			}
+			return Collections.unmodifiableMap(retVal);
 		} catch (IOException e) {
 			throw new ConfigurationException(Msg.code(1729) + "Failed to load model property file from classpath: "
 					+ "/ca/uhn/fhir/model/dstu/model.properties");
 		}
-
-		return retVal;
 	}
 }
@@ -29,6 +29,7 @@ import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * This object supplies default configuration to all {@link IParser parser} instances
@@ -46,6 +47,10 @@ public class ParserOptions {
 	private boolean myAutoContainReferenceTargetsWithNoId = true;
 	private Set<String> myEncodeElementsForSummaryMode = null;
 	private Set<String> myDontEncodeElementsForSummaryMode = null;
+	private boolean myStreamingJsonParsing = false;
+	private boolean myCompactModel = false;
+	private int myParallelBundleParsingThreshold = 0;
+	private ForkJoinPool myParallelBundleParsingPool;
 
 	/**
 	 * If set to {@literal true} (which is the default), contained resources may be specified by
@@ -324,4 +329,159 @@ public class ParserOptions {
 	public Set<String> getDontEncodeElementsForSummaryMode() {
 		return myDontEncodeElementsForSummaryMode;
 	}
+
+	/**
+	 * If set to <code>true</code>, the JSON parser will read resources directly from the underlying
+	 * stream of JSON tokens instead of first loading the entire document into an in-memory JSON tree.
+	 * This roughly halves the peak memory required to parse very large documents such as
+	 * transaction Bundles, at the cost of buffering small fragments (primitive values and extensions)
+	 * which may need to be correlated with sibling properties.
+	 * <p>
+	 * The default is <code>false</code>.
+	 * </p>
+	 *
+	 * @since 7.6.0
+	 */
+	public boolean isStreamingJsonParsing() {
+		return myStreamingJsonParsing;
+	}
+
+	/**
+	 * If set to <code>true</code>, the JSON parser will read resources directly from the underlying
+	 * stream of JSON tokens instead of first loading the entire document into an in-memory JSON tree.
+	 * This roughly halves the peak memory required to parse very large documents such as
+	 * transaction Bundles, at the cost of buffering small fragments (primitive values and extensions)
+	 * which may need to be correlated with sibling properties.
+	 * <p>
+	 * The default is <code>false</code>.
+	 * </p>
+	 *
+	 * @return Returns a reference to <code>this</code> object so that method calls can be chained together
+	 * @since 7.6.0
+	 */
+	public ParserOptions setStreamingJsonParsing(boolean theStreamingJsonParsing) {
+		myStreamingJsonParsing = theStreamingJsonParsing;
+		return this;
+	}
+
+	/**
+	 * If set to <code>true</code>, the parsers will try to minimize the heap used by the resources
+	 * they produce. This is intended for applications which hold large numbers of parsed resources
+	 * in memory for a long time. When enabled:
+	 * <ul>
+	 * <li>Short primitive values and extension URLs which occur repeatedly (codes, systems, units,
+	 * display names, etc.) share a single String instance instead of each resource holding its own
+	 * copy. The pool holding these Strings is bounded and is shared by every {@link FhirContext} in
+	 * the JVM which has this option enabled.</li>
+	 * <li>Once a resource has been parsed, the lists backing its repeating elements are trimmed
+	 * to their actual size.</li>
+	 * </ul>
+	 * This adds a small amount of CPU overhead to each parse.
+	 * <p>
+	 * The default is <code>false</code>.
+	 * </p>
+	 *
+	 * @since 7.6.0
+	 */
+	public boolean isCompactModel() {
+		return myCompactModel;
+	}
+
+	/**
+	 * If set to <code>true</code>, the parsers will try to minimize the heap used by the resources
+	 * they produce. This is intended for applications which hold large numbers of parsed resources
+	 * in memory for a long time. When enabled:
+	 * <ul>
+	 * <li>Short primitive values and extension URLs which occur repeatedly (codes, systems, units,
+	 * display names, etc.) share a single String instance instead of each resource holding its own
+	 * copy. The pool holding these Strings is bounded and is shared by every {@link FhirContext} in
+	 * the JVM which has this option enabled.</li>
+	 * <li>Once a resource has been parsed, the lists backing its repeating elements are trimmed
+	 * to their actual size.</li>
+	 * </ul>
+	 * This adds a small amount of CPU overhead to each parse.
+	 * <p>
+	 * The default is <code>false</code>.
+	 * </p>
+	 *
+	 * @return Returns a reference to <code>this</code> object so that method calls can be chained together
+	 * @since 7.6.0
+	 */
+	public ParserOptions setCompactModel(boolean theCompactModel) {
+		myCompactModel = theCompactModel;
+		return this;
+	}
+
+	/**
+	 * If set to a value greater than zero, the JSON parser parses the entry resources of any Bundle
+	 * with at least this number of entries in parallel, using the
+	 * {@link #setParallelBundleParsingPool(ForkJoinPool) parallel Bundle parsing pool}. The JSON
+	 * document is still read only once, and the resulting Bundle is identical to one parsed
+	 * sequentially. This shortens the time taken to parse very large Bundles (e.g. transactions
+	 * containing thousands of entries) on machines with many cores.
+	 * <p>
+	 * When this is enabled, the {@link ca.uhn.fhir.parser.IParserErrorHandler error handler} used by the
+	 * parser may be invoked concurrently from multiple threads, and must therefore be thread safe.
+	 * Bundles containing other Bundles as entry resources are always parsed sequentially, as is
+	 * content parsed by the XML parser or by {@link #setStreamingJsonParsing(boolean) streaming}
+	 * JSON parsing.
+	 * </p>
+	 * <p>
+	 * The default is <code>0</code>, meaning that Bundles are never parsed in parallel.
+	 * </p>
+	 *
+	 * @since 7.6.0
+	 */
+	public int getParallelBundleParsingThreshold() {
+		return myParallelBundleParsingThreshold;
+	}
+
+	/**
+	 * If set to a value greater than zero, the JSON parser parses the entry resources of any Bundle
+	 * with at least this number of entries in parallel, using the
+	 * {@link #setParallelBundleParsingPool(ForkJoinPool) parallel Bundle parsing pool}. The JSON
+	 * document is still read only once, and the resulting Bundle is identical to one parsed
+	 * sequentially. This shortens the time taken to parse very large Bundles (e.g. transactions
+	 * containing thousands of entries) on machines with many cores.
+	 * <p>
+	 * When this is enabled, the {@link ca.uhn.fhir.parser.IParserErrorHandler error handler} used by the
+	 * parser may be invoked concurrently from multiple threads, and must therefore be thread safe.
+	 * Bundles containing other Bundles as entry resources are always parsed sequentially, as is
+	 * content parsed by the XML parser or by {@link #setStreamingJsonParsing(boolean) streaming}
+	 * JSON parsing.
+	 * </p>
+	 * <p>
+	 * The default is <code>0</code>, meaning that Bundles are never parsed in parallel.
+	 * </p>
+	 *
+	 * @return Returns a reference to <code>this</code> object so that method calls can be chained together
+	 * @since 7.6.0
+	 */
+	public ParserOptions setParallelBundleParsingThreshold(int theParallelBundleParsingThreshold) {
+		myParallelBundleParsingThreshold = theParallelBundleParsingThreshold;
+		return this;
+	}
+
+	/**
+	 * Returns the pool used for {@link #setParallelBundleParsingThreshold(int) parallel Bundle parsing}.
+	 * If not set, the {@link ForkJoinPool#commonPool() common pool} is used.
+	 *
+	 * @since 7.6.0
+	 */
+	@Nullable
+	public ForkJoinPool getParallelBundleParsingPool() {
+		return myParallelBundleParsingPool;
+	}
+
+	/**
+	 * Sets the pool used for {@link #setParallelBundleParsingThreshold(int) parallel Bundle parsing}.
+	 * If not set, the {@link ForkJoinPool#commonPool() common pool} is used.
+	 *
+	 * @return Returns a reference to <code>this</code> object so that method calls can be chained together
+	 * @since 7.6.0
+	 */
+	public ParserOptions setParallelBundleParsingPool(@Nullable ForkJoinPool theParallelBundleParsingPool) {
+		myParallelBundleParsingPool = theParallelBundleParsingPool;
+		return this;
+	}
 }
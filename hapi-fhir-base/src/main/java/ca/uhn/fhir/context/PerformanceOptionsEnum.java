@@ -34,5 +34,19 @@ public enum PerformanceOptionsEnum {
 	 * Android or low powered devices.
 	 * </p>
 	 */
-	DEFERRED_MODEL_SCANNING
+	DEFERRED_MODEL_SCANNING,
+
+	/**
+	 * When this option is set, the parsers will cache the results of resolving element names
+	 * and datatypes against the model definitions, so that the lookups performed for every
+	 * element that is parsed or encoded are reduced to a single table lookup.
+	 * <p>
+	 * The tables are built lazily the first time a given type is parsed or encoded, and are
+	 * retained for the lifetime of the {@link FhirContext}. This option is useful on servers
+	 * which spend a significant amount of time parsing and encoding resources.
+	 * </p>
+	 *
+	 * @since 7.6.0
+	 */
+	COMPILED_PARSER_PLANS
 }
@@ -44,20 +44,21 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.AnnotatedElement;
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Predicate;
@@ -66,6 +67,8 @@ import java.util.stream.Collectors;
 public abstract class BaseInterceptorService<POINTCUT extends Enum<POINTCUT> & IPointcut>
 		implements IBaseInterceptorService<POINTCUT>, IBaseInterceptorBroadcaster<POINTCUT> {
 	private static final Logger ourLog = LoggerFactory.getLogger(BaseInterceptorService.class);
+	private static final int PARAMETER_INDEX_POINTCUT = -1;
+	private static final BaseInvoker[] EMPTY_INVOKER_ARRAY = new BaseInvoker[0];
 	private static final AttributeKey<String> OTEL_INTERCEPTOR_POINTCUT_NAME_ATT_KEY =
 			AttributeKey.stringKey("hapifhir.interceptor.pointcut_name");
 	private static final AttributeKey<String> OTEL_INTERCEPTOR_CLASS_NAME_ATT_KEY =
@@ -78,7 +81,12 @@ public abstract class BaseInterceptorService<POINTCUT extends Enum<POINTCUT> & I
 	private final ListMultimap<POINTCUT, BaseInvoker> myAnonymousInvokers = ArrayListMultimap.create();
 	private final Object myRegistryMutex = new Object();
 	private final Class<POINTCUT> myPointcutType;
-	private volatile EnumSet<POINTCUT> myRegisteredPointcuts;
+	/**
+	 * Immutable snapshot of the invokers for each pointcut (indexed by pointcut ordinal), in
+	 * the order they should be called. This is rebuilt and swapped whenever the registry
+	 * changes so that hooks can be called without locking or copying.
+	 */
+	private volatile BaseInvoker[][] myInvokersByPointcut;
 	private String myName;
 	private boolean myWarnOnInterceptorWithNoHooks = true;
 
@@ -98,7 +106,7 @@ public abstract class BaseInterceptorService<POINTCUT extends Enum<POINTCUT> & I
 		super();
 		myName = theName;
 		myPointcutType = thePointcutType;
-		rebuildRegisteredPointcutSet();
+		rebuildInvokerSnapshot();
 	}
 
 	/**
@@ -126,7 +134,7 @@ public abstract class BaseInterceptorService<POINTCUT extends Enum<POINTCUT> & I
 				myInterceptors.add(theInterceptor);
 			}
 
-			rebuildRegisteredPointcutSet();
+			rebuildInvokerSnapshot();
 		}
 	}
 
@@ -187,7 +195,7 @@ public abstract class BaseInterceptorService<POINTCUT extends Enum<POINTCUT> & I
 				}
 			}
 
-			rebuildRegisteredPointcutSet();
+			rebuildInvokerSnapshot();
 		}
 	}
 
@@ -212,17 +220,36 @@ public abstract class BaseInterceptorService<POINTCUT extends Enum<POINTCUT> & I
 			myInterceptors.add(theInterceptor);
 			sortByOrderAnnotation(myInterceptors);
 
-			rebuildRegisteredPointcutSet();
+			rebuildInvokerSnapshot();
 
 			return true;
 		}
 	}
 
-	private void rebuildRegisteredPointcutSet() {
-		EnumSet<POINTCUT> registeredPointcuts = EnumSet.noneOf(myPointcutType);
-		registeredPointcuts.addAll(myAnonymousInvokers.keySet());
-		registeredPointcuts.addAll(myGlobalInvokers.keySet());
-		myRegisteredPointcuts = registeredPointcuts;
+	/**
+	 * Must be called while holding {@link #myRegistryMutex} after any change to the registered invokers
+	 */
+	private void rebuildInvokerSnapshot() {
+		POINTCUT[] pointcuts = myPointcutType.getEnumConstants();
+		BaseInvoker[][] invokersByPointcut = new BaseInvoker[pointcuts.length][];
+		for (POINTCUT nextPointcut : pointcuts) {
+			List<BaseInvoker> globalInvokers = myGlobalInvokers.get(nextPointcut);
+			List<BaseInvoker> anonymousInvokers = myAnonymousInvokers.get(nextPointcut);
+
+			BaseInvoker[] invokers;
+			if (globalInvokers.isEmpty() && anonymousInvokers.isEmpty()) {
+				invokers = EMPTY_INVOKER_ARRAY;
+			} else {
+				// The sort is stable, so global invokers come before anonymous ones with the same order
+				List<BaseInvoker> allInvokers = new ArrayList<>(globalInvokers.size() + anonymousInvokers.size());
+				allInvokers.addAll(globalInvokers);
+				allInvokers.addAll(anonymousInvokers);
+				allInvokers.sort(Comparator.naturalOrder());
+				invokers = allInvokers.toArray(EMPTY_INVOKER_ARRAY);
+			}
+			invokersByPointcut[nextPointcut.ordinal()] = invokers;
+		}
+		myInvokersByPointcut = invokersByPointcut;
 	}
 
 	private boolean isInterceptorAlreadyRegistered(Object theInterceptor) {
@@ -240,7 +267,7 @@ public abstract class BaseInterceptorService<POINTCUT extends Enum<POINTCUT> & I
 			boolean removed = myInterceptors.removeIf(t -> t == theInterceptor);
 			removed |= myGlobalInvokers.entries().removeIf(t -> t.getValue().getInterceptor() == theInterceptor);
 			removed |= myAnonymousInvokers.entries().removeIf(t -> t.getValue().getInterceptor() == theInterceptor);
-			rebuildRegisteredPointcutSet();
+			rebuildInvokerSnapshot();
 			return removed;
 		}
 	}
@@ -270,7 +297,7 @@ public abstract class BaseInterceptorService<POINTCUT extends Enum<POINTCUT> & I
 
 	@Override
 	public boolean hasHooks(POINTCUT thePointcut) {
-		return myRegisteredPointcuts.contains(thePointcut);
+		return myInvokersByPointcut[thePointcut.ordinal()].length > 0;
 	}
 
 	protected Class<?> getBooleanReturnType() {
@@ -287,15 +314,18 @@ public abstract class BaseInterceptorService<POINTCUT extends Enum<POINTCUT> & I
 	}
 
 	private Object doCallHooks(POINTCUT thePointcut, HookParams theParams, Object theRetVal) {
-		// use new list for loop to avoid ConcurrentModificationException in case invoker gets added while looping
-		List<BaseInvoker> invokers = new ArrayList<>(getInvokersForPointcut(thePointcut));
+		// The snapshot is never modified, so it is safe to iterate even if invokers are registered while looping
+		BaseInvoker[] invokers = myInvokersByPointcut[thePointcut.ordinal()];
+		if (invokers.length == 0) {
+			return theRetVal;
+		}
 
 		/*
 		 * Call each hook in order
 		 */
+		Class<?> pointcutReturnType = thePointcut.getReturnType();
 		for (BaseInvoker nextInvoker : invokers) {
 			Object nextOutcome = nextInvoker.invoke(theParams);
-			Class<?> pointcutReturnType = thePointcut.getReturnType();
 			if (pointcutReturnType.equals(getBooleanReturnType())) {
 				Boolean nextOutcomeAsBoolean = (Boolean) nextOutcome;
 				if (Boolean.FALSE.equals(nextOutcomeAsBoolean)) {
@@ -324,68 +354,11 @@ public abstract class BaseInterceptorService<POINTCUT extends Enum<POINTCUT> & I
 	}
 
 	/**
-	 * Returns an ordered list of invokers for the given pointcut. Note that
-	 * a new and stable list is returned to.. do whatever you want with it.
+	 * Returns an ordered list of invokers for the given pointcut. The returned
+	 * list is a snapshot and will not change if the registry is modified.
 	 */
 	private List<BaseInvoker> getInvokersForPointcut(POINTCUT thePointcut) {
-		List<BaseInvoker> invokers;
-
-		synchronized (myRegistryMutex) {
-			List<BaseInvoker> globalInvokers = myGlobalInvokers.get(thePointcut);
-			List<BaseInvoker> anonymousInvokers = myAnonymousInvokers.get(thePointcut);
-			List<BaseInvoker> threadLocalInvokers = null;
-			invokers = union(globalInvokers, anonymousInvokers, threadLocalInvokers);
-		}
-
-		return invokers;
-	}
-
-	/**
-	 * First argument must be the global invoker list!!
-	 */
-	@SafeVarargs
-	private List<BaseInvoker> union(List<BaseInvoker>... theInvokersLists) {
-		List<BaseInvoker> haveOne = null;
-		boolean haveMultiple = false;
-		for (List<BaseInvoker> nextInvokerList : theInvokersLists) {
-			if (nextInvokerList == null || nextInvokerList.isEmpty()) {
-				continue;
-			}
-
-			if (haveOne == null) {
-				haveOne = nextInvokerList;
-			} else {
-				haveMultiple = true;
-			}
-		}
-
-		if (haveOne == null) {
-			return Collections.emptyList();
-		}
-
-		List<BaseInvoker> retVal;
-
-		if (!haveMultiple) {
-
-			// The global list doesn't need to be sorted every time since it's sorted on
-			// insertion each time. Doing so is a waste of cycles..
-			if (haveOne == theInvokersLists[0]) {
-				retVal = haveOne;
-			} else {
-				retVal = new ArrayList<>(haveOne);
-				retVal.sort(Comparator.naturalOrder());
-			}
-
-		} else {
-
-			retVal = Arrays.stream(theInvokersLists)
-					.filter(Objects::nonNull)
-					.flatMap(Collection::stream)
-					.sorted()
-					.collect(Collectors.toList());
-		}
-
-		return retVal;
+		return Collections.unmodifiableList(Arrays.asList(myInvokersByPointcut[thePointcut.ordinal()]));
 	}
 
 	/**
@@ -485,7 +458,14 @@ public abstract class BaseInterceptorService<POINTCUT extends Enum<POINTCUT> & I
 
 	private class HookInvoker extends BaseInvoker {
 
+		/**
+		 * Hook methods with up to this many parameters are invoked without
+		 * allocating an argument array
+		 */
+		private static final int MAX_UNSPREAD_PARAMETERS = 6;
+
 		private final Method myMethod;
+		private final MethodHandle myMethodHandle;
 		private final Class<?>[] myParameterTypes;
 		private final int[] myParameterIndexes;
 		private final POINTCUT myPointcut;
@@ -516,14 +496,48 @@ public abstract class BaseInterceptorService<POINTCUT extends Enum<POINTCUT> & I
 						theHookMethod);
 			}
 
+			/*
+			 * For each parameter, this is the index of the value within the HookParams values of
+			 * the same type, or PARAMETER_INDEX_POINTCUT if the pointcut itself should be passed in
+			 */
 			myParameterIndexes = new int[myParameterTypes.length];
 			Map<Class<?>, AtomicInteger> typeToCount = new HashMap<>();
 			for (int i = 0; i < myParameterTypes.length; i++) {
+				if (myParameterTypes[i].equals(Pointcut.class)) {
+					myParameterIndexes[i] = PARAMETER_INDEX_POINTCUT;
+					continue;
+				}
 				AtomicInteger counter = typeToCount.computeIfAbsent(myParameterTypes[i], t -> new AtomicInteger(0));
 				myParameterIndexes[i] = counter.getAndIncrement();
 			}
 
 			myMethod.setAccessible(true);
+			myMethodHandle = createMethodHandle(theInterceptor, theHookMethod);
+		}
+
+		/**
+		 * Creates a method handle bound to the interceptor instance, which accepts the hook
+		 * parameters as {@link Object} and returns {@link Object} (<code>null</code> for
+		 * void methods). This allows the handle to be called using {@link MethodHandle#invokeExact(Object...)}
+		 * which the JIT is able to inline, unlike {@link Method#invoke(Object, Object...)}.
+		 */
+		private MethodHandle createMethodHandle(Object theInterceptor, Method theHookMethod) {
+			MethodHandle retVal;
+			try {
+				retVal = MethodHandles.lookup().unreflect(theHookMethod);
+			} catch (IllegalAccessException e) {
+				throw new InternalErrorException(
+						Msg.code(2542) + "Unable to access interceptor hook method: " + theHookMethod, e);
+			}
+			if (!Modifier.isStatic(theHookMethod.getModifiers())) {
+				retVal = retVal.bindTo(theInterceptor);
+			}
+			int parameterCount = myParameterTypes.length;
+			if (parameterCount > MAX_UNSPREAD_PARAMETERS) {
+				retVal = retVal.asSpreader(Object[].class, parameterCount);
+				return retVal.asType(MethodType.methodType(Object.class, Object[].class));
+			}
+			return retVal.asType(MethodType.genericMethodType(parameterCount));
 		}
 
 		@Override
@@ -542,43 +556,34 @@ public abstract class BaseInterceptorService<POINTCUT extends Enum<POINTCUT> & I
 		 */
 		@Override
 		Object invoke(HookParams theParams) {
-
-			Object[] args = new Object[myParameterTypes.length];
-			for (int i = 0; i < myParameterTypes.length; i++) {
-				Class<?> nextParamType = myParameterTypes[i];
-				if (nextParamType.equals(Pointcut.class)) {
-					args[i] = myPointcut;
-				} else {
-					int nextParamIndex = myParameterIndexes[i];
-					Object nextParamValue = theParams.get(nextParamType, nextParamIndex);
-					args[i] = nextParamValue;
-				}
-			}
-
 			// Invoke the method
 			try {
-				return invokeMethod(args);
-			} catch (InvocationTargetException e) {
-				Throwable targetException = e.getTargetException();
-				if (myPointcut.isShouldLogAndSwallowException(targetException)) {
-					ourLog.error("Exception thrown by interceptor: " + targetException.toString(), targetException);
+				return invokeMethod(theParams);
+			} catch (Throwable e) {
+				if (myPointcut.isShouldLogAndSwallowException(e)) {
+					ourLog.error("Exception thrown by interceptor: " + e.toString(), e);
 					return null;
 				}
 
-				if (targetException instanceof RuntimeException) {
-					throw ((RuntimeException) targetException);
+				if (e instanceof RuntimeException) {
+					throw ((RuntimeException) e);
 				} else {
 					throw new InternalErrorException(
-							Msg.code(1910) + "Failure invoking interceptor for pointcut(s) " + getPointcut(),
-							targetException);
+							Msg.code(1910) + "Failure invoking interceptor for pointcut(s) " + getPointcut(), e);
 				}
-			} catch (Exception e) {
-				throw new InternalErrorException(Msg.code(1911) + e);
 			}
 		}
 
+		private Object getParameter(HookParams theParams, int theParameterIndex) {
+			int index = myParameterIndexes[theParameterIndex];
+			if (index == PARAMETER_INDEX_POINTCUT) {
+				return myPointcut;
+			}
+			return theParams.get(myParameterTypes[theParameterIndex], index);
+		}
+
 		@WithSpan("hapifhir.interceptor")
-		private Object invokeMethod(Object[] args) throws InvocationTargetException, IllegalAccessException {
+		private Object invokeMethod(HookParams theParams) throws Throwable {
 			// Add attributes to the opentelemetry span
 			Span currentSpan = Span.current();
 			currentSpan.setAttribute(OTEL_INTERCEPTOR_POINTCUT_NAME_ATT_KEY, myPointcut.name());
@@ -587,7 +592,44 @@ public abstract class BaseInterceptorService<POINTCUT extends Enum<POINTCUT> & I
 					myMethod.getDeclaringClass().getName());
 			currentSpan.setAttribute(OTEL_INTERCEPTOR_METHOD_NAME_ATT_KEY, myMethod.getName());
 
-			return myMethod.invoke(getInterceptor(), args);
+			switch (myParameterTypes.length) {
+				case 0:
+					return (Object) myMethodHandle.invokeExact();
+				case 1:
+					return (Object) myMethodHandle.invokeExact(getParameter(theParams, 0));
+				case 2:
+					return (Object) myMethodHandle.invokeExact(getParameter(theParams, 0), getParameter(theParams, 1));
+				case 3:
+					return (Object) myMethodHandle.invokeExact(
+							getParameter(theParams, 0), getParameter(theParams, 1), getParameter(theParams, 2));
+				case 4:
+					return (Object) myMethodHandle.invokeExact(
+							getParameter(theParams, 0),
+							getParameter(theParams, 1),
+							getParameter(theParams, 2),
+							getParameter(theParams, 3));
+				case 5:
+					return (Object) myMethodHandle.invokeExact(
+							getParameter(theParams, 0),
+							getParameter(theParams, 1),
+							getParameter(theParams, 2),
+							getParameter(theParams, 3),
+							getParameter(theParams, 4));
+				case 6:
+					return (Object) myMethodHandle.invokeExact(
+							getParameter(theParams, 0),
+							getParameter(theParams, 1),
+							getParameter(theParams, 2),
+							getParameter(theParams, 3),
+							getParameter(theParams, 4),
+							getParameter(theParams, 5));
+				default:
+					Object[] args = new Object[myParameterTypes.length];
+					for (int i = 0; i < args.length; i++) {
+						args[i] = getParameter(theParams, i);
+					}
+					return (Object) myMethodHandle.invokeExact(args);
+			}
 		}
 	}
 
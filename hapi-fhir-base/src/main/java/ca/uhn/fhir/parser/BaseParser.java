@@ -78,6 +78,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -108,6 +109,7 @@ public abstract class BaseParser implements IParser {
 	private FhirTerser.ContainedResources myContainedResources;
 	private boolean myEncodeElementsAppliesToChildResourcesOnly;
 	private final FhirContext myContext;
+	private final CompiledParserPlans myCompiledParserPlans;
 	private Collection<String> myDontEncodeElements;
 	private Collection<String> myEncodeElements;
 	private IIdType myEncodeForceResourceId;
@@ -126,6 +128,7 @@ public abstract class BaseParser implements IParser {
 	public BaseParser(FhirContext theContext, IParserErrorHandler theParserErrorHandler) {
 		myContext = theContext;
 		myErrorHandler = theParserErrorHandler;
+		myCompiledParserPlans = theContext.getCompiledParserPlans();
 	}
 
 	protected FhirContext getContext() {
@@ -266,6 +269,17 @@ public abstract class BaseParser implements IParser {
 		encodeResourceToWriter(theResource, theWriter, encodeContext);
 	}
 
+	@Override
+	public void encodeBundleToWriter(IBaseBundle theBundle, Iterator<? extends IBase> theEntries, Writer theWriter)
+			throws IOException, DataFormatException {
+		Validate.notNull(theBundle, "theBundle can not be null");
+		Validate.notNull(theEntries, "theEntries can not be null");
+
+		EncodeContext encodeContext = new EncodeContext(this, myContext.getParserOptions());
+		encodeContext.setStreamedBundleEntries(theBundle, theEntries);
+		encodeResourceToWriter(theBundle, theWriter, encodeContext);
+	}
+
 	@Override
 	public String encodeToString(IBase theElement) throws DataFormatException {
 		Writer stringWriter = new StringBuilderWriter();
@@ -345,11 +359,21 @@ public abstract class BaseParser implements IParser {
 		return retVal;
 	}
 
-	@SuppressWarnings("unchecked")
 	ChildNameAndDef getChildNameAndDef(BaseRuntimeChildDefinition theChild, IBase theValue) {
 		Class<? extends IBase> type = theValue.getClass();
-		String childName = theChild.getChildNameByDatatype(type);
-		BaseRuntimeElementDefinition<?> childDef = theChild.getChildElementDefinitionByDatatype(type);
+		if (myCompiledParserPlans != null) {
+			return myCompiledParserPlans
+					.getEncodeTargets(theChild)
+					.computeIfAbsent(type, t -> resolveChildNameAndDef(theChild, t));
+		}
+		return resolveChildNameAndDef(theChild, type);
+	}
+
+	@SuppressWarnings("unchecked")
+	private ChildNameAndDef resolveChildNameAndDef(
+			BaseRuntimeChildDefinition theChild, Class<? extends IBase> theType) {
+		String childName = theChild.getChildNameByDatatype(theType);
+		BaseRuntimeElementDefinition<?> childDef = theChild.getChildElementDefinitionByDatatype(theType);
 		if (childDef == null) {
 			// if (theValue instanceof IBaseExtension) {
 			// return null;
@@ -360,7 +384,7 @@ public abstract class BaseParser implements IParser {
 			 * with the "code" one. This is messy, and presumably there is a better
 			 * way..
 			 */
-			BaseRuntimeElementDefinition<?> elementDef = myContext.getElementDefinition(type);
+			BaseRuntimeElementDefinition<?> elementDef = myContext.getElementDefinition(theType);
 			if (elementDef.getName().equals("code")) {
 				Class<? extends IBase> type2 =
 						myContext.getElementDefinition("code").getImplementingClass();
@@ -371,7 +395,7 @@ public abstract class BaseParser implements IParser {
 			// See possibly the user has extended a built-in type without
 			// declaring it anywhere, as in XmlParserDstu3Test#testEncodeUndeclaredBlock
 			if (childDef == null) {
-				Class<?> nextSuperType = theValue.getClass();
+				Class<?> nextSuperType = theType;
 				while (IBase.class.isAssignableFrom(nextSuperType) && childDef == null) {
 					if (Modifier.isAbstract(nextSuperType.getModifiers()) == false) {
 						BaseRuntimeElementDefinition<?> def =
@@ -385,7 +409,7 @@ public abstract class BaseParser implements IParser {
 			}
 
 			if (childDef == null) {
-				throwExceptionForUnknownChildType(theChild, type);
+				throwExceptionForUnknownChildType(theChild, theType);
 			}
 		}
 
@@ -646,11 +670,18 @@ public abstract class BaseParser implements IParser {
 		// Actually do the parse
 		T retVal = doParseResource(theResourceType, theReader);
 
-		RuntimeResourceDefinition def = myContext.getResourceDefinition(retVal);
+		return postProcessParsedResource(retVal);
+	}
+
+	/**
+	 * Applies the processing which is performed on every resource once it has been parsed
+	 */
+	<T extends IBaseResource> T postProcessParsedResource(T theResource) {
+		RuntimeResourceDefinition def = myContext.getResourceDefinition(theResource);
 		if ("Bundle".equals(def.getName())) {
 
 			if (isOverrideResourceIdWithBundleEntryFullUrl()) {
-				BundleUtil.processEntries(myContext, (IBaseBundle) retVal, t -> {
+				BundleUtil.processEntries(myContext, (IBaseBundle) theResource, t -> {
 					String fullUrl = t.getFullUrl();
 					if (fullUrl != null) {
 						IBaseResource resource = t.getResource();
@@ -692,7 +723,11 @@ public abstract class BaseParser implements IParser {
 			}
 		}
 
-		return retVal;
+		if (myContext.getParserOptions().isCompactModel()) {
+			CompactModelSupport.compact(myContext, theResource);
+		}
+
+		return theResource;
 	}
 
 	@SuppressWarnings("cast")
@@ -712,6 +747,28 @@ public abstract class BaseParser implements IParser {
 		return parseResource(null, theMessageString);
 	}
 
+	/**
+	 * Returns the values of a child element which should be encoded. This is normally the
+	 * {@link #preProcessValues(BaseRuntimeChildDefinition, IBaseResource, List, CompositeChildElement, EncodeContext) preprocessed}
+	 * values of the child, but when a Bundle is being encoded by
+	 * {@link #encodeBundleToWriter(IBaseBundle, Iterator, Writer)} the <code>Bundle.entry</code> values are
+	 * produced lazily as they are iterated.
+	 */
+	protected Iterator<? extends IBase> getChildValuesForEncoding(
+			BaseRuntimeChildDefinition theChild,
+			IBase theElement,
+			IBaseResource theResource,
+			CompositeChildElement theCompositeChildElement,
+			EncodeContext theEncodeContext) {
+		List<? extends IBase> values = theChild.getAccessor().getValues(theElement);
+		Iterator<? extends IBase> streamedEntries = theEncodeContext.takeStreamedBundleEntries(theElement, theChild);
+		if (streamedEntries != null) {
+			return new StreamedBundleEntryIterator(theChild, values, streamedEntries);
+		}
+		values = preProcessValues(theChild, theResource, values, theCompositeChildElement, theEncodeContext);
+		return values != null ? values.iterator() : Collections.emptyIterator();
+	}
+
 	protected List<? extends IBase> preProcessValues(
 			BaseRuntimeChildDefinition theMetaChildUncast,
 			IBaseResource theResource,
@@ -1034,6 +1091,8 @@ public abstract class BaseParser implements IParser {
 		private final List<EncodeContextPath> myEncodeElementPaths;
 		private final Set<String> myEncodeElementsAppliesToResourceTypes;
 		private final List<EncodeContextPath> myDontEncodeElementPaths;
+		private IBaseBundle myStreamedEntriesBundle;
+		private Iterator<? extends IBase> myStreamedEntries;
 
 		public EncodeContext(BaseParser theParser, ParserOptions theParserOptions) {
 			Collection<String> encodeElements = theParser.myEncodeElements;
@@ -1065,6 +1124,90 @@ public abstract class BaseParser implements IParser {
 		private Map<Key, List<BaseParser.CompositeChildElement>> getCompositeChildrenCache() {
 			return myCompositeChildrenCache;
 		}
+
+		private void setStreamedBundleEntries(IBaseBundle theBundle, Iterator<? extends IBase> theEntries) {
+			myStreamedEntriesBundle = theBundle;
+			myStreamedEntries = theEntries;
+		}
+
+		/**
+		 * Returns the streamed entries if the given child is <code>Bundle.entry</code> of the
+		 * Bundle being streamed (and clears them, since they can only be consumed once), or
+		 * <code>null</code> otherwise.
+		 */
+		@Nullable
+		private Iterator<? extends IBase> takeStreamedBundleEntries(
+				IBase theElement, BaseRuntimeChildDefinition theChild) {
+			if (myStreamedEntries == null
+					|| theElement != myStreamedEntriesBundle
+					|| !"entry".equals(theChild.getElementName())) {
+				return null;
+			}
+			Iterator<? extends IBase> retVal = myStreamedEntries;
+			myStreamedEntries = null;
+			return retVal;
+		}
+	}
+
+	/**
+	 * Wraps a value supplied to {@link #encodeBundleToWriter(IBaseBundle, Iterator, Writer)} in a new
+	 * <code>Bundle.entry</code> if it is a resource (populating <code>Bundle.entry.fullUrl</code> if the
+	 * resource ID contains a base URL), or returns it unchanged if it is already an entry.
+	 */
+	private static IBase toBundleEntry(
+			FhirContext theContext, BaseRuntimeChildDefinition theEntryChild, IBase theValue) {
+		if (!(theValue instanceof IBaseResource)) {
+			return theValue;
+		}
+
+		IBaseResource resource = (IBaseResource) theValue;
+		BaseRuntimeElementCompositeDefinition<?> entryDef =
+				(BaseRuntimeElementCompositeDefinition<?>) theEntryChild.getChildByName("entry");
+		IBase entry = entryDef.newInstance(theEntryChild.getInstanceConstructorArguments());
+		entryDef.getChildByName("resource").getMutator().setValue(entry, resource);
+
+		IIdType id = resource.getIdElement();
+		BaseRuntimeChildDefinition fullUrlChild = entryDef.getChildByName("fullUrl");
+		if (fullUrlChild != null && id != null && id.hasBaseUrl()) {
+			IPrimitiveType<?> fullUrl = (IPrimitiveType<?>) theContext.getElementDefinition("uri").newInstance();
+			fullUrl.setValueAsString(id.toVersionless().getValue());
+			fullUrlChild.getMutator().setValue(entry, fullUrl);
+		}
+		return entry;
+	}
+
+	/**
+	 * The <code>Bundle.entry</code> values for a Bundle being encoded by
+	 * {@link #encodeBundleToWriter(IBaseBundle, Iterator, Writer)}. Any entries already present in the Bundle
+	 * come first, followed by the streamed values (with any resources wrapped in a new entry). Values
+	 * are only created as they are iterated, and are not retained.
+	 */
+	private class StreamedBundleEntryIterator implements Iterator<IBase> {
+		private final BaseRuntimeChildDefinition myEntryChild;
+		private final Iterator<? extends IBase> myExistingEntries;
+		private final Iterator<? extends IBase> myStreamedEntries;
+
+		private StreamedBundleEntryIterator(
+				BaseRuntimeChildDefinition theEntryChild,
+				List<? extends IBase> theExistingEntries,
+				Iterator<? extends IBase> theStreamedEntries) {
+			myEntryChild = theEntryChild;
+			myExistingEntries = theExistingEntries.iterator();
+			myStreamedEntries = theStreamedEntries;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return myExistingEntries.hasNext() || myStreamedEntries.hasNext();
+		}
+
+		@Override
+		public IBase next() {
+			if (myExistingEntries.hasNext()) {
+				return myExistingEntries.next();
+			}
+			return toBundleEntry(myContext, myEntryChild, myStreamedEntries.next());
+		}
 	}
 
 	protected class CompositeChildElement {
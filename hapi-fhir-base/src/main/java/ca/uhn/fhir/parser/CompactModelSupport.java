@@ -0,0 +1,133 @@
+/*
+ * #%L
+ * HAPI FHIR - Core Library
+ * %%
+ * Copyright (C) 2014 - 2024 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.parser;
+
+import ca.uhn.fhir.context.BaseRuntimeChildDefinition;
+import ca.uhn.fhir.context.BaseRuntimeElementCompositeDefinition;
+import ca.uhn.fhir.context.BaseRuntimeElementDefinition;
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.context.ParserOptions;
+import org.hl7.fhir.instance.model.api.IBase;
+import org.hl7.fhir.instance.model.api.IBaseHasExtensions;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Support for {@link ParserOptions#setCompactModel(boolean) compact model} parsing
+ */
+final class CompactModelSupport {
+
+	/**
+	 * Must be a power of 2
+	 */
+	private static final int STRING_POOL_SIZE = 8192;
+
+	private static final int MAX_POOLED_STRING_LENGTH = 128;
+
+	/**
+	 * A single pool is shared by every {@link FhirContext} in the JVM, since pooled Strings
+	 * are never tied to a particular context.
+	 * This is a lossy pool: a new value simply replaces whatever was previously stored in its
+	 * slot, so the pool never grows and never needs to be cleaned up. Reads and writes are
+	 * deliberately unsynchronized, since Strings are immutable and losing an occasional
+	 * update only means that a value isn't shared.
+	 */
+	private static final String[] ourStringPool = new String[STRING_POOL_SIZE];
+
+	/**
+	 * Non-instantiable
+	 */
+	private CompactModelSupport() {
+		super();
+	}
+
+	/**
+	 * Returns a previously seen String which is equal to the given value if one is available,
+	 * or the given value otherwise
+	 */
+	static String deduplicate(String theValue) {
+		if (theValue == null || theValue.length() > MAX_POOLED_STRING_LENGTH) {
+			return theValue;
+		}
+		int hash = theValue.hashCode();
+		int index = (hash ^ (hash >>> 16)) & (STRING_POOL_SIZE - 1);
+		String existing = ourStringPool[index];
+		if (theValue.equals(existing)) {
+			return existing;
+		}
+		ourStringPool[index] = theValue;
+		return theValue;
+	}
+
+	/**
+	 * Trims all of the lists holding the repeating elements of a freshly parsed resource
+	 * (including any contained resources) to their actual size
+	 */
+	static void compact(FhirContext theContext, IBaseResource theResource) {
+		compact(theContext, theContext.getResourceDefinition(theResource), theResource);
+	}
+
+	private static void compact(
+			FhirContext theContext, BaseRuntimeElementDefinition<?> theDefinition, IBase theElement) {
+		if (theDefinition instanceof BaseRuntimeElementCompositeDefinition) {
+			BaseRuntimeElementCompositeDefinition<?> compositeDefinition =
+					(BaseRuntimeElementCompositeDefinition<?>) theDefinition;
+			for (BaseRuntimeChildDefinition nextChild : compositeDefinition.getChildren()) {
+				List<? extends IBase> values = nextChild.getAccessor().getValues(theElement);
+				if (values == null || values.isEmpty()) {
+					continue;
+				}
+				trimToSize(values);
+				for (IBase nextValue : values) {
+					if (nextValue != null) {
+						compact(theContext, getDefinition(theContext, nextChild, nextValue), nextValue);
+					}
+				}
+			}
+		} else if (theElement instanceof IBaseHasExtensions && ((IBaseHasExtensions) theElement).hasExtension()) {
+			// Primitive datatypes have no children in the model, but can still have extensions
+			List<? extends IBase> extensions = ((IBaseHasExtensions) theElement).getExtension();
+			trimToSize(extensions);
+			for (IBase nextExtension : extensions) {
+				compact(theContext, theContext.getElementDefinition(nextExtension.getClass()), nextExtension);
+			}
+		}
+	}
+
+	private static BaseRuntimeElementDefinition<?> getDefinition(
+			FhirContext theContext, BaseRuntimeChildDefinition theChild, IBase theValue) {
+		BaseRuntimeElementDefinition<?> retVal = theChild.getChildElementDefinitionByDatatype(theValue.getClass());
+		if (theValue instanceof IBaseResource) {
+			// Contained resources are declared through a placeholder definition
+			retVal = theContext.getResourceDefinition((IBaseResource) theValue);
+		} else if (retVal == null) {
+			retVal = theContext.getElementDefinition(theValue.getClass());
+		}
+		return retVal;
+	}
+
+	private static void trimToSize(List<? extends IBase> theValues) {
+		if (theValues instanceof ArrayList) {
+			((ArrayList<? extends IBase>) theValues).trimToSize();
+		}
+	}
+}
@@ -0,0 +1,135 @@
+/*
+ * #%L
+ * HAPI FHIR - Core Library
+ * %%
+ * Copyright (C) 2014 - 2024 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.parser;
+
+import ca.uhn.fhir.context.BaseRuntimeChildDefinition;
+import ca.uhn.fhir.context.BaseRuntimeElementCompositeDefinition;
+import ca.uhn.fhir.context.BaseRuntimeElementDefinition;
+import ca.uhn.fhir.context.PerformanceOptionsEnum;
+import ca.uhn.fhir.context.RuntimeChildChoiceDefinition;
+import ca.uhn.fhir.model.api.annotation.Child;
+import org.hl7.fhir.instance.model.api.IBase;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Holds the per-definition lookup tables ("plans") used by the parsers when
+ * {@link PerformanceOptionsEnum#COMPILED_PARSER_PLANS} is enabled. A single
+ * instance is shared by all parsers created by a given
+ * {@link ca.uhn.fhir.context.FhirContext}.
+ * <p>
+ * This class is not intended to be used by client code.
+ * </p>
+ *
+ * @since 7.6.0
+ */
+public final class CompiledParserPlans {
+
+	private final Map<BaseRuntimeChildDefinition, Map<Class<? extends IBase>, BaseParser.ChildNameAndDef>>
+			myEncodeTargets = new ConcurrentHashMap<>();
+	private final Map<BaseRuntimeElementCompositeDefinition<?>, Map<String, ParseTarget>> myParseTargets =
+			new ConcurrentHashMap<>();
+
+	/**
+	 * Returns the table of encoded element name and definition for each datatype
+	 * which has been encoded in the given child so far. The table is populated
+	 * by the encoder as new datatypes are encountered.
+	 */
+	Map<Class<? extends IBase>, BaseParser.ChildNameAndDef> getEncodeTargets(BaseRuntimeChildDefinition theChild) {
+		return myEncodeTargets.computeIfAbsent(theChild, t -> new ConcurrentHashMap<>());
+	}
+
+	/**
+	 * Returns a table containing every valid element name for the given definition,
+	 * along with the child and target definition the name resolves to.
+	 */
+	Map<String, ParseTarget> getParseTargets(BaseRuntimeElementCompositeDefinition<?> theDefinition) {
+		return myParseTargets.computeIfAbsent(theDefinition, CompiledParserPlans::compileParseTargets);
+	}
+
+	private static Map<String, ParseTarget> compileParseTargets(
+			BaseRuntimeElementCompositeDefinition<?> theDefinition) {
+		Map<String, ParseTarget> retVal = new HashMap<>();
+		for (BaseRuntimeChildDefinition nextChild : theDefinition.getChildren()) {
+			boolean nonRepeatable = nextChild.getMax() == 0 || nextChild.getMax() == 1;
+			for (String nextName : nextChild.getValidChildNames()) {
+				BaseRuntimeElementDefinition<?> target = nextChild.getChildByName(nextName);
+				if (target == null) {
+					continue;
+				}
+				String nonRepeatableName = null;
+				if (nonRepeatable) {
+					if (nextChild instanceof RuntimeChildChoiceDefinition) {
+						nonRepeatableName = ((RuntimeChildChoiceDefinition) nextChild)
+								.getField()
+								.getName();
+					} else {
+						nonRepeatableName = nextName;
+					}
+				}
+				retVal.put(nextName, new ParseTarget(nextChild, target, nonRepeatableName));
+			}
+		}
+		return Collections.unmodifiableMap(retVal);
+	}
+
+	/**
+	 * A single entry in a parse plan
+	 */
+	static class ParseTarget {
+
+		private final BaseRuntimeChildDefinition myChild;
+		private final BaseRuntimeElementDefinition<?> myTarget;
+		private final String myNonRepeatableName;
+
+		ParseTarget(
+				BaseRuntimeChildDefinition theChild,
+				BaseRuntimeElementDefinition<?> theTarget,
+				String theNonRepeatableName) {
+			myChild = theChild;
+			myTarget = theTarget;
+			myNonRepeatableName = theNonRepeatableName;
+		}
+
+		BaseRuntimeChildDefinition getChild() {
+			return myChild;
+		}
+
+		BaseRuntimeElementDefinition<?> getTarget() {
+			return myTarget;
+		}
+
+		/**
+		 * Returns the name used to detect illegal repetitions of this element, or <code>null</code> if the
+		 * element is allowed to repeat. For choice elements this is the field name, so that
+		 * <code>valueString</code> and <code>valueBoolean</code> are treated as a repetition.
+		 */
+		String getNonRepeatableName() {
+			return myNonRepeatableName;
+		}
+
+		boolean isRepeating() {
+			return myChild.getMax() > 1 || myChild.getMax() == Child.MAX_UNLIMITED;
+		}
+	}
+}
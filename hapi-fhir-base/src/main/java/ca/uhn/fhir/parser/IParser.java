@@ -29,6 +29,7 @@ import jakarta.annotation.Nonnull;
 import jakarta.annotation.Nullable;
 import org.hl7.fhir.instance.model.api.IAnyResource;
 import org.hl7.fhir.instance.model.api.IBase;
+import org.hl7.fhir.instance.model.api.IBaseBundle;
 import org.hl7.fhir.instance.model.api.IBaseResource;
 import org.hl7.fhir.instance.model.api.IIdType;
 
@@ -37,6 +38,7 @@ import java.io.InputStream;
 import java.io.Reader;
 import java.io.Writer;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
 
@@ -84,6 +86,28 @@ public interface IParser {
 	 */
 	String encodeToString(IBase theElement) throws DataFormatException;
 
+	/**
+	 * Encodes a Bundle to a writer, where the <code>Bundle.entry</code> values are supplied by an iterator
+	 * instead of being held in the Bundle itself. Each entry is written to the writer as soon as the iterator
+	 * produces it, and is not retained afterwards, so the full set of entries never needs to be present in
+	 * memory at the same time.
+	 * <p>
+	 * All elements other than <code>Bundle.entry</code> are taken from <code>theBundle</code>. Any entries
+	 * already present in <code>theBundle</code> are encoded before the entries supplied by the iterator.
+	 * Values supplied by the iterator may either be <code>Bundle.entry</code> elements, which are encoded
+	 * as-is, or {@link IBaseResource resources}, which are encoded as an entry containing the resource
+	 * (and a <code>Bundle.entry.fullUrl</code> if the resource ID contains a base URL).
+	 * </p>
+	 *
+	 * @param theBundle  The Bundle supplying all elements other than the streamed entries. Must not be null.
+	 * @param theEntries The entries to stream. Must not be null.
+	 * @param theWriter  The writer to write to.
+	 * @throws DataFormatException If any invalid elements within the contents to be encoded prevent successful encoding.
+	 * @since 7.6.0
+	 */
+	void encodeBundleToWriter(IBaseBundle theBundle, Iterator<? extends IBase> theEntries, Writer theWriter)
+			throws IOException, DataFormatException;
+
 	/**
 	 * Encodes any FHIR element to a writer.
 	 * If a {@link IBaseResource resource object} is passed in, the resource will be encoded using standard FHIR
@@ -26,6 +26,7 @@ import ca.uhn.fhir.context.BaseRuntimeElementDefinition.ChildTypeEnum;
 import ca.uhn.fhir.context.ConfigurationException;
 import ca.uhn.fhir.context.FhirContext;
 import ca.uhn.fhir.context.FhirVersionEnum;
+import ca.uhn.fhir.context.ParserOptions;
 import ca.uhn.fhir.context.RuntimeChildContainedResources;
 import ca.uhn.fhir.context.RuntimeChildDeclaredExtensionDefinition;
 import ca.uhn.fhir.context.RuntimeChildNarrativeDefinition;
@@ -54,6 +55,7 @@ import ca.uhn.fhir.parser.json.JsonLikeStructure;
 import ca.uhn.fhir.parser.json.jackson.JacksonStructure;
 import ca.uhn.fhir.rest.api.EncodingEnum;
 import ca.uhn.fhir.util.ElementUtil;
+import com.fasterxml.jackson.core.JsonToken;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.Validate;
 import org.apache.commons.text.WordUtils;
@@ -76,9 +78,14 @@ import java.io.Writer;
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 import static ca.uhn.fhir.context.BaseRuntimeElementDefinition.ChildTypeEnum.ID_DATATYPE;
 import static ca.uhn.fhir.context.BaseRuntimeElementDefinition.ChildTypeEnum.PRIMITIVE_DATATYPE;
@@ -236,6 +243,10 @@ public class JsonParser extends BaseParser implements IJsonLikeParser {
 
 	@Override
 	public <T extends IBaseResource> T doParseResource(Class<T> theResourceType, Reader theReader) {
+		if (getContext().getParserOptions().isStreamingJsonParsing()) {
+			return doParseResourceStreaming(theResourceType, theReader);
+		}
+
 		JsonLikeStructure jsonStructure = new JacksonStructure();
 		jsonStructure.load(theReader);
 
@@ -244,6 +255,31 @@ public class JsonParser extends BaseParser implements IJsonLikeParser {
 		return retVal;
 	}
 
+	/**
+	 * Parses a resource from the UTF-8 encoded JSON held in the given range of bytes, without first
+	 * decoding the content into characters. This is equivalent to
+	 * {@link #parseResource(Class, Reader)} and is used when the content is already available
+	 * as bytes (e.g. when reading NDJSON from a channel).
+	 */
+	<T extends IBaseResource> T parseResource(
+			Class<T> theResourceType, byte[] theBytes, int theOffset, int theLength) {
+		if (theResourceType != null) {
+			getContext().getResourceDefinition(theResourceType);
+		}
+
+		T retVal;
+		if (getContext().getParserOptions().isStreamingJsonParsing()) {
+			retVal = doParseResourceStreaming(
+					theResourceType, JacksonStructure.createStreamingParser(theBytes, theOffset, theLength));
+		} else {
+			JacksonStructure jsonStructure = new JacksonStructure();
+			jsonStructure.load(theBytes, theOffset, theLength);
+			retVal = doParseResource(theResourceType, jsonStructure);
+		}
+
+		return postProcessParsedResource(retVal);
+	}
+
 	public <T extends IBaseResource> T doParseResource(Class<T> theResourceType, JsonLikeStructure theJsonStructure) {
 		BaseJsonLikeObject object = theJsonStructure.getRootObject();
 
@@ -259,7 +295,17 @@ public class JsonParser extends BaseParser implements IJsonLikeParser {
 				ParserState.getPreResourceInstance(this, theResourceType, getContext(), true, getErrorHandler());
 		state.enteringNewElement(null, resourceType);
 
-		parseChildren(object, state);
+		List<ParserState<IBaseResource>> entryResourceStates = null;
+		if ("Bundle".equals(resourceType)) {
+			entryResourceStates = parseBundleEntryResourcesInParallel(object);
+		}
+
+		if (entryResourceStates != null) {
+			parseChildren(new BundleWithoutEntryResources(object), state);
+			state.setBundleEntryResources(entryResourceStates);
+		} else {
+			parseChildren(object, state);
+		}
 
 		state.endingElement();
 		state.endingElement();
@@ -270,6 +316,157 @@ public class JsonParser extends BaseParser implements IJsonLikeParser {
 		return retVal;
 	}
 
+	/**
+	 * Parses the resource of each entry in the given Bundle in parallel if
+	 * {@link ca.uhn.fhir.context.ParserOptions#setParallelBundleParsingThreshold(int) parallel Bundle parsing}
+	 * applies to it. Each resource is parsed by its own {@link ParserState}.
+	 *
+	 * @return Returns the state used to parse the resource of each entry (or <code>null</code> for entries
+	 * with no resource), or <code>null</code> if the Bundle should be parsed sequentially
+	 */
+	private List<ParserState<IBaseResource>> parseBundleEntryResourcesInParallel(BaseJsonLikeObject theBundle) {
+		ParserOptions parserOptions = getContext().getParserOptions();
+		int threshold = parserOptions.getParallelBundleParsingThreshold();
+		if (threshold <= 0 || !getContext().getVersion().getVersion().isRi()) {
+			return null;
+		}
+		BaseJsonLikeValue entryValue = theBundle.get("entry");
+		if (entryValue == null || !entryValue.isArray() || entryValue.getAsArray().size() < threshold) {
+			return null;
+		}
+
+		/*
+		 * Anything unusual (including content which is invalid, and nested Bundles, which
+		 * resolve references against the resources parsed before them) is left to the
+		 * sequential parse so that it is handled in exactly the same way as always
+		 */
+		BaseJsonLikeArray entries = entryValue.getAsArray();
+		List<BaseJsonLikeObject> entryResources = new ArrayList<>(entries.size());
+		for (int i = 0; i < entries.size(); i++) {
+			BaseJsonLikeValue nextEntry = entries.get(i);
+			if (nextEntry == null || !nextEntry.isObject()) {
+				return null;
+			}
+			BaseJsonLikeValue nextResource = nextEntry.getAsObject().get("resource");
+			if (nextResource == null) {
+				entryResources.add(null);
+				continue;
+			}
+			if (!nextResource.isObject() || nextEntry.getAsObject().get("_resource") != null) {
+				return null;
+			}
+			BaseJsonLikeValue nextResourceType = nextResource.getAsObject().get("resourceType");
+			if (nextResourceType == null
+					|| !nextResourceType.isString()
+					|| isBlank(nextResourceType.getAsString())
+					|| "Bundle".equals(nextResourceType.getAsString())) {
+				return null;
+			}
+			entryResources.add(nextResource.getAsObject());
+		}
+
+		ForkJoinPool pool = parserOptions.getParallelBundleParsingPool();
+		if (pool == null) {
+			pool = ForkJoinPool.commonPool();
+		}
+
+		List<ForkJoinTask<Object>> tasks = new ArrayList<>(entryResources.size());
+		for (BaseJsonLikeObject nextResource : entryResources) {
+			if (nextResource == null) {
+				tasks.add(null);
+				continue;
+			}
+			tasks.add(pool.submit(() -> {
+				try {
+					return parseBundleEntryResource(nextResource);
+				} catch (RuntimeException e) {
+					// Returned rather than thrown so that the caller sees the original exception
+					return e;
+				}
+			}));
+		}
+
+		List<ParserState<IBaseResource>> retVal = new ArrayList<>(tasks.size());
+		for (ForkJoinTask<Object> nextTask : tasks) {
+			Object nextResult = nextTask != null ? nextTask.join() : null;
+			if (nextResult instanceof RuntimeException) {
+				throw (RuntimeException) nextResult;
+			}
+			@SuppressWarnings("unchecked")
+			ParserState<IBaseResource> nextState = (ParserState<IBaseResource>) nextResult;
+			retVal.add(nextState);
+		}
+		return retVal;
+	}
+
+	private ParserState<IBaseResource> parseBundleEntryResource(BaseJsonLikeObject theResource) {
+		ParserState<IBaseResource> state =
+				ParserState.getPreResourceInstance(this, null, getContext(), true, getErrorHandler());
+		state.enteringNewElement(null, theResource.get("resourceType").getAsString());
+		parseChildren(theResource, state);
+		state.endingElement();
+		state.endingElement();
+		return state;
+	}
+
+	/**
+	 * Parses a resource directly from the stream of JSON tokens, without first loading the
+	 * whole document into a JSON tree. Complex elements are handed to the {@link ParserState}
+	 * as soon as they are read. Primitive values are held until the end of their enclosing
+	 * object so that they can be paired with their <code>_name</code> sibling (which may
+	 * appear either before or after them), and extensions are read as small trees since
+	 * the extension URL may appear after the value.
+	 */
+	private <T extends IBaseResource> T doParseResourceStreaming(Class<T> theResourceType, Reader theReader) {
+		return doParseResourceStreaming(theResourceType, JacksonStructure.createStreamingParser(theReader));
+	}
+
+	private <T extends IBaseResource> T doParseResourceStreaming(
+			Class<T> theResourceType, com.fasterxml.jackson.core.JsonParser theParser) {
+		try (com.fasterxml.jackson.core.JsonParser parser = theParser) {
+			parser.nextToken();
+
+			ParserState<? extends IBaseResource> state =
+					ParserState.getPreResourceInstance(this, theResourceType, getContext(), true, getErrorHandler());
+
+			JsonToken token = parser.nextToken();
+			if (token == JsonToken.FIELD_NAME && "resourceType".equals(parser.currentName())) {
+				if (parser.nextToken() != JsonToken.VALUE_STRING || isBlank(parser.getText())) {
+					throw new DataFormatException(
+							Msg.code(2556) + "Invalid JSON content detected, missing required element: 'resourceType'");
+				}
+				state.enteringNewElement(null, parser.getText());
+				parseChildrenStreaming(parser, state);
+			} else {
+				// resourceType is not the first property, so we need to see the whole object
+				BaseJsonLikeObject object = JacksonStructure.readRemainingObject(parser);
+				BaseJsonLikeValue resourceTypeObj = object.get("resourceType");
+				if (resourceTypeObj == null || !resourceTypeObj.isString() || isBlank(resourceTypeObj.getAsString())) {
+					throw new DataFormatException(
+							Msg.code(2556) + "Invalid JSON content detected, missing required element: 'resourceType'");
+				}
+				state.enteringNewElement(null, resourceTypeObj.getAsString());
+				parseChildren(object, state);
+			}
+
+			state.endingElement();
+			state.endingElement();
+
+			if (parser.nextToken() != null) {
+				throw new DataFormatException(Msg.code(2539)
+						+ "Failed to parse JSON encoded FHIR content: Unexpected content found after the end of the resource at "
+						+ parser.currentLocation().offsetDescription());
+			}
+
+			@SuppressWarnings("unchecked")
+			T retVal = (T) state.getObject();
+
+			return retVal;
+		} catch (IOException e) {
+			throw JacksonStructure.newParseException(e);
+		}
+	}
+
 	private void encodeChildElementToStreamWriter(
 			RuntimeResourceDefinition theResDef,
 			IBaseResource theResource,
@@ -534,10 +731,10 @@ public class JsonParser extends BaseParser implements IJsonLikeParser {
 				continue;
 			}
 
-			List<? extends IBase> values = nextChild.getAccessor().getValues(theElement);
-			values = preProcessValues(nextChild, theResource, values, nextChildElem, theEncodeContext);
+			Iterator<? extends IBase> values =
+					getChildValuesForEncoding(nextChild, theElement, theResource, nextChildElem, theEncodeContext);
 
-			if (values == null || values.isEmpty()) {
+			if (!values.hasNext()) {
 				continue;
 			}
 
@@ -550,7 +747,8 @@ public class JsonParser extends BaseParser implements IJsonLikeParser {
 			ArrayList<String> ids = new ArrayList<>(0);
 
 			int valueIdx = 0;
-			for (IBase nextValue : values) {
+			while (values.hasNext()) {
+				IBase nextValue = values.next();
 
 				if (nextValue == null || nextValue.isEmpty()) {
 					if (nextValue instanceof BaseContainedDt) {
@@ -1231,7 +1429,10 @@ public class JsonParser extends BaseParser implements IJsonLikeParser {
 	}
 
 	private BaseJsonLikeArray grabJsonArray(BaseJsonLikeObject theObject, String nextName, String thePosition) {
-		BaseJsonLikeValue object = theObject.get(nextName);
+		return grabJsonArray(theObject.get(nextName), thePosition);
+	}
+
+	private BaseJsonLikeArray grabJsonArray(BaseJsonLikeValue object, String thePosition) {
 		if (object == null || object.isNull()) {
 			return null;
 		}
@@ -1465,6 +1666,216 @@ public class JsonParser extends BaseParser implements IJsonLikeParser {
 		}
 	}
 
+	/**
+	 * Streaming equivalent of {@link #parseChildren(BaseJsonLikeObject, ParserState)}. On entry the
+	 * stream is positioned on the opening brace of the object or on the value of a property within it,
+	 * and on exit it is positioned on the closing brace.
+	 */
+	private void parseChildrenStreaming(com.fasterxml.jackson.core.JsonParser theParser, ParserState<?> theState)
+			throws IOException {
+		Map<String, BaseJsonLikeValue> deferredValues = null;
+		Map<String, BaseJsonLikeValue> alternateValues = null;
+		Set<String> streamedNames = null;
+
+		for (JsonToken token = theParser.nextToken(); token == JsonToken.FIELD_NAME; token = theParser.nextToken()) {
+			String nextName = theParser.currentName();
+			JsonToken valueToken = theParser.nextToken();
+
+			if ("resourceType".equals(nextName)) {
+				if (theState.isToplevelResourceElement()) {
+					theParser.skipChildren();
+					continue;
+				}
+			} else if ("extension".equals(nextName)) {
+				BaseJsonLikeArray array = grabJsonArray(JacksonStructure.readValue(theParser), "extension");
+				if (array != null) {
+					parseExtension(theState, array, false);
+				}
+				continue;
+			} else if ("modifierExtension".equals(nextName)) {
+				BaseJsonLikeArray array = grabJsonArray(JacksonStructure.readValue(theParser), "modifierExtension");
+				if (array != null) {
+					parseExtension(theState, array, true);
+				}
+				continue;
+			} else if (nextName.equals("fhir_comments")) {
+				parseFhirComments(JacksonStructure.readValue(theParser), theState);
+				continue;
+			} else if (nextName.charAt(0) == '_') {
+				if (alternateValues == null) {
+					alternateValues = new LinkedHashMap<>();
+				}
+				alternateValues.put(nextName, JacksonStructure.readValue(theParser));
+				continue;
+			}
+
+			String alternateName = '_' + nextName;
+			if (valueToken == JsonToken.START_OBJECT) {
+				if (streamedNames == null) {
+					streamedNames = new HashSet<>();
+				}
+				streamedNames.add(nextName);
+				BaseJsonLikeValue alternateVal = alternateValues != null ? alternateValues.get(alternateName) : null;
+				parseObjectStreaming(theParser, theState, nextName, alternateVal, alternateName, false);
+				continue;
+			}
+
+			if (valueToken == JsonToken.START_ARRAY && theParser.nextToken() == JsonToken.START_OBJECT) {
+				if (streamedNames == null) {
+					streamedNames = new HashSet<>();
+				}
+				streamedNames.add(nextName);
+				BaseJsonLikeValue alternateVal = alternateValues != null ? alternateValues.get(alternateName) : null;
+				parseArrayStreaming(theParser, theState, nextName, alternateVal, alternateName);
+				continue;
+			}
+
+			/*
+			 * Primitive values (and arrays of them) are small, and their extensions may come
+			 * later in the object as "_name", so they are processed once the object is complete
+			 */
+			BaseJsonLikeValue nextVal;
+			if (valueToken == JsonToken.START_ARRAY) {
+				nextVal = JacksonStructure.readRemainingArray(theParser);
+			} else {
+				nextVal = JacksonStructure.readValue(theParser);
+			}
+			if (deferredValues == null) {
+				deferredValues = new LinkedHashMap<>();
+			}
+			deferredValues.put(nextName, nextVal);
+		}
+
+		if (deferredValues != null) {
+			for (Map.Entry<String, BaseJsonLikeValue> next : deferredValues.entrySet()) {
+				String alternateName = '_' + next.getKey();
+				BaseJsonLikeValue alternateVal = alternateValues != null ? alternateValues.get(alternateName) : null;
+				parseChildren(theState, next.getKey(), next.getValue(), alternateVal, alternateName, false);
+			}
+		}
+
+		/*
+		 * This happens if an element has an extension but no actual value. I.e.
+		 * if a resource has a "_status" element but no corresponding "status"
+		 * element. This could be used to handle a null value with an extension
+		 * for example.
+		 */
+		if (alternateValues != null) {
+			for (Map.Entry<String, BaseJsonLikeValue> next : alternateValues.entrySet()) {
+				String alternateName = next.getKey();
+				if (alternateName.length() <= 1) {
+					continue;
+				}
+				String nextName = alternateName.substring(1);
+				if ((deferredValues != null && deferredValues.containsKey(nextName))
+						|| (streamedNames != null && streamedNames.contains(nextName))) {
+					continue;
+				}
+
+				BaseJsonLikeValue nextValue = next.getValue();
+				if (nextValue.isObject()) {
+					theState.enteringNewElement(null, nextName);
+					parseAlternates(nextValue, theState, alternateName, alternateName);
+					theState.endingElement();
+				} else {
+					getErrorHandler()
+							.incorrectJsonType(
+									null, alternateName, ValueType.OBJECT, null, nextValue.getJsonType(), null);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Streaming equivalent of the array case in
+	 * {@link #parseChildren(ParserState, String, BaseJsonLikeValue, BaseJsonLikeValue, String, boolean)}.
+	 * On entry the stream is positioned on the first value in the array, and on exit it is positioned
+	 * on the closing bracket.
+	 */
+	private void parseArrayStreaming(
+			com.fasterxml.jackson.core.JsonParser theParser,
+			ParserState<?> theState,
+			String theName,
+			BaseJsonLikeValue theAlternateVal,
+			String theAlternateName)
+			throws IOException {
+		BaseJsonLikeValue alternateVal = theAlternateVal;
+		if (alternateVal != null && alternateVal.isArray() == false) {
+			getErrorHandler()
+					.incorrectJsonType(null, theAlternateName, ValueType.ARRAY, null, alternateVal.getJsonType(), null);
+			alternateVal = null;
+		}
+
+		BaseJsonLikeArray nextAlternateArray = BaseJsonLikeValue.asArray(alternateVal); // could be null
+		int index = 0;
+		for (JsonToken token = theParser.currentToken(); token != JsonToken.END_ARRAY; token = theParser.nextToken()) {
+			BaseJsonLikeValue nextAlternate = null;
+			if (nextAlternateArray != null && nextAlternateArray.size() >= (index + 1)) {
+				nextAlternate = nextAlternateArray.get(index);
+			}
+			if (token == JsonToken.START_OBJECT) {
+				parseObjectStreaming(theParser, theState, theName, nextAlternate, theAlternateName, true);
+			} else {
+				BaseJsonLikeValue nextValue = JacksonStructure.readValue(theParser);
+				parseChildren(theState, theName, nextValue, nextAlternate, theAlternateName, true);
+			}
+			index++;
+		}
+	}
+
+	/**
+	 * Streaming equivalent of the object case in
+	 * {@link #parseChildren(ParserState, String, BaseJsonLikeValue, BaseJsonLikeValue, String, boolean)}.
+	 * On entry the stream is positioned on the opening brace of the object, and on exit it is
+	 * positioned on the closing brace.
+	 */
+	private void parseObjectStreaming(
+			com.fasterxml.jackson.core.JsonParser theParser,
+			ParserState<?> theState,
+			String theName,
+			BaseJsonLikeValue theAlternateVal,
+			String theAlternateName,
+			boolean theInArray)
+			throws IOException {
+		if (theName.equals("id")) {
+			getErrorHandler()
+					.incorrectJsonType(null, "id", ValueType.SCALAR, ScalarType.STRING, ValueType.OBJECT, null);
+		}
+		if (!theInArray && theState.elementIsRepeating(theName)) {
+			getErrorHandler().incorrectJsonType(null, theName, ValueType.ARRAY, null, ValueType.OBJECT, null);
+		}
+
+		theState.enteringNewElement(null, theName);
+		parseAlternates(theAlternateVal, theState, theAlternateName, theAlternateName);
+
+		if (theState.isPreResource()) {
+			JsonToken token = theParser.nextToken();
+			if (token == JsonToken.FIELD_NAME && "resourceType".equals(theParser.currentName())) {
+				if (theParser.nextToken() != JsonToken.VALUE_STRING) {
+					throw new DataFormatException(Msg.code(2557)
+							+ "Missing required element 'resourceType' from JSON resource object, unable to parse");
+				}
+				theState.enteringNewElement(null, theParser.getText());
+				parseChildrenStreaming(theParser, theState);
+			} else {
+				// resourceType is not the first property, so we need to see the whole object
+				BaseJsonLikeObject nextObject = JacksonStructure.readRemainingObject(theParser);
+				BaseJsonLikeValue resType = nextObject.get("resourceType");
+				if (resType == null || !resType.isString()) {
+					throw new DataFormatException(Msg.code(2557)
+							+ "Missing required element 'resourceType' from JSON resource object, unable to parse");
+				}
+				theState.enteringNewElement(null, resType.getAsString());
+				parseChildren(nextObject, theState);
+			}
+			theState.endingElement();
+		} else {
+			parseChildrenStreaming(theParser, theState);
+		}
+
+		theState.endingElement();
+	}
+
 	private void parseExtension(ParserState<?> theState, BaseJsonLikeArray theValues, boolean theIsModifier) {
 		int allUnderscoreNames = 0;
 		int handledUnderscoreNames = 0;
@@ -2049,4 +2460,87 @@ public class JsonParser extends BaseParser implements IJsonLikeParser {
 			theEventWriter.endObject();
 		}
 	}
+
+	/**
+	 * A view of a Bundle in which the entries have no resources, used to parse the rest of the
+	 * Bundle once the entry resources have been parsed separately
+	 */
+	private static class BundleWithoutEntryResources extends BaseJsonLikeObject {
+
+		private final BaseJsonLikeObject myBundle;
+
+		BundleWithoutEntryResources(BaseJsonLikeObject theBundle) {
+			myBundle = theBundle;
+		}
+
+		@Override
+		public Object getValue() {
+			return null;
+		}
+
+		@Override
+		public Iterator<String> keyIterator() {
+			return myBundle.keyIterator();
+		}
+
+		@Override
+		public BaseJsonLikeValue get(String theKey) {
+			BaseJsonLikeValue retVal = myBundle.get(theKey);
+			if ("entry".equals(theKey) && retVal != null) {
+				BaseJsonLikeArray entries = retVal.getAsArray();
+				retVal = new BaseJsonLikeArray() {
+					@Override
+					public Object getValue() {
+						return null;
+					}
+
+					@Override
+					public int size() {
+						return entries.size();
+					}
+
+					@Override
+					public BaseJsonLikeValue get(int theIndex) {
+						return new EntryWithoutResource(entries.get(theIndex).getAsObject());
+					}
+				};
+			}
+			return retVal;
+		}
+	}
+
+	private static class EntryWithoutResource extends BaseJsonLikeObject {
+
+		private final BaseJsonLikeObject myEntry;
+
+		EntryWithoutResource(BaseJsonLikeObject theEntry) {
+			myEntry = theEntry;
+		}
+
+		@Override
+		public Object getValue() {
+			return null;
+		}
+
+		@Override
+		public Iterator<String> keyIterator() {
+			Iterator<String> keys = myEntry.keyIterator();
+			List<String> retVal = new ArrayList<>();
+			while (keys.hasNext()) {
+				String next = keys.next();
+				if (!"resource".equals(next)) {
+					retVal.add(next);
+				}
+			}
+			return retVal.iterator();
+		}
+
+		@Override
+		public BaseJsonLikeValue get(String theKey) {
+			if ("resource".equals(theKey)) {
+				return null;
+			}
+			return myEntry.get(theKey);
+		}
+	}
 }
@@ -0,0 +1,355 @@
+/*
+ * #%L
+ * HAPI FHIR - Core Library
+ * %%
+ * Copyright (C) 2014 - 2024 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.parser;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.i18n.Msg;
+import org.apache.commons.lang3.Validate;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Reads the resources in an NDJSON file directly from its bytes. Line boundaries are found by
+ * scanning for the newline byte, which can not occur within a multibyte UTF-8 sequence, and each
+ * line is then handed to the JSON parser as bytes, so the content is never decoded into
+ * Strings or intermediate character buffers.
+ * <p>
+ * Content can be read from any {@link ReadableByteChannel}, from a {@link ByteBuffer} (such as
+ * a {@link java.nio.MappedByteBuffer} over a file), or from a {@link ByteRange range} of a
+ * {@link FileChannel}. Large files can be split into ranges using
+ * {@link #splitIntoRanges(FileChannel, int)} and each range read by a separate reader on its own
+ * thread. Readers for different ranges of the same file may safely share a single
+ * <code>FileChannel</code>.
+ * </p>
+ * <p>
+ * Instances of this class are not thread safe.
+ * </p>
+ *
+ * @since 7.6.0
+ */
+public class NDJsonChannelReader implements Closeable {
+
+	private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+	private static final int SPLIT_SCAN_BUFFER_SIZE = 8 * 1024;
+
+	private final JsonParser myJsonParser;
+	private final IByteSource mySource;
+	private final Closeable myCloseable;
+	private byte[] myBuffer = new byte[DEFAULT_BUFFER_SIZE];
+	private int myLineStart;
+	private int myScanFrom;
+	private int myBufferEnd;
+	private boolean myEndOfInput;
+	private long myLineNumber;
+
+	/**
+	 * Creates a reader which reads from the given channel until it reaches the end of its content.
+	 * Closing this reader closes the channel.
+	 */
+	public NDJsonChannelReader(FhirContext theContext, ReadableByteChannel theChannel) {
+		this(theContext, Validate.notNull(theChannel, "theChannel must not be null")::read, theChannel);
+	}
+
+	/**
+	 * Creates a reader for the remaining content (between the position and the limit) of the
+	 * given buffer. The buffer may be a {@link java.nio.MappedByteBuffer}, in which case the file
+	 * content is copied straight from the mapped pages into the parser's input buffer.
+	 */
+	public NDJsonChannelReader(FhirContext theContext, ByteBuffer theBuffer) {
+		this(theContext, newBufferSource(theBuffer), null);
+	}
+
+	/**
+	 * Creates a reader for the given range of a file, which would normally have been
+	 * created by {@link #splitIntoRanges(FileChannel, int)}. The channel is read using
+	 * absolute positions, so several readers may share a single channel. Closing this
+	 * reader does not close the channel.
+	 */
+	public NDJsonChannelReader(FhirContext theContext, FileChannel theChannel, ByteRange theRange) {
+		this(theContext, newFileRangeSource(theChannel, theRange), null);
+	}
+
+	private NDJsonChannelReader(FhirContext theContext, IByteSource theSource, Closeable theCloseable) {
+		Validate.notNull(theContext, "theContext must not be null");
+		myJsonParser = (JsonParser) theContext.newJsonParser();
+		mySource = theSource;
+		myCloseable = theCloseable;
+	}
+
+	/**
+	 * Returns the JSON parser used to parse each line, which may be used to configure the
+	 * parser (e.g. to set an error handler)
+	 */
+	public IParser getJsonParser() {
+		return myJsonParser;
+	}
+
+	/**
+	 * Returns the number of lines which have been read so far
+	 */
+	public long getLineNumber() {
+		return myLineNumber;
+	}
+
+	/**
+	 * Reads and parses the next line. A newline at the very end of the content does not start
+	 * a new line, but any other blank line is treated as invalid content, in the same way as
+	 * it is by {@link NDJsonParser#parseResource(java.io.Reader)}.
+	 *
+	 * @return Returns the next resource, or <code>null</code> if the end of the content has been reached
+	 * @throws DataFormatException If a line does not contain a valid resource
+	 */
+	public IBaseResource readNext() throws IOException, DataFormatException {
+		while (true) {
+			int newline = indexOfNewline();
+			if (newline == -1) {
+				if (!myEndOfInput) {
+					fillBuffer();
+					continue;
+				}
+				if (myLineStart == myBufferEnd) {
+					return null;
+				}
+				newline = myBufferEnd;
+			}
+
+			int lineStart = myLineStart;
+			myLineStart = Math.min(newline + 1, myBufferEnd);
+			myScanFrom = myLineStart;
+			myLineNumber++;
+
+			return parseLine(lineStart, newline);
+		}
+	}
+
+	/**
+	 * Reads and parses all remaining resources
+	 */
+	public List<IBaseResource> readAll() throws IOException, DataFormatException {
+		List<IBaseResource> retVal = new ArrayList<>();
+		for (IBaseResource next = readNext(); next != null; next = readNext()) {
+			retVal.add(next);
+		}
+		return retVal;
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (myCloseable != null) {
+			myCloseable.close();
+		}
+	}
+
+	private int indexOfNewline() {
+		for (int i = myScanFrom; i < myBufferEnd; i++) {
+			if (myBuffer[i] == '\n') {
+				return i;
+			}
+		}
+		myScanFrom = myBufferEnd;
+		return -1;
+	}
+
+	private void fillBuffer() throws IOException {
+		if (myLineStart > 0) {
+			// Move the partial line to the start of the buffer
+			int length = myBufferEnd - myLineStart;
+			System.arraycopy(myBuffer, myLineStart, myBuffer, 0, length);
+			myScanFrom -= myLineStart;
+			myLineStart = 0;
+			myBufferEnd = length;
+		} else if (myBufferEnd == myBuffer.length) {
+			// The current line doesn't fit in the buffer
+			byte[] newBuffer = new byte[myBuffer.length * 2];
+			System.arraycopy(myBuffer, 0, newBuffer, 0, myBufferEnd);
+			myBuffer = newBuffer;
+		}
+
+		int read = mySource.read(ByteBuffer.wrap(myBuffer, myBufferEnd, myBuffer.length - myBufferEnd));
+		if (read == -1) {
+			myEndOfInput = true;
+		} else {
+			myBufferEnd += read;
+		}
+	}
+
+	private IBaseResource parseLine(int theFrom, int theTo) {
+		// Lines are trimmed, as per the NDJSON spec
+		int from = theFrom;
+		int to = theTo;
+		while (from < to && isWhitespace(myBuffer[from])) {
+			from++;
+		}
+		while (to > from && isWhitespace(myBuffer[to - 1])) {
+			to--;
+		}
+
+		try {
+			return myJsonParser.parseResource(null, myBuffer, from, to - from);
+		} catch (DataFormatException e) {
+			throw new DataFormatException(
+					Msg.code(2545) + "Failed to parse NDJSON line " + myLineNumber + ": " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Splits the content of the given file into (at most) the given number of ranges of
+	 * roughly equal size. Every range starts at the beginning of a line and ends immediately
+	 * after a newline (or at the end of the file), so each range can be read independently
+	 * using {@link #NDJsonChannelReader(FhirContext, FileChannel, ByteRange)}.
+	 */
+	public static List<ByteRange> splitIntoRanges(FileChannel theChannel, int theMaxRanges) throws IOException {
+		Validate.notNull(theChannel, "theChannel must not be null");
+		Validate.isTrue(theMaxRanges > 0, "theMaxRanges must be positive");
+
+		long size = theChannel.size();
+		if (size == 0) {
+			return Collections.emptyList();
+		}
+
+		List<ByteRange> retVal = new ArrayList<>(theMaxRanges);
+		long rangeStart = 0;
+		for (int i = 1; i < theMaxRanges && rangeStart < size; i++) {
+			long target = Math.max(rangeStart, size * i / theMaxRanges);
+			long rangeEnd = findNextLineStart(theChannel, target, size);
+			if (rangeEnd > rangeStart && rangeEnd < size) {
+				retVal.add(new ByteRange(rangeStart, rangeEnd));
+				rangeStart = rangeEnd;
+			}
+		}
+		retVal.add(new ByteRange(rangeStart, size));
+		return retVal;
+	}
+
+	/**
+	 * Returns the position of the first line starting at or after the given position
+	 */
+	private static long findNextLineStart(FileChannel theChannel, long thePosition, long theSize)
+			throws IOException {
+		if (thePosition == 0) {
+			return 0;
+		}
+		ByteBuffer buffer = ByteBuffer.allocate(SPLIT_SCAN_BUFFER_SIZE);
+		long position = thePosition - 1;
+		while (position < theSize) {
+			buffer.clear();
+			int read = theChannel.read(buffer, position);
+			if (read == -1) {
+				break;
+			}
+			for (int i = 0; i < read; i++) {
+				if (buffer.get(i) == '\n') {
+					return position + i + 1;
+				}
+			}
+			position += read;
+		}
+		return theSize;
+	}
+
+	private static boolean isWhitespace(byte theByte) {
+		return theByte == ' ' || theByte == '\t' || theByte == '\r' || theByte == '\n';
+	}
+
+	private static IByteSource newBufferSource(ByteBuffer theBuffer) {
+		Validate.notNull(theBuffer, "theBuffer must not be null");
+		ByteBuffer source = theBuffer.slice();
+		return theTarget -> {
+			if (!source.hasRemaining()) {
+				return -1;
+			}
+			int length = Math.min(source.remaining(), theTarget.remaining());
+			ByteBuffer chunk = source.slice();
+			chunk.limit(length);
+			theTarget.put(chunk);
+			source.position(source.position() + length);
+			return length;
+		};
+	}
+
+	private static IByteSource newFileRangeSource(FileChannel theChannel, ByteRange theRange) {
+		Validate.notNull(theChannel, "theChannel must not be null");
+		Validate.notNull(theRange, "theRange must not be null");
+		long[] position = {theRange.getStart()};
+		return theTarget -> {
+			long remaining = theRange.getEnd() - position[0];
+			if (remaining <= 0) {
+				return -1;
+			}
+			if (theTarget.remaining() > remaining) {
+				theTarget.limit(theTarget.position() + (int) remaining);
+			}
+			int read = theChannel.read(theTarget, position[0]);
+			if (read > 0) {
+				position[0] += read;
+			}
+			return read;
+		};
+	}
+
+	@FunctionalInterface
+	private interface IByteSource {
+		int read(ByteBuffer theTarget) throws IOException;
+	}
+
+	/**
+	 * A range of bytes within a file
+	 */
+	public static class ByteRange {
+
+		private final long myStart;
+		private final long myEnd;
+
+		/**
+		 * @param theStart The position of the first byte in the range
+		 * @param theEnd   The position immediately after the last byte in the range
+		 */
+		public ByteRange(long theStart, long theEnd) {
+			Validate.isTrue(theStart >= 0 && theEnd >= theStart, "Invalid range: %d-%d", theStart, theEnd);
+			myStart = theStart;
+			myEnd = theEnd;
+		}
+
+		public long getStart() {
+			return myStart;
+		}
+
+		public long getEnd() {
+			return myEnd;
+		}
+
+		public long getLength() {
+			return myEnd - myStart;
+		}
+
+		@Override
+		public String toString() {
+			return myStart + "-" + myEnd;
+		}
+	}
+}
@@ -0,0 +1,97 @@
+/*
+ * #%L
+ * HAPI FHIR - Core Library
+ * %%
+ * Copyright (C) 2014 - 2024 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.parser;
+
+import ca.uhn.fhir.context.FhirContext;
+import org.apache.commons.lang3.Validate;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes resources as NDJSON to a {@link WritableByteChannel}. Each resource is encoded
+ * straight into a UTF-8 encoding buffer which is written to the channel whenever it fills up,
+ * so no String is created for the encoded resources. Every resource (including the last one)
+ * is followed by a newline.
+ * <p>
+ * Instances of this class are not thread safe.
+ * </p>
+ *
+ * @see NDJsonChannelReader
+ * @since 7.6.0
+ */
+public class NDJsonChannelWriter implements Closeable, Flushable {
+
+	private final IParser myJsonParser;
+	private final Writer myWriter;
+	private long myResourceCount;
+
+	/**
+	 * Constructor. Closing this writer closes the channel.
+	 */
+	public NDJsonChannelWriter(FhirContext theContext, WritableByteChannel theChannel) {
+		Validate.notNull(theContext, "theContext must not be null");
+		Validate.notNull(theChannel, "theChannel must not be null");
+		myJsonParser = theContext.newJsonParser();
+		myWriter = Channels.newWriter(theChannel, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Returns the JSON parser used to encode each resource, which may be used to configure
+	 * the encoding (e.g. to suppress elements). Pretty printing must not be enabled.
+	 */
+	public IParser getJsonParser() {
+		return myJsonParser;
+	}
+
+	/**
+	 * Returns the number of resources written so far
+	 */
+	public long getResourceCount() {
+		return myResourceCount;
+	}
+
+	/**
+	 * Encodes the given resource and writes it as a new line
+	 */
+	public NDJsonChannelWriter write(IBaseResource theResource) throws IOException {
+		Validate.notNull(theResource, "theResource must not be null");
+		myJsonParser.encodeResourceToWriter(theResource, myWriter);
+		myWriter.write('\n');
+		myResourceCount++;
+		return this;
+	}
+
+	@Override
+	public void flush() throws IOException {
+		myWriter.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		myWriter.close();
+	}
+}
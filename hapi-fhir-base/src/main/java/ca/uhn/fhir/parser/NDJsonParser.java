@@ -19,18 +19,24 @@
  */
 package ca.uhn.fhir.parser;
 
+import ca.uhn.fhir.context.BaseRuntimeElementCompositeDefinition;
 import ca.uhn.fhir.context.FhirContext;
 import ca.uhn.fhir.i18n.Msg;
 import ca.uhn.fhir.rest.api.EncodingEnum;
 import ca.uhn.fhir.util.BundleBuilder;
 import ca.uhn.fhir.util.BundleUtil;
+import org.apache.commons.lang3.Validate;
+import org.hl7.fhir.instance.model.api.IBase;
 import org.hl7.fhir.instance.model.api.IBaseBundle;
 import org.hl7.fhir.instance.model.api.IBaseResource;
 
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.Reader;
 import java.io.Writer;
+import java.nio.channels.Channels;
+import java.util.Iterator;
 import java.util.List;
 
 /**
@@ -81,9 +87,54 @@ public class NDJsonParser extends BaseParser {
 		List<IBaseResource> theBundleResources = BundleUtil.toListOfResources(myFhirContext, (IBaseBundle) theResource);
 
 		// Now we write each one in turn.
+		writeResources(theBundleResources.iterator(), theWriter, true);
+	}
+
+	/**
+	 * Each streamed entry is written as a line as soon as it is produced. Entries may be either
+	 * resources or <code>Bundle.entry</code> elements, in which case the entry resource is written.
+	 */
+	@Override
+	public void encodeBundleToWriter(IBaseBundle theBundle, Iterator<? extends IBase> theEntries, Writer theWriter)
+			throws IOException, DataFormatException {
+		Validate.notNull(theBundle, "theBundle can not be null");
+		Validate.notNull(theEntries, "theEntries can not be null");
+
+		List<IBaseResource> existingResources = BundleUtil.toListOfResources(myFhirContext, theBundle);
+		boolean isFirstResource = writeResources(existingResources.iterator(), theWriter, true);
+
+		Iterator<IBaseResource> streamedResources = new Iterator<>() {
+			@Override
+			public boolean hasNext() {
+				return theEntries.hasNext();
+			}
+
+			@Override
+			public IBaseResource next() {
+				IBase next = theEntries.next();
+				if (next instanceof IBaseResource) {
+					return (IBaseResource) next;
+				}
+				BaseRuntimeElementCompositeDefinition<?> entryDef =
+						(BaseRuntimeElementCompositeDefinition<?>) myFhirContext.getElementDefinition(next.getClass());
+				return entryDef.getChildByName("resource")
+						.getAccessor()
+						.<IBaseResource>getFirstValueOrNull(next)
+						.orElse(null);
+			}
+		};
+		writeResources(streamedResources, theWriter, isFirstResource);
+	}
+
+	private boolean writeResources(Iterator<IBaseResource> theResources, Writer theWriter, boolean theIsFirstResource)
+			throws IOException {
 		// Use newline only as a line separator, not at the end of the file.
-		boolean isFirstResource = true;
-		for (IBaseResource theBundleEntryResource : theBundleResources) {
+		boolean isFirstResource = theIsFirstResource;
+		while (theResources.hasNext()) {
+			IBaseResource theBundleEntryResource = theResources.next();
+			if (theBundleEntryResource == null) {
+				continue;
+			}
 			if (!(isFirstResource)) {
 				theWriter.write("\n");
 			}
@@ -91,17 +142,45 @@ public class NDJsonParser extends BaseParser {
 
 			myJsonParser.encodeResourceToWriter(theBundleEntryResource, theWriter);
 		}
+		return isFirstResource;
 	}
 
 	@Override
-	public <T extends IBaseResource> T doParseResource(Class<T> theResourceType, Reader theReader)
+	public IBaseResource parseResource(InputStream theInputStream) throws DataFormatException {
+		return parseResource(null, theInputStream);
+	}
+
+	/**
+	 * Content supplied as a stream is read using an {@link NDJsonChannelReader}, so that each line
+	 * is parsed straight from its bytes
+	 */
+	@Override
+	public <T extends IBaseResource> T parseResource(Class<T> theResourceType, InputStream theInputStream)
 			throws DataFormatException {
-		// We can only parse to bundles.
-		if ((theResourceType != null) && (!(IBaseBundle.class.isAssignableFrom(theResourceType)))) {
-			throw new DataFormatException(Msg.code(1834) + "NDJsonParser can only parse to Bundle types.  Received "
-					+ theResourceType.getName());
+		validateResourceType(theResourceType);
+
+		// The reader is not closed, since that would close the caller's stream
+		NDJsonChannelReader reader = new NDJsonChannelReader(myFhirContext, Channels.newChannel(theInputStream));
+		BundleBuilder builder = new BundleBuilder(myFhirContext);
+		builder.setType("collection");
+		try {
+			for (IBaseResource next = reader.readNext(); next != null; next = reader.readNext()) {
+				builder.addCollectionEntry(next);
+			}
+		} catch (IOException err) {
+			throw new DataFormatException(Msg.code(2546) + err.getMessage());
 		}
 
+		@SuppressWarnings("unchecked")
+		T retVal = (T) builder.getBundle();
+		return postProcessParsedResource(retVal);
+	}
+
+	@Override
+	public <T extends IBaseResource> T doParseResource(Class<T> theResourceType, Reader theReader)
+			throws DataFormatException {
+		validateResourceType(theResourceType);
+
 		try {
 			// Now we go through line-by-line parsing the JSON and then stuffing it into a bundle.
 			BundleBuilder myBuilder = new BundleBuilder(myFhirContext);
@@ -121,4 +200,12 @@ public class NDJsonParser extends BaseParser {
 			throw new DataFormatException(Msg.code(1835) + err.getMessage());
 		}
 	}
+
+	private static void validateResourceType(Class<?> theResourceType) {
+		// We can only parse to bundles.
+		if ((theResourceType != null) && (!(IBaseBundle.class.isAssignableFrom(theResourceType)))) {
+			throw new DataFormatException(Msg.code(1834) + "NDJsonParser can only parse to Bundle types.  Received "
+					+ theResourceType.getName());
+		}
+	}
 }
@@ -90,6 +90,8 @@ class ParserState<T> {
 
 	private static final org.slf4j.Logger ourLog = org.slf4j.LoggerFactory.getLogger(ParserState.class);
 	private final FhirContext myContext;
+	private final CompiledParserPlans myCompiledParserPlans;
+	private final boolean myCompactModel;
 	private final IParserErrorHandler myErrorHandler;
 	private final boolean myJsonMode;
 	private final IParser myParser;
@@ -104,10 +106,44 @@ class ParserState<T> {
 			IParser theParser, FhirContext theContext, boolean theJsonMode, IParserErrorHandler theErrorHandler) {
 		myParser = theParser;
 		myContext = theContext;
+		myCompiledParserPlans = theContext.getCompiledParserPlans();
+		myCompactModel = theContext.getParserOptions().isCompactModel();
 		myJsonMode = theJsonMode;
 		myErrorHandler = theErrorHandler;
 	}
 
+	/**
+	 * Sets resources which were parsed separately, each by its own {@link ParserState}, as the
+	 * <code>Bundle.entry.resource</code> values of the Bundle currently being parsed by this state,
+	 * in entry order. The resources and references found by the other states are merged into this one,
+	 * so that references between the entries are resolved exactly as they would have been had the
+	 * resources been parsed by this state. This must be called while this state is positioned on
+	 * the Bundle (i.e. before it is ended).
+	 *
+	 * @param theEntryResourceStates The state used to parse the resource of each entry, or <code>null</code>
+	 *                               for entries which have no resource
+	 */
+	void setBundleEntryResources(List<ParserState<IBaseResource>> theEntryResourceStates) {
+		IBaseResource bundle = (IBaseResource) myState.getCurrentElement();
+		BaseRuntimeChildDefinition entryChild =
+				myContext.getResourceDefinition(bundle).getChildByName("entry");
+		BaseRuntimeElementCompositeDefinition<?> entryDef =
+				(BaseRuntimeElementCompositeDefinition<?>) entryChild.getChildByName("entry");
+		IMutator resourceMutator = entryDef.getChildByName("resource").getMutator();
+
+		List<IBase> entries = entryChild.getAccessor().getValues(bundle);
+		Validate.isTrue(entries.size() == theEntryResourceStates.size(), "Unexpected number of entries");
+		for (int i = 0; i < entries.size(); i++) {
+			ParserState<IBaseResource> nextState = theEntryResourceStates.get(i);
+			if (nextState == null) {
+				continue;
+			}
+			resourceMutator.setValue(entries.get(i), nextState.getObject());
+			myGlobalResources.addAll(nextState.myGlobalResources);
+			myGlobalReferences.addAll(nextState.myGlobalReferences);
+		}
+	}
+
 	public void attributeValue(String theName, String theValue) throws DataFormatException {
 		myState.attributeValue(theName, theValue);
 	}
@@ -125,6 +161,17 @@ class ParserState<T> {
 		}
 	}
 
+	/**
+	 * Returns a shared instance of the given value if
+	 * {@link ca.uhn.fhir.context.ParserOptions#isCompactModel() compact model} parsing is enabled
+	 */
+	private String compactString(String theValue) {
+		if (myCompactModel) {
+			return CompactModelSupport.deduplicate(theValue);
+		}
+		return theValue;
+	}
+
 	boolean elementIsRepeating(String theChildName) {
 		return myState.elementIsRepeating(theChildName);
 	}
@@ -311,7 +358,7 @@ class ParserState<T> {
 				if (theIsModifier == false) {
 					if (getCurrentElement() instanceof IBaseHasExtensions) {
 						IBaseExtension<?, ?> ext = ((IBaseHasExtensions) getCurrentElement()).addExtension();
-						ext.setUrl(theUrlAttr);
+						ext.setUrl(compactString(theUrlAttr));
 						ParserState<T>.ExtensionState newState = new ExtensionState(myPreResourceState, ext);
 						push(newState);
 					} else {
@@ -321,7 +368,7 @@ class ParserState<T> {
 					if (getCurrentElement() instanceof IBaseHasModifierExtensions) {
 						IBaseExtension<?, ?> ext =
 								((IBaseHasModifierExtensions) getCurrentElement()).addModifierExtension();
-						ext.setUrl(theUrlAttr);
+						ext.setUrl(compactString(theUrlAttr));
 						ParserState<T>.ExtensionState newState = new ExtensionState(myPreResourceState, ext);
 						push(newState);
 					} else {
@@ -554,6 +601,7 @@ class ParserState<T> {
 		private final IBase myInstance;
 		private final Set<String> myParsedNonRepeatableNames = new HashSet<>();
 		private final String myElementName;
+		private final Map<String, CompiledParserPlans.ParseTarget> myParseTargets;
 
 		ElementCompositeState(
 				BasePreResourceState thePreResourceState,
@@ -564,6 +612,7 @@ class ParserState<T> {
 			myDefinition = theDef;
 			myInstance = theInstance;
 			myElementName = theElementName;
+			myParseTargets = myCompiledParserPlans != null ? myCompiledParserPlans.getParseTargets(theDef) : null;
 		}
 
 		@Override
@@ -586,6 +635,12 @@ class ParserState<T> {
 
 		@Override
 		public boolean elementIsRepeating(String theChildName) {
+			if (myParseTargets != null) {
+				CompiledParserPlans.ParseTarget parseTarget = myParseTargets.get(theChildName);
+				if (parseTarget != null) {
+					return parseTarget.isRepeating();
+				}
+			}
 			BaseRuntimeChildDefinition child = myDefinition.getChildByName(theChildName);
 			if (child == null) {
 				return false;
@@ -600,6 +655,20 @@ class ParserState<T> {
 
 		@Override
 		public void enteringNewElement(String theNamespace, String theChildName) throws DataFormatException {
+			if (myParseTargets != null) {
+				CompiledParserPlans.ParseTarget parseTarget = myParseTargets.get(theChildName);
+				if (parseTarget != null) {
+					String nameToCheck = parseTarget.getNonRepeatableName();
+					if (nameToCheck != null && !myParsedNonRepeatableNames.add(nameToCheck)) {
+						myErrorHandler.unexpectedRepeatingElement(null, nameToCheck);
+						push(new SwallowChildrenWholeState(getPreResourceState()));
+						return;
+					}
+					enteringNewElement(theChildName, parseTarget.getChild(), parseTarget.getTarget());
+					return;
+				}
+			}
+
 			BaseRuntimeChildDefinition child = myDefinition.getChildByName(theChildName);
 			if (child == null) {
 				if (theChildName.equals("id")) {
@@ -642,13 +711,18 @@ class ParserState<T> {
 								+ myDefinition.getName() + "'. Valid names are: " + child.getValidChildNames());
 			}
 
-			switch (target.getChildType()) {
+			enteringNewElement(theChildName, child, target);
+		}
+
+		private void enteringNewElement(
+				String theChildName, BaseRuntimeChildDefinition theChild, BaseRuntimeElementDefinition<?> theTarget) {
+			switch (theTarget.getChildType()) {
 				case COMPOSITE_DATATYPE: {
 					BaseRuntimeElementCompositeDefinition<?> compositeTarget =
-							(BaseRuntimeElementCompositeDefinition<?>) target;
+							(BaseRuntimeElementCompositeDefinition<?>) theTarget;
 					ICompositeType newChildInstance =
-							newCompositeInstance(getPreResourceState(), child, compositeTarget);
-					child.getMutator().addValue(myInstance, newChildInstance);
+							newCompositeInstance(getPreResourceState(), theChild, compositeTarget);
+					theChild.getMutator().addValue(myInstance, newChildInstance);
 					ParserState<T>.ElementCompositeState newState = new ElementCompositeState(
 							getPreResourceState(), theChildName, compositeTarget, newChildInstance);
 					push(newState);
@@ -656,19 +730,19 @@ class ParserState<T> {
 				}
 				case ID_DATATYPE:
 				case PRIMITIVE_DATATYPE: {
-					RuntimePrimitiveDatatypeDefinition primitiveTarget = (RuntimePrimitiveDatatypeDefinition) target;
+					RuntimePrimitiveDatatypeDefinition primitiveTarget = (RuntimePrimitiveDatatypeDefinition) theTarget;
 					IPrimitiveType<?> newChildInstance;
-					newChildInstance = getPrimitiveInstance(child, primitiveTarget, theChildName);
-					child.getMutator().addValue(myInstance, newChildInstance);
+					newChildInstance = getPrimitiveInstance(theChild, primitiveTarget, theChildName);
+					theChild.getMutator().addValue(myInstance, newChildInstance);
 					PrimitiveState newState = new PrimitiveState(
 							getPreResourceState(), newChildInstance, theChildName, primitiveTarget.getName());
 					push(newState);
 					return;
 				}
 				case RESOURCE_BLOCK: {
-					RuntimeResourceBlockDefinition blockTarget = (RuntimeResourceBlockDefinition) target;
+					RuntimeResourceBlockDefinition blockTarget = (RuntimeResourceBlockDefinition) theTarget;
 					IBase newBlockInstance = newInstance(blockTarget);
-					child.getMutator().addValue(myInstance, newBlockInstance);
+					theChild.getMutator().addValue(myInstance, newBlockInstance);
 					ElementCompositeState newState = new ElementCompositeState(
 							getPreResourceState(), theChildName, blockTarget, newBlockInstance);
 					push(newState);
@@ -676,27 +750,27 @@ class ParserState<T> {
 				}
 				case PRIMITIVE_XHTML: {
 					RuntimePrimitiveDatatypeNarrativeDefinition xhtmlTarget =
-							(RuntimePrimitiveDatatypeNarrativeDefinition) target;
+							(RuntimePrimitiveDatatypeNarrativeDefinition) theTarget;
 					XhtmlDt newDt = newInstance(xhtmlTarget);
-					child.getMutator().addValue(myInstance, newDt);
+					theChild.getMutator().addValue(myInstance, newDt);
 					XhtmlState state = new XhtmlState(getPreResourceState(), newDt, true);
 					push(state);
 					return;
 				}
 				case PRIMITIVE_XHTML_HL7ORG: {
 					RuntimePrimitiveDatatypeXhtmlHl7OrgDefinition xhtmlTarget =
-							(RuntimePrimitiveDatatypeXhtmlHl7OrgDefinition) target;
+							(RuntimePrimitiveDatatypeXhtmlHl7OrgDefinition) theTarget;
 					IBaseXhtml newDt = newInstance(xhtmlTarget);
-					child.getMutator().addValue(myInstance, newDt);
+					theChild.getMutator().addValue(myInstance, newDt);
 					XhtmlStateHl7Org state = new XhtmlStateHl7Org(getPreResourceState(), newDt);
 					push(state);
 					return;
 				}
 				case CONTAINED_RESOURCES: {
-					List<? extends IBase> values = child.getAccessor().getValues(myInstance);
+					List<? extends IBase> values = theChild.getAccessor().getValues(myInstance);
 					if (values == null || values.isEmpty() || values.get(0) == null) {
 						Object newDt = newContainedDt((IResource) getPreResourceState().myInstance);
-						child.getMutator().addValue(myInstance, (IBase) newDt);
+						theChild.getMutator().addValue(myInstance, (IBase) newDt);
 					}
 					ContainedResourcesStateHapi state = new ContainedResourcesStateHapi(getPreResourceState());
 					push(state);
@@ -712,11 +786,11 @@ class ParserState<T> {
 							|| myInstance instanceof IBaseBackboneElement
 							|| myInstance instanceof IBaseElement) {
 						ParserState<T>.PreResourceStateHl7Org state =
-								new PreResourceStateHl7Org(myInstance, child.getMutator(), null);
+								new PreResourceStateHl7Org(myInstance, theChild.getMutator(), null);
 						push(state);
 					} else {
 						ParserState<T>.PreResourceStateHapi state =
-								new PreResourceStateHapi(myInstance, child.getMutator(), null);
+								new PreResourceStateHapi(myInstance, theChild.getMutator(), null);
 						push(state);
 					}
 					return;
@@ -728,7 +802,7 @@ class ParserState<T> {
 				}
 			}
 
-			throw new DataFormatException(Msg.code(1810) + "Illegal resource position: " + target.getChildType());
+			throw new DataFormatException(Msg.code(1810) + "Illegal resource position: " + theTarget.getChildType());
 		}
 
 		@Override
@@ -800,7 +874,7 @@ class ParserState<T> {
 
 		@Override
 		public void endingElement() throws DataFormatException {
-			if (myExtension.getValue() != null && myExtension.getExtension().size() > 0) {
+			if (myExtension.getValue() != null && hasChildExtensions()) {
 				throw new DataFormatException(Msg.code(1811) + "Extension (URL='" + myExtension.getUrl()
 						+ "') must not have both a value and other contained extensions");
 			}
@@ -868,6 +942,14 @@ class ParserState<T> {
 		protected IBaseExtension<?, ?> getCurrentElement() {
 			return myExtension;
 		}
+
+		private boolean hasChildExtensions() {
+			// Avoid calling getExtension() where possible, since it lazily creates an empty list
+			if (myExtension instanceof IBaseHasExtensions) {
+				return ((IBaseHasExtensions) myExtension).hasExtension();
+			}
+			return !myExtension.getExtension().isEmpty();
+		}
 	}
 
 	public class IdentifiableElementIdState extends BaseState {
@@ -1436,7 +1518,7 @@ class ParserState<T> {
 					}
 
 					try {
-						myInstance.setValueAsString(value);
+						myInstance.setValueAsString(compactString(value));
 					} catch (DataFormatException | IllegalArgumentException e) {
 						ParseLocation location = ParseLocation.fromElementName(myChildName);
 						myErrorHandler.invalidValue(location, value, e.getMessage());
@@ -64,6 +64,7 @@ import java.io.Writer;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
@@ -702,17 +703,18 @@ public class RDFParser extends BaseParser {
 				}
 			} else {
 
-				List<? extends IBase> values = nextChild.getAccessor().getValues(element);
-				values = super.preProcessValues(nextChild, resource, values, nextChildElem, encodeContext);
+				Iterator<? extends IBase> values =
+						super.getChildValuesForEncoding(nextChild, element, resource, nextChildElem, encodeContext);
 
-				if (values == null || values.isEmpty()) {
+				if (!values.hasNext()) {
 					continue;
 				}
 
 				Integer cardinalityIndex = null;
 				int indexCounter = 0;
 
-				for (IBase nextValue : values) {
+				while (values.hasNext()) {
+					IBase nextValue = values.next();
 					if (nextChild.getMax() != 1) {
 						cardinalityIndex = indexCounter;
 						indexCounter++;
@@ -475,13 +475,14 @@ public class XmlParser extends BaseParser {
 						theEncodeContext);
 			} else {
 
-				List<? extends IBase> values = nextChild.getAccessor().getValues(theElement);
-				values = preProcessValues(nextChild, theResource, values, nextChildElem, theEncodeContext);
+				Iterator<? extends IBase> values =
+						getChildValuesForEncoding(nextChild, theElement, theResource, nextChildElem, theEncodeContext);
 
-				if (values == null || values.isEmpty()) {
+				if (!values.hasNext()) {
 					continue;
 				}
-				for (IBase nextValue : values) {
+				while (values.hasNext()) {
+					IBase nextValue = values.next();
 					if ((nextValue == null || nextValue.isEmpty())) {
 						continue;
 					}
@@ -29,11 +29,13 @@ import ca.uhn.fhir.parser.json.JsonLikeStructure;
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.core.StreamReadConstraints;
 import com.fasterxml.jackson.core.json.JsonReadFeature;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.fasterxml.jackson.databind.json.JsonMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.DecimalNode;
@@ -54,6 +56,12 @@ import java.util.Map;
 public class JacksonStructure implements JsonLikeStructure {
 
 	private static final ObjectMapper OBJECT_MAPPER = createObjectMapper();
+	/**
+	 * Used to read single values from the middle of a token stream, where the tokens following the
+	 * value (e.g. the closing brace of the enclosing object) must not be treated as trailing content
+	 */
+	private static final ObjectReader STREAM_VALUE_READER =
+			OBJECT_MAPPER.reader().without(DeserializationFeature.FAIL_ON_TRAILING_TOKENS);
 	private JacksonWriter jacksonWriter;
 	private ROOT_TYPE rootType = null;
 	private JsonNode nativeRoot = null;
@@ -81,34 +89,10 @@ public class JacksonStructure implements JsonLikeStructure {
 
 	@Override
 	public void load(Reader theReader, boolean allowArray) throws DataFormatException {
-		PushbackReader pbr = new PushbackReader(theReader);
-		int nextInt;
 		try {
-			while (true) {
-				nextInt = pbr.read();
-				if (nextInt == -1) {
-					throw new DataFormatException(Msg.code(1857) + "Did not find any content to parse");
-				}
-				if (nextInt == '{') {
-					pbr.unread(nextInt);
-					break;
-				}
-				if (Character.isWhitespace(nextInt)) {
-					continue;
-				}
-				if (allowArray) {
-					if (nextInt == '[') {
-						pbr.unread(nextInt);
-						break;
-					}
-					throw new DataFormatException(Msg.code(1858)
-							+ "Content does not appear to be FHIR JSON, first non-whitespace character was: '"
-							+ (char) nextInt + "' (must be '{' or '[')");
-				}
-				throw new DataFormatException(Msg.code(1859)
-						+ "Content does not appear to be FHIR JSON, first non-whitespace character was: '"
-						+ (char) nextInt + "' (must be '{')");
-			}
+			PushbackReader pbr = skipToContent(theReader, allowArray);
+			int nextInt = pbr.read();
+			pbr.unread(nextInt);
 
 			if (nextInt == '{') {
 				setNativeObject((ObjectNode) OBJECT_MAPPER.readTree(pbr));
@@ -116,39 +100,194 @@ public class JacksonStructure implements JsonLikeStructure {
 				setNativeArray((ArrayNode) OBJECT_MAPPER.readTree(pbr));
 			}
 		} catch (Exception e) {
-			String message;
-			if (e instanceof JsonProcessingException) {
-				/*
-				 * Currently there is no way of preventing Jackson from adding this
-				 * annoying REDACTED message from certain messages we get back from
-				 * the parser, so we just manually strip them. Hopefully Jackson
-				 * will accept this request at some point:
-				 * https://github.com/FasterXML/jackson-core/issues/1158
-				 */
-				JsonProcessingException jpe = (JsonProcessingException) e;
-				StringBuilder messageBuilder = new StringBuilder();
-				String originalMessage = jpe.getOriginalMessage();
-				originalMessage = originalMessage.replace(
-						"Source: REDACTED (`StreamReadFeature.INCLUDE_SOURCE_IN_LOCATION` disabled); ", "");
-				messageBuilder.append(originalMessage);
-				if (jpe.getLocation() != null) {
-					messageBuilder.append("\n at [");
-					jpe.getLocation().appendOffsetDescription(messageBuilder);
-					messageBuilder.append("]");
+			throw newParseException(e);
+		}
+	}
+
+	/**
+	 * Loads the UTF-8 encoded JSON object held in the given range of bytes. Unlike {@link #load(Reader)}
+	 * the content is read directly by Jackson's byte based parser, so it is never decoded into an
+	 * intermediate character buffer.
+	 *
+	 * @since 7.6.0
+	 */
+	public void load(byte[] theBytes, int theOffset, int theLength) throws DataFormatException {
+		try {
+			int start = skipToContent(theBytes, theOffset, theOffset + theLength);
+			setNativeObject((ObjectNode) OBJECT_MAPPER.readTree(theBytes, start, theOffset + theLength - start));
+		} catch (Exception e) {
+			throw newParseException(e);
+		}
+	}
+
+	/**
+	 * Creates a Jackson token stream over the given reader, for use by parsers which consume
+	 * JSON tokens directly instead of loading the full document tree. The content is checked
+	 * in the same way as {@link #load(Reader)} before the stream is returned, so the first token
+	 * returned by the stream will always be the opening brace of the root object.
+	 *
+	 * @since 7.6.0
+	 */
+	public static JsonParser createStreamingParser(Reader theReader) throws DataFormatException {
+		try {
+			return OBJECT_MAPPER.createParser(skipToContent(theReader, false));
+		} catch (Exception e) {
+			throw newParseException(e);
+		}
+	}
+
+	/**
+	 * Creates a Jackson token stream over the UTF-8 encoded JSON held in the given range of bytes.
+	 * See {@link #createStreamingParser(Reader)}.
+	 *
+	 * @since 7.6.0
+	 */
+	public static JsonParser createStreamingParser(byte[] theBytes, int theOffset, int theLength)
+			throws DataFormatException {
+		try {
+			int start = skipToContent(theBytes, theOffset, theOffset + theLength);
+			return OBJECT_MAPPER.createParser(theBytes, start, theOffset + theLength - start);
+		} catch (Exception e) {
+			throw newParseException(e);
+		}
+	}
+
+	/**
+	 * Reads the value at the current position of a stream created by {@link #createStreamingParser(Reader)}
+	 * (including any nested objects and arrays) into a {@link BaseJsonLikeValue}. After this call the
+	 * stream is positioned on the last token of the value.
+	 *
+	 * @since 7.6.0
+	 */
+	public static BaseJsonLikeValue readValue(JsonParser theParser) throws IOException {
+		JsonNode node = STREAM_VALUE_READER.readTree(theParser);
+		return new JacksonJsonValue(node);
+	}
+
+	/**
+	 * Reads the remaining properties of the object currently being read from a stream created by
+	 * {@link #createStreamingParser(Reader)} into a {@link BaseJsonLikeObject}. On entry the stream must
+	 * be positioned on a property name within the object (or on the closing brace), and after this
+	 * call it is positioned on the closing brace.
+	 *
+	 * @since 7.6.0
+	 */
+	public static BaseJsonLikeObject readRemainingObject(JsonParser theParser) throws IOException {
+		ObjectNode retVal = OBJECT_MAPPER.createObjectNode();
+		for (JsonToken token = theParser.currentToken(); token == JsonToken.FIELD_NAME; token = theParser.nextToken()) {
+			String name = theParser.currentName();
+			theParser.nextToken();
+			retVal.set(name, STREAM_VALUE_READER.readTree(theParser));
+		}
+		return new JacksonJsonObject(retVal);
+	}
+
+	/**
+	 * Reads the remaining values of the array currently being read from a stream created by
+	 * {@link #createStreamingParser(Reader)} into a {@link BaseJsonLikeValue}. On entry the stream must
+	 * be positioned on a value within the array (or on the closing bracket), and after this call it is
+	 * positioned on the closing bracket.
+	 *
+	 * @since 7.6.0
+	 */
+	public static BaseJsonLikeValue readRemainingArray(JsonParser theParser) throws IOException {
+		ArrayNode retVal = OBJECT_MAPPER.createArrayNode();
+		for (JsonToken token = theParser.currentToken(); token != JsonToken.END_ARRAY; token = theParser.nextToken()) {
+			retVal.add(STREAM_VALUE_READER.<JsonNode>readTree(theParser));
+		}
+		return new JacksonJsonValue(retVal);
+	}
+
+	/**
+	 * Converts an exception thrown by Jackson while reading content into a {@link DataFormatException}
+	 * with a user friendly message.
+	 *
+	 * @since 7.6.0
+	 */
+	public static DataFormatException newParseException(Exception e) {
+		String message;
+		if (e instanceof JsonProcessingException) {
+			/*
+			 * Currently there is no way of preventing Jackson from adding this
+			 * annoying REDACTED message from certain messages we get back from
+			 * the parser, so we just manually strip them. Hopefully Jackson
+			 * will accept this request at some point:
+			 * https://github.com/FasterXML/jackson-core/issues/1158
+			 */
+			JsonProcessingException jpe = (JsonProcessingException) e;
+			StringBuilder messageBuilder = new StringBuilder();
+			String originalMessage = jpe.getOriginalMessage();
+			originalMessage = originalMessage.replace(
+					"Source: REDACTED (`StreamReadFeature.INCLUDE_SOURCE_IN_LOCATION` disabled); ", "");
+			messageBuilder.append(originalMessage);
+			if (jpe.getLocation() != null) {
+				messageBuilder.append("\n at [");
+				jpe.getLocation().appendOffsetDescription(messageBuilder);
+				messageBuilder.append("]");
+			}
+			message = messageBuilder.toString();
+		} else {
+			message = e.getMessage();
+		}
+
+		if (message.startsWith("Unexpected char 39")) {
+			return new DataFormatException(
+					Msg.code(1860) + "Failed to parse JSON encoded FHIR content: " + message + " - "
+							+ "This may indicate that single quotes are being used as JSON escapes where double quotes are required",
+					e);
+		}
+		return new DataFormatException(Msg.code(1861) + "Failed to parse JSON encoded FHIR content: " + message, e);
+	}
+
+	private static PushbackReader skipToContent(Reader theReader, boolean allowArray) throws IOException {
+		PushbackReader pbr = new PushbackReader(theReader);
+		int nextInt;
+		while (true) {
+			nextInt = pbr.read();
+			if (nextInt == -1) {
+				throw new DataFormatException(Msg.code(1857) + "Did not find any content to parse");
+			}
+			if (nextInt == '{') {
+				pbr.unread(nextInt);
+				break;
+			}
+			if (Character.isWhitespace(nextInt)) {
+				continue;
+			}
+			if (allowArray) {
+				if (nextInt == '[') {
+					pbr.unread(nextInt);
+					break;
 				}
-				message = messageBuilder.toString();
-			} else {
-				message = e.getMessage();
+				throw new DataFormatException(Msg.code(1858)
+						+ "Content does not appear to be FHIR JSON, first non-whitespace character was: '"
+						+ (char) nextInt + "' (must be '{' or '[')");
 			}
+			throw new DataFormatException(Msg.code(1859)
+					+ "Content does not appear to be FHIR JSON, first non-whitespace character was: '"
+					+ (char) nextInt + "' (must be '{')");
+		}
+		return pbr;
+	}
 
-			if (message.startsWith("Unexpected char 39")) {
-				throw new DataFormatException(
-						Msg.code(1860) + "Failed to parse JSON encoded FHIR content: " + message + " - "
-								+ "This may indicate that single quotes are being used as JSON escapes where double quotes are required",
-						e);
+	/**
+	 * Byte based equivalent of {@link #skipToContent(Reader, boolean)} for UTF-8 encoded content,
+	 * returning the index of the opening brace of the root object
+	 */
+	private static int skipToContent(byte[] theBytes, int theFrom, int theTo) {
+		for (int i = theFrom; i < theTo; i++) {
+			byte next = theBytes[i];
+			if (next == '{') {
+				return i;
+			}
+			if (next == ' ' || next == '\t' || next == '\r' || next == '\n') {
+				continue;
 			}
-			throw new DataFormatException(Msg.code(1861) + "Failed to parse JSON encoded FHIR content: " + message, e);
+			throw new DataFormatException(Msg.code(2543)
+					+ "Content does not appear to be FHIR JSON, first non-whitespace character was: '"
+					+ (char) (next & 0xFF) + "' (must be '{')");
 		}
+		throw new DataFormatException(Msg.code(2544) + "Did not find any content to parse");
 	}
 
 	@Override
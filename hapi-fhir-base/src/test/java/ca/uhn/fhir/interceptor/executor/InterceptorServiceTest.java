@@ -17,6 +17,7 @@ import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -63,6 +64,61 @@ public class InterceptorServiceTest {
 
 	}
 
+	@Test
+	public void testInterceptorThrowsCheckedException() {
+
+		class InterceptorThrowingCheckedException {
+			@Hook(Pointcut.TEST_RB)
+			public void test(String theValue) throws Exception {
+				throw new Exception(theValue);
+			}
+		}
+
+		InterceptorService svc = new InterceptorService();
+		svc.registerInterceptor(new InterceptorThrowingCheckedException());
+
+		try {
+			svc.callHooks(Pointcut.TEST_RB, new HookParams("A MESSAGE", "B"));
+			fail();
+		} catch (InternalErrorException e) {
+			assertEquals(Msg.code(1910) + "Failure invoking interceptor for pointcut(s) TEST_RB", e.getMessage());
+			assertEquals("A MESSAGE", e.getCause().getMessage());
+		}
+	}
+
+	@Test
+	public void testInvokeHookWithPointcutAndManyParameters() {
+
+		class InterceptorWithManyParameters {
+			private final List<Object> myValues = new ArrayList<>();
+
+			@Hook(Pointcut.TEST_RB)
+			public boolean test(String theValue0, Pointcut thePointcut, String theValue1, String theValue2, String theValue3, String theValue4, String theValue5, String theValue6) {
+				myValues.addAll(Arrays.asList(theValue0, thePointcut, theValue1, theValue2, theValue3, theValue4, theValue5, theValue6));
+				return false;
+			}
+		}
+
+		class InterceptorWithFewParameters {
+			private final List<Object> myValues = new ArrayList<>();
+
+			@Hook(value = Pointcut.TEST_RB, order = -1)
+			public void test(String theValue0, Pointcut thePointcut, String theValue1) {
+				myValues.addAll(Arrays.asList(theValue0, thePointcut, theValue1));
+			}
+		}
+
+		InterceptorService svc = new InterceptorService();
+		InterceptorWithManyParameters interceptorMany = new InterceptorWithManyParameters();
+		InterceptorWithFewParameters interceptorFew = new InterceptorWithFewParameters();
+		svc.registerInterceptor(interceptorMany);
+		svc.registerInterceptor(interceptorFew);
+
+		assertFalse(svc.callHooks(Pointcut.TEST_RB, new HookParams("A", "B")));
+		assertThat(interceptorFew.myValues).containsExactly("A", Pointcut.TEST_RB, "B");
+		assertThat(interceptorMany.myValues).containsExactly("A", Pointcut.TEST_RB, "B", null, null, null, null, null);
+	}
+
 	@Test
 	public void testInterceptorReturnsClass() {
 
@@ -264,6 +320,29 @@ public class InterceptorServiceTest {
 		assertThat(interceptor1.myLastString1).isSameAs("B");
 	}
 
+	@Test
+	public void testRegisterInterceptorWhileInvokingHooks() {
+		InterceptorService svc = new InterceptorService();
+		MyTestInterceptorManual lateInterceptor = new MyTestInterceptorManual();
+		svc.registerAnonymousInterceptor(Pointcut.TEST_RB, (thePointcut, theArgs) -> {
+			myInvocations.add("anonymous");
+			svc.registerInterceptor(lateInterceptor);
+		});
+
+		// The interceptor registered during the call is not invoked until the next call
+		svc.callHooks(Pointcut.TEST_RB, new HookParams("A", "B"));
+		assertThat(myInvocations).containsExactly("anonymous");
+
+		myInvocations.clear();
+		svc.callHooks(Pointcut.TEST_RB, new HookParams("A", "B"));
+		assertThat(myInvocations).containsExactly("anonymous", "MyTestInterceptorManual.testRb");
+		assertThat(svc.getInterceptorsWithInvokersForPointcut(Pointcut.TEST_RB)).hasSize(2);
+
+		svc.unregisterAllInterceptors();
+		assertFalse(svc.hasHooks(Pointcut.TEST_RB));
+		assertThat(svc.getInterceptorsWithInvokersForPointcut(Pointcut.TEST_RB)).isEmpty();
+	}
+
 	@Test
 	public void testInvokeAnonymousInterceptorMethods() {
 		InterceptorService svc = new InterceptorService();
@@ -0,0 +1,161 @@
+/*-
+ * #%L
+ * HAPI FHIR - Benchmarks
+ * %%
+ * Copyright (C) 2014 - 2024 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.benchmarks;
+
+import org.hl7.fhir.r4.model.Bundle;
+import org.hl7.fhir.r4.model.ContactPoint;
+import org.hl7.fhir.r4.model.DateTimeType;
+import org.hl7.fhir.r4.model.DateType;
+import org.hl7.fhir.r4.model.Enumerations;
+import org.hl7.fhir.r4.model.HumanName;
+import org.hl7.fhir.r4.model.Identifier;
+import org.hl7.fhir.r4.model.InstantType;
+import org.hl7.fhir.r4.model.Narrative;
+import org.hl7.fhir.r4.model.Observation;
+import org.hl7.fhir.r4.model.Patient;
+import org.hl7.fhir.r4.model.Quantity;
+import org.hl7.fhir.r4.model.Reference;
+import org.hl7.fhir.r4.model.StringType;
+
+import java.util.Date;
+
+/**
+ * Builds deterministic R4 resources which are representative of the content
+ * handled by a typical clinical data server. All benchmarks use these so
+ * that results are comparable across runs and releases.
+ */
+public class BenchmarkResources {
+
+	private static final long BASE_TIME = 1704067200000L; // 2024-01-01T00:00:00Z
+
+	/**
+	 * Non instantiable
+	 */
+	private BenchmarkResources() {
+		// nothing
+	}
+
+	public static Patient createPatient(int theIndex) {
+		Patient retVal = new Patient();
+		retVal.setId("Patient/P" + theIndex);
+		retVal.getMeta().setVersionId("1");
+		retVal.getMeta().setLastUpdatedElement(new InstantType(new Date(BASE_TIME + theIndex * 1000L)));
+		retVal.getMeta().addProfile("http://hl7.org/fhir/us/core/StructureDefinition/us-core-patient");
+		retVal.getText().setStatus(Narrative.NarrativeStatus.GENERATED);
+		retVal.getText().setDivAsString("<div xmlns=\"http://www.w3.org/1999/xhtml\">Patient " + theIndex + "</div>");
+		retVal.addExtension()
+				.setUrl("http://hl7.org/fhir/us/core/StructureDefinition/us-core-birthsex")
+				.setValue(new StringType("F"));
+		Identifier mrn = retVal.addIdentifier()
+				.setSystem("http://hospital.example.org/mrn")
+				.setValue("MRN" + theIndex);
+		mrn.getType().addCoding().setSystem("http://terminology.hl7.org/CodeSystem/v2-0203").setCode("MR");
+		retVal.addIdentifier().setSystem("http://hl7.org/fhir/sid/us-ssn").setValue("999-00-" + theIndex);
+		retVal.setActive(true);
+		retVal.addName(new HumanName()
+				.setUse(HumanName.NameUse.OFFICIAL)
+				.setFamily("Family" + theIndex)
+				.addGiven("Given" + theIndex)
+				.addGiven("Middle"));
+		retVal.addTelecom()
+				.setSystem(ContactPoint.ContactPointSystem.PHONE)
+				.setValue("555-0100-" + theIndex)
+				.setUse(ContactPoint.ContactPointUse.HOME);
+		retVal.setGender(
+				theIndex % 2 == 0
+						? Enumerations.AdministrativeGender.FEMALE
+						: Enumerations.AdministrativeGender.MALE);
+		retVal.setBirthDateElement(new DateType("1970-01-" + String.format("%02d", 1 + theIndex % 28)));
+		retVal.addAddress()
+				.addLine(theIndex + " Main Street")
+				.setCity("Toronto")
+				.setState("ON")
+				.setPostalCode("M5V 1A1")
+				.setCountry("CA");
+		retVal.setManagingOrganization(new Reference("Organization/O1").setDisplay("Example Hospital"));
+		return retVal;
+	}
+
+	public static Observation createObservation(int theIndex, String thePatientId) {
+		Observation retVal = new Observation();
+		retVal.setId("Observation/O" + theIndex);
+		retVal.getMeta().setVersionId("1");
+		retVal.getMeta().setLastUpdatedElement(new InstantType(new Date(BASE_TIME + theIndex * 1000L)));
+		retVal.setStatus(Observation.ObservationStatus.FINAL);
+		retVal.addCategory()
+				.addCoding()
+				.setSystem("http://terminology.hl7.org/CodeSystem/observation-category")
+				.setCode("vital-signs")
+				.setDisplay("Vital Signs");
+		retVal.getCode()
+				.addCoding()
+				.setSystem("http://loinc.org")
+				.setCode("8867-4")
+				.setDisplay("Heart rate");
+		retVal.getCode().setText("Heart rate");
+		retVal.setSubject(new Reference(thePatientId));
+		retVal.setEffective(new DateTimeType(new Date(BASE_TIME + theIndex * 60000L)));
+		retVal.setValue(new Quantity()
+				.setValue(60 + theIndex % 40)
+				.setUnit("beats/minute")
+				.setSystem("http://unitsofmeasure.org")
+				.setCode("/min"));
+		retVal.addInterpretation()
+				.addCoding()
+				.setSystem("http://terminology.hl7.org/CodeSystem/v3-ObservationInterpretation")
+				.setCode("N");
+		retVal.addReferenceRange()
+				.setLow(new Quantity().setValue(60).setUnit("beats/minute"))
+				.setHigh(new Quantity().setValue(100).setUnit("beats/minute"));
+		return retVal;
+	}
+
+	/**
+	 * Creates a searchset Bundle containing the given number of entries,
+	 * alternating between patients and observations referring to them.
+	 */
+	public static Bundle createSearchBundle(int theEntryCount) {
+		Bundle retVal = new Bundle();
+		retVal.setId("B1");
+		retVal.setType(Bundle.BundleType.SEARCHSET);
+		retVal.setTotal(theEntryCount);
+		retVal.addLink()
+				.setRelation("self")
+				.setUrl("http://example.com/fhir/Observation?_include=Observation:subject");
+		for (int i = 0; i < theEntryCount; i++) {
+			if (i % 2 == 0) {
+				Patient patient = createPatient(i);
+				retVal.addEntry()
+						.setFullUrl("http://example.com/fhir/" + patient.getId())
+						.setResource(patient)
+						.getSearch()
+						.setMode(Bundle.SearchEntryMode.INCLUDE);
+			} else {
+				Observation observation = createObservation(i, "Patient/P" + (i - 1));
+				retVal.addEntry()
+						.setFullUrl("http://example.com/fhir/" + observation.getId())
+						.setResource(observation)
+						.getSearch()
+						.setMode(Bundle.SearchEntryMode.MATCH);
+			}
+		}
+		return retVal;
+	}
+}
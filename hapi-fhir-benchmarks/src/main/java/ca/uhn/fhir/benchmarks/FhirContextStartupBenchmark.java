@@ -0,0 +1,68 @@
+/*-
+ * #%L
+ * HAPI FHIR - Benchmarks
+ * %%
+ * Copyright (C) 2014 - 2024 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.benchmarks;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.context.FhirVersionEnum;
+import ca.uhn.fhir.context.PerformanceOptionsEnum;
+import org.hl7.fhir.r4.model.Patient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cold start cost of creating an R4 {@link FhirContext} and parsing a first
+ * resource with it. Every measurement runs in a fresh JVM, so class loading and static
+ * initialization of the structure classes are included. Run with <code>-prof gc</code>
+ * to also report the memory allocated during startup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(20)
+public class FhirContextStartupBenchmark {
+
+	private static final String PATIENT =
+			"{\"resourceType\":\"Patient\",\"id\":\"P1\",\"active\":true,\"name\":[{\"family\":\"Smith\"}]}";
+
+	// Field names are the JMH parameter names shown on the command line (-p deferredModelScanning=...)
+	@Param({"false", "true"})
+	public boolean deferredModelScanning;
+
+	@Benchmark
+	public Patient createContextAndParse() {
+		FhirContext ctx = new FhirContext(FhirVersionEnum.R4);
+		if (deferredModelScanning) {
+			ctx.setPerformanceOptions(PerformanceOptionsEnum.DEFERRED_MODEL_SCANNING);
+		}
+		return ctx.newJsonParser().parseResource(Patient.class, PATIENT);
+	}
+}
@@ -0,0 +1,170 @@
+/*-
+ * #%L
+ * HAPI FHIR - Benchmarks
+ * %%
+ * Copyright (C) 2014 - 2024 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.benchmarks;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.interceptor.api.IInterceptorBroadcaster;
+import ca.uhn.fhir.interceptor.executor.InterceptorService;
+import ca.uhn.fhir.jpa.model.config.PartitionSettings;
+import ca.uhn.fhir.jpa.model.entity.StorageSettings;
+import ca.uhn.fhir.jpa.searchparam.MatchUrlService;
+import ca.uhn.fhir.jpa.searchparam.extractor.ISearchParamExtractor;
+import ca.uhn.fhir.jpa.searchparam.extractor.ResourceIndexedSearchParams;
+import ca.uhn.fhir.jpa.searchparam.extractor.SearchParamExtractorR4;
+import ca.uhn.fhir.jpa.searchparam.extractor.SearchParamExtractorService;
+import ca.uhn.fhir.jpa.searchparam.matcher.InMemoryMatchResult;
+import ca.uhn.fhir.jpa.searchparam.matcher.InMemoryResourceMatcher;
+import ca.uhn.fhir.jpa.searchparam.matcher.IndexedSearchParamExtractor;
+import ca.uhn.fhir.rest.api.server.SystemRequestDetails;
+import ca.uhn.fhir.rest.server.util.FhirContextSearchParamRegistry;
+import ca.uhn.fhir.rest.server.util.ISearchParamRegistry;
+import org.hl7.fhir.r4.model.Observation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link InMemoryResourceMatcher} matching of an Observation against criteria of the kind used by subscriptions, both when the resource indexes are
+ * supplied and when the matcher needs to extract them itself.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class InMemoryResourceMatcherBenchmark {
+
+	/*
+	 * JMH reports parameters using the field name, so this field doesn't
+	 * use the usual naming convention
+	 */
+	@Param({
+		"Observation?code=http://loinc.org|8867-4",
+		"Observation?subject=Patient/P1&status=final",
+		"Observation?code=http://loinc.org|8867-4&date=ge2024-01-01&value-quantity=gt50"
+	})
+	public String criteria;
+
+	private AnnotationConfigApplicationContext myAppCtx;
+	private InMemoryResourceMatcher myMatcher;
+	private Observation myObservation;
+	private ResourceIndexedSearchParams mySearchParams;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		myAppCtx = new AnnotationConfigApplicationContext(MatcherConfig.class);
+		myMatcher = myAppCtx.getBean(InMemoryResourceMatcher.class);
+		myObservation = BenchmarkResources.createObservation(2, "Patient/P1");
+		mySearchParams = myAppCtx.getBean(IndexedSearchParamExtractor.class)
+				.extractIndexedSearchParams(myObservation, new SystemRequestDetails());
+
+		// Make sure we're actually measuring a successful match
+		InMemoryMatchResult result = matchWithIndexes();
+		if (!result.supported() || !result.matched()) {
+			throw new IllegalStateException(
+					"Criteria " + criteria + " does not match: " + result.getUnsupportedReason());
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		myAppCtx.close();
+	}
+
+	@Benchmark
+	public InMemoryMatchResult matchWithIndexes() {
+		return myMatcher.match(criteria, myObservation, mySearchParams, new SystemRequestDetails());
+	}
+
+	@Benchmark
+	public InMemoryMatchResult matchWithoutIndexes() {
+		return myMatcher.match(criteria, myObservation, null, new SystemRequestDetails());
+	}
+
+	@Configuration
+	public static class MatcherConfig {
+
+		@Bean
+		public FhirContext fhirContext() {
+			return FhirContext.forR4Cached();
+		}
+
+		@Bean
+		public StorageSettings storageSettings() {
+			return new StorageSettings();
+		}
+
+		@Bean
+		public PartitionSettings partitionSettings() {
+			return new PartitionSettings();
+		}
+
+		@Bean
+		public ISearchParamRegistry searchParamRegistry(FhirContext theFhirContext) {
+			return new FhirContextSearchParamRegistry(theFhirContext);
+		}
+
+		@Bean
+		public IInterceptorBroadcaster interceptorBroadcaster() {
+			return new InterceptorService();
+		}
+
+		@Bean
+		public ISearchParamExtractor searchParamExtractor() {
+			return new SearchParamExtractorR4();
+		}
+
+		@Bean
+		public SearchParamExtractorService searchParamExtractorService() {
+			return new SearchParamExtractorService();
+		}
+
+		@Bean
+		public IndexedSearchParamExtractor indexedSearchParamExtractor() {
+			return new IndexedSearchParamExtractor();
+		}
+
+		@Bean
+		public MatchUrlService matchUrlService() {
+			return new MatchUrlService();
+		}
+
+		@Bean
+		public InMemoryResourceMatcher inMemoryResourceMatcher() {
+			return new InMemoryResourceMatcher();
+		}
+	}
+}
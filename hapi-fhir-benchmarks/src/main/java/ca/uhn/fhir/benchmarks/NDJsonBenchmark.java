@@ -0,0 +1,121 @@
+/*-
+ * #%L
+ * HAPI FHIR - Benchmarks
+ * %%
+ * Copyright (C) 2014 - 2024 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.benchmarks;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.parser.IParser;
+import ca.uhn.fhir.parser.NDJsonChannelReader;
+import ca.uhn.fhir.parser.NDJsonChannelWriter;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.hl7.fhir.r4.model.Bundle;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares reading and writing NDJSON line by line as Strings (as the bulk import and export
+ * jobs do) against {@link NDJsonChannelReader} and {@link NDJsonChannelWriter}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class NDJsonBenchmark {
+
+	private static final int RESOURCE_COUNT = 1000;
+
+	private FhirContext myFhirContext;
+	private List<IBaseResource> myResources;
+	private byte[] myNdJson;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		myFhirContext = FhirContext.forR4Cached();
+		myResources = new ArrayList<>();
+		Bundle bundle = BenchmarkResources.createSearchBundle(RESOURCE_COUNT);
+		bundle.getEntry().forEach(t -> myResources.add(t.getResource()));
+		myNdJson = writeChannel();
+	}
+
+	@Benchmark
+	public List<IBaseResource> readStringLines() throws IOException {
+		IParser parser = myFhirContext.newJsonParser();
+		List<IBaseResource> retVal = new ArrayList<>();
+		BufferedReader reader = new BufferedReader(
+				new InputStreamReader(new ByteArrayInputStream(myNdJson), StandardCharsets.UTF_8));
+		for (String next = reader.readLine(); next != null; next = reader.readLine()) {
+			retVal.add(parser.parseResource(next));
+		}
+		return retVal;
+	}
+
+	@Benchmark
+	public List<IBaseResource> readChannel() throws IOException {
+		return new NDJsonChannelReader(myFhirContext, ByteBuffer.wrap(myNdJson)).readAll();
+	}
+
+	@Benchmark
+	public byte[] writeStringLines() throws IOException {
+		IParser parser = myFhirContext.newJsonParser();
+		ByteArrayOutputStream retVal = new ByteArrayOutputStream();
+		try (Writer writer = new OutputStreamWriter(retVal, StandardCharsets.UTF_8)) {
+			for (IBaseResource next : myResources) {
+				writer.append(parser.encodeResourceToString(next));
+				writer.append("\n");
+			}
+		}
+		return retVal.toByteArray();
+	}
+
+	@Benchmark
+	public byte[] writeChannel() throws IOException {
+		ByteArrayOutputStream retVal = new ByteArrayOutputStream();
+		try (NDJsonChannelWriter writer = new NDJsonChannelWriter(myFhirContext, Channels.newChannel(retVal))) {
+			for (IBaseResource next : myResources) {
+				writer.write(next);
+			}
+		}
+		return retVal.toByteArray();
+	}
+}
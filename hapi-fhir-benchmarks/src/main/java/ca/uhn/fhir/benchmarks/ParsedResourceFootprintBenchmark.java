@@ -0,0 +1,101 @@
+/*-
+ * #%L
+ * HAPI FHIR - Benchmarks
+ * %%
+ * Copyright (C) 2014 - 2024 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.benchmarks;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.parser.IParser;
+import org.hl7.fhir.r4.model.Bundle;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the heap retained by parsed R4 resources, with and without
+ * {@link ca.uhn.fhir.context.ParserOptions#setCompactModel(boolean) compact model} parsing.
+ * The figure of interest is the <code>retainedBytesPerResource</code> secondary result;
+ * the time reported includes the forced garbage collections and is not meaningful.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 2, jvmArgs = {"-Xms2g", "-Xmx2g"})
+public class ParsedResourceFootprintBenchmark {
+
+	private static final int ENTRY_COUNT = 100;
+	private static final int BUNDLE_COUNT = 200;
+
+	// Field names are the JMH parameter names shown on the command line (-p compactModel=...)
+	@Param({"false", "true"})
+	public boolean compactModel;
+
+	private IParser myParser;
+	private String myInput;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		FhirContext ctx = FhirContext.forR4();
+		ctx.getParserOptions().setCompactModel(compactModel);
+		myParser = ctx.newJsonParser();
+		myInput = ctx.newJsonParser().encodeResourceToString(BenchmarkResources.createSearchBundle(ENTRY_COUNT));
+	}
+
+	@Benchmark
+	public List<Bundle> parseAndRetain(Footprint theFootprint) {
+		long before = usedHeapAfterGc();
+		List<Bundle> retVal = new ArrayList<>(BUNDLE_COUNT);
+		for (int i = 0; i < BUNDLE_COUNT; i++) {
+			retVal.add(myParser.parseResource(Bundle.class, myInput));
+		}
+		long after = usedHeapAfterGc();
+		theFootprint.retainedBytesPerResource = (after - before) / ((long) BUNDLE_COUNT * ENTRY_COUNT);
+		return retVal;
+	}
+
+	private static long usedHeapAfterGc() {
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+		}
+		return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+	}
+
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	public static class Footprint {
+		// Reported by JMH as a secondary result
+		public long retainedBytesPerResource;
+	}
+}
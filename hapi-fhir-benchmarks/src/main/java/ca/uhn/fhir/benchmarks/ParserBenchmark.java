@@ -0,0 +1,86 @@
+/*-
+ * #%L
+ * HAPI FHIR - Benchmarks
+ * %%
+ * Copyright (C) 2014 - 2024 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.benchmarks;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.parser.IParser;
+import ca.uhn.fhir.rest.api.EncodingEnum;
+import org.hl7.fhir.r4.model.Bundle;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures parsing and encoding of R4 search Bundles using the JSON and XML parsers
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class ParserBenchmark {
+
+	/*
+	 * JMH reports parameters using the field name, so these fields don't
+	 * use the usual naming convention
+	 */
+	@Param({"JSON", "XML"})
+	public EncodingEnum encoding;
+
+	@Param({"10", "100"})
+	public int entryCount;
+
+	private FhirContext myFhirContext;
+	private Bundle myBundle;
+	private String myEncodedBundle;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		myFhirContext = FhirContext.forR4Cached();
+		myBundle = BenchmarkResources.createSearchBundle(entryCount);
+		myEncodedBundle = newParser().encodeResourceToString(myBundle);
+	}
+
+	private IParser newParser() {
+		return encoding.newParser(myFhirContext);
+	}
+
+	@Benchmark
+	public Bundle parseBundle() {
+		return newParser().parseResource(Bundle.class, myEncodedBundle);
+	}
+
+	@Benchmark
+	public String encodeBundle() {
+		return newParser().encodeResourceToString(myBundle);
+	}
+}
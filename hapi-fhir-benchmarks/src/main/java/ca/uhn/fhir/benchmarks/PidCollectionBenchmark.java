@@ -0,0 +1,113 @@
+/*-
+ * #%L
+ * HAPI FHIR - Benchmarks
+ * %%
+ * Copyright (C) 2014 - 2024 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.benchmarks;
+
+import ca.uhn.fhir.jpa.model.dao.JpaPid;
+import ca.uhn.fhir.jpa.model.util.LongIntMap;
+import ca.uhn.fhir.jpa.model.util.LongSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reproduces the PID bookkeeping done by the JPA search builder for a large search: de-duplicating
+ * the PIDs returned by the query (with some repeats, as happens for <code>_include</code> and
+ * <code>$everything</code> searches), then mapping each PID to its position in the page so that
+ * loaded resources can be put in order. Compares boxed <code>JpaPid</code> collections with the
+ * primitive {@link LongSet} and {@link LongIntMap}. Run with <code>-prof gc</code>; the allocation
+ * rate per operation is the figure of interest.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class PidCollectionBenchmark {
+
+	@Param({"10000", "100000"})
+	public int pidCount;
+
+	private long[] myPids;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		Random random = new Random(0);
+		myPids = new long[pidCount];
+		for (int i = 0; i < pidCount; i++) {
+			// Roughly one PID in ten is a repeat of one seen earlier
+			myPids[i] = i > 0 && random.nextInt(10) == 0 ? myPids[random.nextInt(i)] : 1000L + i * 7L;
+		}
+	}
+
+	@Benchmark
+	public int boxed() {
+		Set<JpaPid> found = new HashSet<>();
+		for (long next : myPids) {
+			found.add(JpaPid.fromId(next));
+		}
+
+		Map<JpaPid, Integer> position = new HashMap<>();
+		int index = 0;
+		for (JpaPid next : found) {
+			position.put(next, index++);
+		}
+
+		int retVal = 0;
+		for (long next : myPids) {
+			retVal += position.get(JpaPid.fromId(next));
+		}
+		return retVal;
+	}
+
+	@Benchmark
+	public int primitive() {
+		LongSet found = new LongSet();
+		for (long next : myPids) {
+			found.add(next);
+		}
+
+		LongIntMap position = new LongIntMap(found.size());
+		int[] index = new int[1];
+		found.forEach(t -> position.put(t, index[0]++));
+
+		int retVal = 0;
+		for (long next : myPids) {
+			retVal += position.get(next, -1);
+		}
+		return retVal;
+	}
+}
@@ -0,0 +1,121 @@
+/*-
+ * #%L
+ * HAPI FHIR - Benchmarks
+ * %%
+ * Copyright (C) 2014 - 2024 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.benchmarks;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.jpa.model.util.DictionaryDeflateUtil;
+import org.apache.commons.io.IOUtils;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compares the codecs used to store resource bodies in the JPA resource history table:
+ * gzip (the <code>JSONC</code> encoding, reproduced here exactly as <code>GZipUtil</code>
+ * implements it) and dictionary deflate (the <code>JSOND</code> encoding). The uncompressed and
+ * compressed sizes of each resource are reported as the <code>uncompressedBytes</code> and
+ * <code>compressedBytes</code> secondary results of the <code>compress</code> benchmark.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class ResourceBodyCompressionBenchmark {
+
+	/*
+	 * JMH reports parameters using the field name, so these fields don't
+	 * use the usual naming convention
+	 */
+	@Param({"JSONC", "JSOND"})
+	public String codec;
+
+	@Param({"Patient", "Observation"})
+	public String resourceType;
+
+	private String myEncoded;
+	private int myEncodedLength;
+	private byte[] myCompressed;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		IBaseResource resource = "Patient".equals(resourceType)
+				? BenchmarkResources.createPatient(1)
+				: BenchmarkResources.createObservation(1, "Patient/P1");
+		myEncoded = FhirContext.forR4Cached().newJsonParser().encodeResourceToString(resource);
+		myEncodedLength = myEncoded.getBytes(StandardCharsets.UTF_8).length;
+		myCompressed = doCompress();
+	}
+
+	@Benchmark
+	public byte[] compress(Sizes theSizes) throws IOException {
+		byte[] retVal = doCompress();
+		theSizes.uncompressedBytes = myEncodedLength;
+		theSizes.compressedBytes = retVal.length;
+		return retVal;
+	}
+
+	private byte[] doCompress() throws IOException {
+		if ("JSOND".equals(codec)) {
+			return DictionaryDeflateUtil.compress(myEncoded);
+		}
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+		GZIPOutputStream gos = new GZIPOutputStream(os);
+		IOUtils.write(myEncoded, gos, "UTF-8");
+		gos.close();
+		return os.toByteArray();
+	}
+
+	@Benchmark
+	public String decompress() throws IOException {
+		if ("JSOND".equals(codec)) {
+			return DictionaryDeflateUtil.decompress(myCompressed);
+		}
+		return IOUtils.toString(new GZIPInputStream(new ByteArrayInputStream(myCompressed)), "UTF-8");
+	}
+
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	public static class Sizes {
+		// Reported by JMH as secondary results
+		public long uncompressedBytes;
+		public long compressedBytes;
+	}
+}
@@ -0,0 +1,120 @@
+/*-
+ * #%L
+ * HAPI FHIR - Benchmarks
+ * %%
+ * Copyright (C) 2014 - 2024 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.benchmarks;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.jpa.model.config.PartitionSettings;
+import ca.uhn.fhir.jpa.model.entity.StorageSettings;
+import ca.uhn.fhir.jpa.searchparam.extractor.ISearchParamExtractor;
+import ca.uhn.fhir.jpa.searchparam.extractor.SearchParamExtractorR4;
+import ca.uhn.fhir.rest.server.util.FhirContextSearchParamRegistry;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures search parameter extraction for Patient and Observation resources
+ * using the built-in R4 search parameters
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class SearchParamExtractorBenchmark {
+
+	/*
+	 * JMH reports parameters using the field name, so this field doesn't
+	 * use the usual naming convention
+	 */
+	@Param({"Patient", "Observation"})
+	public String resourceType;
+
+	private SearchParamExtractorR4 myExtractor;
+	private IBaseResource myResource;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		FhirContext fhirContext = FhirContext.forR4Cached();
+		myExtractor = new SearchParamExtractorR4(
+				new StorageSettings(),
+				new PartitionSettings(),
+				fhirContext,
+				new FhirContextSearchParamRegistry(fhirContext));
+		if ("Patient".equals(resourceType)) {
+			myResource = BenchmarkResources.createPatient(1);
+		} else {
+			myResource = BenchmarkResources.createObservation(2, "Patient/P1");
+		}
+	}
+
+	@Benchmark
+	public Object extractStrings() {
+		return myExtractor.extractSearchParamStrings(myResource);
+	}
+
+	@Benchmark
+	public Object extractTokens() {
+		return myExtractor.extractSearchParamTokens(myResource);
+	}
+
+	@Benchmark
+	public Object extractDates() {
+		return myExtractor.extractSearchParamDates(myResource);
+	}
+
+	@Benchmark
+	public Object extractQuantities() {
+		return myExtractor.extractSearchParamQuantity(myResource);
+	}
+
+	@Benchmark
+	public Object extractResourceLinks() {
+		return myExtractor.extractResourceLinks(myResource, false);
+	}
+
+	/**
+	 * All of the above, which is roughly what happens when a resource is stored
+	 */
+	@Benchmark
+	public int extractAll() {
+		ISearchParamExtractor extractor = myExtractor;
+		return extractor.extractSearchParamStrings(myResource).size()
+				+ extractor.extractSearchParamTokens(myResource).size()
+				+ extractor.extractSearchParamDates(myResource).size()
+				+ extractor.extractSearchParamNumber(myResource).size()
+				+ extractor.extractSearchParamQuantity(myResource).size()
+				+ extractor.extractSearchParamUri(myResource).size()
+				+ extractor.extractResourceLinks(myResource, false).size();
+	}
+}
@@ -0,0 +1,92 @@
+/*-
+ * #%L
+ * HAPI FHIR - Benchmarks
+ * %%
+ * Copyright (C) 2014 - 2024 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.benchmarks;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.util.FhirTerser;
+import org.hl7.fhir.instance.model.api.IBase;
+import org.hl7.fhir.r4.model.Bundle;
+import org.hl7.fhir.r4.model.Observation;
+import org.hl7.fhir.r4.model.Patient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link FhirTerser#getValues(IBase, String)} for a selection of simple,
+ * nested and choice paths
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class TerserBenchmark {
+
+	private FhirTerser myTerser;
+	private Patient myPatient;
+	private Observation myObservation;
+	private Bundle myBundle;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		myTerser = FhirContext.forR4Cached().newTerser();
+		myPatient = BenchmarkResources.createPatient(1);
+		myObservation = BenchmarkResources.createObservation(2, "Patient/P1");
+		myBundle = BenchmarkResources.createSearchBundle(20);
+	}
+
+	@Benchmark
+	public List<IBase> patientIdentifierValue() {
+		return myTerser.getValues(myPatient, "Patient.identifier.value");
+	}
+
+	@Benchmark
+	public List<IBase> patientNameGiven() {
+		return myTerser.getValues(myPatient, "Patient.name.given");
+	}
+
+	@Benchmark
+	public List<IBase> observationCodeCoding() {
+		return myTerser.getValues(myObservation, "Observation.code.coding");
+	}
+
+	@Benchmark
+	public List<IBase> observationValueQuantity() {
+		return myTerser.getValues(myObservation, "Observation.valueQuantity.value");
+	}
+
+	@Benchmark
+	public List<IBase> bundleEntryResource() {
+		return myTerser.getValues(myBundle, "Bundle.entry.resource");
+	}
+}
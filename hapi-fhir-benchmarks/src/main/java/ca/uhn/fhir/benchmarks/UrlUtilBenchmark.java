@@ -0,0 +1,85 @@
+/*-
+ * #%L
+ * HAPI FHIR - Benchmarks
+ * %%
+ * Copyright (C) 2014 - 2024 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.benchmarks;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.context.RuntimeResourceDefinition;
+import ca.uhn.fhir.util.UrlUtil;
+import org.apache.http.NameValuePair;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the {@link UrlUtil} methods used to parse request and match URLs
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class UrlUtilBenchmark {
+
+	private static final String QUERY_STRING =
+			"subject=Patient%2F123&code=http%3A%2F%2Floinc.org%7C8867-4&date=ge2024-01-01&date=lt2024-02-01"
+					+ "&_include=Observation%3Asubject&_count=50&_sort=-date";
+	private static final String MATCH_URL = "Observation?" + QUERY_STRING;
+	private static final String ABSOLUTE_URL = "http://example.com/fhir/Observation/O123/_history/2?_format=json";
+
+	private FhirContext myFhirContext;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		myFhirContext = FhirContext.forR4Cached();
+	}
+
+	@Benchmark
+	public Map<String, String[]> parseQueryString() {
+		return UrlUtil.parseQueryString(QUERY_STRING);
+	}
+
+	@Benchmark
+	public List<NameValuePair> translateMatchUrl() {
+		return UrlUtil.translateMatchUrl(MATCH_URL);
+	}
+
+	@Benchmark
+	public UrlUtil.UrlParts parseUrl() {
+		return UrlUtil.parseUrl(ABSOLUTE_URL);
+	}
+
+	@Benchmark
+	public RuntimeResourceDefinition parseUrlResourceType() {
+		return UrlUtil.parseUrlResourceType(myFhirContext, MATCH_URL);
+	}
+}
@@ -63,6 +63,7 @@ import ca.uhn.fhir.jpa.dao.expunge.IExpungeEverythingService;
 import ca.uhn.fhir.jpa.dao.expunge.IResourceExpungeService;
 import ca.uhn.fhir.jpa.dao.expunge.JpaResourceExpungeService;
 import ca.uhn.fhir.jpa.dao.expunge.ResourceTableFKProvider;
+import ca.uhn.fhir.jpa.dao.index.ChainIndexSvc;
 import ca.uhn.fhir.jpa.dao.index.DaoResourceLinkResolver;
 import ca.uhn.fhir.jpa.dao.index.DaoSearchParamSynchronizer;
 import ca.uhn.fhir.jpa.dao.index.IdHelperService;
@@ -96,6 +97,7 @@ import ca.uhn.fhir.jpa.partition.PartitionManagementProvider;
 import ca.uhn.fhir.jpa.partition.RequestPartitionHelperSvc;
 import ca.uhn.fhir.jpa.provider.DiffProvider;
 import ca.uhn.fhir.jpa.provider.InstanceReindexProvider;
+import ca.uhn.fhir.jpa.provider.MemoryCacheStatisticsProvider;
 import ca.uhn.fhir.jpa.provider.ProcessMessageProvider;
 import ca.uhn.fhir.jpa.provider.SubscriptionTriggeringProvider;
 import ca.uhn.fhir.jpa.provider.TerminologyUploaderProvider;
@@ -112,6 +114,7 @@ import ca.uhn.fhir.jpa.search.SearchStrategyFactory;
 import ca.uhn.fhir.jpa.search.SearchUrlJobMaintenanceSvcImpl;
 import ca.uhn.fhir.jpa.search.SynchronousSearchSvcImpl;
 import ca.uhn.fhir.jpa.search.builder.QueryStack;
+import ca.uhn.fhir.jpa.search.builder.predicate.ChainIndexPredicateBuilder;
 import ca.uhn.fhir.jpa.search.builder.predicate.ComboNonUniqueSearchParameterPredicateBuilder;
 import ca.uhn.fhir.jpa.search.builder.predicate.ComboUniqueSearchParameterPredicateBuilder;
 import ca.uhn.fhir.jpa.search.builder.predicate.CoordsPredicateBuilder;
@@ -134,9 +137,9 @@ import ca.uhn.fhir.jpa.search.builder.sql.SearchQueryExecutor;
 import ca.uhn.fhir.jpa.search.builder.sql.SqlObjectFactory;
 import ca.uhn.fhir.jpa.search.builder.tasks.SearchTask;
 import ca.uhn.fhir.jpa.search.cache.DatabaseSearchCacheSvcImpl;
-import ca.uhn.fhir.jpa.search.cache.DatabaseSearchResultCacheSvcImpl;
 import ca.uhn.fhir.jpa.search.cache.ISearchCacheSvc;
 import ca.uhn.fhir.jpa.search.cache.ISearchResultCacheSvc;
+import ca.uhn.fhir.jpa.search.cache.InMemorySearchResultCacheSvcImpl;
 import ca.uhn.fhir.jpa.search.elastic.IndexNamePrefixLayoutStrategy;
 import ca.uhn.fhir.jpa.search.reindex.IInstanceReindexService;
 import ca.uhn.fhir.jpa.search.reindex.IResourceReindexingSvc;
@@ -367,7 +370,7 @@ public class JpaConfig {
 
 	@Bean
 	public ISearchResultCacheSvc searchResultCacheSvc() {
-		return new DatabaseSearchResultCacheSvcImpl();
+		return new InMemorySearchResultCacheSvcImpl();
 	}
 
 	@Bean
@@ -456,6 +459,13 @@ public class JpaConfig {
 		return new DiffProvider();
 	}
 
+	@Bean
+	@Lazy
+	public MemoryCacheStatisticsProvider memoryCacheStatisticsProvider(
+			FhirContext theFhirContext, MemoryCacheService theMemoryCacheService) {
+		return new MemoryCacheStatisticsProvider(theFhirContext, theMemoryCacheService);
+	}
+
 	@Bean
 	@Lazy
 	public IPartitionLookupSvc partitionConfigSvc() {
@@ -589,6 +599,12 @@ public class JpaConfig {
 		return new RepositoryValidatingRuleBuilder(theValidationSupport);
 	}
 
+	@Bean
+	@Scope("prototype")
+	public ChainIndexPredicateBuilder newChainIndexPredicateBuilder(SearchQueryBuilder theSearchSqlBuilder) {
+		return new ChainIndexPredicateBuilder(theSearchSqlBuilder);
+	}
+
 	@Bean
 	@Scope("prototype")
 	public ComboUniqueSearchParameterPredicateBuilder newComboUniqueSearchParameterPredicateBuilder(
@@ -777,6 +793,11 @@ public class JpaConfig {
 		return new DaoSearchParamSynchronizer();
 	}
 
+	@Bean
+	public ChainIndexSvc chainIndexSvc() {
+		return new ChainIndexSvc();
+	}
+
 	@Bean
 	public ResourceTableFKProvider resourceTableFKProvider() {
 		return new ResourceTableFKProvider();
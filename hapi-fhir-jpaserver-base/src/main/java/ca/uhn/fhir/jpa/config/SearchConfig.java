@@ -41,6 +41,10 @@ import ca.uhn.fhir.jpa.search.PersistedJpaBundleProviderFactory;
 import ca.uhn.fhir.jpa.search.SearchCoordinatorSvcImpl;
 import ca.uhn.fhir.jpa.search.SearchStrategyFactory;
 import ca.uhn.fhir.jpa.search.builder.SearchBuilder;
+import ca.uhn.fhir.jpa.search.builder.SearchIncludesExecutor;
+import ca.uhn.fhir.jpa.search.builder.SearchKeysetPagingSvc;
+import ca.uhn.fhir.jpa.search.builder.SearchParamCardinalitySvc;
+import ca.uhn.fhir.jpa.search.builder.SearchPredicateOrderPlanner;
 import ca.uhn.fhir.jpa.search.builder.sql.SqlObjectFactory;
 import ca.uhn.fhir.jpa.search.builder.tasks.SearchContinuationTask;
 import ca.uhn.fhir.jpa.search.builder.tasks.SearchTask;
@@ -156,6 +160,27 @@ public class SearchConfig {
 		return new ExceptionService(myContext);
 	}
 
+	@Bean
+	public SearchIncludesExecutor searchIncludesExecutor() {
+		return new SearchIncludesExecutor(myStorageSettings, myEntityManagerFactory.getDataSource());
+	}
+
+	@Bean
+	public SearchParamCardinalitySvc searchParamCardinalitySvc() {
+		return new SearchParamCardinalitySvc();
+	}
+
+	@Bean
+	public SearchPredicateOrderPlanner searchPredicateOrderPlanner() {
+		return new SearchPredicateOrderPlanner(
+				searchParamCardinalitySvc(), mySearchParamRegistry, myPartitionSettings, myInterceptorBroadcaster);
+	}
+
+	@Bean
+	public SearchKeysetPagingSvc searchKeysetPagingSvc() {
+		return new SearchKeysetPagingSvc();
+	}
+
 	@Bean(name = ISearchBuilder.SEARCH_BUILDER_BEAN_NAME)
 	@Scope("prototype")
 	public ISearchBuilder newSearchBuilder(
@@ -42,6 +42,7 @@ import ca.uhn.fhir.jpa.dao.data.IResourceLinkDao;
 import ca.uhn.fhir.jpa.dao.data.IResourceTableDao;
 import ca.uhn.fhir.jpa.dao.data.IResourceTagDao;
 import ca.uhn.fhir.jpa.dao.expunge.ExpungeService;
+import ca.uhn.fhir.jpa.dao.index.ChainIndexSvc;
 import ca.uhn.fhir.jpa.dao.index.DaoSearchParamSynchronizer;
 import ca.uhn.fhir.jpa.dao.index.SearchParamWithInlineReferencesExtractor;
 import ca.uhn.fhir.jpa.dao.tx.HapiTransactionService;
@@ -66,6 +67,7 @@ import ca.uhn.fhir.jpa.model.entity.TagDefinition;
 import ca.uhn.fhir.jpa.model.entity.TagTypeEnum;
 import ca.uhn.fhir.jpa.model.search.ExtendedHSearchIndexData;
 import ca.uhn.fhir.jpa.model.search.StorageProcessingMessage;
+import ca.uhn.fhir.jpa.model.util.DictionaryDeflateUtil;
 import ca.uhn.fhir.jpa.model.util.JpaConstants;
 import ca.uhn.fhir.jpa.partition.IPartitionLookupSvc;
 import ca.uhn.fhir.jpa.searchparam.extractor.LogicalReferenceHelper;
@@ -242,6 +244,9 @@ public abstract class BaseHapiFhirDao<T extends IBaseResource> extends BaseStora
 	@Autowired
 	private DaoSearchParamSynchronizer myDaoSearchParamSynchronizer;
 
+	@Autowired
+	private ChainIndexSvc myChainIndexSvc;
+
 	private FhirContext myContext;
 	private ApplicationContext myApplicationContext;
 
@@ -1007,6 +1012,11 @@ public abstract class BaseHapiFhirDao<T extends IBaseResource> extends BaseStora
 		myDaoSearchParamSynchronizer = theDaoSearchParamSynchronizer;
 	}
 
+	@VisibleForTesting
+	public void setChainIndexSvc(ChainIndexSvc theChainIndexSvc) {
+		myChainIndexSvc = theChainIndexSvc;
+	}
+
 	private void verifyMatchUrlForConditionalCreateOrUpdate(
 			CreateOrUpdateByMatch theCreateOrUpdate,
 			IBaseResource theResource,
@@ -1257,15 +1267,24 @@ public abstract class BaseHapiFhirDao<T extends IBaseResource> extends BaseStora
 			if (newParams == null) {
 				myExpungeService.deleteAllSearchParams(JpaPid.fromId(entity.getId()));
 				entity.clearAllParamsPopulated();
+				myChainIndexSvc.synchronizeChainIndexes(entity, null, null, false, new AddRemoveCount());
+				invalidateCachedSearchTotals(entity.getResourceType());
 			} else {
 
 				// Synchronize search param indexes
 				AddRemoveCount searchParamAddRemoveCount =
 						myDaoSearchParamSynchronizer.synchronizeSearchParamsToDatabase(
 								newParams, entity, existingParams);
+				myChainIndexSvc.synchronizeChainIndexes(
+						entity, newParams, existingParams, theForceUpdate, searchParamAddRemoveCount);
 
 				newParams.populateResourceTableParamCollections(entity);
 
+				// Covers changes which don't write a new version, such as a reindex
+				if (!searchParamAddRemoveCount.isEmpty()) {
+					invalidateCachedSearchTotals(entity.getResourceType());
+				}
+
 				// Interceptor broadcast: JPA_PERFTRACE_INFO
 				if (!searchParamAddRemoveCount.isEmpty()) {
 					if (CompositeInterceptorBroadcaster.hasHooks(
@@ -1426,6 +1445,8 @@ public abstract class BaseHapiFhirDao<T extends IBaseResource> extends BaseStora
 		historyEntity.setResource(encodedResource.getResourceBinary());
 		historyEntity.setResourceTextVc(encodedResource.getResourceText());
 		myResourceHistoryTableDao.save(historyEntity);
+		invalidateCachedResourceBody(historyEntity);
+		invalidateCachedSearchTotals(historyEntity.getResourceType());
 
 		myJpaStorageResourceParser.updateResourceMetadata(historyEntity, theResource);
 
@@ -1465,6 +1486,28 @@ public abstract class BaseHapiFhirDao<T extends IBaseResource> extends BaseStora
 		}
 	}
 
+	/**
+	 * A body cached for this version may be stale if the version is being rewritten, or if
+	 * an earlier attempt to write the same version was rolled back
+	 */
+	private void invalidateCachedResourceBody(ResourceHistoryTable theHistoryEntity) {
+		if (myStorageSettings.getResourceBodyCacheMaxEntries() > 0) {
+			myMemoryCacheService.invalidateNowAndAfterCompletion(
+					MemoryCacheService.CacheEnum.RESOURCE_BODY,
+					new MemoryCacheService.ResourceVersionKey(
+							theHistoryEntity.getResourceId(), theHistoryEntity.getVersion()));
+		}
+	}
+
+	/**
+	 * Counts cached for searches on this resource type may no longer be correct. Other servers may have
+	 * counts cached for the resource type even if this one doesn't, so the invalidation is always sent.
+	 */
+	private void invalidateCachedSearchTotals(String theResourceType) {
+		myMemoryCacheService.invalidateNowAndAfterCompletion(
+				MemoryCacheService.CacheEnum.SEARCH_TOTAL_COUNT_GENERATION, theResourceType);
+	}
+
 	private void createHistoryEntry(
 			RequestDetails theRequest, IBaseResource theResource, ResourceTable theEntity, EncodedResource theChanged) {
 		boolean versionedTags =
@@ -1508,6 +1551,13 @@ public abstract class BaseHapiFhirDao<T extends IBaseResource> extends BaseStora
 
 		ourLog.debug("Saving history entry ID[{}] for RES_ID[{}]", historyEntry.getId(), historyEntry.getResourceId());
 		myResourceHistoryTableDao.save(historyEntry);
+		invalidateCachedResourceBody(historyEntry);
+		invalidateCachedSearchTotals(theEntity.getResourceType());
+		if (historyEntry.getVersion() > 1) {
+			// The current version cached for conditional creates is now stale
+			myMemoryCacheService.invalidateNowAndAfterCompletion(
+					MemoryCacheService.CacheEnum.RESOURCE_CONDITIONAL_CREATE_VERSION, historyEntry.getResourceId());
+		}
 		theEntity.setCurrentVersionEntity(historyEntry);
 
 		// Save resource source
@@ -1934,6 +1984,9 @@ public abstract class BaseHapiFhirDao<T extends IBaseResource> extends BaseStora
 			case JSONC:
 				resourceText = GZipUtil.decompress(theResourceBytes);
 				break;
+			case JSOND:
+				resourceText = DictionaryDeflateUtil.decompress(theResourceBytes);
+				break;
 			case DEL:
 			case ESR:
 				break;
@@ -51,7 +51,6 @@ import ca.uhn.fhir.jpa.model.dao.JpaPid;
 import ca.uhn.fhir.jpa.model.entity.BaseHasResource;
 import ca.uhn.fhir.jpa.model.entity.BaseTag;
 import ca.uhn.fhir.jpa.model.entity.PartitionablePartitionId;
-import ca.uhn.fhir.jpa.model.entity.ResourceEncodingEnum;
 import ca.uhn.fhir.jpa.model.entity.ResourceHistoryTable;
 import ca.uhn.fhir.jpa.model.entity.ResourceTable;
 import ca.uhn.fhir.jpa.model.entity.TagDefinition;
@@ -59,6 +58,7 @@ import ca.uhn.fhir.jpa.model.entity.TagTypeEnum;
 import ca.uhn.fhir.jpa.model.search.SearchRuntimeDetails;
 import ca.uhn.fhir.jpa.model.util.JpaConstants;
 import ca.uhn.fhir.jpa.partition.IRequestPartitionHelperSvc;
+import ca.uhn.fhir.jpa.search.ISynchronousSearchSvc;
 import ca.uhn.fhir.jpa.search.PersistedJpaBundleProvider;
 import ca.uhn.fhir.jpa.search.PersistedJpaBundleProviderFactory;
 import ca.uhn.fhir.jpa.search.ResourceSearchUrlSvc;
@@ -155,6 +155,7 @@ import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.Callable;
 import java.util.function.BiFunction;
+import java.util.function.Consumer;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -209,6 +210,9 @@ public abstract class BaseHapiFhirResourceDao<T extends IBaseResource> extends B
 	@Autowired
 	private PersistedJpaBundleProviderFactory myPersistedJpaBundleProviderFactory;
 
+	@Autowired
+	private ISynchronousSearchSvc mySynchronousSearchSvc;
+
 	@Autowired
 	private MemoryCacheService myMemoryCacheService;
 
@@ -1715,12 +1719,12 @@ public abstract class BaseHapiFhirResourceDao<T extends IBaseResource> extends B
 
 	private void reindexOptimizeStorageHistoryEntity(ResourceTable entity, ResourceHistoryTable historyEntity) {
 		boolean changed = false;
-		if (historyEntity.getEncoding() == ResourceEncodingEnum.JSONC
-				|| historyEntity.getEncoding() == ResourceEncodingEnum.JSON) {
+		if (ResourceHistoryCalculator.isBinaryEncoding(historyEntity.getEncoding())) {
 			byte[] resourceBytes = historyEntity.getResource();
 			if (resourceBytes != null) {
 				String resourceText = decodeResource(resourceBytes, historyEntity.getEncoding());
-				if (myResourceHistoryCalculator.conditionallyAlterHistoryEntity(entity, historyEntity, resourceText)) {
+				if (myResourceHistoryCalculator.conditionallyAlterHistoryEntity(
+						entity, historyEntity, resourceText, getStorageSettings().getResourceEncoding())) {
 					changed = true;
 				}
 			}
@@ -2129,6 +2133,22 @@ public abstract class BaseHapiFhirResourceDao<T extends IBaseResource> extends B
 		return searchForTransformedIds(theParams, theRequest, this::pidsToResource);
 	}
 
+	@SuppressWarnings("unchecked")
+	@Override
+	public void searchForResources(SearchParameterMap theParams, RequestDetails theRequest, Consumer<T> theConsumer) {
+		translateListSearchParams(theParams);
+
+		RequestPartitionId requestPartitionId =
+				myRequestPartitionHelperService.determineReadPartitionForRequestForSearchType(
+						theRequest, myResourceName, theParams);
+		ISearchBuilder<JpaPid> builder =
+				mySearchBuilderFactory.newSearchBuilder(this, getResourceName(), getResourceType());
+		String uuid = UUID.randomUUID().toString();
+
+		mySynchronousSearchSvc.executeQueryStreaming(
+				theParams, theRequest, uuid, builder, requestPartitionId, t -> theConsumer.accept((T) t));
+	}
+
 	@Override
 	public List<IIdType> searchForResourceIds(SearchParameterMap theParams, RequestDetails theRequest) {
 		return searchForTransformedIds(theParams, theRequest, this::pidsToIds);
@@ -22,6 +22,7 @@ package ca.uhn.fhir.jpa.dao;
 import ca.uhn.fhir.jpa.api.dao.IFhirResourceDaoSearchParameter;
 import ca.uhn.fhir.jpa.dao.validation.SearchParameterDaoValidator;
 import ca.uhn.fhir.jpa.model.entity.ResourceTable;
+import ca.uhn.fhir.jpa.util.MemoryCacheService;
 import ca.uhn.fhir.rest.api.server.RequestDetails;
 import ca.uhn.hapi.converters.canonical.VersionCanonicalizer;
 import com.google.common.annotations.VisibleForTesting;
@@ -47,6 +48,9 @@ public class JpaResourceDaoSearchParameter<T extends IBaseResource> extends Base
 	@Autowired
 	private SearchParameterDaoValidator mySearchParameterDaoValidator;
 
+	@Autowired
+	private MemoryCacheService myMemoryCacheService;
+
 	protected void reindexAffectedResources(T theResource, RequestDetails theRequestDetails) {
 
 		/*
@@ -68,6 +72,10 @@ public class JpaResourceDaoSearchParameter<T extends IBaseResource> extends Base
 									// do this outside any current tx.
 									myCacheReloadTriggered.set(false);
 									mySearchParamRegistry.forceRefresh();
+									// Cached totals may have been counted using the previous definition
+									myMemoryCacheService.invalidateCaches(
+											MemoryCacheService.CacheEnum.SEARCH_TOTAL_COUNT_GENERATION,
+											MemoryCacheService.CacheEnum.SEARCH_TOTAL_COUNT);
 								});
 					}
 				});
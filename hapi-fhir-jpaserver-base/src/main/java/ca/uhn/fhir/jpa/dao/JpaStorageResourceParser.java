@@ -43,6 +43,7 @@ import ca.uhn.fhir.jpa.model.entity.ResourceTag;
 import ca.uhn.fhir.jpa.model.entity.TagDefinition;
 import ca.uhn.fhir.jpa.model.entity.TagTypeEnum;
 import ca.uhn.fhir.jpa.partition.IPartitionLookupSvc;
+import ca.uhn.fhir.jpa.util.MemoryCacheService;
 import ca.uhn.fhir.model.api.IResource;
 import ca.uhn.fhir.model.api.ResourceMetadataKeyEnum;
 import ca.uhn.fhir.model.api.Tag;
@@ -104,6 +105,9 @@ public class JpaStorageResourceParser implements IJpaStorageResourceParser {
 	@Autowired
 	IMetaTagSorter myMetaTagSorter;
 
+	@Autowired
+	private MemoryCacheService myMemoryCacheService;
+
 	@Override
 	public IBaseResource toResource(IBasePersistedResource theEntity, boolean theForHistoryOperation) {
 		RuntimeResourceDefinition type = myFhirContext.getResourceDefinition(theEntity.getResourceType());
@@ -218,7 +222,8 @@ public class JpaStorageResourceParser implements IJpaStorageResourceParser {
 		}
 
 		// 2. get The text
-		String decodedResourceText = decodedResourceText(resourceBytes, resourceText, resourceEncoding);
+		String decodedResourceText =
+				decodedResourceText(theEntity, version, resourceBytes, resourceText, resourceEncoding);
 
 		// 3. Use the appropriate custom type if one is specified in the context
 		Class<R> resourceType = determineTypeToParse(theResourceType, tagList);
@@ -536,15 +541,29 @@ public class JpaStorageResourceParser implements IJpaStorageResourceParser {
 		return FhirContext.forCached(theVersion);
 	}
 
-	private static String decodedResourceText(
-			byte[] resourceBytes, String resourceText, ResourceEncodingEnum resourceEncoding) {
-		String decodedResourceText;
-		if (resourceText != null) {
-			decodedResourceText = resourceText;
-		} else {
-			decodedResourceText = decodeResource(resourceBytes, resourceEncoding);
+	private String decodedResourceText(
+			IBaseResourceEntity theEntity,
+			long theVersion,
+			byte[] theResourceBytes,
+			String theResourceText,
+			ResourceEncodingEnum theResourceEncoding) {
+		if (theResourceText != null) {
+			return theResourceText;
+		}
+
+		// Compressed bodies are worth caching, since each version's body never changes once it is committed
+		if ((theResourceEncoding == ResourceEncodingEnum.JSONC || theResourceEncoding == ResourceEncodingEnum.JSOND)
+				&& theResourceBytes != null
+				&& myStorageSettings.getResourceBodyCacheMaxEntries() > 0) {
+			MemoryCacheService.ResourceVersionKey key =
+					new MemoryCacheService.ResourceVersionKey(theEntity.getResourceId(), theVersion);
+			return myMemoryCacheService.get(
+					MemoryCacheService.CacheEnum.RESOURCE_BODY,
+					key,
+					t -> decodeResource(theResourceBytes, theResourceEncoding));
 		}
-		return decodedResourceText;
+
+		return decodeResource(theResourceBytes, theResourceEncoding);
 	}
 
 	private static List<BaseCodingDt> toBaseCodingList(List<IBaseCoding> theSecurityLabels) {
@@ -23,6 +23,7 @@ import ca.uhn.fhir.context.FhirContext;
 import ca.uhn.fhir.jpa.model.entity.ResourceEncodingEnum;
 import ca.uhn.fhir.jpa.model.entity.ResourceHistoryTable;
 import ca.uhn.fhir.jpa.model.entity.ResourceTable;
+import ca.uhn.fhir.jpa.model.util.DictionaryDeflateUtil;
 import ca.uhn.fhir.parser.IParser;
 import com.google.common.hash.HashCode;
 import com.google.common.hash.HashFunction;
@@ -92,6 +93,41 @@ public class ResourceHistoryCalculator {
 		return false;
 	}
 
+	/**
+	 * As {@link #conditionallyAlterHistoryEntity(ResourceTable, ResourceHistoryTable, String)}, but if the
+	 * resource body is stored as a binary it is also re-encoded when it was written using an encoding
+	 * other than the given one.
+	 */
+	boolean conditionallyAlterHistoryEntity(
+			ResourceTable theEntity,
+			ResourceHistoryTable theHistoryEntity,
+			String theResourceText,
+			ResourceEncodingEnum theTargetEncoding) {
+		if (conditionallyAlterHistoryEntity(theEntity, theHistoryEntity, theResourceText)) {
+			return true;
+		}
+
+		if (theHistoryEntity.getEncoding() != theTargetEncoding && isBinaryEncoding(theTargetEncoding)) {
+			ourLog.debug(
+					"Re-encoding text of resource {} version {} from {} to {}",
+					theEntity.getResourceId(),
+					theHistoryEntity.getVersion(),
+					theHistoryEntity.getEncoding(),
+					theTargetEncoding);
+			theHistoryEntity.setResource(getResourceBinary(theTargetEncoding, theResourceText));
+			theHistoryEntity.setEncoding(theTargetEncoding);
+			return true;
+		}
+
+		return false;
+	}
+
+	static boolean isBinaryEncoding(ResourceEncodingEnum theEncoding) {
+		return theEncoding == ResourceEncodingEnum.JSON
+				|| theEncoding == ResourceEncodingEnum.JSONC
+				|| theEncoding == ResourceEncodingEnum.JSOND;
+	}
+
 	boolean isResourceHistoryChanged(
 			ResourceHistoryTable theCurrentHistoryVersion,
 			@Nullable byte[] theResourceBinary,
@@ -124,6 +160,8 @@ public class ResourceHistoryCalculator {
 				return theEncodedResource.getBytes(StandardCharsets.UTF_8);
 			case JSONC:
 				return GZipUtil.compress(theEncodedResource);
+			case JSOND:
+				return DictionaryDeflateUtil.compress(theEncodedResource);
 			default:
 				return new byte[0];
 		}
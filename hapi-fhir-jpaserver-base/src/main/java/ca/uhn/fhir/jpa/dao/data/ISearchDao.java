@@ -61,6 +61,14 @@ public interface ISearchDao extends JpaRepository<Search, Long>, IHapiFhirJpaRep
 	@CanIgnoreReturnValue
 	int updateDeleted(@Param("pids") Set<Long> thePid, @Param("deleted") boolean theDeleted);
 
+	@Modifying
+	@Query("UPDATE Search s SET s.myResultsInMemory = :inMemory WHERE s.myId = :pid")
+	@CanIgnoreReturnValue
+	int updateResultsInMemory(@Param("pid") Long thePid, @Param("inMemory") boolean theResultsInMemory);
+
+	@Query("SELECT s.myResultsInMemory FROM Search s WHERE s.myId = :pid")
+	Boolean findResultsInMemory(@Param("pid") Long thePid);
+
 	@Modifying
 	@Query("DELETE FROM Search s WHERE s.myId = :pid")
 	void deleteByPid(@Param("pid") Long theId);
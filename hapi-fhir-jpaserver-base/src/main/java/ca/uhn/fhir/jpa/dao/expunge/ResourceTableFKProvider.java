@@ -42,6 +42,8 @@ public class ResourceTableFKProvider {
 		// Add some secondary related records that don't have foreign keys
 		retval.add(new ResourceForeignKey("HFJ_HISTORY_TAG", "RES_ID")); // NOT covered by index.
 		retval.add(new ResourceForeignKey("HFJ_RES_VER_PROV", "RES_PID"));
+		retval.add(new ResourceForeignKey("HFJ_IDX_CHAIN", "RES_ID"));
+		retval.add(new ResourceForeignKey("HFJ_IDX_CHAIN", "TARGET_RES_ID"));
 
 		// These have the possibility of touching all resource types.
 		retval.add(new ResourceForeignKey("HFJ_IDX_CMP_STRING_UNIQ", "RES_ID"));
@@ -85,6 +87,8 @@ public class ResourceTableFKProvider {
 		retval.add(new ResourceForeignKey("HFJ_RES_VER_PROV", "RES_PID"));
 		retval.add(new ResourceForeignKey("HFJ_IDX_CMP_STRING_UNIQ", "RES_ID"));
 		retval.add(new ResourceForeignKey("HFJ_IDX_CMB_TOK_NU", "RES_ID"));
+		retval.add(new ResourceForeignKey("HFJ_IDX_CHAIN", "RES_ID"));
+		retval.add(new ResourceForeignKey("HFJ_IDX_CHAIN", "TARGET_RES_ID"));
 		retval.add(new ResourceForeignKey("HFJ_RES_LINK", "SRC_RESOURCE_ID"));
 		retval.add(new ResourceForeignKey("HFJ_RES_LINK", "TARGET_RESOURCE_ID"));
 		retval.add(new ResourceForeignKey("HFJ_RES_PARAM_PRESENT", "RES_ID"));
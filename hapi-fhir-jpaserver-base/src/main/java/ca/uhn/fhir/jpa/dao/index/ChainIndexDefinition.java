@@ -0,0 +1,240 @@
+/*-
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2024 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.dao.index;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.context.RuntimeSearchParam;
+import ca.uhn.fhir.jpa.api.config.JpaStorageSettings;
+import ca.uhn.fhir.jpa.model.util.SearchParamHash;
+import ca.uhn.fhir.rest.api.RestSearchParameterTypeEnum;
+import ca.uhn.fhir.rest.server.util.ISearchParamRegistry;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import org.apache.commons.lang3.tuple.Pair;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.apache.commons.lang3.StringUtils.trim;
+
+/**
+ * A chain declared in {@link JpaStorageSettings#getIndexedChains()}, resolved against the
+ * currently active search parameters.
+ *
+ * @since 7.6.0
+ */
+public class ChainIndexDefinition {
+
+	private static final Logger ourLog = LoggerFactory.getLogger(ChainIndexDefinition.class);
+
+	private final String mySourceResourceType;
+	private final String myReferenceParamName;
+	private final String myLeafParamName;
+	private final Set<String> mySourcePaths;
+	private final Set<String> myTargetResourceTypes;
+	private final long myDefinitionHash;
+
+	private ChainIndexDefinition(
+			String theSourceResourceType,
+			String theReferenceParamName,
+			String theLeafParamName,
+			Set<String> theSourcePaths,
+			Set<String> theTargetResourceTypes) {
+		mySourceResourceType = theSourceResourceType;
+		myReferenceParamName = theReferenceParamName;
+		myLeafParamName = theLeafParamName;
+		mySourcePaths = theSourcePaths;
+		myTargetResourceTypes = theTargetResourceTypes;
+
+		List<String> hashValues = new ArrayList<>();
+		hashValues.add(getIndexedChain());
+		hashValues.addAll(new TreeSet<>(theSourcePaths));
+		hashValues.add(null);
+		hashValues.addAll(new TreeSet<>(theTargetResourceTypes));
+		myDefinitionHash = SearchParamHash.hashSearchParam(hashValues.toArray(new String[0]));
+	}
+
+	public String getSourceResourceType() {
+		return mySourceResourceType;
+	}
+
+	public String getReferenceParamName() {
+		return myReferenceParamName;
+	}
+
+	public String getLeafParamName() {
+		return myLeafParamName;
+	}
+
+	/**
+	 * Returns the chain, e.g. <code>subject.identifier</code>
+	 */
+	public String getChain() {
+		return myReferenceParamName + "." + myLeafParamName;
+	}
+
+	/**
+	 * Returns the chain as it is declared, e.g. <code>Observation?subject.identifier</code>
+	 */
+	public String getIndexedChain() {
+		return toIndexedChain(mySourceResourceType, myReferenceParamName, myLeafParamName);
+	}
+
+	/**
+	 * Returns a hash of the source paths and target resource types this chain resolved to. If the
+	 * hash changes, rows built for the previous definition may be wrong and the index must be rebuilt.
+	 */
+	public long getDefinitionHash() {
+		return myDefinitionHash;
+	}
+
+	/**
+	 * Returns the resource types which the reference can point to, and which have a token
+	 * search parameter with the leaf parameter name
+	 */
+	public Set<String> getTargetResourceTypes() {
+		return myTargetResourceTypes;
+	}
+
+	/**
+	 * Is the given resource link path one of the paths of the reference parameter?
+	 */
+	public boolean isSourcePath(String thePath) {
+		return mySourcePaths.contains(trim(thePath));
+	}
+
+	public Set<String> getSourcePaths() {
+		return mySourcePaths;
+	}
+
+	/**
+	 * Resolves all of the chains declared in {@link JpaStorageSettings#getIndexedChains()}. Chains
+	 * which can't be resolved against the active search parameters are ignored.
+	 */
+	@Nonnull
+	public static ChainIndexDefinitions fromSettings(
+			FhirContext theFhirContext,
+			JpaStorageSettings theStorageSettings,
+			ISearchParamRegistry theSearchParamRegistry) {
+		Set<String> indexedChains = Set.copyOf(theStorageSettings.getIndexedChains());
+		Map<Pair<String, String>, RuntimeSearchParam> searchParams = new HashMap<>();
+		List<ChainIndexDefinition> definitions = new ArrayList<>(indexedChains.size());
+		for (String next : indexedChains) {
+			int questionMarkIdx = next.indexOf('?');
+			int dotIdx = next.indexOf('.', questionMarkIdx);
+			ChainIndexDefinition definition = resolve(
+					theFhirContext,
+					theSearchParamRegistry,
+					searchParams,
+					next.substring(0, questionMarkIdx),
+					next.substring(questionMarkIdx + 1, dotIdx),
+					next.substring(dotIdx + 1));
+			if (definition != null) {
+				definitions.add(definition);
+			}
+		}
+		return new ChainIndexDefinitions(indexedChains, definitions, searchParams);
+	}
+
+	/**
+	 * Returns the chain as it would be declared in {@link JpaStorageSettings#getIndexedChains()}
+	 */
+	public static String toIndexedChain(
+			String theSourceResourceType, String theReferenceParamName, String theLeafParamName) {
+		return theSourceResourceType + "?" + theReferenceParamName + "." + theLeafParamName;
+	}
+
+	/**
+	 * @param theSearchParams Every search parameter looked up while resolving the chain is added to this map,
+	 *                        including the ones which weren't found
+	 */
+	@Nullable
+	private static ChainIndexDefinition resolve(
+			FhirContext theFhirContext,
+			ISearchParamRegistry theSearchParamRegistry,
+			Map<Pair<String, String>, RuntimeSearchParam> theSearchParams,
+			String theSourceResourceType,
+			String theReferenceParamName,
+			String theLeafParamName) {
+		RuntimeSearchParam referenceParam = getActiveSearchParam(
+				theSearchParamRegistry, theSearchParams, theSourceResourceType, theReferenceParamName);
+		if (referenceParam == null || referenceParam.getParamType() != RestSearchParameterTypeEnum.REFERENCE) {
+			ourLog.debug(
+					"Ignoring indexed chain {}?{}.{} - {} is not a reference search parameter",
+					theSourceResourceType,
+					theReferenceParamName,
+					theLeafParamName,
+					theReferenceParamName);
+			return null;
+		}
+
+		Set<String> sourcePaths = new HashSet<>();
+		for (String nextPath : referenceParam.getPathsSplit()) {
+			nextPath = trim(nextPath);
+			if (nextPath.startsWith(theSourceResourceType + ".")) {
+				sourcePaths.add(nextPath);
+			}
+		}
+
+		Collection<String> candidateTargetTypes = referenceParam.getTargets();
+		if (candidateTargetTypes.isEmpty()) {
+			candidateTargetTypes = theFhirContext.getResourceTypes();
+		}
+		Set<String> targetTypes = new HashSet<>();
+		for (String nextTargetType : candidateTargetTypes) {
+			RuntimeSearchParam leafParam =
+					getActiveSearchParam(theSearchParamRegistry, theSearchParams, nextTargetType, theLeafParamName);
+			if (leafParam != null && leafParam.getParamType() == RestSearchParameterTypeEnum.TOKEN) {
+				targetTypes.add(nextTargetType);
+			}
+		}
+
+		if (sourcePaths.isEmpty() || targetTypes.isEmpty()) {
+			ourLog.debug(
+					"Ignoring indexed chain {}?{}.{} - No token search parameter found on the reference targets",
+					theSourceResourceType,
+					theReferenceParamName,
+					theLeafParamName);
+			return null;
+		}
+
+		return new ChainIndexDefinition(
+				theSourceResourceType, theReferenceParamName, theLeafParamName, sourcePaths, targetTypes);
+	}
+
+	@Nullable
+	private static RuntimeSearchParam getActiveSearchParam(
+			ISearchParamRegistry theSearchParamRegistry,
+			Map<Pair<String, String>, RuntimeSearchParam> theSearchParams,
+			String theResourceType,
+			String theParamName) {
+		RuntimeSearchParam retVal = theSearchParamRegistry.getActiveSearchParam(theResourceType, theParamName);
+		theSearchParams.put(Pair.of(theResourceType, theParamName), retVal);
+		return retVal;
+	}
+}
@@ -0,0 +1,93 @@
+/*-
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2024 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.dao.index;
+
+import ca.uhn.fhir.context.RuntimeSearchParam;
+import ca.uhn.fhir.jpa.api.config.JpaStorageSettings;
+import ca.uhn.fhir.rest.server.util.ISearchParamRegistry;
+import jakarta.annotation.Nullable;
+import org.apache.commons.lang3.tuple.Pair;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The chains declared in {@link JpaStorageSettings#getIndexedChains()}, resolved against the
+ * search parameters which were active at the time. Resolving the chains requires looking up
+ * a search parameter on every resource type a reference can point to, so the result is kept
+ * and only resolved again once {@link #isCurrent(Set, ISearchParamRegistry)} fails.
+ *
+ * @since 7.6.0
+ */
+public class ChainIndexDefinitions {
+
+	private final Set<String> myIndexedChains;
+	private final List<ChainIndexDefinition> myDefinitions;
+	private final Map<Pair<String, String>, RuntimeSearchParam> mySearchParams;
+
+	ChainIndexDefinitions(
+			Set<String> theIndexedChains,
+			List<ChainIndexDefinition> theDefinitions,
+			Map<Pair<String, String>, RuntimeSearchParam> theSearchParams) {
+		myIndexedChains = theIndexedChains;
+		myDefinitions = List.copyOf(theDefinitions);
+		mySearchParams = theSearchParams;
+	}
+
+	/**
+	 * Returns the declared chains which could be resolved
+	 */
+	public List<ChainIndexDefinition> getDefinitions() {
+		return myDefinitions;
+	}
+
+	/**
+	 * Returns the declared chain (e.g. <code>Observation?subject.identifier</code>) if it could be
+	 * resolved, or <code>null</code> otherwise
+	 */
+	@Nullable
+	public ChainIndexDefinition find(String theIndexedChain) {
+		for (ChainIndexDefinition next : myDefinitions) {
+			if (next.getIndexedChain().equals(theIndexedChain)) {
+				return next;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Returns <code>true</code> if the chains were resolved from the given declared chains and the
+	 * search parameters they were resolved against are still the active ones. The registry replaces
+	 * its search parameters whenever it is refreshed, so they are only compared by identity.
+	 */
+	public boolean isCurrent(Set<String> theIndexedChains, ISearchParamRegistry theSearchParamRegistry) {
+		if (!myIndexedChains.equals(theIndexedChains)) {
+			return false;
+		}
+		for (Map.Entry<Pair<String, String>, RuntimeSearchParam> next : mySearchParams.entrySet()) {
+			Pair<String, String> key = next.getKey();
+			if (theSearchParamRegistry.getActiveSearchParam(key.getLeft(), key.getRight()) != next.getValue()) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
@@ -0,0 +1,709 @@
+/*-
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2024 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.dao.index;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.interceptor.model.RequestPartitionId;
+import ca.uhn.fhir.jpa.api.config.JpaStorageSettings;
+import ca.uhn.fhir.jpa.dao.tx.IHapiTransactionService;
+import ca.uhn.fhir.jpa.model.config.PartitionSettings;
+import ca.uhn.fhir.jpa.model.entity.BaseResourceIndexedSearchParam;
+import ca.uhn.fhir.jpa.model.entity.PartitionablePartitionId;
+import ca.uhn.fhir.jpa.model.entity.ResourceIndexedChain;
+import ca.uhn.fhir.jpa.model.entity.ResourceIndexedChainBuild;
+import ca.uhn.fhir.jpa.model.entity.ResourceIndexedSearchParamToken;
+import ca.uhn.fhir.jpa.model.entity.ResourceLink;
+import ca.uhn.fhir.jpa.model.entity.ResourceTable;
+import ca.uhn.fhir.jpa.model.sched.HapiJob;
+import ca.uhn.fhir.jpa.model.sched.IHasScheduledJobs;
+import ca.uhn.fhir.jpa.model.sched.ISchedulerService;
+import ca.uhn.fhir.jpa.model.sched.ScheduledJobDefinition;
+import ca.uhn.fhir.jpa.searchparam.extractor.ResourceIndexedSearchParams;
+import ca.uhn.fhir.jpa.util.AddRemoveCount;
+import ca.uhn.fhir.jpa.util.MemoryCacheService;
+import ca.uhn.fhir.jpa.util.QueryChunker;
+import ca.uhn.fhir.rest.server.util.ISearchParamRegistry;
+import com.google.common.annotations.VisibleForTesting;
+import jakarta.annotation.Nullable;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.PersistenceContextType;
+import org.apache.commons.lang3.time.DateUtils;
+import org.apache.commons.lang3.tuple.Pair;
+import org.quartz.JobExecutionContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.apache.commons.lang3.StringUtils.isNotBlank;
+import static org.apache.commons.lang3.StringUtils.trim;
+
+/**
+ * Maintains the declared chain index (see {@link JpaStorageSettings#getIndexedChains()}) as
+ * resources are written. A resource can be the source of a declared chain (e.g. the
+ * <code>Observation</code> in <code>Observation?subject.identifier</code>), in which case its own
+ * rows are rebuilt whenever its references change, and it can be the target of one (e.g. the
+ * <code>Patient</code>), in which case the rows pointing at it follow its leaf values.
+ * <p>
+ * Resources which existed before a chain was declared are indexed by a scheduled build (see
+ * {@link #buildChainIndexes()}). Searches only use the index for a chain once its build has
+ * completed, and use the regular chained search until then.
+ * </p>
+ *
+ * @since 7.6.0
+ */
+@Service
+public class ChainIndexSvc implements IHasScheduledJobs {
+
+	static final int BUILD_BATCH_SIZE = 1000;
+	private static final int BUILD_MAX_BATCHES_PER_PASS = 100;
+	private static final Logger ourLog = LoggerFactory.getLogger(ChainIndexSvc.class);
+
+	@PersistenceContext(type = PersistenceContextType.TRANSACTION)
+	protected EntityManager myEntityManager;
+
+	@Autowired
+	private FhirContext myFhirContext;
+
+	@Autowired
+	private JpaStorageSettings myStorageSettings;
+
+	@Autowired
+	private PartitionSettings myPartitionSettings;
+
+	@Autowired
+	private ISearchParamRegistry mySearchParamRegistry;
+
+	@Autowired
+	private IHapiTransactionService myTransactionService;
+
+	@Autowired
+	private MemoryCacheService myMemoryCacheService;
+
+	private volatile ChainIndexDefinitions myDefinitions;
+
+	@VisibleForTesting
+	public void setStorageSettings(JpaStorageSettings theStorageSettings) {
+		myStorageSettings = theStorageSettings;
+	}
+
+	/**
+	 * This method must be called after the regular search parameter indexes for the resource have
+	 * been synchronized.
+	 *
+	 * @param theNewParams      The new indexes for the resource, or <code>null</code> if it is being deleted
+	 * @param theExistingParams The previous indexes for the resource, or <code>null</code> if it is being deleted
+	 * @param theForce          If <code>true</code>, the rows where the resource is the source are rebuilt even
+	 *                          if its references have not changed. This is used when reindexing.
+	 */
+	public void synchronizeChainIndexes(
+			ResourceTable theEntity,
+			@Nullable ResourceIndexedSearchParams theNewParams,
+			@Nullable ResourceIndexedSearchParams theExistingParams,
+			boolean theForce,
+			AddRemoveCount theAddRemoveCount) {
+		if (myStorageSettings.getIndexedChains().isEmpty()) {
+			return;
+		}
+
+		List<ChainIndexDefinition> definitions = getDefinitions().getDefinitions();
+		String resourceType = theEntity.getResourceType();
+
+		List<ChainIndexDefinition> sourceDefinitions = getSourceDefinitions(definitions, resourceType);
+		if (!sourceDefinitions.isEmpty()) {
+			synchronizeSource(
+					theEntity,
+					sourceDefinitions,
+					theNewParams != null ? theNewParams.myLinks : null,
+					theExistingParams != null ? theExistingParams.myLinks : null,
+					theForce,
+					theAddRemoveCount);
+		}
+
+		List<ChainIndexDefinition> targetDefinitions = definitions.stream()
+				.filter(t -> t.getTargetResourceTypes().contains(resourceType))
+				.collect(Collectors.toList());
+		if (!targetDefinitions.isEmpty()) {
+			synchronizeTarget(theEntity, targetDefinitions, theNewParams, theExistingParams, theAddRemoveCount);
+		}
+	}
+
+	/**
+	 * Returns the declared chain with the given source resource type, reference parameter and leaf
+	 * parameter if its index has been fully built, or <code>null</code> if searches for the chain
+	 * can't use the index (yet)
+	 */
+	@Nullable
+	public ChainIndexDefinition findBuiltDefinition(
+			String theSourceResourceType, String theReferenceParamName, String theLeafParamName) {
+		if (myStorageSettings.getIndexedChains().isEmpty()) {
+			return null;
+		}
+		ChainIndexDefinition retVal = getDefinitions()
+				.find(ChainIndexDefinition.toIndexedChain(
+						theSourceResourceType, theReferenceParamName, theLeafParamName));
+		if (retVal == null || !isBuilt(retVal)) {
+			return null;
+		}
+		return retVal;
+	}
+
+	/**
+	 * Indexes the resources which existed before each declared chain was declared (or before the
+	 * search parameters it is resolved from last changed), in batches of {@link #BUILD_BATCH_SIZE}
+	 * source resources. Builds which don't finish in one pass carry on from where they stopped the
+	 * next time this method is called. New and updated resources are indexed as they are written, so
+	 * once a build has caught up with the existing resources the index stays complete.
+	 */
+	public void buildChainIndexes() {
+		List<ChainIndexDefinition> definitions = getDefinitions().getDefinitions();
+		List<String> incompleteChains = myTransactionService
+				.withSystemRequest()
+				.withRequestPartitionId(RequestPartitionId.allPartitions())
+				.execute(() -> synchronizeBuilds(definitions));
+
+		int batchCount = 0;
+		for (ChainIndexDefinition nextDefinition : definitions) {
+			if (!incompleteChains.contains(nextDefinition.getIndexedChain())) {
+				continue;
+			}
+			boolean complete = false;
+			while (!complete && batchCount++ < BUILD_MAX_BATCHES_PER_PASS) {
+				complete = myTransactionService
+						.withSystemRequest()
+						.withRequestPartitionId(RequestPartitionId.allPartitions())
+						.execute(() -> buildNextBatch(nextDefinition, definitions));
+			}
+			if (complete) {
+				ourLog.info("Finished building the chain index for {}", nextDefinition.getIndexedChain());
+				myMemoryCacheService.put(
+						MemoryCacheService.CacheEnum.CHAIN_INDEX_BUILD, toBuildKey(nextDefinition), true);
+			}
+		}
+	}
+
+	/**
+	 * Creates a build for each declared chain which doesn't have one for its current definition, and
+	 * removes the builds for chains which are no longer declared
+	 *
+	 * @return The declared chains whose build is incomplete
+	 */
+	private List<String> synchronizeBuilds(List<ChainIndexDefinition> theDefinitions) {
+		Map<String, ResourceIndexedChainBuild> builds = new HashMap<>();
+		for (ResourceIndexedChainBuild next : myEntityManager
+				.createQuery("SELECT b FROM ResourceIndexedChainBuild b", ResourceIndexedChainBuild.class)
+				.getResultList()) {
+			builds.put(next.getChainName(), next);
+		}
+
+		List<String> retVal = new ArrayList<>();
+		for (ChainIndexDefinition nextDefinition : theDefinitions) {
+			String chainName = nextDefinition.getIndexedChain();
+			long definitionHash = nextDefinition.getDefinitionHash();
+			ResourceIndexedChainBuild build = builds.remove(chainName);
+			if (build == null) {
+				build = new ResourceIndexedChainBuild(chainName, definitionHash);
+				myEntityManager.persist(build);
+			} else if (build.getDefinitionHash() != definitionHash) {
+				ourLog.info("Definition of indexed chain {} has changed, rebuilding its index", chainName);
+				build.restart(definitionHash);
+			}
+			if (!build.isBuildComplete()) {
+				retVal.add(chainName);
+			}
+		}
+
+		for (ResourceIndexedChainBuild next : builds.values()) {
+			myEntityManager.remove(next);
+		}
+
+		return retVal;
+	}
+
+	/**
+	 * Indexes the next batch of source resources for a chain
+	 *
+	 * @return <code>true</code> if the build for the chain is complete
+	 */
+	private boolean buildNextBatch(ChainIndexDefinition theDefinition, List<ChainIndexDefinition> theDefinitions) {
+		ResourceIndexedChainBuild build =
+				myEntityManager.find(ResourceIndexedChainBuild.class, theDefinition.getIndexedChain());
+		if (build == null || build.getDefinitionHash() != theDefinition.getDefinitionHash()) {
+			// The chain was redeclared or its definition changed during this pass
+			return false;
+		}
+		if (build.isBuildComplete()) {
+			return true;
+		}
+
+		/*
+		 * The optimistic lock means that if one of the resources is written while this batch is
+		 * running, the batch fails and is retried instead of overwriting the rows from that write
+		 */
+		String sourceResourceType = theDefinition.getSourceResourceType();
+		List<ResourceTable> sources = myEntityManager
+				.createQuery(
+						"SELECT t FROM ResourceTable t WHERE t.myResourceType = :res_type AND t.myId > :last_res_id"
+								+ " AND t.myDeleted IS NULL ORDER BY t.myId",
+						ResourceTable.class)
+				.setParameter("res_type", sourceResourceType)
+				.setParameter(
+						"last_res_id", build.getLastResourceId() != null ? build.getLastResourceId() : Long.MIN_VALUE)
+				.setLockMode(LockModeType.OPTIMISTIC)
+				.setMaxResults(BUILD_BATCH_SIZE)
+				.getResultList();
+
+		Map<Long, List<ResourceLink>> links = new HashMap<>();
+		List<Long> sourceIds = sources.stream().map(ResourceTable::getId).collect(Collectors.toList());
+		new QueryChunker<Long>().chunk(sourceIds, t -> {
+			for (ResourceLink next : myEntityManager
+					.createQuery(
+							"SELECT l FROM ResourceLink l WHERE l.mySourceResourcePid IN (:res_ids)",
+							ResourceLink.class)
+					.setParameter("res_ids", t)
+					.getResultList()) {
+				links.computeIfAbsent(next.getSourceResourcePid(), k -> new ArrayList<>())
+						.add(next);
+			}
+		});
+
+		// All of the chains for the resource type are rebuilt, since rebuilding one removes the rows of the others
+		List<ChainIndexDefinition> sourceDefinitions = getSourceDefinitions(theDefinitions, sourceResourceType);
+		AddRemoveCount addRemoveCount = new AddRemoveCount();
+		for (ResourceTable nextSource : sources) {
+			synchronizeSource(
+					nextSource,
+					sourceDefinitions,
+					links.getOrDefault(nextSource.getId(), List.of()),
+					null,
+					true,
+					addRemoveCount);
+		}
+
+		if (!sources.isEmpty()) {
+			build.setLastResourceId(sources.get(sources.size() - 1).getId());
+		}
+		boolean complete = sources.size() < BUILD_BATCH_SIZE;
+		build.setBuildComplete(complete);
+
+		ourLog.debug(
+				"Indexed {} {} resources for chain {} (added {} rows, removed {} rows)",
+				sources.size(),
+				sourceResourceType,
+				theDefinition.getIndexedChain(),
+				addRemoveCount.getAddCount(),
+				addRemoveCount.getRemoveCount());
+		return complete;
+	}
+
+	private boolean isBuilt(ChainIndexDefinition theDefinition) {
+		return myMemoryCacheService.get(
+				MemoryCacheService.CacheEnum.CHAIN_INDEX_BUILD, toBuildKey(theDefinition), t -> {
+					ResourceIndexedChainBuild build =
+							myEntityManager.find(ResourceIndexedChainBuild.class, theDefinition.getIndexedChain());
+					return build != null
+							&& build.isBuildComplete()
+							&& build.getDefinitionHash() == theDefinition.getDefinitionHash();
+				});
+	}
+
+	private ChainIndexDefinitions getDefinitions() {
+		ChainIndexDefinitions retVal = myDefinitions;
+		if (retVal == null || !retVal.isCurrent(myStorageSettings.getIndexedChains(), mySearchParamRegistry)) {
+			retVal = ChainIndexDefinition.fromSettings(myFhirContext, myStorageSettings, mySearchParamRegistry);
+			myDefinitions = retVal;
+
+			// A chain which is declared again wasn't maintained in the meantime, so a cached build status is stale
+			myMemoryCacheService.invalidateCaches(MemoryCacheService.CacheEnum.CHAIN_INDEX_BUILD);
+		}
+		return retVal;
+	}
+
+	private void synchronizeSource(
+			ResourceTable theEntity,
+			List<ChainIndexDefinition> theDefinitions,
+			@Nullable Collection<ResourceLink> theNewLinks,
+			@Nullable Collection<ResourceLink> theExistingLinks,
+			boolean theForce,
+			AddRemoveCount theAddRemoveCount) {
+		Long resourceId = theEntity.getId();
+		if (theNewLinks == null) {
+			int removeCount = myEntityManager
+					.createQuery("DELETE FROM ResourceIndexedChain c WHERE c.myResourceId = :res_id")
+					.setParameter("res_id", resourceId)
+					.executeUpdate();
+			theAddRemoveCount.addToRemoveCount(removeCount);
+			return;
+		}
+
+		/*
+		 * Rows only ever exist for references which were indexed previously, so if the
+		 * references in the declared chains haven't changed there is nothing to do
+		 */
+		Set<Pair<String, Long>> newLinks = toChainLinks(theNewLinks, theDefinitions);
+		Set<Pair<String, Long>> existingLinks =
+				theExistingLinks != null ? toChainLinks(theExistingLinks, theDefinitions) : Set.of();
+		if (!theForce && newLinks.equals(existingLinks)) {
+			return;
+		}
+
+		List<ResourceIndexedChain> existingRows =
+				theForce || !existingLinks.isEmpty() ? findRowsBySource(resourceId) : List.of();
+
+		Set<Long> targetIds = newLinks.stream().map(Pair::getRight).collect(Collectors.toSet());
+		lockResources(targetIds);
+		Map<Long, List<ResourceIndexedSearchParamToken>> targetTokens = findTokensByResource(targetIds);
+
+		List<ResourceIndexedChain> newRows = new ArrayList<>();
+		for (ChainIndexDefinition nextDefinition : theDefinitions) {
+			for (ResourceLink nextLink : theNewLinks) {
+				Long targetId = nextLink.getTargetResourcePid();
+				String targetType = nextLink.getTargetResourceType();
+				if (targetId == null
+						|| !nextDefinition.isSourcePath(nextLink.getSourcePath())
+						|| !nextDefinition.getTargetResourceTypes().contains(targetType)) {
+					continue;
+				}
+				List<ResourceIndexedSearchParamToken> leafTokens = new ArrayList<>();
+				for (ResourceIndexedSearchParamToken nextToken : targetTokens.getOrDefault(targetId, List.of())) {
+					long leafHashIdentity = BaseResourceIndexedSearchParam.calculateHashIdentity(
+							myPartitionSettings,
+							nextToken.getPartitionId(),
+							targetType,
+							nextDefinition.getLeafParamName());
+					if (!nextToken.isMissing() && Long.valueOf(leafHashIdentity).equals(nextToken.getHashIdentity())) {
+						leafTokens.add(nextToken);
+					}
+				}
+				addRows(newRows, nextDefinition, theEntity.getPartitionId(), resourceId, targetId, leafTokens);
+			}
+		}
+
+		synchronizeRows(existingRows, newRows, theAddRemoveCount);
+	}
+
+	/**
+	 * Applies a change to the leaf values of a target resource to the rows pointing at it. Only the
+	 * row values which were added or removed are written, so a change to one leaf value doesn't
+	 * rewrite the rows for the others.
+	 */
+	private void synchronizeTarget(
+			ResourceTable theEntity,
+			List<ChainIndexDefinition> theDefinitions,
+			@Nullable ResourceIndexedSearchParams theNewParams,
+			@Nullable ResourceIndexedSearchParams theExistingParams,
+			AddRemoveCount theAddRemoveCount) {
+		Long resourceId = theEntity.getId();
+		String resourceType = theEntity.getResourceType();
+
+		if (theNewParams == null) {
+			lockResources(List.of(resourceId));
+			int removeCount = myEntityManager
+					.createQuery("DELETE FROM ResourceIndexedChain c WHERE c.myTargetResourceId = :target_res_id")
+					.setParameter("target_res_id", resourceId)
+					.executeUpdate();
+			theAddRemoveCount.addToRemoveCount(removeCount);
+			return;
+		}
+
+		Map<ChainIndexDefinition, List<ResourceIndexedSearchParamToken>> existingLeafTokens = new LinkedHashMap<>();
+		Map<ChainIndexDefinition, List<ResourceIndexedSearchParamToken>> newLeafTokens = new LinkedHashMap<>();
+		for (ChainIndexDefinition nextDefinition : theDefinitions) {
+			long leafHashIdentity = BaseResourceIndexedSearchParam.calculateHashIdentity(
+					myPartitionSettings, theEntity.getPartitionId(), resourceType, nextDefinition.getLeafParamName());
+			List<ResourceIndexedSearchParamToken> newTokens =
+					filterTokens(theNewParams.myTokenParams, leafHashIdentity);
+			List<ResourceIndexedSearchParamToken> existingTokens = theExistingParams != null
+					? filterTokens(theExistingParams.myTokenParams, leafHashIdentity)
+					: List.of();
+			if (!toSystemAndValues(newTokens).equals(toSystemAndValues(existingTokens))) {
+				existingLeafTokens.put(nextDefinition, existingTokens);
+				newLeafTokens.put(nextDefinition, newTokens);
+			}
+		}
+		if (newLeafTokens.isEmpty()) {
+			return;
+		}
+		lockResources(List.of(resourceId));
+
+		Set<String> sourceTypes = newLeafTokens.keySet().stream()
+				.map(ChainIndexDefinition::getSourceResourceType)
+				.collect(Collectors.toSet());
+		List<ResourceLink> incomingLinks = myEntityManager
+				.createQuery(
+						"SELECT l FROM ResourceLink l WHERE l.myTargetResourcePid = :target_pid"
+								+ " AND l.mySourceResourceType IN (:source_types)",
+						ResourceLink.class)
+				.setParameter("target_pid", resourceId)
+				.setParameter("source_types", sourceTypes)
+				.getResultList();
+
+		Map<Long, Set<Long>> removedHashValues = new HashMap<>();
+		Set<List<Long>> addedKeys = new HashSet<>();
+		int addCount = 0;
+		for (ChainIndexDefinition nextDefinition : newLeafTokens.keySet()) {
+			for (ResourceLink nextLink : incomingLinks) {
+				if (!nextDefinition.getSourceResourceType().equals(nextLink.getSourceResourceType())
+						|| !nextDefinition.isSourcePath(nextLink.getSourcePath())) {
+					continue;
+				}
+
+				// The hashes include the partition of the source if partition hashes are enabled
+				PartitionablePartitionId sourcePartitionId = nextLink.getPartitionId();
+				long hashChain = calculateHashChain(nextDefinition, sourcePartitionId);
+				Set<Long> existingHashValues =
+						calculateHashValues(nextDefinition, sourcePartitionId, existingLeafTokens.get(nextDefinition));
+				Set<Long> newHashValues =
+						calculateHashValues(nextDefinition, sourcePartitionId, newLeafTokens.get(nextDefinition));
+
+				for (Long nextHashValue : existingHashValues) {
+					if (!newHashValues.contains(nextHashValue)) {
+						removedHashValues.computeIfAbsent(hashChain, t -> new HashSet<>()).add(nextHashValue);
+					}
+				}
+				for (Long nextHashValue : newHashValues) {
+					ResourceIndexedChain row = new ResourceIndexedChain(
+							sourcePartitionId, nextLink.getSourceResourcePid(), resourceId, hashChain, nextHashValue);
+					if (!existingHashValues.contains(nextHashValue) && addedKeys.add(toKey(row))) {
+						myEntityManager.persist(row);
+						addCount++;
+					}
+				}
+			}
+		}
+
+		int removeCount = 0;
+		for (Map.Entry<Long, Set<Long>> nextEntry : removedHashValues.entrySet()) {
+			removeCount += myEntityManager
+					.createQuery("DELETE FROM ResourceIndexedChain c WHERE c.myTargetResourceId = :target_res_id"
+							+ " AND c.myHashChain = :hash_chain AND c.myHashValue IN (:hash_values)")
+					.setParameter("target_res_id", resourceId)
+					.setParameter("hash_chain", nextEntry.getKey())
+					.setParameter("hash_values", nextEntry.getValue())
+					.executeUpdate();
+		}
+
+		theAddRemoveCount.addToRemoveCount(removeCount);
+		theAddRemoveCount.addToAddCount(addCount);
+	}
+
+	private void addRows(
+			List<ResourceIndexedChain> theRows,
+			ChainIndexDefinition theDefinition,
+			@Nullable PartitionablePartitionId theSourcePartitionId,
+			Long theSourceResourceId,
+			Long theTargetResourceId,
+			Collection<ResourceIndexedSearchParamToken> theTokens) {
+		long hashChain = calculateHashChain(theDefinition, theSourcePartitionId);
+		for (Long nextHashValue : calculateHashValues(theDefinition, theSourcePartitionId, theTokens)) {
+			theRows.add(new ResourceIndexedChain(
+					theSourcePartitionId, theSourceResourceId, theTargetResourceId, hashChain, nextHashValue));
+		}
+	}
+
+	private long calculateHashChain(
+			ChainIndexDefinition theDefinition, @Nullable PartitionablePartitionId theSourcePartitionId) {
+		return ResourceIndexedChain.calculateHashChain(
+				myPartitionSettings,
+				PartitionablePartitionId.toRequestPartitionId(theSourcePartitionId),
+				theDefinition.getSourceResourceType(),
+				theDefinition.getChain());
+	}
+
+	/**
+	 * Returns the row values for the given leaf tokens. There is one for each of the forms a
+	 * token can be searched by: value, system|value and system|
+	 */
+	private Set<Long> calculateHashValues(
+			ChainIndexDefinition theDefinition,
+			@Nullable PartitionablePartitionId theSourcePartitionId,
+			Collection<ResourceIndexedSearchParamToken> theTokens) {
+		RequestPartitionId partitionId = PartitionablePartitionId.toRequestPartitionId(theSourcePartitionId);
+		String resourceType = theDefinition.getSourceResourceType();
+		String chain = theDefinition.getChain();
+
+		Set<Long> retVal = new HashSet<>();
+		for (ResourceIndexedSearchParamToken next : theTokens) {
+			String system = next.getSystem();
+			String value = next.getValue();
+			if (isNotBlank(value)) {
+				retVal.add(ResourceIndexedSearchParamToken.calculateHashValue(
+						myPartitionSettings, partitionId, resourceType, chain, value));
+				retVal.add(ResourceIndexedSearchParamToken.calculateHashSystemAndValue(
+						myPartitionSettings, partitionId, resourceType, chain, system, value));
+			}
+			if (isNotBlank(system)) {
+				retVal.add(ResourceIndexedSearchParamToken.calculateHashSystem(
+						myPartitionSettings, partitionId, resourceType, chain, system));
+			}
+		}
+		return retVal;
+	}
+
+	private void synchronizeRows(
+			List<ResourceIndexedChain> theExistingRows,
+			List<ResourceIndexedChain> theNewRows,
+			AddRemoveCount theAddRemoveCount) {
+		Set<List<Long>> newKeys = new HashSet<>();
+		for (ResourceIndexedChain next : theNewRows) {
+			newKeys.add(toKey(next));
+		}
+
+		Set<List<Long>> existingKeys = new HashSet<>();
+		int removeCount = 0;
+		for (ResourceIndexedChain next : theExistingRows) {
+			List<Long> key = toKey(next);
+			if (!newKeys.contains(key) || !existingKeys.add(key)) {
+				myEntityManager.remove(next);
+				removeCount++;
+			}
+		}
+
+		int addCount = 0;
+		for (ResourceIndexedChain next : theNewRows) {
+			if (existingKeys.add(toKey(next))) {
+				myEntityManager.persist(next);
+				addCount++;
+			}
+		}
+
+		theAddRemoveCount.addToRemoveCount(removeCount);
+		theAddRemoveCount.addToAddCount(addCount);
+	}
+
+	/**
+	 * Locks the rows of the given resources until the current transaction completes. Rows are built
+	 * from the leaf values of their target, so a source write reading the leaf values and a target
+	 * write reading the rows pointing at it must not overlap. Otherwise each could miss the other's
+	 * uncommitted changes, leaving rows for a leaf value which the target no longer has. Both lock
+	 * the target, so whichever comes second sees the changes of the first once it has committed.
+	 */
+	private void lockResources(Collection<Long> theResourceIds) {
+		// Always lock in the same order to avoid deadlocks between sources with several targets
+		List<Long> resourceIds = theResourceIds.stream().sorted().collect(Collectors.toList());
+		new QueryChunker<Long>()
+				.chunk(resourceIds, t -> myEntityManager
+						.createQuery(
+								"SELECT t FROM ResourceTable t WHERE t.myId IN (:res_ids) ORDER BY t.myId",
+								ResourceTable.class)
+						.setParameter("res_ids", t)
+						.setLockMode(LockModeType.PESSIMISTIC_WRITE)
+						.getResultList());
+	}
+
+	private List<ResourceIndexedChain> findRowsBySource(Long theResourceId) {
+		return myEntityManager
+				.createQuery(
+						"SELECT c FROM ResourceIndexedChain c WHERE c.myResourceId = :res_id",
+						ResourceIndexedChain.class)
+				.setParameter("res_id", theResourceId)
+				.getResultList();
+	}
+
+	private Map<Long, List<ResourceIndexedSearchParamToken>> findTokensByResource(Collection<Long> theResourceIds) {
+		Map<Long, List<ResourceIndexedSearchParamToken>> retVal = new HashMap<>();
+		new QueryChunker<Long>().chunk(theResourceIds, t -> {
+			List<ResourceIndexedSearchParamToken> tokens = myEntityManager
+					.createQuery(
+							"SELECT t FROM ResourceIndexedSearchParamToken t WHERE t.myResourcePid IN (:res_ids)",
+							ResourceIndexedSearchParamToken.class)
+					.setParameter("res_ids", t)
+					.getResultList();
+			for (ResourceIndexedSearchParamToken next : tokens) {
+				retVal.computeIfAbsent(next.getResourcePid(), k -> new ArrayList<>()).add(next);
+			}
+		});
+		return retVal;
+	}
+
+	@Override
+	public void scheduleJobs(ISchedulerService theSchedulerService) {
+		ScheduledJobDefinition jobDetail = new ScheduledJobDefinition();
+		jobDetail.setId(getClass().getName());
+		jobDetail.setJobClass(Job.class);
+		theSchedulerService.scheduleClusteredJob(DateUtils.MILLIS_PER_MINUTE, jobDetail);
+	}
+
+	public static class Job implements HapiJob {
+		@Autowired
+		private ChainIndexSvc myTarget;
+
+		@Override
+		public void execute(JobExecutionContext theContext) {
+			if (!myTarget.myStorageSettings.isSchedulingDisabled()) {
+				myTarget.buildChainIndexes();
+			}
+		}
+	}
+
+	private static List<ChainIndexDefinition> getSourceDefinitions(
+			List<ChainIndexDefinition> theDefinitions, String theResourceType) {
+		return theDefinitions.stream()
+				.filter(t -> t.getSourceResourceType().equals(theResourceType))
+				.collect(Collectors.toList());
+	}
+
+	private static String toBuildKey(ChainIndexDefinition theDefinition) {
+		return theDefinition.getIndexedChain() + "|" + theDefinition.getDefinitionHash();
+	}
+
+	private static Set<Pair<String, Long>> toChainLinks(
+			Collection<ResourceLink> theLinks, List<ChainIndexDefinition> theDefinitions) {
+		Set<Pair<String, Long>> retVal = new HashSet<>();
+		for (ResourceLink next : theLinks) {
+			if (next.getTargetResourcePid() != null
+					&& theDefinitions.stream().anyMatch(t -> t.isSourcePath(next.getSourcePath()))) {
+				retVal.add(Pair.of(trim(next.getSourcePath()), next.getTargetResourcePid()));
+			}
+		}
+		return retVal;
+	}
+
+	private static List<ResourceIndexedSearchParamToken> filterTokens(
+			Collection<ResourceIndexedSearchParamToken> theTokens, long theHashIdentity) {
+		return theTokens.stream()
+				.filter(t -> !t.isMissing())
+				.filter(t -> Long.valueOf(theHashIdentity).equals(t.getHashIdentity()))
+				.collect(Collectors.toList());
+	}
+
+	private static Set<Pair<String, String>> toSystemAndValues(List<ResourceIndexedSearchParamToken> theTokens) {
+		return theTokens.stream()
+				.map(t -> Pair.of(t.getSystem(), t.getValue()))
+				.collect(Collectors.toSet());
+	}
+
+	private static List<Long> toKey(ResourceIndexedChain theRow) {
+		return List.of(
+				theRow.getResourceId(), theRow.getTargetResourceId(), theRow.getHashChain(), theRow.getHashValue());
+	}
+}
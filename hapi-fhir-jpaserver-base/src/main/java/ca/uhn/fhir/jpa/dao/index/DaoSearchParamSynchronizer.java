@@ -37,6 +37,7 @@ import jakarta.annotation.Nullable;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import jakarta.persistence.PersistenceContextType;
+import org.hibernate.Session;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -69,6 +70,8 @@ public class DaoSearchParamSynchronizer {
 			ResourceIndexedSearchParams existingParams) {
 		AddRemoveCount retVal = new AddRemoveCount();
 
+		applyIndexWriteJdbcBatchSize();
+
 		synchronize(theEntity, retVal, theParams.myStringParams, existingParams.myStringParams, null);
 		synchronize(theEntity, retVal, theParams.myTokenParams, existingParams.myTokenParams, null);
 		synchronize(theEntity, retVal, theParams.myNumberParams, existingParams.myNumberParams, null);
@@ -97,6 +100,24 @@ public class DaoSearchParamSynchronizer {
 		return retVal;
 	}
 
+	/**
+	 * Index rows are not written when they are added or removed here, but when the
+	 * session is flushed. At that point Hibernate orders the pending inserts by table and
+	 * sends them in JDBC batches, so raising the batch size lets the rows for many resources
+	 * in a large transaction go to the database in a few statements per table.
+	 *
+	 * @see StorageSettings#setIndexWriteJdbcBatchSize(Integer)
+	 */
+	private void applyIndexWriteJdbcBatchSize() {
+		Integer batchSize = myStorageSettings.getIndexWriteJdbcBatchSize();
+		if (batchSize != null) {
+			Session session = myEntityManager.unwrap(Session.class);
+			if (!batchSize.equals(session.getJdbcBatchSize())) {
+				session.setJdbcBatchSize(batchSize);
+			}
+		}
+	}
+
 	@VisibleForTesting
 	public void setEntityManager(EntityManager theEntityManager) {
 		myEntityManager = theEntityManager;
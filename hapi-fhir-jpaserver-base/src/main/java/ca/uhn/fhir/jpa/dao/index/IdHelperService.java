@@ -76,6 +76,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.stream.Collectors;
 
 import static ca.uhn.fhir.jpa.search.builder.predicate.BaseJoiningPredicateBuilder.replaceDefaultPartitionIdIfNonNull;
@@ -124,6 +125,10 @@ public class IdHelperService implements IIdHelperService<JpaPid> {
 
 	private boolean myDontCheckActiveTransactionForUnitTest;
 
+	private final LongAdder myCacheHitCount = new LongAdder();
+	private final LongAdder myCacheMissCount = new LongAdder();
+	private final LongAdder myDatabaseQueryCount = new LongAdder();
+
 	@VisibleForTesting
 	protected void setDontCheckActiveTransactionForUnitTest(boolean theDontCheckActiveTransactionForUnitTest) {
 		myDontCheckActiveTransactionForUnitTest = theDontCheckActiveTransactionForUnitTest;
@@ -187,6 +192,50 @@ public class IdHelperService implements IIdHelperService<JpaPid> {
 		return matches.get(resourceIdToUse).get(0);
 	}
 
+	/**
+	 * Resolves a collection of resource IDs using one database query per resource type (plus one for
+	 * any numeric IDs), instead of one query per ID.
+	 */
+	@Override
+	@Nonnull
+	public Map<String, IResourceLookup<JpaPid>> resolveResourceIdentities(
+			@Nonnull RequestPartitionId theRequestPartitionId, Collection<IIdType> theIds, boolean theExcludeDeleted) {
+		assert myDontCheckActiveTransactionForUnitTest || TransactionSynchronizationManager.isSynchronizationActive()
+				: "no transaction active";
+
+		Map<String, IResourceLookup<JpaPid>> retVal = new HashMap<>();
+		if (theIds.isEmpty()) {
+			return retVal;
+		}
+
+		List<IIdType> ids = new ArrayList<>(theIds.size());
+		for (IIdType next : theIds) {
+			ids.add(new IdDt(next.getResourceType(), next.getIdPart()));
+		}
+		Map<String, List<IResourceLookup<JpaPid>>> matches =
+				translateForcedIdToPids(theRequestPartitionId, ids, theExcludeDeleted);
+
+		for (IIdType next : ids) {
+			List<IResourceLookup<JpaPid>> candidates = matches.get(next.getIdPart());
+			if (candidates == null) {
+				continue;
+			}
+
+			// Forced IDs are only unique within a resource type, but numeric IDs are PIDs so any match is returned
+			boolean isPid =
+					myStorageSettings.getResourceClientIdStrategy() != JpaStorageSettings.ClientIdStrategyEnum.ANY
+							&& isValidPid(next);
+			List<IResourceLookup<JpaPid>> typeMatches = candidates.stream()
+					.filter(t -> isPid || next.getResourceType().equals(t.getResourceType()))
+					.collect(Collectors.toList());
+			if (typeMatches.size() == 1) {
+				retVal.put(next.getValue(), typeMatches.get(0));
+			}
+		}
+
+		return retVal;
+	}
+
 	/**
 	 * Returns a mapping of Id -> IResourcePersistentId.
 	 * If any resource is not found, it will throw ResourceNotFound exception (and no map will be returned)
@@ -353,6 +402,7 @@ public class IdHelperService implements IIdHelperService<JpaPid> {
 
 				String key = toForcedIdToPidKey(theRequestPartitionId, nextId.getResourceType(), nextId.getIdPart());
 				JpaPid cachedId = myMemoryCacheService.getIfPresent(MemoryCacheService.CacheEnum.FORCED_ID_TO_PID, key);
+				recordCacheLookup(cachedId != null);
 				if (cachedId != null) {
 					retVal.add(cachedId);
 					continue;
@@ -404,6 +454,7 @@ public class IdHelperService implements IIdHelperService<JpaPid> {
 		criteriaQuery.where(cb.or(predicates.toArray(EMPTY_PREDICATE_ARRAY)));
 
 		TypedQuery<Tuple> query = myEntityManager.createQuery(criteriaQuery);
+		myDatabaseQueryCount.increment();
 		List<Tuple> results = query.getResultList();
 		for (Tuple nextId : results) {
 			// Check if the nextId has a resource ID. It may have a null resource ID if a commit is still pending.
@@ -482,7 +533,9 @@ public class IdHelperService implements IIdHelperService<JpaPid> {
 		Optional<String> forcedId =
 				myMemoryCacheService.getIfPresent(MemoryCacheService.CacheEnum.PID_TO_FORCED_ID, theId.getId());
 
+		recordCacheLookup(forcedId != null);
 		if (forcedId == null) {
+			myDatabaseQueryCount.increment();
 			// This is only called when we know the resource exists.
 			// So this optional is only empty when there is no hfj_forced_id table
 			// note: this is obsolete with the new fhir_id column, and will go away.
@@ -542,6 +595,7 @@ public class IdHelperService implements IIdHelperService<JpaPid> {
 					String nextKey = nextResourceType + "/" + nextForcedId;
 					IResourceLookup<JpaPid> cachedLookup =
 							myMemoryCacheService.getIfPresent(MemoryCacheService.CacheEnum.RESOURCE_LOOKUP, nextKey);
+					recordCacheLookup(cachedLookup != null);
 					if (cachedLookup != null) {
 						forcedIdIterator.remove();
 						retVal.computeIfAbsent(nextForcedId, id -> new ArrayList<>())
@@ -553,6 +607,7 @@ public class IdHelperService implements IIdHelperService<JpaPid> {
 			if (!nextIds.isEmpty()) {
 				Collection<Object[]> views;
 				assert isNotBlank(nextResourceType);
+				myDatabaseQueryCount.increment();
 
 				if (requestPartitionId.isAllPartitions()) {
 					views = myResourceTableDao.findAndResolveByForcedIdWithNoType(
@@ -615,6 +670,7 @@ public class IdHelperService implements IIdHelperService<JpaPid> {
 				String nextKey = Long.toString(nextPid);
 				IResourceLookup<JpaPid> cachedLookup =
 						myMemoryCacheService.getIfPresent(MemoryCacheService.CacheEnum.RESOURCE_LOOKUP, nextKey);
+				recordCacheLookup(cachedLookup != null);
 				if (cachedLookup != null) {
 					forcedIdIterator.remove();
 					theTargets.computeIfAbsent(nextKey, id -> new ArrayList<>()).add(cachedLookup);
@@ -624,6 +680,7 @@ public class IdHelperService implements IIdHelperService<JpaPid> {
 
 		if (!thePidsToResolve.isEmpty()) {
 			Collection<Object[]> lookup;
+			myDatabaseQueryCount.increment();
 			if (theRequestPartitionId.isAllPartitions()) {
 				lookup = myResourceTableDao.findLookupFieldsByResourcePid(thePidsToResolve);
 			} else {
@@ -660,11 +717,14 @@ public class IdHelperService implements IIdHelperService<JpaPid> {
 		Set<Long> thePids = theResourceIds.stream().map(JpaPid::getId).collect(Collectors.toSet());
 		Map<Long, Optional<String>> retVal = new HashMap<>(
 				myMemoryCacheService.getAllPresent(MemoryCacheService.CacheEnum.PID_TO_FORCED_ID, thePids));
+		myCacheHitCount.add(retVal.size());
+		myCacheMissCount.add(thePids.size() - retVal.size());
 
 		List<Long> remainingPids =
 				thePids.stream().filter(t -> !retVal.containsKey(t)).collect(Collectors.toList());
 
 		new QueryChunker<Long>().chunk(remainingPids, t -> {
+			myDatabaseQueryCount.increment();
 			List<ResourceTable> resourceEntities = myResourceTableDao.findAllById(t);
 
 			for (ResourceTable nextResourceEntity : resourceEntities) {
@@ -722,6 +782,45 @@ public class IdHelperService implements IIdHelperService<JpaPid> {
 		}
 	}
 
+	private void recordCacheLookup(boolean theHit) {
+		if (theHit) {
+			myCacheHitCount.increment();
+		} else {
+			myCacheMissCount.increment();
+		}
+	}
+
+	/**
+	 * Returns the number of ID lookups which have been answered from the memory cache since the server
+	 * started. This only includes lookups which are eligible for caching, e.g. lookups of resources which
+	 * may have been deleted are never cached.
+	 *
+	 * @since 7.6.0
+	 */
+	public long getCacheHitCount() {
+		return myCacheHitCount.sum();
+	}
+
+	/**
+	 * Returns the number of ID lookups which could not be answered from the memory cache since the
+	 * server started.
+	 *
+	 * @since 7.6.0
+	 */
+	public long getCacheMissCount() {
+		return myCacheMissCount.sum();
+	}
+
+	/**
+	 * Returns the number of database queries which have been issued to resolve IDs since the server
+	 * started. When ID lookups are batched, a single query resolves many IDs.
+	 *
+	 * @since 7.6.0
+	 */
+	public long getDatabaseQueryCount() {
+		return myDatabaseQueryCount.sum();
+	}
+
 	@VisibleForTesting
 	public void setPartitionSettingsForUnitTest(PartitionSettings thePartitionSettings) {
 		myPartitionSettings = thePartitionSettings;
@@ -104,6 +104,13 @@ public class Search implements ICachedSearchDetails, Serializable {
 	@Column(name = "FAILURE_CODE", nullable = true)
 	private Integer myFailureCode;
 
+	/**
+	 * Only ever modified by {@link ca.uhn.fhir.jpa.dao.data.ISearchDao#updateResultsInMemory(Long, boolean)}
+	 * so that saving a stale copy of the search can't overwrite it
+	 */
+	@Column(name = "RESULTS_IN_MEMORY", nullable = true, insertable = false, updatable = false)
+	private Boolean myResultsInMemory;
+
 	@Column(name = "FAILURE_MESSAGE", length = FAILURE_MESSAGE_LENGTH, nullable = true)
 	private String myFailureMessage;
 
@@ -267,6 +274,16 @@ public class Search implements ICachedSearchDetails, Serializable {
 		myCreated = theCreated;
 	}
 
+	/**
+	 * Returns <code>true</code> if the results of this search were only held in memory by the
+	 * server which performed it when this search was loaded
+	 *
+	 * @since 7.6.0
+	 */
+	public boolean isResultsInMemory() {
+		return Boolean.TRUE.equals(myResultsInMemory);
+	}
+
 	public Integer getFailureCode() {
 		return myFailureCode;
 	}
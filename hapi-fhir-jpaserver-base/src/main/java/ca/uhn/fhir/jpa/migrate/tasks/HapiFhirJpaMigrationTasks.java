@@ -124,6 +124,52 @@ public class HapiFhirJpaMigrationTasks extends BaseMigrationTasks<VersionEnum> {
 		init700();
 		init720();
 		init740();
+		init760();
+	}
+
+	protected void init760() {
+		// Start of migrations from 7.4 to 7.6
+
+		final Builder version = forVersion(VersionEnum.V7_6_0);
+
+		/*
+		 * Declared chain index
+		 */
+		{
+			version.addIdGenerator("20240801.1", "SEQ_IDXCHAIN_ID");
+
+			Builder.BuilderAddTableByColumns idxChain =
+					version.addTableByColumns("20240801.2", "HFJ_IDX_CHAIN", "PID");
+			idxChain.addColumn("PID").nonNullable().type(ColumnTypeEnum.LONG);
+			idxChain.addColumn("PARTITION_ID").nullable().type(ColumnTypeEnum.INT);
+			idxChain.addColumn("PARTITION_DATE").nullable().type(ColumnTypeEnum.DATE_ONLY);
+			idxChain.addColumn("RES_ID").nonNullable().type(ColumnTypeEnum.LONG);
+			idxChain.addColumn("TARGET_RES_ID").nonNullable().type(ColumnTypeEnum.LONG);
+			idxChain.addColumn("HASH_CHAIN").nonNullable().type(ColumnTypeEnum.LONG);
+			idxChain.addColumn("HASH_VALUE").nonNullable().type(ColumnTypeEnum.LONG);
+			idxChain.addIndex("20240801.3", "IDX_IDXCHAIN_HASHV")
+					.unique(false)
+					.withColumns("HASH_VALUE", "RES_ID", "PARTITION_ID");
+			idxChain.addIndex("20240801.4", "IDX_IDXCHAIN_RES").unique(false).withColumns("RES_ID");
+			idxChain.addIndex("20240801.5", "IDX_IDXCHAIN_TARGET").unique(false).withColumns("TARGET_RES_ID");
+
+			Builder.BuilderAddTableByColumns idxChainBuild =
+					version.addTableByColumns("20240801.6", "HFJ_IDX_CHAIN_BUILD", "CHAIN_NAME");
+			idxChainBuild.addColumn("CHAIN_NAME").nonNullable().type(ColumnTypeEnum.STRING, 200);
+			idxChainBuild.addColumn("DEFINITION_HASH").nonNullable().type(ColumnTypeEnum.LONG);
+			idxChainBuild.addColumn("LAST_RES_ID").nullable().type(ColumnTypeEnum.LONG);
+			idxChainBuild.addColumn("BUILD_COMPLETE").nonNullable().type(ColumnTypeEnum.BOOLEAN);
+		}
+
+		/*
+		 * In-memory search result cache
+		 */
+		{
+			version.onTable("HFJ_SEARCH")
+					.addColumn("20240801.7", "RESULTS_IN_MEMORY")
+					.nullable()
+					.type(ColumnTypeEnum.BOOLEAN);
+		}
 	}
 
 	protected void init740() {
@@ -0,0 +1,105 @@
+/*-
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2024 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.provider;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.jpa.util.MemoryCacheService;
+import ca.uhn.fhir.model.api.annotation.Description;
+import ca.uhn.fhir.rest.annotation.Operation;
+import ca.uhn.fhir.rest.annotation.OperationParam;
+import ca.uhn.fhir.rest.server.provider.ProviderConstants;
+import ca.uhn.fhir.sl.cache.CacheStatistics;
+import ca.uhn.fhir.util.ParametersUtil;
+import jakarta.annotation.Nonnull;
+import org.apache.commons.lang3.Validate;
+import org.hl7.fhir.instance.model.api.IBase;
+import org.hl7.fhir.instance.model.api.IBaseParameters;
+import org.hl7.fhir.instance.model.api.IPrimitiveType;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Reports the size and statistics of each cache in the {@link MemoryCacheService}, for use when
+ * tuning the cache sizing in {@link ca.uhn.fhir.jpa.api.config.JpaStorageSettings}. This operation
+ * exposes internal server details, so it should only be made available to administrators.
+ */
+public class MemoryCacheStatisticsProvider {
+
+	private final FhirContext myContext;
+	private final MemoryCacheService myMemoryCacheService;
+
+	/**
+	 * Constructor
+	 */
+	public MemoryCacheStatisticsProvider(
+			@Nonnull FhirContext theContext, @Nonnull MemoryCacheService theMemoryCacheService) {
+		Validate.notNull(theContext);
+		Validate.notNull(theMemoryCacheService);
+		myContext = theContext;
+		myMemoryCacheService = theMemoryCacheService;
+	}
+
+	@Description(
+			value =
+					"Returns the estimated size and the hit, miss, load and eviction statistics of the server memory caches.",
+			shortDefinition = "Memory cache statistics")
+	@Operation(name = ProviderConstants.OPERATION_MEMORY_CACHE_STATISTICS, idempotent = true)
+	public IBaseParameters memoryCacheStatistics(
+			@Description(value = "The name of a cache to report on. If not specified, all caches are reported.")
+					@OperationParam(name = "cache", typeName = "code", min = 0, max = OperationParam.MAX_UNLIMITED)
+					List<IPrimitiveType<String>> theCacheNames) {
+		Set<String> cacheNames = null;
+		if (theCacheNames != null && !theCacheNames.isEmpty()) {
+			cacheNames = theCacheNames.stream()
+					.map(IPrimitiveType::getValueAsString)
+					.collect(Collectors.toSet());
+		}
+
+		IBaseParameters retVal = ParametersUtil.newInstance(myContext);
+		for (MemoryCacheService.CacheEnum next : MemoryCacheService.CacheEnum.values()) {
+			if (cacheNames != null && !cacheNames.contains(next.name())) {
+				continue;
+			}
+
+			IBase cache = ParametersUtil.addParameterToParameters(myContext, retVal, "cache");
+			ParametersUtil.addPartCode(myContext, cache, "name", next.name());
+			ParametersUtil.addPartDecimal(
+					myContext, cache, "estimatedSize", (double) myMemoryCacheService.getEstimatedSize(next));
+
+			CacheStatistics statistics = myMemoryCacheService.getStatistics(next);
+			if (statistics != null) {
+				ParametersUtil.addPartDecimal(myContext, cache, "hitCount", (double) statistics.getHitCount());
+				ParametersUtil.addPartDecimal(myContext, cache, "missCount", (double) statistics.getMissCount());
+				ParametersUtil.addPartDecimal(myContext, cache, "hitRate", statistics.getHitRate());
+				ParametersUtil.addPartDecimal(
+						myContext, cache, "loadSuccessCount", (double) statistics.getLoadSuccessCount());
+				ParametersUtil.addPartDecimal(
+						myContext, cache, "loadFailureCount", (double) statistics.getLoadFailureCount());
+				ParametersUtil.addPartDecimal(
+						myContext, cache, "averageLoadMillis", statistics.getAverageLoadPenaltyNanos() / 1_000_000.0);
+				ParametersUtil.addPartDecimal(
+						myContext, cache, "evictionCount", (double) statistics.getEvictionCount());
+			}
+		}
+		return retVal;
+	}
+}
@@ -25,9 +25,20 @@ import ca.uhn.fhir.jpa.dao.ISearchBuilder;
 import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
 import ca.uhn.fhir.rest.api.server.IBundleProvider;
 import ca.uhn.fhir.rest.api.server.RequestDetails;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+
+import java.util.function.Consumer;
 
 public interface ISynchronousSearchSvc extends ISearchSvc {
 
+	/**
+	 * Executes a search and returns all of its results. If the request is for a server which
+	 * {@link ca.uhn.fhir.rest.server.RestfulServer#setStreamBundleResponses(boolean) streams Bundle responses}
+	 * and no <code>_include</code> or <code>_revinclude</code> parameters were requested, the
+	 * returned provider is an {@link ca.uhn.fhir.rest.api.server.IStreamingBundleProvider} which
+	 * loads the resources in batches as the response is written, the same way
+	 * {@link #executeQueryStreaming} does.
+	 */
 	IBundleProvider executeQuery(
 			SearchParameterMap theParams,
 			RequestDetails theRequestDetails,
@@ -35,4 +46,26 @@ public interface ISynchronousSearchSvc extends ISearchSvc {
 			ISearchBuilder theSb,
 			Integer theLoadSynchronousUpTo,
 			RequestPartitionId theRequestPartitionId);
+
+	/**
+	 * Executes a search and passes each matching resource to the given consumer as soon
+	 * as it has been loaded, instead of collecting the results into an {@link IBundleProvider}.
+	 * Matches are read from a database cursor and loaded in batches, so memory use does not
+	 * grow with the size of the result set. The search runs in its own read-only transaction, and the
+	 * {@link ca.uhn.fhir.interceptor.api.Pointcut#JPA_PERFTRACE_SEARCH_COMPLETE} or
+	 * {@link ca.uhn.fhir.interceptor.api.Pointcut#JPA_PERFTRACE_SEARCH_FAILED} hooks are invoked
+	 * once it has finished.
+	 * <p>
+	 * <code>_include</code> and <code>_revinclude</code> are not supported in this mode.
+	 * </p>
+	 *
+	 * @since 7.6.0
+	 */
+	void executeQueryStreaming(
+			SearchParameterMap theParams,
+			RequestDetails theRequestDetails,
+			String theSearchUuid,
+			ISearchBuilder theSb,
+			RequestPartitionId theRequestPartitionId,
+			Consumer<IBaseResource> theConsumer);
 }
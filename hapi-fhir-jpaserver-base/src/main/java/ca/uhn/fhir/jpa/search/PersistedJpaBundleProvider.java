@@ -35,12 +35,14 @@ import ca.uhn.fhir.jpa.dao.IJpaStorageResourceParser;
 import ca.uhn.fhir.jpa.dao.ISearchBuilder;
 import ca.uhn.fhir.jpa.dao.SearchBuilderFactory;
 import ca.uhn.fhir.jpa.dao.tx.HapiTransactionService;
+import ca.uhn.fhir.jpa.dao.tx.IHapiTransactionService;
 import ca.uhn.fhir.jpa.entity.Search;
 import ca.uhn.fhir.jpa.entity.SearchTypeEnum;
 import ca.uhn.fhir.jpa.model.dao.JpaPid;
 import ca.uhn.fhir.jpa.model.entity.BaseHasResource;
 import ca.uhn.fhir.jpa.model.entity.ResourceHistoryTable;
 import ca.uhn.fhir.jpa.partition.IRequestPartitionHelperSvc;
+import ca.uhn.fhir.jpa.search.builder.SearchIncludesExecutor;
 import ca.uhn.fhir.jpa.search.cache.ISearchCacheSvc;
 import ca.uhn.fhir.jpa.search.cache.SearchCacheStatusEnum;
 import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
@@ -120,6 +122,9 @@ public class PersistedJpaBundleProvider implements IBundleProvider {
 
 	@Autowired
 	private IJpaStorageResourceParser myJpaStorageResourceParser;
+
+	@Autowired
+	private SearchIncludesExecutor mySearchIncludesExecutor;
 	/*
 	 * Non autowired fields (will be different for every instance
 	 * of this class, since it's a prototype
@@ -269,16 +274,27 @@ public class PersistedJpaBundleProvider implements IBundleProvider {
 		theResponsePageBuilder.setTotalRequestedResourcesFetched(pidsSubList.size());
 
 		List<JpaPid> firstBatchOfPids = pidsSubList.subList(0, maxSize);
-		List<IBaseResource> resources = myTxService
-				.withRequest(myRequest)
-				.withRequestPartitionId(requestPartitionId)
-				.execute(() -> {
-					return toResourceList(sb, firstBatchOfPids, theResponsePageBuilder);
-				});
+		List<IBaseResource> resources = newPageLoadTransaction(requestPartitionId)
+				.execute(() -> toResourceList(sb, firstBatchOfPids, theResponsePageBuilder));
 
 		return resources;
 	}
 
+	/**
+	 * Creates the transaction used to load the resources for a page. This is read-only if
+	 * includes can be loaded concurrently, since they are only loaded concurrently outside
+	 * of read-write transactions.
+	 */
+	protected IHapiTransactionService.IExecutionBuilder newPageLoadTransaction(
+			RequestPartitionId theRequestPartitionId) {
+		IHapiTransactionService.IExecutionBuilder retVal =
+				myTxService.withRequest(myRequest).withRequestPartitionId(theRequestPartitionId);
+		if (mySearchIncludesExecutor != null && mySearchIncludesExecutor.isEnabled()) {
+			retVal = retVal.readOnly();
+		}
+		return retVal;
+	}
+
 	/**
 	 * Returns false if the entity can't be found
 	 */
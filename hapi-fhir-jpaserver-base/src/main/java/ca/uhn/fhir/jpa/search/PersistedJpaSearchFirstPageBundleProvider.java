@@ -86,9 +86,7 @@ public class PersistedJpaSearchFirstPageBundleProvider extends PersistedJpaBundl
 		RequestPartitionId requestPartitionId = getRequestPartitionId();
 
 		List<JpaPid> firstBatch = pids.subList(0, maxSize);
-		List<IBaseResource> retVal = myTxService
-				.withRequest(myRequest)
-				.withRequestPartitionId(requestPartitionId)
+		List<IBaseResource> retVal = newPageLoadTransaction(requestPartitionId)
 				.execute(() -> toResourceList(mySearchBuilder, firstBatch, thePageBuilder));
 
 		long totalCountWanted = theToIndex - theFromIndex;
@@ -48,11 +48,11 @@ import ca.uhn.fhir.jpa.search.cache.ISearchResultCacheSvc;
 import ca.uhn.fhir.jpa.search.cache.SearchCacheStatusEnum;
 import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
 import ca.uhn.fhir.jpa.util.QueryParameterUtils;
+import ca.uhn.fhir.jpa.util.SearchParameterMapCalculator;
 import ca.uhn.fhir.model.api.Include;
 import ca.uhn.fhir.rest.api.CacheControlDirective;
 import ca.uhn.fhir.rest.api.Constants;
 import ca.uhn.fhir.rest.api.RestSearchParameterTypeEnum;
-import ca.uhn.fhir.rest.api.SearchTotalModeEnum;
 import ca.uhn.fhir.rest.api.server.IBundleProvider;
 import ca.uhn.fhir.rest.api.server.RequestDetails;
 import ca.uhn.fhir.rest.server.exceptions.InternalErrorException;
@@ -525,8 +525,8 @@ public class SearchCoordinatorSvcImpl implements ISearchCoordinatorSvc<JpaPid> {
 		}
 
 		/*
-		 * In case there is no running search, if the total is listed as accurate we know one is coming
-		 * so let's wait a bit for it to show up
+		 * In case there is no running search, if the total is listed as accurate or estimated we know one
+		 * is coming so let's wait a bit for it to show up
 		 */
 		Optional<Search> search = myTxService
 				.withRequest(theRequestDetails)
@@ -534,7 +534,7 @@ public class SearchCoordinatorSvcImpl implements ISearchCoordinatorSvc<JpaPid> {
 		if (search.isPresent()) {
 			Optional<SearchParameterMap> searchParameterMap = search.get().getSearchParameterMap();
 			if (searchParameterMap.isPresent()
-					&& searchParameterMap.get().getSearchTotalMode() == SearchTotalModeEnum.ACCURATE) {
+					&& SearchParameterMapCalculator.isWantCount(searchParameterMap.get().getSearchTotalMode())) {
 				for (int i = 0; i < 10; i++) {
 					if (search.isPresent()) {
 						QueryParameterUtils.verifySearchHasntFailedOrThrowInternalErrorException(search.get());
@@ -35,29 +35,43 @@ import ca.uhn.fhir.jpa.dao.tx.HapiTransactionService;
 import ca.uhn.fhir.jpa.interceptor.JpaPreResourceAccessDetails;
 import ca.uhn.fhir.jpa.model.dao.JpaPid;
 import ca.uhn.fhir.jpa.model.search.SearchRuntimeDetails;
+import ca.uhn.fhir.jpa.model.search.SearchStatusEnum;
 import ca.uhn.fhir.jpa.partition.IRequestPartitionHelperSvc;
 import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
 import ca.uhn.fhir.model.api.IQueryParameterType;
 import ca.uhn.fhir.rest.api.Constants;
+import ca.uhn.fhir.rest.api.SearchTotalModeEnum;
 import ca.uhn.fhir.rest.api.server.IBundleProvider;
 import ca.uhn.fhir.rest.api.server.IPreResourceAccessDetails;
+import ca.uhn.fhir.rest.api.server.IStreamingBundleProvider;
 import ca.uhn.fhir.rest.api.server.RequestDetails;
 import ca.uhn.fhir.rest.server.SimpleBundleProvider;
 import ca.uhn.fhir.rest.server.exceptions.InternalErrorException;
+import ca.uhn.fhir.rest.server.exceptions.InvalidRequestException;
 import ca.uhn.fhir.rest.server.interceptor.ServerInterceptorUtil;
+import ca.uhn.fhir.rest.server.method.ResponsePage;
 import ca.uhn.fhir.rest.server.servlet.ServletRequestDetails;
 import ca.uhn.fhir.rest.server.util.CompositeInterceptorBroadcaster;
+import jakarta.annotation.Nonnull;
 import jakarta.persistence.EntityManager;
 import org.hl7.fhir.instance.model.api.IBaseResource;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.annotation.Propagation;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 import static ca.uhn.fhir.jpa.util.SearchParameterMapCalculator.isWantCount;
+import static ca.uhn.fhir.jpa.util.SearchParameterMapCalculator.isWantEstimatedCount;
 import static ca.uhn.fhir.jpa.util.SearchParameterMapCalculator.isWantOnlyCount;
 import static java.util.Objects.nonNull;
 
@@ -102,9 +116,10 @@ public class SynchronousSearchSvcImpl implements ISynchronousSearchSvc {
 		searchRuntimeDetails.setLoadSynchronous(true);
 
 		boolean theParamWantOnlyCount = isWantOnlyCount(theParams);
-		boolean theParamOrConfigWantCount = nonNull(theParams.getSearchTotalMode())
-				? isWantCount(theParams)
-				: isWantCount(myStorageSettings.getDefaultTotalMode());
+		SearchTotalModeEnum totalMode = nonNull(theParams.getSearchTotalMode())
+				? theParams.getSearchTotalMode()
+				: myStorageSettings.getDefaultTotalMode();
+		boolean theParamOrConfigWantCount = isWantCount(totalMode);
 		boolean wantCount = theParamWantOnlyCount || theParamOrConfigWantCount;
 
 		// Execute the query and make sure we return distinct results
@@ -130,8 +145,13 @@ public class SynchronousSearchSvcImpl implements ISynchronousSearchSvc {
 						List<List<IQueryParameterType>> contentAndTerms = theParams.get(Constants.PARAM_CONTENT);
 						List<List<IQueryParameterType>> textAndTerms = theParams.get(Constants.PARAM_TEXT);
 
-						count = theSb.createCountQuery(
-								theParams, theSearchUuid, theRequestDetails, theRequestPartitionId);
+						if (isWantEstimatedCount(totalMode)) {
+							count = theSb.createEstimatedCountQuery(
+									theParams, theSearchUuid, theRequestDetails, theRequestPartitionId);
+						} else {
+							count = theSb.createCountQuery(
+									theParams, theSearchUuid, theRequestDetails, theRequestPartitionId);
+						}
 
 						if (contentAndTerms != null) theParams.put(Constants.PARAM_CONTENT, contentAndTerms);
 						if (textAndTerms != null) theParams.put(Constants.PARAM_TEXT, textAndTerms);
@@ -180,72 +200,32 @@ public class SynchronousSearchSvcImpl implements ISynchronousSearchSvc {
 						pids = pids.subList(0, resourcesToReturn);
 					}
 
-					JpaPreResourceAccessDetails accessDetails = new JpaPreResourceAccessDetails(pids, () -> theSb);
-					HookParams params = new HookParams()
-							.add(IPreResourceAccessDetails.class, accessDetails)
-							.add(RequestDetails.class, theRequestDetails)
-							.addIfMatchesType(ServletRequestDetails.class, theRequestDetails);
-					CompositeInterceptorBroadcaster.doCallHooks(
-							myInterceptorBroadcaster, theRequestDetails, Pointcut.STORAGE_PREACCESS_RESOURCES, params);
-
-					for (int i = pids.size() - 1; i >= 0; i--) {
-						if (accessDetails.isDontReturnResourceAtIndex(i)) {
-							pids.remove(i);
-						}
+					// let the search builder remember where this page ended, so the next one can start from there
+					if (theParams.isOffsetQuery() && !pids.isEmpty() && receivedResourceCount > pids.size()) {
+						theSb.saveOffsetPageEnd(theParams.getOffset() + pids.size(), pids.get(pids.size() - 1));
 					}
 
-					/*
-					 * For synchronous queries, we load all the includes right away
-					 * since we're returning a static bundle with all the results
-					 * pre-loaded. This is ok because synchronous requests are not
-					 * expected to be paged
-					 *
-					 * On the other hand for async queries we load includes/revincludes
-					 * individually for pages as we return them to clients
-					 */
-
-					// _includes
-					Integer maxIncludes = myStorageSettings.getMaximumIncludesToLoadPerPage();
-					final Set<JpaPid> includedPids = theSb.loadIncludes(
-							myContext,
-							myEntityManager,
-							pids,
-							theParams.getRevIncludes(),
-							true,
-							theParams.getLastUpdated(),
-							"(synchronous)",
-							theRequestDetails,
-							maxIncludes);
-					if (maxIncludes != null) {
-						maxIncludes -= includedPids.size();
-					}
-					pids.addAll(includedPids);
-					List<JpaPid> includedPidsList = new ArrayList<>(includedPids);
-
-					// _revincludes
-					if (theParams.getEverythingMode() == null && (maxIncludes == null || maxIncludes > 0)) {
-						Set<JpaPid> revIncludedPids = theSb.loadIncludes(
-								myContext,
-								myEntityManager,
-								pids,
-								theParams.getIncludes(),
-								false,
-								theParams.getLastUpdated(),
-								"(synchronous)",
-								theRequestDetails,
-								maxIncludes);
-						includedPids.addAll(revIncludedPids);
-						pids.addAll(revIncludedPids);
-						includedPidsList.addAll(revIncludedPids);
+					invokeStoragePreAccessResources(theSb, pids, theRequestDetails);
+
+					SimpleBundleProvider bundleProvider;
+					int resultCount;
+					if (isStreamBundleResponses(theRequestDetails)
+							&& theParams.getIncludes().isEmpty()
+							&& theParams.getRevIncludes().isEmpty()) {
+						/*
+						 * The resources are only loaded as the response is written, so that the
+						 * whole result set never needs to be held in memory at once
+						 */
+						bundleProvider = new StreamingBundleProvider(
+								pids, theSb, theRequestDetails, theRequestPartitionId, searchRuntimeDetails);
+						resultCount = pids.size();
+					} else {
+						List<IBaseResource> resources =
+								loadResourcesAndIncludes(theParams, theSb, pids, theRequestDetails);
+						bundleProvider = new SimpleBundleProvider(resources);
+						resultCount = resources.size();
 					}
 
-					List<IBaseResource> resources = new ArrayList<>();
-					theSb.loadResourcesByPid(pids, includedPidsList, resources, false, theRequestDetails);
-					// Hook: STORAGE_PRESHOW_RESOURCES
-					resources = ServerInterceptorUtil.fireStoragePreshowResource(
-							resources, theRequestDetails, myInterceptorBroadcaster);
-
-					SimpleBundleProvider bundleProvider = new SimpleBundleProvider(resources);
 					if (hasACount) {
 						bundleProvider.setTotalResourcesRequestedReturned(receivedResourceCount);
 					}
@@ -258,9 +238,9 @@ public class SynchronousSearchSvcImpl implements ISynchronousSearchSvc {
 						bundleProvider.setSize(count.intValue());
 					} else {
 						Integer queryCount = getQueryCount(theLoadSynchronousUpTo, theParams);
-						if (queryCount == null || queryCount > resources.size()) {
+						if (queryCount == null || queryCount > resultCount) {
 							// No limit, last page or everything was fetched within the limit
-							bundleProvider.setSize(getTotalCount(queryCount, theParams.getOffset(), resources.size()));
+							bundleProvider.setSize(getTotalCount(queryCount, theParams.getOffset(), resultCount));
 						} else {
 							bundleProvider.setSize(null);
 						}
@@ -272,6 +252,63 @@ public class SynchronousSearchSvcImpl implements ISynchronousSearchSvc {
 				});
 	}
 
+	private List<IBaseResource> loadResourcesAndIncludes(
+			SearchParameterMap theParams,
+			ISearchBuilder theSb,
+			List<JpaPid> thePids,
+			RequestDetails theRequestDetails) {
+		/*
+		 * For synchronous queries, we load all the includes right away
+		 * since we're returning a static bundle with all the results
+		 * pre-loaded. This is ok because synchronous requests are not
+		 * expected to be paged
+		 *
+		 * On the other hand for async queries we load includes/revincludes
+		 * individually for pages as we return them to clients
+		 */
+
+		// _includes
+		Integer maxIncludes = myStorageSettings.getMaximumIncludesToLoadPerPage();
+		final Set<JpaPid> includedPids = theSb.loadIncludes(
+				myContext,
+				myEntityManager,
+				thePids,
+				theParams.getRevIncludes(),
+				true,
+				theParams.getLastUpdated(),
+				"(synchronous)",
+				theRequestDetails,
+				maxIncludes);
+		if (maxIncludes != null) {
+			maxIncludes -= includedPids.size();
+		}
+		thePids.addAll(includedPids);
+		List<JpaPid> includedPidsList = new ArrayList<>(includedPids);
+
+		// _revincludes
+		if (theParams.getEverythingMode() == null && (maxIncludes == null || maxIncludes > 0)) {
+			Set<JpaPid> revIncludedPids = theSb.loadIncludes(
+					myContext,
+					myEntityManager,
+					thePids,
+					theParams.getIncludes(),
+					false,
+					theParams.getLastUpdated(),
+					"(synchronous)",
+					theRequestDetails,
+					maxIncludes);
+			includedPids.addAll(revIncludedPids);
+			thePids.addAll(revIncludedPids);
+			includedPidsList.addAll(revIncludedPids);
+		}
+
+		List<IBaseResource> resources = new ArrayList<>();
+		theSb.loadResourcesByPid(thePids, includedPidsList, resources, false, theRequestDetails);
+		// Hook: STORAGE_PRESHOW_RESOURCES
+		return ServerInterceptorUtil.fireStoragePreshowResource(
+				resources, theRequestDetails, myInterceptorBroadcaster);
+	}
+
 	@Override
 	public IBundleProvider executeQuery(
 			String theResourceType,
@@ -295,6 +332,104 @@ public class SynchronousSearchSvcImpl implements ISynchronousSearchSvc {
 				theRequestPartitionId);
 	}
 
+	@Override
+	public void executeQueryStreaming(
+			SearchParameterMap theParams,
+			RequestDetails theRequestDetails,
+			String theSearchUuid,
+			ISearchBuilder theSb,
+			RequestPartitionId theRequestPartitionId,
+			Consumer<IBaseResource> theConsumer) {
+		if (!theParams.getIncludes().isEmpty() || !theParams.getRevIncludes().isEmpty()) {
+			throw new InvalidRequestException(
+					Msg.code(2549) + "_include and _revinclude are not supported for streaming searches");
+		}
+
+		SearchRuntimeDetails searchRuntimeDetails = new SearchRuntimeDetails(theRequestDetails, theSearchUuid);
+		searchRuntimeDetails.setLoadSynchronous(true);
+		if (theParams.getLoadSynchronousUpTo() != null) {
+			theSb.setMaxResultsToFetch(theParams.getLoadSynchronousUpTo());
+		}
+
+		/*
+		 * We use a new transaction so that we can clear the persistence context after
+		 * each batch without affecting anything the caller is doing
+		 */
+		callWithPerformanceTracingHooks(
+				theRequestDetails,
+				searchRuntimeDetails,
+				() -> myTxService
+						.withRequest(theRequestDetails)
+						.withRequestPartitionId(theRequestPartitionId)
+						.withPropagation(Propagation.REQUIRES_NEW)
+						.readOnly()
+						.execute(() -> {
+							try (IResultIterator<JpaPid> resultIter = theSb.createQuery(
+									theParams, searchRuntimeDetails, theRequestDetails, theRequestPartitionId)) {
+								new BatchLoadingResourceIterator(theSb, resultIter, theRequestDetails, true)
+										.forEachRemaining(theConsumer);
+							} catch (IOException e) {
+								ourLog.error("IO failure during database access", e);
+								throw new InternalErrorException(Msg.code(2550) + e);
+							}
+							return null;
+						}));
+	}
+
+	/**
+	 * Invokes the given search and then the {@link Pointcut#JPA_PERFTRACE_SEARCH_COMPLETE} or
+	 * {@link Pointcut#JPA_PERFTRACE_SEARCH_FAILED} hooks, the same way they are invoked for
+	 * searches which are not loaded synchronously
+	 */
+	private <T> T callWithPerformanceTracingHooks(
+			RequestDetails theRequestDetails, SearchRuntimeDetails theSearchRuntimeDetails, Supplier<T> theSearch) {
+		T retVal;
+		try {
+			retVal = theSearch.get();
+		} catch (RuntimeException e) {
+			theSearchRuntimeDetails.setSearchStatus(SearchStatusEnum.FAILED);
+			HookParams params = new HookParams()
+					.add(RequestDetails.class, theRequestDetails)
+					.addIfMatchesType(ServletRequestDetails.class, theRequestDetails)
+					.add(SearchRuntimeDetails.class, theSearchRuntimeDetails);
+			CompositeInterceptorBroadcaster.doCallHooks(
+					myInterceptorBroadcaster, theRequestDetails, Pointcut.JPA_PERFTRACE_SEARCH_FAILED, params);
+			throw e;
+		}
+
+		theSearchRuntimeDetails.setSearchStatus(SearchStatusEnum.FINISHED);
+		HookParams params = new HookParams()
+				.add(RequestDetails.class, theRequestDetails)
+				.addIfMatchesType(ServletRequestDetails.class, theRequestDetails)
+				.add(SearchRuntimeDetails.class, theSearchRuntimeDetails);
+		CompositeInterceptorBroadcaster.doCallHooks(
+				myInterceptorBroadcaster, theRequestDetails, Pointcut.JPA_PERFTRACE_SEARCH_COMPLETE, params);
+		return retVal;
+	}
+
+	private static boolean isStreamBundleResponses(RequestDetails theRequestDetails) {
+		return theRequestDetails != null
+				&& theRequestDetails.getServer() != null
+				&& theRequestDetails.getServer().isStreamBundleResponses();
+	}
+
+	private void invokeStoragePreAccessResources(
+			ISearchBuilder theSb, List<JpaPid> thePids, RequestDetails theRequestDetails) {
+		JpaPreResourceAccessDetails accessDetails = new JpaPreResourceAccessDetails(thePids, () -> theSb);
+		HookParams params = new HookParams()
+				.add(IPreResourceAccessDetails.class, accessDetails)
+				.add(RequestDetails.class, theRequestDetails)
+				.addIfMatchesType(ServletRequestDetails.class, theRequestDetails);
+		CompositeInterceptorBroadcaster.doCallHooks(
+				myInterceptorBroadcaster, theRequestDetails, Pointcut.STORAGE_PREACCESS_RESOURCES, params);
+
+		for (int i = thePids.size() - 1; i >= 0; i--) {
+			if (accessDetails.isDontReturnResourceAtIndex(i)) {
+				thePids.remove(i);
+			}
+		}
+	}
+
 	@Autowired
 	public void setContext(FhirContext theContext) {
 		myContext = theContext;
@@ -322,4 +457,142 @@ public class SynchronousSearchSvcImpl implements ISynchronousSearchSvc {
 		}
 		return null;
 	}
+
+	/**
+	 * Loads the resources for the given pids in batches as they are iterated, so that only one
+	 * batch is ever held in memory. The persistence context is cleared before each batch, so this
+	 * should only be used in a transaction of its own.
+	 */
+	private class BatchLoadingResourceIterator implements Iterator<IBaseResource> {
+		private final ISearchBuilder mySb;
+		private final Iterator<JpaPid> myPids;
+		private final RequestDetails myRequestDetails;
+		private final boolean myInvokePreAccessHooks;
+		private Iterator<IBaseResource> myBatch = Collections.emptyIterator();
+
+		/**
+		 * @param theInvokePreAccessHooks Should the {@link Pointcut#STORAGE_PREACCESS_RESOURCES} hooks be
+		 *                                invoked for each batch? This should be <code>false</code> if they
+		 *                                have already been invoked for the pids.
+		 */
+		private BatchLoadingResourceIterator(
+				ISearchBuilder theSb,
+				Iterator<JpaPid> thePids,
+				RequestDetails theRequestDetails,
+				boolean theInvokePreAccessHooks) {
+			mySb = theSb;
+			myPids = thePids;
+			myRequestDetails = theRequestDetails;
+			myInvokePreAccessHooks = theInvokePreAccessHooks;
+		}
+
+		@Override
+		public boolean hasNext() {
+			while (!myBatch.hasNext() && myPids.hasNext()) {
+				loadNextBatch();
+			}
+			return myBatch.hasNext();
+		}
+
+		@Override
+		public IBaseResource next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			return myBatch.next();
+		}
+
+		private void loadNextBatch() {
+			// Nothing loaded so far is needed again, so don't let the persistence context grow
+			myEntityManager.clear();
+
+			List<JpaPid> pids = new ArrayList<>(mySyncSize);
+			while (pids.size() < mySyncSize && myPids.hasNext()) {
+				pids.add(myPids.next());
+			}
+			if (myInvokePreAccessHooks) {
+				invokeStoragePreAccessResources(mySb, pids, myRequestDetails);
+			}
+
+			List<IBaseResource> resources = new ArrayList<>(pids.size());
+			mySb.loadResourcesByPid(pids, Collections.emptyList(), resources, false, myRequestDetails);
+			// Hook: STORAGE_PRESHOW_RESOURCES
+			resources = ServerInterceptorUtil.fireStoragePreshowResource(
+					resources, myRequestDetails, myInterceptorBroadcaster);
+			myBatch = resources.iterator();
+		}
+	}
+
+	/**
+	 * A bundle provider for a synchronous search which only loads its resources when they are
+	 * requested. If the server streams Bundle responses, they are loaded in batches as the
+	 * response is written.
+	 */
+	private class StreamingBundleProvider extends SimpleBundleProvider implements IStreamingBundleProvider {
+		private final List<JpaPid> myPids;
+		private final ISearchBuilder mySb;
+		private final RequestDetails myRequestDetails;
+		private final RequestPartitionId myRequestPartitionId;
+		private final SearchRuntimeDetails mySearchRuntimeDetails;
+		private int myTotalResourcesRequestedReturned = -1;
+
+		private StreamingBundleProvider(
+				List<JpaPid> thePids,
+				ISearchBuilder theSb,
+				RequestDetails theRequestDetails,
+				RequestPartitionId theRequestPartitionId,
+				SearchRuntimeDetails theSearchRuntimeDetails) {
+			super(thePids.size());
+			myPids = thePids;
+			mySb = theSb;
+			myRequestDetails = theRequestDetails;
+			myRequestPartitionId = theRequestPartitionId;
+			mySearchRuntimeDetails = theSearchRuntimeDetails;
+		}
+
+		@Override
+		public void setTotalResourcesRequestedReturned(int theAmount) {
+			super.setTotalResourcesRequestedReturned(theAmount);
+			myTotalResourcesRequestedReturned = theAmount;
+		}
+
+		@Nonnull
+		@Override
+		public List<IBaseResource> getResources(
+				int theFromIndex, int theToIndex, @Nonnull ResponsePage.ResponsePageBuilder theResponsePageBuilder) {
+			theResponsePageBuilder.setTotalRequestedResourcesFetched(myTotalResourcesRequestedReturned);
+			List<JpaPid> pids = new ArrayList<>(getPids(theFromIndex, theToIndex));
+			return myTxService
+					.withRequest(myRequestDetails)
+					.withRequestPartitionId(myRequestPartitionId)
+					.readOnly()
+					.execute(() -> {
+						List<IBaseResource> resources = new ArrayList<>(pids.size());
+						mySb.loadResourcesByPid(pids, Collections.emptyList(), resources, false, myRequestDetails);
+						// Hook: STORAGE_PRESHOW_RESOURCES
+						return ServerInterceptorUtil.fireStoragePreshowResource(
+								resources, myRequestDetails, myInterceptorBroadcaster);
+					});
+		}
+
+		@Override
+		public <T> T streamResources(
+				int theFromIndex, int theToIndex, Function<Iterator<IBaseResource>, T> theCallback) {
+			List<JpaPid> pids = getPids(theFromIndex, theToIndex);
+			return callWithPerformanceTracingHooks(
+					myRequestDetails,
+					mySearchRuntimeDetails,
+					() -> myTxService
+							.withRequest(myRequestDetails)
+							.withRequestPartitionId(myRequestPartitionId)
+							.withPropagation(Propagation.REQUIRES_NEW)
+							.readOnly()
+							.execute(() -> theCallback.apply(new BatchLoadingResourceIterator(
+									mySb, pids.iterator(), myRequestDetails, false))));
+		}
+
+		private List<JpaPid> getPids(int theFromIndex, int theToIndex) {
+			return myPids.subList(Math.min(theFromIndex, myPids.size()), Math.min(theToIndex, myPids.size()));
+		}
+	}
 }
@@ -26,9 +26,12 @@ import ca.uhn.fhir.i18n.Msg;
 import ca.uhn.fhir.interceptor.model.RequestPartitionId;
 import ca.uhn.fhir.jpa.api.config.JpaStorageSettings;
 import ca.uhn.fhir.jpa.dao.BaseStorageDao;
+import ca.uhn.fhir.jpa.dao.index.ChainIndexDefinition;
+import ca.uhn.fhir.jpa.dao.index.ChainIndexSvc;
 import ca.uhn.fhir.jpa.dao.predicate.SearchFilterParser;
 import ca.uhn.fhir.jpa.model.config.PartitionSettings;
 import ca.uhn.fhir.jpa.model.entity.NormalizedQuantitySearchLevel;
+import ca.uhn.fhir.jpa.model.entity.ResourceIndexedSearchParamToken;
 import ca.uhn.fhir.jpa.model.entity.TagTypeEnum;
 import ca.uhn.fhir.jpa.model.util.UcumServiceUtil;
 import ca.uhn.fhir.jpa.search.builder.models.MissingParameterQueryParams;
@@ -39,6 +42,7 @@ import ca.uhn.fhir.jpa.search.builder.models.PredicateBuilderTypeEnum;
 import ca.uhn.fhir.jpa.search.builder.predicate.BaseJoiningPredicateBuilder;
 import ca.uhn.fhir.jpa.search.builder.predicate.BaseQuantityPredicateBuilder;
 import ca.uhn.fhir.jpa.search.builder.predicate.BaseSearchParamPredicateBuilder;
+import ca.uhn.fhir.jpa.search.builder.predicate.ChainIndexPredicateBuilder;
 import ca.uhn.fhir.jpa.search.builder.predicate.ComboNonUniqueSearchParameterPredicateBuilder;
 import ca.uhn.fhir.jpa.search.builder.predicate.ComboUniqueSearchParameterPredicateBuilder;
 import ca.uhn.fhir.jpa.search.builder.predicate.CoordsPredicateBuilder;
@@ -153,6 +157,7 @@ public class QueryStack {
 	private Map<String, BaseJoiningPredicateBuilder> myParamNameToPredicateBuilderMap;
 	// used for _offset queries with sort, should be removed once the fix is applied to the async path too.
 	private boolean myUseAggregate;
+	private ChainIndexSvc myChainIndexSvc;
 
 	/**
 	 * Constructor
@@ -499,6 +504,14 @@ public class QueryStack {
 		myUseAggregate = theUseAggregate;
 	}
 
+	/**
+	 * If set, chains declared in {@link JpaStorageSettings#getIndexedChains()} are searched using
+	 * the chain index once it has been built
+	 */
+	public void setChainIndexSvc(@Nullable ChainIndexSvc theChainIndexSvc) {
+		myChainIndexSvc = theChainIndexSvc;
+	}
+
 	@SuppressWarnings("unchecked")
 	private <T extends BaseJoiningPredicateBuilder> PredicateBuilderCacheLookupResult<T> createOrReusePredicateBuilder(
 			PredicateBuilderTypeEnum theType,
@@ -2316,7 +2329,7 @@ public class QueryStack {
 	}
 
 	public QueryStack newChildQueryFactoryWithFullBuilderReuse() {
-		return new QueryStack(
+		QueryStack retVal = new QueryStack(
 				mySearchParameters,
 				myStorageSettings,
 				myFhirContext,
@@ -2324,6 +2337,8 @@ public class QueryStack {
 				mySearchParamRegistry,
 				myPartitionSettings,
 				EnumSet.allOf(PredicateBuilderTypeEnum.class));
+		retVal.setChainIndexSvc(myChainIndexSvc);
+		return retVal;
 	}
 
 	@Nullable
@@ -2518,6 +2533,14 @@ public class QueryStack {
 							continue;
 						}
 
+						// Handle chains which have been declared as indexed (e.g. Observation?subject.identifier)
+						Condition chainIndexPredicate = createPredicateChainIndex(
+								theSourceJoinColumn, theResourceName, theParamName, nextAnd, theRequestPartitionId);
+						if (chainIndexPredicate != null) {
+							andPredicates.add(chainIndexPredicate);
+							continue;
+						}
+
 						EmbeddedChainedSearchModeEnum embeddedChainedSearchModeEnum =
 								isEligibleForEmbeddedChainedResourceSearch(theResourceName, theParamName, nextAnd);
 						if (embeddedChainedSearchModeEnum == EmbeddedChainedSearchModeEnum.REF_JOIN_ONLY) {
@@ -2718,6 +2741,79 @@ public class QueryStack {
 		return false;
 	}
 
+	/**
+	 * If the chain in the given parameters has been declared in {@link JpaStorageSettings#getIndexedChains()}
+	 * and its index has been built, creates a predicate which answers it with a single lookup in the chain
+	 * index. Returns <code>null</code> if the chain index can't be used, in which case the regular chained
+	 * search applies.
+	 */
+	@Nullable
+	private Condition createPredicateChainIndex(
+			@Nullable DbColumn theSourceJoinColumn,
+			String theResourceName,
+			String theParamName,
+			List<? extends IQueryParameterType> theList,
+			RequestPartitionId theRequestPartitionId) {
+		if (myChainIndexSvc == null
+				|| myStorageSettings.getIndexedChains().isEmpty()
+				|| myStorageSettings.isIndexOnContainedResources()
+				|| theList.isEmpty()) {
+			return null;
+		}
+
+		String chain = null;
+		List<TokenParam> tokenParams = new ArrayList<>(theList.size());
+		for (IQueryParameterType next : theList) {
+			if (!(next instanceof ReferenceParam)) {
+				return null;
+			}
+			ReferenceParam referenceParam = (ReferenceParam) next;
+			if (isBlank(referenceParam.getChain())
+					|| isNotBlank(referenceParam.getResourceType())
+					|| referenceParam.getMissing() != null
+					|| referenceParam.isMdmExpand()) {
+				return null;
+			}
+			if (chain != null && !chain.equals(referenceParam.getChain())) {
+				return null;
+			}
+			chain = referenceParam.getChain();
+			tokenParams.add(referenceParam.toTokenParam(myFhirContext));
+		}
+
+		ChainIndexDefinition definition = myChainIndexSvc.findBuiltDefinition(theResourceName, theParamName, chain);
+		if (definition == null) {
+			return null;
+		}
+
+		List<Long> hashValues = new ArrayList<>(tokenParams.size());
+		for (TokenParam next : tokenParams) {
+			String system = next.getSystem();
+			String value = next.getValue();
+			if (isNotBlank(value) && system == null) {
+				hashValues.add(ResourceIndexedSearchParamToken.calculateHashValue(
+						myPartitionSettings, theRequestPartitionId, theResourceName, definition.getChain(), value));
+			} else if (isNotBlank(value)) {
+				hashValues.add(ResourceIndexedSearchParamToken.calculateHashSystemAndValue(
+						myPartitionSettings,
+						theRequestPartitionId,
+						theResourceName,
+						definition.getChain(),
+						system,
+						value));
+			} else if (isNotBlank(system)) {
+				hashValues.add(ResourceIndexedSearchParamToken.calculateHashSystem(
+						myPartitionSettings, theRequestPartitionId, theResourceName, definition.getChain(), system));
+			} else {
+				return null;
+			}
+		}
+
+		ChainIndexPredicateBuilder chainIndexPredicateBuilder =
+				mySqlBuilder.addChainIndexPredicateBuilder(theSourceJoinColumn);
+		return chainIndexPredicateBuilder.createPredicateHashValues(theRequestPartitionId, hashValues);
+	}
+
 	/**
 	 * When searching using a chained search expression (e.g. "Patient?organization.name=foo")
 	 * we have a few options:
@@ -45,7 +45,9 @@ import ca.uhn.fhir.jpa.dao.IResultIterator;
 import ca.uhn.fhir.jpa.dao.ISearchBuilder;
 import ca.uhn.fhir.jpa.dao.data.IResourceSearchViewDao;
 import ca.uhn.fhir.jpa.dao.data.IResourceTagDao;
+import ca.uhn.fhir.jpa.dao.index.ChainIndexSvc;
 import ca.uhn.fhir.jpa.dao.search.ResourceNotFoundInIndexException;
+import ca.uhn.fhir.jpa.dao.tx.IHapiTransactionService;
 import ca.uhn.fhir.jpa.entity.ResourceSearchView;
 import ca.uhn.fhir.jpa.interceptor.JpaPreResourceAccessDetails;
 import ca.uhn.fhir.jpa.model.config.PartitionSettings;
@@ -56,9 +58,12 @@ import ca.uhn.fhir.jpa.model.entity.ResourceTag;
 import ca.uhn.fhir.jpa.model.search.SearchBuilderLoadIncludesParameters;
 import ca.uhn.fhir.jpa.model.search.SearchRuntimeDetails;
 import ca.uhn.fhir.jpa.model.search.StorageProcessingMessage;
+import ca.uhn.fhir.jpa.model.util.LongIntMap;
+import ca.uhn.fhir.jpa.model.util.LongSet;
 import ca.uhn.fhir.jpa.search.SearchConstants;
 import ca.uhn.fhir.jpa.search.builder.models.ResolvedSearchQueryExecutor;
 import ca.uhn.fhir.jpa.search.builder.sql.GeneratedSql;
+import ca.uhn.fhir.jpa.search.builder.sql.GeneratedSqlTemplate;
 import ca.uhn.fhir.jpa.search.builder.sql.SearchQueryBuilder;
 import ca.uhn.fhir.jpa.search.builder.sql.SearchQueryExecutor;
 import ca.uhn.fhir.jpa.search.builder.sql.SqlObjectFactory;
@@ -70,7 +75,9 @@ import ca.uhn.fhir.jpa.searchparam.util.LastNParameterHelper;
 import ca.uhn.fhir.jpa.util.BaseIterator;
 import ca.uhn.fhir.jpa.util.CartesianProductUtil;
 import ca.uhn.fhir.jpa.util.CurrentThreadCaptureQueriesListener;
+import ca.uhn.fhir.jpa.util.MemoryCacheService;
 import ca.uhn.fhir.jpa.util.QueryChunker;
+import ca.uhn.fhir.jpa.util.SearchParameterMapCalculator;
 import ca.uhn.fhir.jpa.util.SqlQueryList;
 import ca.uhn.fhir.model.api.IQueryParameterType;
 import ca.uhn.fhir.model.api.Include;
@@ -91,6 +98,7 @@ import ca.uhn.fhir.rest.param.ParameterUtil;
 import ca.uhn.fhir.rest.param.ReferenceParam;
 import ca.uhn.fhir.rest.param.StringParam;
 import ca.uhn.fhir.rest.param.TokenParam;
+import ca.uhn.fhir.rest.server.exceptions.InternalErrorException;
 import ca.uhn.fhir.rest.server.exceptions.InvalidRequestException;
 import ca.uhn.fhir.rest.server.exceptions.ResourceNotFoundException;
 import ca.uhn.fhir.rest.server.servlet.ServletRequestDetails;
@@ -136,6 +144,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
 import java.util.stream.Collectors;
 
 import static ca.uhn.fhir.jpa.model.util.JpaConstants.UNDESIRED_RESOURCE_LINKAGES_FOR_EVERYTHING_ON_PATIENT_INSTANCE;
@@ -170,6 +181,24 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 	private static final String MY_TARGET_RESOURCE_TYPE = "myTargetResourceType";
 	private static final String MY_SOURCE_RESOURCE_TYPE = "mySourceResourceType";
 	private static final String MY_TARGET_RESOURCE_VERSION = "myTargetResourceVersion";
+	/**
+	 * Estimated totals are counted exactly if there are fewer matching rows than this
+	 */
+	private static final int ESTIMATED_COUNT_EXACT_LIMIT = 1000;
+	/**
+	 * Parameters and modifiers whose matches depend on resources of other types, or on terminology
+	 */
+	private static final Set<String> COUNT_UNCACHEABLE_PARAMS =
+			Set.of(Constants.PARAM_HAS, Constants.PARAM_LIST, Constants.PARAM_FILTER);
+	/**
+	 * Parameters whose indexes can change without a new resource version being written, e.g. by
+	 * <code>$meta-add</code> and <code>$meta-delete</code>
+	 */
+	private static final Set<String> COUNT_UNCACHEABLE_UNVERSIONED_PARAMS =
+			Set.of(Constants.PARAM_TAG, Constants.PARAM_SECURITY, Constants.PARAM_PROFILE);
+
+	private static final Set<String> COUNT_UNCACHEABLE_QUALIFIERS =
+			Set.of(":in", ":not-in", ":above", ":below", ":mdm", ":identifier");
 	public static boolean myUseMaxPageSize50ForTest = false;
 	protected final IInterceptorBroadcaster myInterceptorBroadcaster;
 	protected final IResourceTagDao myResourceTagDao;
@@ -195,9 +224,10 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 	private String mySearchUuid;
 	private int myFetchSize;
 	private Integer myMaxResultsToFetch;
-	private Set<JpaPid> myPidSet;
+	private PidSet myPidSet;
 	private boolean myHasNextIteratorQuery = false;
 	private RequestPartitionId myRequestPartitionId;
+	private String myKeysetSearchKey;
 
 	@Autowired(required = false)
 	private IFulltextSearchSvc myFulltextSearchSvc;
@@ -211,6 +241,24 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 	@Autowired
 	private IJpaStorageResourceParser myJpaStorageResourceParser;
 
+	@Autowired(required = false)
+	private IHapiTransactionService myHapiTransactionService;
+
+	@Autowired(required = false)
+	private SearchIncludesExecutor mySearchIncludesExecutor;
+
+	@Autowired(required = false)
+	private SearchPredicateOrderPlanner mySearchPredicateOrderPlanner;
+
+	@Autowired(required = false)
+	private SearchKeysetPagingSvc mySearchKeysetPagingSvc;
+
+	@Autowired(required = false)
+	private ChainIndexSvc myChainIndexSvc;
+
+	@Autowired
+	private MemoryCacheService myMemoryCacheService;
+
 	/**
 	 * Constructor
 	 */
@@ -329,19 +377,142 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 		assert theRequestPartitionId != null;
 		assert TransactionSynchronizationManager.isActualTransactionActive();
 
+		String countCacheKey = toCountCacheKey(theParams, theRequestPartitionId);
 		init(theParams, theSearchUuid, theRequestPartitionId);
 
+		Long retVal;
 		if (checkUseHibernateSearch()) {
-			long count = myFulltextSearchSvc.count(myResourceName, theParams.clone());
-			return count;
+			retVal = myFulltextSearchSvc.count(myResourceName, theParams.clone());
+		} else {
+			List<ISearchQueryExecutor> queries =
+					createQuery(theParams.clone(), null, null, null, true, theRequest, null);
+			if (queries.isEmpty()) {
+				retVal = 0L;
+			} else {
+				retVal = queries.get(0).next();
+			}
 		}
 
-		List<ISearchQueryExecutor> queries = createQuery(theParams.clone(), null, null, null, true, theRequest, null);
-		if (queries.isEmpty()) {
-			return 0L;
-		} else {
-			return queries.get(0).next();
+		// Keep the count so that later searches asking for an estimated total can reuse it
+		if (isCountCacheable(theParams)) {
+			myMemoryCacheService.put(MemoryCacheService.CacheEnum.SEARCH_TOTAL_COUNT, countCacheKey, retVal);
+		}
+		return retVal;
+	}
+
+	/**
+	 * Cached counts are only invalidated when a resource of the searched type is written, so a count can
+	 * only be cached if the search matches on the indexes of the searched resources alone. Chains,
+	 * references (whose targets may be created or deleted later), reverse chains and terminology
+	 * expansions all depend on other data. Tags, security labels and profiles can also be changed
+	 * without a new version being written.
+	 */
+	private boolean isCountCacheable(SearchParameterMap theParams) {
+		if (theParams.getEverythingMode() != null) {
+			return false;
+		}
+		for (Map.Entry<String, List<List<IQueryParameterType>>> nextParam : theParams.entrySet()) {
+			String paramName = nextParam.getKey();
+			if (COUNT_UNCACHEABLE_PARAMS.contains(paramName)
+					|| COUNT_UNCACHEABLE_UNVERSIONED_PARAMS.contains(paramName)
+					|| paramName.contains(".")) {
+				return false;
+			}
+			RuntimeSearchParam searchParam = mySearchParamRegistry.getActiveSearchParam(myResourceName, paramName);
+			if (searchParam != null && searchParam.getParamType() == RestSearchParameterTypeEnum.REFERENCE) {
+				return false;
+			}
+			for (List<IQueryParameterType> nextOrList : nextParam.getValue()) {
+				for (IQueryParameterType nextOr : nextOrList) {
+					String qualifier = defaultString(nextOr.getQueryParameterQualifier());
+					if (qualifier.contains(".") || COUNT_UNCACHEABLE_QUALIFIERS.contains(qualifier)) {
+						return false;
+					}
+				}
+			}
 		}
+		return true;
+	}
+
+	/**
+	 * Counts are cached by resource type and normalized query, and the cached counts for a resource type
+	 * are invalidated whenever a resource of that type is written or reindexed. Counts for searches which
+	 * depend on other resource types are not cached. If there is no cached count and only
+	 * the count was requested, an approximation based on the sampled index statistics is returned if one
+	 * is available and the search matches at least {@link #ESTIMATED_COUNT_EXACT_LIMIT} rows. Otherwise,
+	 * an accurate count is performed.
+	 */
+	@Override
+	public Long createEstimatedCountQuery(
+			SearchParameterMap theParams,
+			String theSearchUuid,
+			RequestDetails theRequest,
+			@Nonnull RequestPartitionId theRequestPartitionId) {
+		Long cachedCount = myMemoryCacheService.getIfPresent(
+				MemoryCacheService.CacheEnum.SEARCH_TOTAL_COUNT, toCountCacheKey(theParams, theRequestPartitionId));
+		if (cachedCount != null) {
+			return cachedCount;
+		}
+
+		// An approximation is only used if the count won't be used to page through the results
+		if (mySearchPredicateOrderPlanner != null && SearchParameterMapCalculator.isWantOnlyCount(theParams)) {
+			Double estimate = mySearchPredicateOrderPlanner.estimateMatchingResources(
+					myResourceName, theRequestPartitionId, theParams);
+			if (estimate != null) {
+				/*
+				 * The estimate assumes that every value matches the average number of rows, which is badly
+				 * wrong for values that match very few or no resources. Those are cheap to count, so we
+				 * count up to a limit and only fall back to the estimate if there are more matches.
+				 */
+				init(theParams, theSearchUuid, theRequestPartitionId);
+				Set<Long> matches = new HashSet<>();
+				int rowCount = 0;
+				for (ISearchQueryExecutor next : createQuery(
+						theParams.clone(), null, null, ESTIMATED_COUNT_EXACT_LIMIT, false, theRequest, null)) {
+					try {
+						while (next.hasNext()) {
+							matches.add(next.next());
+							rowCount++;
+						}
+					} finally {
+						next.close();
+					}
+				}
+				if (rowCount < ESTIMATED_COUNT_EXACT_LIMIT) {
+					return (long) matches.size();
+				}
+				return Math.max(Math.round(estimate), matches.size());
+			}
+		}
+
+		return createCountQuery(theParams, theSearchUuid, theRequest, theRequestPartitionId);
+	}
+
+	@Override
+	public void saveOffsetPageEnd(int theNextOffset, JpaPid theLastPid) {
+		if (myKeysetSearchKey != null) {
+			mySearchKeysetPagingSvc.savePosition(
+					myKeysetSearchKey,
+					myResourceName,
+					myRequestPartitionId,
+					myParams.getSort(),
+					theNextOffset,
+					theLastPid.getId());
+		}
+	}
+
+	/**
+	 * Counts are cached under the current generation of the resource type, so that all of the counts for
+	 * a type can be invalidated together by invalidating its generation. The generation is looked up
+	 * before counting, so a count which a concurrent write makes stale is cached under a generation
+	 * which has already been invalidated, and is never found.
+	 */
+	private String toCountCacheKey(SearchParameterMap theParams, RequestPartitionId theRequestPartitionId) {
+		String generation = myMemoryCacheService.get(
+				MemoryCacheService.CacheEnum.SEARCH_TOTAL_COUNT_GENERATION,
+				myResourceName,
+				t -> UUID.randomUUID().toString());
+		return generation + theRequestPartitionId.toJson() + theParams.toNormalizedQueryString(myContext);
 	}
 
 	/**
@@ -349,7 +520,7 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 	 */
 	@Override
 	public void setPreviouslyAddedResourcePids(@Nonnull List<JpaPid> thePidSet) {
-		myPidSet = new HashSet<>(thePidSet);
+		myPidSet = new PidSet(thePidSet);
 	}
 
 	@SuppressWarnings("ConstantConditions")
@@ -365,7 +536,7 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 		init(theParams, theSearchRuntimeDetails.getSearchUuid(), theRequestPartitionId);
 
 		if (myPidSet == null) {
-			myPidSet = new HashSet<>();
+			myPidSet = new PidSet(Collections.emptyList());
 		}
 
 		return new QueryIterator(theSearchRuntimeDetails, theRequest);
@@ -628,6 +799,21 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 			RequestDetails theRequest,
 			List<Long> thePidList,
 			List<ISearchQueryExecutor> theSearchQueryExecutors) {
+		if (myStorageSettings.isSearchPredicateOrderingEnabled() && mySearchPredicateOrderPlanner != null) {
+			mySearchPredicateOrderPlanner.orderParameters(myResourceName, myRequestPartitionId, theParams, theRequest);
+		}
+
+		String sqlCacheKey = null;
+		if (myStorageSettings.isSearchSqlCacheEnabled() && thePidList == null) {
+			sqlCacheKey = new SearchSqlCacheKeyGenerator(myContext, mySearchParamRegistry, myStorageSettings)
+					.generateKey(myResourceName, myRequestPartitionId, theParams, sort, theOffset, theCountOnlyFlag);
+		}
+
+		String keysetSearchKey = null;
+		if (theOffset != null && !theCountOnlyFlag && thePidList == null && mySearchKeysetPagingSvc != null) {
+			keysetSearchKey = mySearchKeysetPagingSvc.createSearchKey(myResourceName, myRequestPartitionId, theParams);
+		}
+
 		SearchQueryBuilder sqlBuilder = new SearchQueryBuilder(
 				myContext,
 				myStorageSettings,
@@ -639,6 +825,7 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 				theCountOnlyFlag);
 		QueryStack queryStack3 = new QueryStack(
 				theParams, myStorageSettings, myContext, sqlBuilder, mySearchParamRegistry, myPartitionSettings);
+		queryStack3.setChainIndexSvc(myChainIndexSvc);
 
 		if (theParams.keySet().size() > 1
 				|| theParams.getSort() != null
@@ -703,7 +890,8 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 		 */
 		if (myHasNextIteratorQuery) {
 			if (myPidSet.size() + sqlBuilder.countBindVariables() < 900) {
-				sqlBuilder.excludeResourceIdsPredicate(myPidSet);
+				sqlBuilder.excludeResourceIdsPredicate(myPidSet.toJpaPids());
+				sqlCacheKey = null;
 			}
 		}
 
@@ -727,15 +915,49 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 			createSort(queryStack3, sort, theParams);
 		}
 
+		/*
+		 * Keyset paging
+		 *
+		 * If we know the last resource before the requested offset, seek directly to the
+		 * resources after it instead of making the database skip over all of the earlier rows
+		 */
+		Integer offset = theOffset;
+		if (keysetSearchKey != null && sqlBuilder.isKeysetPagingSupported()) {
+			myKeysetSearchKey = keysetSearchKey;
+			SearchKeysetPosition position = mySearchKeysetPagingSvc.getPosition(keysetSearchKey, theOffset);
+			sqlBuilder.addKeysetPaging(position, SearchKeysetPagingSvc.isSortSingleValued(sort));
+			if (position != null) {
+				offset = null;
+				// The structure of the seek predicates depends on which sort values are null
+				sqlCacheKey = null;
+			} else if (sqlCacheKey != null) {
+				sqlCacheKey += " keyset";
+			}
+		}
+
 		/*
 		 * Now perform the search
 		 */
-		executeSearch(theOffset, theSearchQueryExecutors, sqlBuilder);
+		executeSearch(offset, theSearchQueryExecutors, sqlBuilder, sqlCacheKey);
 	}
 
 	private void executeSearch(
-			Integer theOffset, List<ISearchQueryExecutor> theSearchQueryExecutors, SearchQueryBuilder sqlBuilder) {
-		GeneratedSql generatedSql = sqlBuilder.generate(theOffset, myMaxResultsToFetch);
+			Integer theOffset,
+			List<ISearchQueryExecutor> theSearchQueryExecutors,
+			SearchQueryBuilder sqlBuilder,
+			@Nullable String theSqlCacheKey) {
+		GeneratedSql generatedSql;
+		if (theSqlCacheKey != null) {
+			GeneratedSqlTemplate cachedTemplate =
+					myMemoryCacheService.getIfPresent(MemoryCacheService.CacheEnum.SEARCH_SQL, theSqlCacheKey);
+			GeneratedSqlTemplate template = sqlBuilder.generateTemplate(cachedTemplate);
+			if (template != cachedTemplate) {
+				myMemoryCacheService.put(MemoryCacheService.CacheEnum.SEARCH_SQL, theSqlCacheKey, template);
+			}
+			generatedSql = sqlBuilder.generate(template, theOffset, myMaxResultsToFetch);
+		} else {
+			generatedSql = sqlBuilder.generate(theOffset, myMaxResultsToFetch);
+		}
 		if (!generatedSql.isMatchNothing()) {
 			SearchQueryExecutor executor =
 					mySqlBuilderFactory.newSearchQueryExecutor(generatedSql, myMaxResultsToFetch);
@@ -763,6 +985,7 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 
 		QueryStack queryStack3 = new QueryStack(
 				theParams, myStorageSettings, myContext, sqlBuilder, mySearchParamRegistry, myPartitionSettings);
+		queryStack3.setChainIndexSvc(myChainIndexSvc);
 
 		JdbcTemplate jdbcTemplate = initializeJdbcTemplate(theMaximumResults);
 
@@ -822,7 +1045,7 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 		/*
 		 * Now perform the search
 		 */
-		executeSearch(theOffset, theSearchQueryExecutors, sqlBuilder);
+		executeSearch(theOffset, theSearchQueryExecutors, sqlBuilder, null);
 	}
 
 	private void addPidListPredicate(List<Long> thePidList, SearchQueryBuilder theSqlBuilder) {
@@ -1137,10 +1360,10 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 
 	private void doLoadPids(
 			Collection<JpaPid> thePids,
-			Collection<JpaPid> theIncludedPids,
+			PidSet theIncludedPids,
 			List<IBaseResource> theResourceListToPopulate,
 			boolean theForHistoryOperation,
-			Map<JpaPid, Integer> thePosition) {
+			LongIntMap thePosition) {
 
 		Map<Long, Long> resourcePidToVersion = null;
 		for (JpaPid next : thePids) {
@@ -1209,8 +1432,8 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 				continue;
 			}
 
-			Integer index = thePosition.get(resourceId);
-			if (index == null) {
+			int index = thePosition.get(resourceId.getId(), -1);
+			if (index == -1) {
 				ourLog.warn("Got back unexpected resource PID {}", resourceId);
 				continue;
 			}
@@ -1282,11 +1505,12 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 		// when running asserts
 		assert new HashSet<>(thePids).size() == thePids.size() : "PID list contains duplicates: " + thePids;
 
-		Map<JpaPid, Integer> position = new HashMap<>();
+		LongIntMap position = new LongIntMap(thePids.size());
 		for (JpaPid next : thePids) {
-			position.put(next, theResourceListToPopulate.size());
+			position.put(next.getId(), theResourceListToPopulate.size());
 			theResourceListToPopulate.add(null);
 		}
+		PidSet includedPids = new PidSet(theIncludedPids);
 
 		// Can we fast track this loading by checking elastic search?
 		if (isLoadingFromElasticSearchSupported(thePids)) {
@@ -1306,7 +1530,7 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 				.chunk(
 						thePids,
 						t -> doLoadPids(
-								t, theIncludedPids, theResourceListToPopulate, theForHistoryOperation, position));
+								t, includedPids, theResourceListToPopulate, theForHistoryOperation, position));
 	}
 
 	/**
@@ -1401,16 +1625,58 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 		String searchPidFieldName = reverseMode ? MY_TARGET_RESOURCE_PID : MY_SOURCE_RESOURCE_PID;
 		String findPidFieldName = reverseMode ? MY_SOURCE_RESOURCE_PID : MY_TARGET_RESOURCE_PID;
 		String findResourceTypeFieldName = reverseMode ? MY_SOURCE_RESOURCE_TYPE : MY_TARGET_RESOURCE_TYPE;
-		String findVersionFieldName = null;
-		if (!reverseMode && myStorageSettings.isRespectVersionsForSearchIncludes()) {
-			findVersionFieldName = MY_TARGET_RESOURCE_VERSION;
-		}
+		String findVersionFieldName = !reverseMode && myStorageSettings.isRespectVersionsForSearchIncludes()
+				? MY_TARGET_RESOURCE_VERSION
+				: null;
 
 		List<JpaPid> nextRoundMatches = new ArrayList<>(matches);
 		HashSet<JpaPid> allAdded = new HashSet<>();
-		HashSet<JpaPid> original = new HashSet<>(matches);
+		PidSet original = new PidSet(matches);
 		ArrayList<Include> includes = new ArrayList<>(currentIncludes);
 
+		IIncludeLoader includeLoader = (theInclude, theEntityManager, thePidsToInclude) -> {
+			// Account for _include=*
+			boolean matchAll = "*".equals(theInclude.getValue());
+
+			// Account for _include=[resourceType]:*
+			String wantResourceType = null;
+			if (!matchAll) {
+				if ("*".equals(theInclude.getParamName())) {
+					wantResourceType = theInclude.getParamType();
+					matchAll = true;
+				}
+			}
+
+			if (matchAll) {
+				loadIncludesMatchAll(
+						findPidFieldName,
+						findResourceTypeFieldName,
+						findVersionFieldName,
+						searchPidFieldName,
+						wantResourceType,
+						reverseMode,
+						hasDesiredResourceTypes,
+						nextRoundMatches,
+						theEntityManager,
+						maxCount,
+						desiredResourceTypes,
+						thePidsToInclude,
+						request);
+			} else {
+				loadIncludesMatchSpecific(
+						theInclude,
+						fhirContext,
+						findPidFieldName,
+						findVersionFieldName,
+						searchPidFieldName,
+						reverseMode,
+						nextRoundMatches,
+						theEntityManager,
+						maxCount,
+						thePidsToInclude);
+			}
+		};
+
 		int roundCounts = 0;
 		StopWatch w = new StopWatch();
 
@@ -1420,51 +1686,14 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 
 			HashSet<JpaPid> pidsToInclude = new HashSet<>();
 
-			for (Iterator<Include> iter = includes.iterator(); iter.hasNext(); ) {
-				Include nextInclude = iter.next();
-				if (!nextInclude.isRecurse()) {
-					iter.remove();
-				}
-
-				// Account for _include=*
-				boolean matchAll = "*".equals(nextInclude.getValue());
-
-				// Account for _include=[resourceType]:*
-				String wantResourceType = null;
-				if (!matchAll) {
-					if ("*".equals(nextInclude.getParamName())) {
-						wantResourceType = nextInclude.getParamType();
-						matchAll = true;
-					}
-				}
+			List<Include> roundIncludes = new ArrayList<>(includes);
+			includes.removeIf(t -> !t.isRecurse());
 
-				if (matchAll) {
-					loadIncludesMatchAll(
-							findPidFieldName,
-							findResourceTypeFieldName,
-							findVersionFieldName,
-							searchPidFieldName,
-							wantResourceType,
-							reverseMode,
-							hasDesiredResourceTypes,
-							nextRoundMatches,
-							entityManager,
-							maxCount,
-							desiredResourceTypes,
-							pidsToInclude,
-							request);
-				} else {
-					loadIncludesMatchSpecific(
-							nextInclude,
-							fhirContext,
-							findPidFieldName,
-							findVersionFieldName,
-							searchPidFieldName,
-							reverseMode,
-							nextRoundMatches,
-							entityManager,
-							maxCount,
-							pidsToInclude);
+			if (roundIncludes.size() > 1 && isLoadIncludesConcurrently(request)) {
+				loadIncludesConcurrently(roundIncludes, includeLoader, entityManager, request, pidsToInclude);
+			} else {
+				for (Include nextInclude : roundIncludes) {
+					includeLoader.load(nextInclude, entityManager, pidsToInclude);
 				}
 			}
 
@@ -1483,7 +1712,7 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 
 		} while (!includes.isEmpty() && !nextRoundMatches.isEmpty() && addedSomeThisRound);
 
-		allAdded.removeAll(original);
+		allAdded.removeIf(original::contains);
 
 		ourLog.info(
 				"Loaded {} {} in {} rounds and {} ms for search {}",
@@ -1528,6 +1757,87 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 		return allAdded;
 	}
 
+	/**
+	 * Includes are only loaded concurrently if we are not in a read-write transaction, since the
+	 * concurrent queries run in their own transactions and would not see any uncommitted changes
+	 * made by it. Raw SQL is captured per thread, so we also stay sequential if anyone wants it.
+	 */
+	private boolean isLoadIncludesConcurrently(RequestDetails theRequest) {
+		if (mySearchIncludesExecutor == null || myHapiTransactionService == null) {
+			return false;
+		}
+		if (!mySearchIncludesExecutor.isEnabled()) {
+			return false;
+		}
+		if (TransactionSynchronizationManager.isActualTransactionActive()
+				&& !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+			return false;
+		}
+		return !CompositeInterceptorBroadcaster.hasHooks(
+				Pointcut.JPA_PERFTRACE_RAW_SQL, myInterceptorBroadcaster, theRequest);
+	}
+
+	/**
+	 * Loads each include in a separate read-only transaction on the includes executor. Each
+	 * task collects its own results, which are merged in include order once all tasks have
+	 * completed so that the outcome is the same as loading them sequentially.
+	 * <p>
+	 * Any task which no thread has started yet when we get to it is run on this thread instead,
+	 * using the connection we already hold, so we never hold a connection while waiting for a
+	 * task which is itself waiting for one. The entity manager must therefore be the shared,
+	 * transaction-scoped one.
+	 * </p>
+	 */
+	private void loadIncludesConcurrently(
+			List<Include> theIncludes,
+			IIncludeLoader theIncludeLoader,
+			EntityManager theEntityManager,
+			RequestDetails theRequest,
+			HashSet<JpaPid> thePidsToInclude) {
+		List<FutureTask<HashSet<JpaPid>>> tasks = new ArrayList<>(theIncludes.size());
+		for (Include nextInclude : theIncludes) {
+			FutureTask<HashSet<JpaPid>> task = new FutureTask<>(() -> myHapiTransactionService
+					.withRequest(theRequest)
+					.withRequestPartitionId(myRequestPartitionId)
+					.readOnly()
+					.execute(() -> {
+						HashSet<JpaPid> pids = new HashSet<>();
+						theIncludeLoader.load(nextInclude, theEntityManager, pids);
+						return pids;
+					}));
+			tasks.add(task);
+			mySearchIncludesExecutor.getExecutor().execute(task);
+		}
+
+		RuntimeException failure = null;
+		for (FutureTask<HashSet<JpaPid>> nextTask : tasks) {
+			try {
+				// Does nothing if a thread has already started the task
+				nextTask.run();
+				HashSet<JpaPid> pids = nextTask.get();
+				if (failure == null) {
+					thePidsToInclude.addAll(pids);
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				if (failure == null) {
+					failure = new InternalErrorException(Msg.code(2547) + "Interrupted while loading includes", e);
+				}
+			} catch (ExecutionException e) {
+				if (failure == null) {
+					if (e.getCause() instanceof RuntimeException) {
+						failure = (RuntimeException) e.getCause();
+					} else {
+						failure = new InternalErrorException(Msg.code(2548) + "Failed to load includes", e.getCause());
+					}
+				}
+			}
+		}
+		if (failure != null) {
+			throw failure;
+		}
+	}
+
 	private void loadIncludesMatchSpecific(
 			Include nextInclude,
 			FhirContext fhirContext,
@@ -2200,6 +2510,75 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 		return myResourceName;
 	}
 
+	/**
+	 * A set of PIDs with the same semantics as a <code>HashSet&lt;JpaPid&gt;</code> (two PIDs are
+	 * equal if they have the same ID and version). Unversioned PIDs, which are the vast majority
+	 * of what a search finds, are held as primitives so that large searches don't allocate an
+	 * object and a map entry for each one.
+	 */
+	static class PidSet {
+
+		private final LongSet myUnversionedPids;
+		private Set<JpaPid> myVersionedPids;
+
+		PidSet(Collection<JpaPid> thePids) {
+			myUnversionedPids = new LongSet(thePids.size());
+			for (JpaPid next : thePids) {
+				add(next);
+			}
+		}
+
+		boolean add(long theUnversionedPid) {
+			return myUnversionedPids.add(theUnversionedPid);
+		}
+
+		boolean add(JpaPid thePid) {
+			if (thePid.getVersion() == null) {
+				return myUnversionedPids.add(thePid.getId());
+			}
+			if (myVersionedPids == null) {
+				myVersionedPids = new HashSet<>();
+			}
+			return myVersionedPids.add(thePid);
+		}
+
+		boolean contains(JpaPid thePid) {
+			if (thePid.getVersion() == null) {
+				return myUnversionedPids.contains(thePid.getId());
+			}
+			return myVersionedPids != null && myVersionedPids.contains(thePid);
+		}
+
+		int size() {
+			return myUnversionedPids.size() + (myVersionedPids != null ? myVersionedPids.size() : 0);
+		}
+
+		/**
+		 * Returns a new set containing the PIDs in this set
+		 */
+		Set<JpaPid> toJpaPids() {
+			Set<JpaPid> retVal = new HashSet<>(size());
+			myUnversionedPids.forEach(t -> retVal.add(JpaPid.fromId(t)));
+			if (myVersionedPids != null) {
+				retVal.addAll(myVersionedPids);
+			}
+			return retVal;
+		}
+	}
+
+	/**
+	 * Loads a single include for one round of {@link #loadIncludes}, either on the calling
+	 * thread or on the includes executor
+	 */
+	@FunctionalInterface
+	private interface IIncludeLoader {
+
+		/**
+		 * Loads the resources matching a single include for the current round into the given set
+		 */
+		void load(Include theInclude, EntityManager theEntityManager, HashSet<JpaPid> thePidsToInclude);
+	}
+
 	/**
 	 * IncludesIterator, used to recursively fetch resources from the provided list of PIDs
 	 */
@@ -2211,7 +2590,7 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 		private JpaPid myNext;
 
 		IncludesIterator(Set<JpaPid> thePidSet, RequestDetails theRequest) {
-			myCurrentPids = new HashSet<>(thePidSet);
+			myCurrentPids = thePidSet;
 			myCurrentIterator = null;
 			myRequest = theRequest;
 		}
@@ -2373,9 +2752,8 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 						}
 
 						if (nextLong != null) {
-							JpaPid next = JpaPid.fromId(nextLong);
-							if (myPidSet.add(next) && doNotSkipNextPidForEverything()) {
-								myNext = next;
+							if (myPidSet.add(nextLong) && doNotSkipNextPidForEverything()) {
+								myNext = JpaPid.fromId(nextLong);
 								myNonSkipCount++;
 								break;
 							} else {
@@ -2401,7 +2779,7 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 					// if we got here, it means the current JpaPid has already been processed,
 					// and we will decide (here) if we need to fetch related resources recursively
 					if (myFetchIncludesForEverythingOperation) {
-						myIncludesIterator = new IncludesIterator(myPidSet, myRequest);
+						myIncludesIterator = new IncludesIterator(myPidSet.toJpaPids(), myRequest);
 						myFetchIncludesForEverythingOperation = false;
 					}
 					if (myIncludesIterator != null) {
@@ -0,0 +1,105 @@
+/*-
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2024 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.search.builder;
+
+import ca.uhn.fhir.jpa.api.config.JpaStorageSettings;
+import ca.uhn.fhir.jpa.config.util.ConnectionPoolInfoProvider;
+import ca.uhn.fhir.util.ThreadPoolUtil;
+import jakarta.annotation.Nullable;
+import jakarta.annotation.PreDestroy;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.Optional;
+import javax.sql.DataSource;
+
+/**
+ * Holds the bounded thread pool used by {@link SearchBuilder} to load the
+ * <code>_include</code> and <code>_revinclude</code> parameters of a single
+ * round concurrently. The pool is sized using
+ * {@link JpaStorageSettings#getIncludesLoadingPoolSize()} and is only created
+ * the first time it is needed.
+ * <p>
+ * Each thread uses its own database connection while the request which is
+ * waiting for it holds another, so the pool is capped at half of the database
+ * connection pool if its size can be determined.
+ * </p>
+ *
+ * @since 7.6.0
+ */
+public class SearchIncludesExecutor {
+
+	private final JpaStorageSettings myStorageSettings;
+	private final Integer myMaxConnections;
+	private ThreadPoolTaskExecutor myExecutor;
+
+	/**
+	 * Constructor
+	 *
+	 * @param theDataSource The data source used by the include queries, used to cap the pool size
+	 */
+	public SearchIncludesExecutor(JpaStorageSettings theStorageSettings, @Nullable DataSource theDataSource) {
+		myStorageSettings = theStorageSettings;
+		Optional<Integer> maxConnections = theDataSource != null
+				? new ConnectionPoolInfoProvider(theDataSource).getTotalConnectionSize()
+				: Optional.empty();
+		myMaxConnections = maxConnections.orElse(null);
+	}
+
+	/**
+	 * Returns <code>true</code> if includes should be loaded concurrently
+	 */
+	public boolean isEnabled() {
+		return getPoolSize() > 1;
+	}
+
+	/**
+	 * Returns the number of threads to use, which is never more than half of
+	 * the database connections
+	 */
+	public int getPoolSize() {
+		int retVal = myStorageSettings.getIncludesLoadingPoolSize();
+		if (myMaxConnections != null) {
+			retVal = Math.min(retVal, myMaxConnections / 2);
+		}
+		return retVal;
+	}
+
+	/**
+	 * Returns the executor. Tasks which are submitted while all threads are busy
+	 * are queued, and may be run by the submitting thread instead (see
+	 * {@link java.util.concurrent.FutureTask#run()}) so that it never waits for
+	 * a task which hasn't started.
+	 */
+	public synchronized AsyncTaskExecutor getExecutor() {
+		if (myExecutor == null) {
+			int poolSize = getPoolSize();
+			myExecutor = ThreadPoolUtil.newThreadPool(poolSize, poolSize, "search-includes-", Integer.MAX_VALUE);
+		}
+		return myExecutor;
+	}
+	@PreDestroy
+	public synchronized void stop() {
+		if (myExecutor != null) {
+			myExecutor.shutdown();
+			myExecutor = null;
+		}
+	}
+}
@@ -0,0 +1,249 @@
+/*-
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2024 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.search.builder;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.context.RuntimeSearchParam;
+import ca.uhn.fhir.i18n.Msg;
+import ca.uhn.fhir.interceptor.model.RequestPartitionId;
+import ca.uhn.fhir.jpa.api.config.JpaStorageSettings;
+import ca.uhn.fhir.jpa.model.config.PartitionSettings;
+import ca.uhn.fhir.jpa.model.entity.BaseResourceIndexedSearchParam;
+import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
+import ca.uhn.fhir.jpa.util.MemoryCacheService;
+import ca.uhn.fhir.rest.api.Constants;
+import ca.uhn.fhir.rest.api.SortOrderEnum;
+import ca.uhn.fhir.rest.api.SortSpec;
+import ca.uhn.fhir.rest.server.util.ISearchParamRegistry;
+import jakarta.annotation.Nullable;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.PersistenceContextType;
+import jakarta.persistence.TypedQuery;
+import org.hl7.fhir.instance.model.api.IAnyResource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.apache.commons.lang3.StringUtils.isBlank;
+
+/**
+ * Supports keyset (also known as "seek") paging for searches which are paged using <code>_offset</code>.
+ * After a page has been loaded, the position of its last resource is remembered under the offset
+ * of the following page. If that page is requested later, the position is used to find the first
+ * resource of the page directly, instead of having the database skip over all of the rows which
+ * came before it.
+ * <p>
+ * Positions are kept in the {@link MemoryCacheService}, so a request for a page whose predecessor
+ * was loaded by another server, or never loaded at all, falls back to an SQL offset.
+ * </p>
+ *
+ * @see JpaStorageSettings#setSearchKeysetPagingEnabled(boolean)
+ * @since 7.6.0
+ */
+public class SearchKeysetPagingSvc {
+
+	private static final Logger ourLog = LoggerFactory.getLogger(SearchKeysetPagingSvc.class);
+
+	@PersistenceContext(type = PersistenceContextType.TRANSACTION)
+	private EntityManager myEntityManager;
+
+	@Autowired
+	private FhirContext myFhirContext;
+
+	@Autowired
+	private JpaStorageSettings myStorageSettings;
+
+	@Autowired
+	private PartitionSettings myPartitionSettings;
+
+	@Autowired
+	private ISearchParamRegistry mySearchParamRegistry;
+
+	@Autowired
+	private MemoryCacheService myMemoryCacheService;
+
+	/**
+	 * Returns a key identifying the given search, independently of the page being requested, or
+	 * <code>null</code> if keyset paging can not be used for this search
+	 */
+	@Nullable
+	public String createSearchKey(
+			String theResourceName, RequestPartitionId theRequestPartitionId, SearchParameterMap theParams) {
+		if (!myStorageSettings.isSearchKeysetPagingEnabled()
+				|| theParams.getEverythingMode() != null
+				|| theParams.isLastN()
+				|| !isSupportedSort(theResourceName, theParams.getSort())) {
+			return null;
+		}
+
+		SearchParameterMap params = theParams.clone();
+		params.setOffset(null);
+		params.setCount(null);
+		params.setSummaryMode(null);
+		params.setSearchTotalMode(null);
+		return theResourceName + " " + theRequestPartitionId.toJson() + params.toNormalizedQueryString(myFhirContext);
+	}
+
+	/**
+	 * Returns the position of the last resource before the given offset, or <code>null</code> if it
+	 * isn't known
+	 *
+	 * @param theSearchKey A key returned by {@link #createSearchKey(String, RequestPartitionId, SearchParameterMap)}
+	 */
+	@Nullable
+	public SearchKeysetPosition getPosition(String theSearchKey, int theOffset) {
+		return myMemoryCacheService.getIfPresent(
+				MemoryCacheService.CacheEnum.SEARCH_KEYSET_POSITION, toPositionKey(theSearchKey, theOffset));
+	}
+
+	/**
+	 * Remembers the position of the given resource, which is the last resource before the given offset.
+	 * Must be called within a transaction.
+	 *
+	 * @param theSearchKey A key returned by {@link #createSearchKey(String, RequestPartitionId, SearchParameterMap)}
+	 */
+	public void savePosition(
+			String theSearchKey,
+			String theResourceName,
+			RequestPartitionId theRequestPartitionId,
+			@Nullable SortSpec theSort,
+			int theOffset,
+			long theResourcePid) {
+		List<Object> sortValues = loadSortValues(theResourceName, theRequestPartitionId, theSort, theResourcePid);
+		SearchKeysetPosition position = new SearchKeysetPosition(sortValues, theResourcePid);
+		ourLog.trace("Resource before offset {} is at {}", theOffset, position);
+		myMemoryCacheService.put(
+				MemoryCacheService.CacheEnum.SEARCH_KEYSET_POSITION,
+				toPositionKey(theSearchKey, theOffset),
+				position);
+	}
+
+	/**
+	 * Loads the values the given resource is sorted on. These must match the values (and aggregates)
+	 * ordered on by the <code>QueryStack</code> sort methods, since they are compared against them.
+	 */
+	private List<Object> loadSortValues(
+			String theResourceName,
+			RequestPartitionId theRequestPartitionId,
+			@Nullable SortSpec theSort,
+			long theResourcePid) {
+		if (theSort == null || isBlank(theSort.getParamName())) {
+			return List.of();
+		}
+
+		String paramName = theSort.getParamName();
+		if (IAnyResource.SP_RES_ID.equals(paramName)) {
+			return Collections.singletonList(loadSingleValue(
+					"SELECT r.myFhirId FROM ResourceTable r WHERE r.myId = :res_id", theResourcePid, null));
+		}
+		if (Constants.PARAM_LASTUPDATED.equals(paramName)) {
+			return Collections.singletonList(loadSingleValue(
+					"SELECT r.myUpdated FROM ResourceTable r WHERE r.myId = :res_id", theResourcePid, null));
+		}
+
+		String aggregate = isAscending(theSort) ? "MIN" : "MAX";
+		long hashIdentity = BaseResourceIndexedSearchParam.calculateHashIdentity(
+				myPartitionSettings, theRequestPartitionId, theResourceName, paramName);
+		RuntimeSearchParam param = mySearchParamRegistry.getActiveSearchParam(theResourceName, paramName);
+		switch (param.getParamType()) {
+			case DATE:
+				return Collections.singletonList(loadSingleValue(
+						"SELECT " + aggregate + "(t.myValueLow) FROM ResourceIndexedSearchParamDate t "
+								+ "WHERE t.myResourcePid = :res_id AND t.myHashIdentity = :hash_identity",
+						theResourcePid,
+						hashIdentity));
+			case TOKEN:
+				Object[] values = myEntityManager
+						.createQuery(
+								"SELECT " + aggregate + "(t.mySystem), " + aggregate + "(t.myValue) "
+										+ "FROM ResourceIndexedSearchParamToken t "
+										+ "WHERE t.myResourcePid = :res_id AND t.myHashIdentity = :hash_identity",
+								Object[].class)
+						.setParameter("res_id", theResourcePid)
+						.setParameter("hash_identity", hashIdentity)
+						.getSingleResult();
+				return Arrays.asList(values);
+			default:
+				throw new IllegalStateException(
+						Msg.code(2555) + "Unsupported sort parameter type: " + param.getParamType());
+		}
+	}
+
+	@Nullable
+	private Object loadSingleValue(String theJpql, long theResourcePid, @Nullable Long theHashIdentity) {
+		TypedQuery<Object> query = myEntityManager.createQuery(theJpql, Object.class);
+		query.setParameter("res_id", theResourcePid);
+		if (theHashIdentity != null) {
+			query.setParameter("hash_identity", theHashIdentity);
+		}
+		List<Object> results = query.getResultList();
+		return results.isEmpty() ? null : results.get(0);
+	}
+
+	private boolean isSupportedSort(String theResourceName, @Nullable SortSpec theSort) {
+		if (theSort == null || isBlank(theSort.getParamName())) {
+			return true;
+		}
+		if (theSort.getChain() != null) {
+			return false;
+		}
+
+		String paramName = theSort.getParamName();
+		if (IAnyResource.SP_RES_ID.equals(paramName) || Constants.PARAM_LASTUPDATED.equals(paramName)) {
+			return true;
+		}
+		RuntimeSearchParam param = mySearchParamRegistry.getActiveSearchParam(theResourceName, paramName);
+		if (param == null) {
+			return false;
+		}
+		switch (param.getParamType()) {
+			case DATE:
+			case TOKEN:
+				return true;
+			default:
+				return false;
+		}
+	}
+
+	/**
+	 * Returns <code>true</code> if each resource has at most one value for the given sort, meaning
+	 * that seek predicates can be applied to individual rows rather than to the aggregated sort values
+	 */
+	public static boolean isSortSingleValued(@Nullable SortSpec theSort) {
+		if (theSort == null || isBlank(theSort.getParamName())) {
+			return true;
+		}
+		return IAnyResource.SP_RES_ID.equals(theSort.getParamName())
+				|| Constants.PARAM_LASTUPDATED.equals(theSort.getParamName());
+	}
+
+	private static boolean isAscending(SortSpec theSort) {
+		return theSort.getOrder() == null || theSort.getOrder() == SortOrderEnum.ASC;
+	}
+
+	private static String toPositionKey(String theSearchKey, int theOffset) {
+		return theSearchKey + " offset=" + theOffset;
+	}
+}
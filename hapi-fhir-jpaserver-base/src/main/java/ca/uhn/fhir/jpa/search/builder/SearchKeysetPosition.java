@@ -0,0 +1,59 @@
+/*-
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2024 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.search.builder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The position of a resource within the ordered results of a search: the values it was sorted on,
+ * followed by its resource ID, which breaks ties between resources with the same sort values.
+ * A sort value may be <code>null</code> if the resource has no value for the sort parameter.
+ *
+ * @see SearchKeysetPagingSvc
+ * @since 7.6.0
+ */
+public class SearchKeysetPosition {
+
+	private final List<Object> mySortValues;
+	private final long myResourcePid;
+
+	/**
+	 * Constructor
+	 */
+	public SearchKeysetPosition(List<Object> theSortValues, long theResourcePid) {
+		mySortValues = Collections.unmodifiableList(new ArrayList<>(theSortValues));
+		myResourcePid = theResourcePid;
+	}
+
+	public List<Object> getSortValues() {
+		return mySortValues;
+	}
+
+	public long getResourcePid() {
+		return myResourcePid;
+	}
+
+	@Override
+	public String toString() {
+		return "SearchKeysetPosition[sortValues=" + mySortValues + ", resourcePid=" + myResourcePid + "]";
+	}
+}
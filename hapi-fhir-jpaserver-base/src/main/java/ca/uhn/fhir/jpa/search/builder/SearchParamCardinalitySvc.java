@@ -0,0 +1,300 @@
+/*-
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2024 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.search.builder;
+
+import ca.uhn.fhir.interceptor.api.HookParams;
+import ca.uhn.fhir.interceptor.api.IInterceptorBroadcaster;
+import ca.uhn.fhir.interceptor.api.Pointcut;
+import ca.uhn.fhir.interceptor.model.RequestPartitionId;
+import ca.uhn.fhir.jpa.api.config.JpaStorageSettings;
+import ca.uhn.fhir.jpa.dao.tx.IHapiTransactionService;
+import ca.uhn.fhir.jpa.model.sched.HapiJob;
+import ca.uhn.fhir.jpa.model.sched.IHasScheduledJobs;
+import ca.uhn.fhir.jpa.model.sched.ISchedulerService;
+import ca.uhn.fhir.jpa.model.sched.ScheduledJobDefinition;
+import ca.uhn.fhir.jpa.model.search.StorageProcessingMessage;
+import ca.uhn.fhir.rest.api.RestSearchParameterTypeEnum;
+import ca.uhn.fhir.rest.api.server.RequestDetails;
+import ca.uhn.fhir.rest.server.servlet.ServletRequestDetails;
+import ca.uhn.fhir.rest.server.util.CompositeInterceptorBroadcaster;
+import ca.uhn.fhir.util.StopWatch;
+import com.google.common.annotations.VisibleForTesting;
+import jakarta.annotation.Nullable;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.PersistenceContextType;
+import org.apache.commons.lang3.time.DateUtils;
+import org.quartz.JobExecutionContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+
+/**
+ * Periodically estimates how many index rows match a single value of each token, string, URI
+ * and reference search parameter, for use by the {@link SearchPredicateOrderPlanner}.
+ * <p>
+ * Estimates are built from a small number of randomly placed blocks of rows in each index table,
+ * so collecting them does not require scanning the tables. They are only collected if
+ * {@link JpaStorageSettings#isSearchPredicateOrderingEnabled() predicate ordering} is enabled.
+ * </p>
+ *
+ * @since 7.6.0
+ */
+public class SearchParamCardinalitySvc implements IHasScheduledJobs {
+
+	private static final int SAMPLE_BLOCK_COUNT = 10;
+	private static final int SAMPLE_BLOCK_SIZE = 1000;
+	private static final Logger ourLog = LoggerFactory.getLogger(SearchParamCardinalitySvc.class);
+
+	@PersistenceContext(type = PersistenceContextType.TRANSACTION)
+	private EntityManager myEntityManager;
+
+	@Autowired
+	private IHapiTransactionService myTransactionService;
+
+	@Autowired
+	private JpaStorageSettings myStorageSettings;
+
+	@Autowired
+	private IInterceptorBroadcaster myInterceptorBroadcaster;
+
+	private volatile Map<RestSearchParameterTypeEnum, Map<Object, Double>> myHashIdentityEstimates = Map.of();
+	private volatile Map<Object, Double> myResourceLinkEstimates = Map.of();
+
+	/**
+	 * Returns the estimated number of index rows matching a single value of the token, string or
+	 * URI search parameter with the given hash identity, or <code>null</code> if no estimate is available
+	 */
+	@Nullable
+	public Double estimateRowsPerValue(RestSearchParameterTypeEnum theParamType, long theHashIdentity) {
+		return myHashIdentityEstimates.getOrDefault(theParamType, Map.of()).get(theHashIdentity);
+	}
+
+	/**
+	 * Returns the estimated number of resource links with the given source path which point to a
+	 * single target, or <code>null</code> if no estimate is available
+	 */
+	@Nullable
+	public Double estimateRowsPerReferenceTarget(String theSourceResourceType, String theSourcePath) {
+		return myResourceLinkEstimates.get(toResourceLinkKey(theSourceResourceType, theSourcePath));
+	}
+
+	/**
+	 * Samples the index tables and replaces the current estimates
+	 */
+	public void refresh() {
+		StopWatch sw = new StopWatch();
+		Map<RestSearchParameterTypeEnum, Map<Object, Double>> hashIdentityEstimates =
+				new EnumMap<>(RestSearchParameterTypeEnum.class);
+		int[] sampledRows = new int[1];
+
+		Map<Object, Double> resourceLinkEstimates = myTransactionService
+				.withSystemRequest()
+				.withRequestPartitionId(RequestPartitionId.allPartitions())
+				.readOnly()
+				.execute(() -> {
+					Function<Object[], Object> hashIdentity = t -> t[1];
+					hashIdentityEstimates.put(
+							RestSearchParameterTypeEnum.TOKEN,
+							sampleTable(
+									"ResourceIndexedSearchParamToken",
+									"t.myHashIdentity, t.myHashValue",
+									hashIdentity,
+									sampledRows));
+					hashIdentityEstimates.put(
+							RestSearchParameterTypeEnum.STRING,
+							sampleTable(
+									"ResourceIndexedSearchParamString",
+									"t.myHashIdentity, t.myHashNormalizedPrefix",
+									hashIdentity,
+									sampledRows));
+					hashIdentityEstimates.put(
+							RestSearchParameterTypeEnum.URI,
+							sampleTable(
+									"ResourceIndexedSearchParamUri",
+									"t.myHashIdentity, t.myHashUri",
+									hashIdentity,
+									sampledRows));
+					return sampleTable(
+							"ResourceLink",
+							"t.mySourceResourceType, t.mySourcePath, t.myTargetResourcePid",
+							t -> toResourceLinkKey((String) t[1], (String) t[2]),
+							sampledRows);
+				});
+
+		myHashIdentityEstimates = hashIdentityEstimates;
+		myResourceLinkEstimates = resourceLinkEstimates;
+
+		int estimateCount = resourceLinkEstimates.size()
+				+ hashIdentityEstimates.values().stream().mapToInt(Map::size).sum();
+		String message = "Sampled " + sampledRows[0] + " index rows and estimated the cardinality of " + estimateCount
+				+ " search parameter indexes in " + sw;
+		ourLog.debug(message);
+
+		// Interceptor broadcast: JPA_PERFTRACE_INFO
+		if (CompositeInterceptorBroadcaster.hasHooks(Pointcut.JPA_PERFTRACE_INFO, myInterceptorBroadcaster, null)) {
+			StorageProcessingMessage msg = new StorageProcessingMessage().setMessage(message);
+			HookParams params = new HookParams()
+					.add(RequestDetails.class, null)
+					.add(ServletRequestDetails.class, null)
+					.add(StorageProcessingMessage.class, msg);
+			CompositeInterceptorBroadcaster.doCallHooks(
+					myInterceptorBroadcaster, null, Pointcut.JPA_PERFTRACE_INFO, params);
+		}
+	}
+
+	/**
+	 * Reads {@link #SAMPLE_BLOCK_COUNT} blocks of consecutive rows from the given index entity,
+	 * starting at random IDs, and estimates the rows per value for each group. The select clause
+	 * must end with the column holding the value, and the group key function receives the selected
+	 * columns prefixed by the row ID.
+	 */
+	private Map<Object, Double> sampleTable(
+			String theEntityName,
+			String theSelectClause,
+			Function<Object[], Object> theGroupKeyFunction,
+			int[] theSampledRowCounter) {
+		Object[] range = (Object[]) myEntityManager
+				.createQuery("SELECT MIN(t.myId), MAX(t.myId) FROM " + theEntityName + " t")
+				.getSingleResult();
+		if (range[0] == null) {
+			return Map.of();
+		}
+		long minId = ((Number) range[0]).longValue();
+		long maxId = ((Number) range[1]).longValue();
+
+		CardinalitySample sample = new CardinalitySample();
+		Set<Long> seenIds = new HashSet<>();
+		long idSpanRead = 0;
+		for (int i = 0; i < SAMPLE_BLOCK_COUNT; i++) {
+			long start = ThreadLocalRandom.current().nextLong(minId, maxId + 1);
+			List<Object[]> rows = myEntityManager
+					.createQuery(
+							"SELECT t.myId, " + theSelectClause + " FROM " + theEntityName
+									+ " t WHERE t.myId >= :start ORDER BY t.myId",
+							Object[].class)
+					.setParameter("start", start)
+					.setMaxResults(SAMPLE_BLOCK_SIZE)
+					.getResultList();
+			if (rows.isEmpty()) {
+				continue;
+			}
+
+			long end = ((Number) rows.get(rows.size() - 1)[0]).longValue();
+			idSpanRead += end - start + 1;
+			for (Object[] next : rows) {
+				// Blocks may overlap, and a row must only be counted once
+				if (seenIds.add(((Number) next[0]).longValue())) {
+					sample.add(theGroupKeyFunction.apply(next), next[next.length - 1]);
+				}
+			}
+		}
+
+		theSampledRowCounter[0] += sample.getRowCount();
+		long idSpan = maxId - minId + 1;
+		long estimatedTableRowCount =
+				idSpanRead > 0 ? Math.round((double) sample.getRowCount() * idSpan / Math.min(idSpanRead, idSpan)) : 0;
+		return sample.estimateRowsPerValue(estimatedTableRowCount);
+	}
+
+	@VisibleForTesting
+	void setEstimatesForUnitTest(
+			Map<RestSearchParameterTypeEnum, Map<Object, Double>> theHashIdentityEstimates,
+			Map<Object, Double> theResourceLinkEstimates) {
+		myHashIdentityEstimates = theHashIdentityEstimates;
+		myResourceLinkEstimates = theResourceLinkEstimates;
+	}
+
+	@Override
+	public void scheduleJobs(ISchedulerService theSchedulerService) {
+		ScheduledJobDefinition jobDetail = new ScheduledJobDefinition();
+		jobDetail.setId(getClass().getName());
+		jobDetail.setJobClass(Job.class);
+		theSchedulerService.scheduleLocalJob(30 * DateUtils.MILLIS_PER_MINUTE, jobDetail);
+	}
+
+	static String toResourceLinkKey(String theSourceResourceType, String theSourcePath) {
+		return theSourceResourceType + "|" + theSourcePath;
+	}
+
+	public static class Job implements HapiJob {
+		@Autowired
+		private SearchParamCardinalitySvc myTarget;
+
+		@Override
+		public void execute(JobExecutionContext theContext) {
+			if (myTarget.myStorageSettings.isSearchPredicateOrderingEnabled()
+					&& !myTarget.myStorageSettings.isSchedulingDisabled()) {
+				myTarget.refresh();
+			}
+		}
+	}
+
+	/**
+	 * The values seen for each group in a sample of index rows
+	 */
+	static class CardinalitySample {
+
+		private final Map<Object, Map<Object, Integer>> myValueCounts = new HashMap<>();
+		private int myRowCount;
+
+		void add(Object theGroupKey, Object theValue) {
+			myValueCounts.computeIfAbsent(theGroupKey, t -> new HashMap<>()).merge(theValue, 1, Integer::sum);
+			myRowCount++;
+		}
+
+		int getRowCount() {
+			return myRowCount;
+		}
+
+		/**
+		 * Estimates the number of rows per distinct value in each group, scaling the sample up to the
+		 * given number of rows in the table. The number of distinct values in a group is estimated with
+		 * the Haas-Stokes "Duj1" estimator (the one used by PostgreSQL's <code>ANALYZE</code>):
+		 * <code>n*d / (n - f1 + f1*n/N)</code>, where <code>n</code> is the number of sampled rows,
+		 * <code>d</code> the number of distinct values sampled, <code>f1</code> the number of values
+		 * sampled exactly once, and <code>N</code> the estimated number of rows in the group.
+		 */
+		Map<Object, Double> estimateRowsPerValue(long theTableRowCount) {
+			Map<Object, Double> retVal = new HashMap<>();
+			for (Map.Entry<Object, Map<Object, Integer>> nextEntry : myValueCounts.entrySet()) {
+				Map<Object, Integer> counts = nextEntry.getValue();
+				double n = counts.values().stream().mapToInt(t -> t).sum();
+				double d = counts.size();
+				double f1 = counts.values().stream().filter(t -> t == 1).count();
+				double bigN = Math.max(n, n * theTableRowCount / myRowCount);
+
+				double distinct = n * d / (n - f1 + f1 * n / bigN);
+				distinct = Math.min(Math.max(distinct, d), bigN);
+				retVal.put(nextEntry.getKey(), bigN / distinct);
+			}
+			return retVal;
+		}
+	}
+}
@@ -0,0 +1,219 @@
+/*-
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2024 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.search.builder;
+
+import ca.uhn.fhir.context.RuntimeSearchParam;
+import ca.uhn.fhir.interceptor.api.HookParams;
+import ca.uhn.fhir.interceptor.api.IInterceptorBroadcaster;
+import ca.uhn.fhir.interceptor.api.Pointcut;
+import ca.uhn.fhir.interceptor.model.RequestPartitionId;
+import ca.uhn.fhir.jpa.model.config.PartitionSettings;
+import ca.uhn.fhir.jpa.model.entity.BaseResourceIndexedSearchParam;
+import ca.uhn.fhir.jpa.model.search.StorageProcessingMessage;
+import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
+import ca.uhn.fhir.model.api.IQueryParameterType;
+import ca.uhn.fhir.rest.api.server.RequestDetails;
+import ca.uhn.fhir.rest.param.ReferenceParam;
+import ca.uhn.fhir.rest.server.servlet.ServletRequestDetails;
+import ca.uhn.fhir.rest.server.util.CompositeInterceptorBroadcaster;
+import ca.uhn.fhir.rest.server.util.ISearchParamRegistry;
+import jakarta.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+import static org.apache.commons.lang3.StringUtils.isBlank;
+import static org.apache.commons.lang3.StringUtils.isNotBlank;
+import static org.apache.commons.lang3.StringUtils.trim;
+
+/**
+ * Reorders the parameters in a {@link SearchParameterMap} so that the ones expected to match the
+ * fewest index rows are added to the generated SQL first. Estimates come from the
+ * {@link SearchParamCardinalitySvc}. Parameters which can't be estimated (dates, quantities,
+ * modifiers, chains, etc.) keep their relative order and are placed after those which can.
+ *
+ * @see ca.uhn.fhir.jpa.api.config.JpaStorageSettings#setSearchPredicateOrderingEnabled(boolean)
+ * @since 7.6.0
+ */
+public class SearchPredicateOrderPlanner {
+
+	private final SearchParamCardinalitySvc myCardinalitySvc;
+	private final ISearchParamRegistry mySearchParamRegistry;
+	private final PartitionSettings myPartitionSettings;
+	private final IInterceptorBroadcaster myInterceptorBroadcaster;
+
+	/**
+	 * Constructor
+	 */
+	public SearchPredicateOrderPlanner(
+			SearchParamCardinalitySvc theCardinalitySvc,
+			ISearchParamRegistry theSearchParamRegistry,
+			PartitionSettings thePartitionSettings,
+			IInterceptorBroadcaster theInterceptorBroadcaster) {
+		myCardinalitySvc = theCardinalitySvc;
+		mySearchParamRegistry = theSearchParamRegistry;
+		myPartitionSettings = thePartitionSettings;
+		myInterceptorBroadcaster = theInterceptorBroadcaster;
+	}
+
+	/**
+	 * Reorders the parameters in the given map, most selective first
+	 */
+	public void orderParameters(
+			String theResourceName,
+			RequestPartitionId theRequestPartitionId,
+			SearchParameterMap theParams,
+			RequestDetails theRequest) {
+		if (theParams.size() < 2) {
+			return;
+		}
+
+		Map<String, Double> estimates = new LinkedHashMap<>();
+		for (String nextParamName : theParams.keySet()) {
+			estimates.put(
+					nextParamName,
+					estimateRows(theResourceName, theRequestPartitionId, nextParamName, theParams.get(nextParamName)));
+		}
+		if (estimates.values().stream().allMatch(Objects::isNull)) {
+			return;
+		}
+
+		List<String> order = new ArrayList<>(estimates.keySet());
+		order.sort(Comparator.comparing(estimates::get, Comparator.nullsLast(Comparator.naturalOrder())));
+		for (String nextParamName : order) {
+			theParams.put(nextParamName, theParams.remove(nextParamName));
+		}
+
+		// Interceptor broadcast: JPA_PERFTRACE_INFO
+		if (CompositeInterceptorBroadcaster.hasHooks(
+				Pointcut.JPA_PERFTRACE_INFO, myInterceptorBroadcaster, theRequest)) {
+			String description = order.stream()
+					.map(t -> t + "=" + (estimates.get(t) != null ? Math.round(estimates.get(t)) : "?"))
+					.collect(Collectors.joining(", "));
+			StorageProcessingMessage msg = new StorageProcessingMessage()
+					.setMessage("Ordered search parameters by estimated matching rows: " + description);
+			HookParams params = new HookParams()
+					.add(RequestDetails.class, theRequest)
+					.addIfMatchesType(ServletRequestDetails.class, theRequest)
+					.add(StorageProcessingMessage.class, msg);
+			CompositeInterceptorBroadcaster.doCallHooks(
+					myInterceptorBroadcaster, theRequest, Pointcut.JPA_PERFTRACE_INFO, params);
+		}
+	}
+
+	/**
+	 * Returns the estimated number of resources matched by the given parameters, or <code>null</code>
+	 * if any of them can't be estimated. Each parameter can only narrow the results, so this is the
+	 * estimate for the most selective one.
+	 */
+	@Nullable
+	public Double estimateMatchingResources(
+			String theResourceName, RequestPartitionId theRequestPartitionId, SearchParameterMap theParams) {
+		if (theParams.isEmpty() || theParams.getLastUpdated() != null) {
+			return null;
+		}
+
+		Double retVal = null;
+		for (String nextParamName : theParams.keySet()) {
+			Double estimate =
+					estimateRows(theResourceName, theRequestPartitionId, nextParamName, theParams.get(nextParamName));
+			if (estimate == null) {
+				return null;
+			}
+			retVal = retVal != null ? Math.min(retVal, estimate) : estimate;
+		}
+		return retVal;
+	}
+
+	/**
+	 * Returns the estimated number of index rows matched by the given parameter, or <code>null</code>
+	 * if no estimate is possible. Each AND clause matches at most the sum of the rows matched by its
+	 * OR values, and the parameter as a whole matches at most the rows of its most selective AND clause.
+	 */
+	private Double estimateRows(
+			String theResourceName,
+			RequestPartitionId theRequestPartitionId,
+			String theParamName,
+			List<List<IQueryParameterType>> theAndOrParams) {
+		RuntimeSearchParam searchParam = mySearchParamRegistry.getActiveSearchParam(theResourceName, theParamName);
+		if (searchParam == null || theAndOrParams.isEmpty()) {
+			return null;
+		}
+
+		Double rowsPerValue = estimateRowsPerValue(theResourceName, theRequestPartitionId, searchParam);
+		if (rowsPerValue == null) {
+			return null;
+		}
+
+		double retVal = Double.MAX_VALUE;
+		for (List<IQueryParameterType> nextOrList : theAndOrParams) {
+			for (IQueryParameterType nextOr : nextOrList) {
+				if (!isEstimable(nextOr)) {
+					return null;
+				}
+			}
+			retVal = Math.min(retVal, rowsPerValue * nextOrList.size());
+		}
+		return retVal;
+	}
+
+	private Double estimateRowsPerValue(
+			String theResourceName, RequestPartitionId theRequestPartitionId, RuntimeSearchParam theSearchParam) {
+		switch (theSearchParam.getParamType()) {
+			case TOKEN:
+			case STRING:
+			case URI:
+				long hashIdentity = BaseResourceIndexedSearchParam.calculateHashIdentity(
+						myPartitionSettings, theRequestPartitionId, theResourceName, theSearchParam.getName());
+				return myCardinalitySvc.estimateRowsPerValue(theSearchParam.getParamType(), hashIdentity);
+			case REFERENCE:
+				Double retVal = null;
+				for (String nextPath : theSearchParam.getPathsSplit()) {
+					nextPath = trim(nextPath);
+					if (!nextPath.startsWith(theResourceName + ".")) {
+						continue;
+					}
+					Double next = myCardinalitySvc.estimateRowsPerReferenceTarget(theResourceName, nextPath);
+					if (next == null) {
+						return null;
+					}
+					retVal = retVal != null ? retVal + next : next;
+				}
+				return retVal;
+			default:
+				return null;
+		}
+	}
+
+	private static boolean isEstimable(IQueryParameterType theParam) {
+		if (theParam.getMissing() != null || isNotBlank(theParam.getQueryParameterQualifier())) {
+			return false;
+		}
+		if (theParam instanceof ReferenceParam) {
+			return isBlank(((ReferenceParam) theParam).getChain());
+		}
+		return true;
+	}
+}
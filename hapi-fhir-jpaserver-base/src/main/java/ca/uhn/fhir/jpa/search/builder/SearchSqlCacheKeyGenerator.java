@@ -0,0 +1,234 @@
+/*-
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2024 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.search.builder;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.context.RuntimeSearchParam;
+import ca.uhn.fhir.interceptor.model.RequestPartitionId;
+import ca.uhn.fhir.jpa.model.entity.NormalizedQuantitySearchLevel;
+import ca.uhn.fhir.jpa.model.entity.StorageSettings;
+import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
+import ca.uhn.fhir.model.api.IQueryParameterType;
+import ca.uhn.fhir.rest.api.Constants;
+import ca.uhn.fhir.rest.api.RestSearchParameterTypeEnum;
+import ca.uhn.fhir.rest.api.SortSpec;
+import ca.uhn.fhir.rest.param.BaseParamWithPrefix;
+import ca.uhn.fhir.rest.param.DateParam;
+import ca.uhn.fhir.rest.param.DateRangeParam;
+import ca.uhn.fhir.rest.server.util.ISearchParamRegistry;
+import jakarta.annotation.Nullable;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.apache.commons.lang3.StringUtils.defaultString;
+
+/**
+ * Generates the key used to cache the SQL for a search in the
+ * {@link ca.uhn.fhir.jpa.util.MemoryCacheService.CacheEnum#SEARCH_SQL SEARCH_SQL cache}. Two searches
+ * get the same key if they are expected to generate the same SQL with different bind variables,
+ * meaning that the key describes the form of each parameter value but not the value itself. For
+ * example, <code>code=http://loinc.org|1234-5</code> and <code>code=http://snomed.info/sct|22298006</code>
+ * share a key, but <code>code=1234-5</code> does not since it searches a different hash column.
+ *
+ * @see ca.uhn.fhir.jpa.api.config.JpaStorageSettings#setSearchSqlCacheEnabled(boolean)
+ * @since 7.6.0
+ */
+public class SearchSqlCacheKeyGenerator {
+
+	/**
+	 * Parameters which generate SQL that depends on more than the form of their values
+	 */
+	private static final Set<String> UNCACHEABLE_PARAMS = Set.of(
+			Constants.PARAM_HAS,
+			Constants.PARAM_FILTER,
+			Constants.PARAM_TEXT,
+			Constants.PARAM_CONTENT,
+			Constants.PARAM_LIST);
+
+	/**
+	 * Modifiers which expand a value into a number of values which depends on stored data
+	 */
+	private static final Set<String> UNCACHEABLE_QUALIFIERS =
+			Set.of(":in", ":not-in", ":above", ":below", ":text", ":of-type", ":identifier", ":mdm");
+
+	private final FhirContext myFhirContext;
+	private final ISearchParamRegistry mySearchParamRegistry;
+	private final StorageSettings myStorageSettings;
+
+	public SearchSqlCacheKeyGenerator(
+			FhirContext theFhirContext,
+			ISearchParamRegistry theSearchParamRegistry,
+			StorageSettings theStorageSettings) {
+		myFhirContext = theFhirContext;
+		mySearchParamRegistry = theSearchParamRegistry;
+		myStorageSettings = theStorageSettings;
+	}
+
+	/**
+	 * Returns the key for the given search, or <code>null</code> if the SQL for the search should not be cached
+	 */
+	@Nullable
+	public String generateKey(
+			String theResourceName,
+			@Nullable RequestPartitionId theRequestPartitionId,
+			SearchParameterMap theParams,
+			@Nullable SortSpec theSort,
+			@Nullable Integer theOffset,
+			boolean theCountOnly) {
+		if (theParams.getEverythingMode() != null
+				|| theParams.isLastN()
+				|| theParams.getNearDistanceParam() != null) {
+			return null;
+		}
+
+		// Combo parameters replace the individual parameters depending on which values are present
+		if (!mySearchParamRegistry
+				.getActiveComboSearchParams(theResourceName, theParams.keySet())
+				.isEmpty()) {
+			return null;
+		}
+
+		StringBuilder b = new StringBuilder();
+		b.append(theResourceName);
+		if (theCountOnly) {
+			b.append(" count");
+		}
+		if (theOffset != null) {
+			b.append(" offset");
+		}
+		b.append(" contained=").append(theParams.getSearchContainedMode());
+
+		b.append(" partitions=");
+		if (theRequestPartitionId == null) {
+			b.append("none");
+		} else if (theRequestPartitionId.isAllPartitions()) {
+			b.append("all");
+		} else {
+			// Specific partition IDs are bound, but the default partition is searched with IS NULL
+			for (Integer next : theRequestPartitionId.getPartitionIds()) {
+				b.append(next == null ? 'D' : 'P');
+			}
+		}
+
+		DateRangeParam lastUpdated = theParams.getLastUpdated();
+		if (lastUpdated != null && !lastUpdated.isEmpty()) {
+			b.append(' ').append(Constants.PARAM_LASTUPDATED).append('[');
+			for (DateParam next : new DateParam[] {lastUpdated.getLowerBound(), lastUpdated.getUpperBound()}) {
+				if (next != null) {
+					appendValueShape(b, next);
+				}
+				b.append(',');
+			}
+			b.append(']');
+		}
+
+		for (String nextParamName : theParams.keySet()) {
+			if (UNCACHEABLE_PARAMS.contains(nextParamName) || nextParamName.contains(".")) {
+				return null;
+			}
+			RuntimeSearchParam searchParam = mySearchParamRegistry.getActiveSearchParam(theResourceName, nextParamName);
+			if (searchParam == null
+					|| searchParam.getParamType() == RestSearchParameterTypeEnum.SPECIAL
+					|| searchParam.getParamType() == RestSearchParameterTypeEnum.COMPOSITE
+					|| searchParam.getParamType() == RestSearchParameterTypeEnum.HAS) {
+				return null;
+			}
+
+			// With normalized quantity search, whether the normalized or the plain quantity index is searched
+			// depends on whether the units in the values can be converted to UCUM canonical units
+			if (searchParam.getParamType() == RestSearchParameterTypeEnum.QUANTITY
+					&& myStorageSettings.getNormalizedQuantitySearchLevel()
+							== NormalizedQuantitySearchLevel.NORMALIZED_QUANTITY_SEARCH_SUPPORTED) {
+				return null;
+			}
+
+			// Include the definition so that the key changes if the search parameter is updated
+			b.append(' ').append(nextParamName).append('(');
+			b.append(searchParam.getParamType()).append(' ').append(searchParam.getPath());
+			b.append(")[");
+			for (List<IQueryParameterType> nextOrList : theParams.get(nextParamName)) {
+				b.append('[');
+				for (IQueryParameterType nextOr : nextOrList) {
+					if (!appendValueShape(b, nextOr)) {
+						return null;
+					}
+					b.append(',');
+				}
+				b.append(']');
+			}
+			b.append(']');
+		}
+
+		for (SortSpec next = theSort; next != null; next = next.getChain()) {
+			b.append(" sort=").append(next.getParamName()).append(' ').append(next.getOrder());
+		}
+
+		return b.toString();
+	}
+
+	/**
+	 * @return Returns <code>false</code> if the SQL for this value can not be cached
+	 */
+	private boolean appendValueShape(StringBuilder theBuilder, IQueryParameterType theValue) {
+		String qualifier = defaultString(theValue.getQueryParameterQualifier());
+		if (qualifier.contains(".") || UNCACHEABLE_QUALIFIERS.contains(qualifier)) {
+			return false;
+		}
+
+		theBuilder.append(theValue.getClass().getSimpleName()).append(qualifier);
+		if (theValue.getMissing() != null) {
+			theBuilder.append(":missing=").append(theValue.getMissing());
+			return true;
+		}
+		if (theValue instanceof BaseParamWithPrefix && ((BaseParamWithPrefix<?>) theValue).getPrefix() != null) {
+			theBuilder.append(((BaseParamWithPrefix<?>) theValue).getPrefix().getValue());
+		}
+
+		theBuilder.append('=');
+		appendTextShape(theBuilder, theValue.getValueAsQueryToken(myFhirContext));
+		return true;
+	}
+
+	/**
+	 * Appends the text with each run of letters replaced by <code>a</code> and each run of digits replaced by
+	 * <code>9</code>. Other characters are kept, since whether a value has a system, a resource type, a time
+	 * and so on is what determines the SQL generated for it.
+	 */
+	static void appendTextShape(StringBuilder theBuilder, @Nullable String theText) {
+		if (theText == null) {
+			theBuilder.append('~');
+			return;
+		}
+		char previous = 0;
+		for (int i = 0; i < theText.length(); i++) {
+			char next = theText.charAt(i);
+			if (Character.isLetter(next)) {
+				next = 'a';
+			} else if (Character.isDigit(next)) {
+				next = '9';
+			}
+			if (next != previous || (next != 'a' && next != '9')) {
+				theBuilder.append(next);
+			}
+			previous = next;
+		}
+	}
+}
@@ -0,0 +1,60 @@
+/*-
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2024 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.search.builder.predicate;
+
+import ca.uhn.fhir.interceptor.model.RequestPartitionId;
+import ca.uhn.fhir.jpa.model.entity.ResourceIndexedChain;
+import ca.uhn.fhir.jpa.search.builder.sql.SearchQueryBuilder;
+import ca.uhn.fhir.jpa.util.QueryParameterUtils;
+import com.healthmarketscience.sqlbuilder.Condition;
+import com.healthmarketscience.sqlbuilder.dbspec.basic.DbColumn;
+
+import java.util.List;
+
+/**
+ * Selects on the declared chain index table, which holds one row per
+ * (source resource, chain, leaf value)
+ */
+public class ChainIndexPredicateBuilder extends BaseJoiningPredicateBuilder {
+
+	private final DbColumn myColumnResId;
+	private final DbColumn myColumnHashValue;
+
+	/**
+	 * Constructor
+	 */
+	public ChainIndexPredicateBuilder(SearchQueryBuilder theSearchSqlBuilder) {
+		super(theSearchSqlBuilder, theSearchSqlBuilder.addTable(ResourceIndexedChain.HFJ_IDX_CHAIN));
+
+		myColumnResId = getTable().addColumn("RES_ID");
+		myColumnHashValue = getTable().addColumn("HASH_VALUE");
+	}
+
+	@Override
+	public DbColumn getResourceIdColumn() {
+		return myColumnResId;
+	}
+
+	public Condition createPredicateHashValues(RequestPartitionId theRequestPartitionId, List<Long> theHashValues) {
+		Condition predicate =
+				QueryParameterUtils.toEqualToOrInPredicate(myColumnHashValue, generatePlaceholders(theHashValues));
+		return combineWithRequestPartitionIdPredicate(theRequestPartitionId, predicate);
+	}
+}
@@ -0,0 +1,97 @@
+/*-
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2024 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.search.builder.sql;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The SQL rendered for a search query before any limit or offset is applied, along with the
+ * bind variable which belongs to each <code>?</code> placeholder in it. The rendered SQL depends only on
+ * the structure of the query and not on the bind variable values, so a template can be reused for
+ * later queries with the same structure.
+ *
+ * @see SearchQueryBuilder#generateTemplate(GeneratedSqlTemplate)
+ * @since 7.6.0
+ */
+public class GeneratedSqlTemplate {
+
+	private final String mySql;
+	private final String myStructure;
+	private final int[] myBindVariableIndexes;
+	private final Class<?>[] myBindVariableTypes;
+
+	GeneratedSqlTemplate(
+			String theSql,
+			String theStructure,
+			List<Integer> theBindVariableIndexes,
+			List<Object> theBindVariableValues) {
+		mySql = theSql;
+		myStructure = theStructure;
+		myBindVariableIndexes =
+				theBindVariableIndexes.stream().mapToInt(Integer::intValue).toArray();
+		myBindVariableTypes = new Class<?>[theBindVariableValues.size()];
+		for (int i = 0; i < myBindVariableTypes.length; i++) {
+			myBindVariableTypes[i] = getType(theBindVariableValues.get(i));
+		}
+	}
+
+	public String getSql() {
+		return mySql;
+	}
+
+	/**
+	 * Returns <code>true</code> if the given query joins the same tables as the query this template was
+	 * rendered from, and binds the same number and type of values. This is a sanity check that a query
+	 * believed to have the same structure really does, since a query which searches a different index
+	 * table or binds a different number or type of values can not use the same SQL.
+	 *
+	 * @param theStructure The tables and joins in the query, as recorded by {@link SearchQueryBuilder}
+	 */
+	boolean isCompatibleWith(String theStructure, List<Object> theBindVariableValues) {
+		if (!myStructure.equals(theStructure)) {
+			return false;
+		}
+		if (theBindVariableValues.size() != myBindVariableTypes.length) {
+			return false;
+		}
+		for (int i = 0; i < myBindVariableTypes.length; i++) {
+			if (getType(theBindVariableValues.get(i)) != myBindVariableTypes[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the bind variables for the placeholders in {@link #getSql()}, in order
+	 */
+	List<Object> getBindVariables(List<Object> theBindVariableValues) {
+		List<Object> retVal = new ArrayList<>(myBindVariableIndexes.length);
+		for (int next : myBindVariableIndexes) {
+			retVal.add(theBindVariableValues.get(next));
+		}
+		return retVal;
+	}
+
+	private static Class<?> getType(Object theValue) {
+		return theValue != null ? theValue.getClass() : null;
+	}
+}
@@ -27,7 +27,9 @@ import ca.uhn.fhir.jpa.model.config.PartitionSettings;
 import ca.uhn.fhir.jpa.model.dao.JpaPid;
 import ca.uhn.fhir.jpa.model.entity.StorageSettings;
 import ca.uhn.fhir.jpa.search.builder.QueryStack;
+import ca.uhn.fhir.jpa.search.builder.SearchKeysetPosition;
 import ca.uhn.fhir.jpa.search.builder.predicate.BaseJoiningPredicateBuilder;
+import ca.uhn.fhir.jpa.search.builder.predicate.ChainIndexPredicateBuilder;
 import ca.uhn.fhir.jpa.search.builder.predicate.ComboNonUniqueSearchParameterPredicateBuilder;
 import ca.uhn.fhir.jpa.search.builder.predicate.ComboUniqueSearchParameterPredicateBuilder;
 import ca.uhn.fhir.jpa.search.builder.predicate.CoordsPredicateBuilder;
@@ -55,6 +57,7 @@ import com.healthmarketscience.sqlbuilder.FunctionCall;
 import com.healthmarketscience.sqlbuilder.InCondition;
 import com.healthmarketscience.sqlbuilder.OrderObject;
 import com.healthmarketscience.sqlbuilder.SelectQuery;
+import com.healthmarketscience.sqlbuilder.UnaryCondition;
 import com.healthmarketscience.sqlbuilder.dbspec.Join;
 import com.healthmarketscience.sqlbuilder.dbspec.basic.DbColumn;
 import com.healthmarketscience.sqlbuilder.dbspec.basic.DbJoin;
@@ -63,6 +66,7 @@ import com.healthmarketscience.sqlbuilder.dbspec.basic.DbSpec;
 import com.healthmarketscience.sqlbuilder.dbspec.basic.DbTable;
 import jakarta.annotation.Nonnull;
 import jakarta.annotation.Nullable;
+import org.apache.commons.lang3.Validate;
 import org.hibernate.dialect.Dialect;
 import org.hibernate.dialect.SQLServerDialect;
 import org.hibernate.dialect.pagination.AbstractLimitHandler;
@@ -111,6 +115,13 @@ public class SearchQueryBuilder {
 	private boolean myNeedResourceTableRoot;
 	private int myNextNearnessColumnId = 0;
 	private DbColumn mySelectedResourceIdColumn;
+	private final List<KeysetSortColumn> myKeysetSortColumns = new ArrayList<>();
+	/**
+	 * The tables and joins in this query, used to check that a cached {@link GeneratedSqlTemplate} was rendered
+	 * from a query with the same structure
+	 */
+	private final StringBuilder myStructure = new StringBuilder();
+	private boolean myKeysetPagingUnsupported;
 
 	/**
 	 * Constructor
@@ -188,6 +199,15 @@ public class SearchQueryBuilder {
 		return retVal;
 	}
 
+	/**
+	 * Add and return a predicate builder (or a root query if no root query exists yet) for selecting on a declared chain index
+	 */
+	public ChainIndexPredicateBuilder addChainIndexPredicateBuilder(@Nullable DbColumn theSourceJoinColumn) {
+		ChainIndexPredicateBuilder retVal = mySqlBuilderFactory.newChainIndexPredicateBuilder(this);
+		addTable(retVal, theSourceJoinColumn);
+		return retVal;
+	}
+
 	/**
 	 * Add and return a predicate builder (or a root query if no root query exists yet) for selecting on a Composite Unique search parameter
 	 */
@@ -356,6 +376,7 @@ public class SearchQueryBuilder {
 	public void addCustomJoin(
 			SelectQuery.JoinType theJoinType, DbTable theFromTable, DbTable theToTable, Condition theCondition) {
 		mySelect.addCustomJoin(theJoinType, theFromTable, theToTable, theCondition);
+		addToStructure(theJoinType, theFromTable, theToTable);
 	}
 
 	public ComboCondition createOnCondition(DbColumn theSourceColumn, DbColumn theTargetColumn) {
@@ -437,6 +458,7 @@ public class SearchQueryBuilder {
 					mySelect.addColumns(mySelectedResourceIdColumn);
 				}
 				mySelect.addFromTable(root.getTable());
+				addToStructure(null, null, root.getTable());
 				myFirstPredicateBuilder = root;
 
 				if (!myNeedResourceTableRoot || (thePredicateBuilder instanceof ResourceTablePredicateBuilder)) {
@@ -461,25 +483,55 @@ public class SearchQueryBuilder {
 		Join join = new DbJoin(
 				mySpec, theFromTable, theToTable, new DbColumn[] {theFromColumn}, new DbColumn[] {theToColumn});
 		mySelect.addJoins(theJoinType, join);
+		addToStructure(theJoinType, theFromTable, theToTable);
 	}
 
 	public void addJoin(DbTable theFromTable, DbTable theToTable, DbColumn theFromColumn, DbColumn theToColumn) {
 		Join join = new DbJoin(
 				mySpec, theFromTable, theToTable, new DbColumn[] {theFromColumn}, new DbColumn[] {theToColumn});
 		mySelect.addJoins(SelectQuery.JoinType.INNER, join);
+		addToStructure(SelectQuery.JoinType.INNER, theFromTable, theToTable);
+	}
+
+	private void addToStructure(
+			@Nullable SelectQuery.JoinType theJoinType, @Nullable DbTable theFromTable, DbTable theToTable) {
+		if (theJoinType != null) {
+			myStructure.append(theJoinType).append(' ');
+		}
+		if (theFromTable != null) {
+			myStructure.append(theFromTable.getAlias()).append('>');
+		}
+		myStructure.append(theToTable.getTableNameSQL()).append(' ').append(theToTable.getAlias()).append(';');
 	}
 
 	/**
 	 * Generate and return the SQL generated by this builder
 	 */
 	public GeneratedSql generate(@Nullable Integer theOffset, @Nullable Integer theMaxResultsToFetch) {
+		return generate(generateTemplate(null), theOffset, theMaxResultsToFetch);
+	}
+
+	/**
+	 * Renders the SQL for this query without any limit or offset. If a template is supplied which was
+	 * rendered from a query with the same structure, it is returned as-is instead of rendering the SQL
+	 * again.
+	 *
+	 * @param theCandidate A template previously rendered for a query believed to have the same structure as this one
+	 * @since 7.6.0
+	 */
+	public GeneratedSqlTemplate generateTemplate(@Nullable GeneratedSqlTemplate theCandidate) {
 
 		getOrCreateFirstPredicateBuilder();
 
+		String structure = myStructure.toString();
+		if (theCandidate != null && theCandidate.isCompatibleWith(structure, myBindVariableValues)) {
+			return theCandidate;
+		}
+
 		mySelect.validate();
 		String sql = mySelect.toString();
 
-		List<Object> bindVariables = new ArrayList<>();
+		List<Integer> bindVariableIndexes = new ArrayList<>();
 		while (true) {
 
 			int idx = sql.indexOf(myBindVariableSubstitutionBase);
@@ -490,11 +542,25 @@ public class SearchQueryBuilder {
 			int endIdx = sql.indexOf("'", idx + myBindVariableSubstitutionBase.length());
 			String substitutionIndexString = sql.substring(idx + myBindVariableSubstitutionBase.length(), endIdx);
 			int substitutionIndex = Integer.parseInt(substitutionIndexString);
-			bindVariables.add(myBindVariableValues.get(substitutionIndex));
+			bindVariableIndexes.add(substitutionIndex);
 
 			sql = sql.substring(0, idx - 1) + "?" + sql.substring(endIdx + 1);
 		}
 
+		return new GeneratedSqlTemplate(sql, structure, bindVariableIndexes, myBindVariableValues);
+	}
+
+	/**
+	 * Generates the SQL for this query from a template rendered by {@link #generateTemplate(GeneratedSqlTemplate)},
+	 * applying the limit and offset
+	 *
+	 * @since 7.6.0
+	 */
+	public GeneratedSql generate(
+			GeneratedSqlTemplate theTemplate, @Nullable Integer theOffset, @Nullable Integer theMaxResultsToFetch) {
+		String sql = theTemplate.getSql();
+		List<Object> bindVariables = theTemplate.getBindVariables(myBindVariableValues);
+
 		Integer maxResultsToFetch = theMaxResultsToFetch;
 		Integer offset = theOffset;
 		if (offset != null && offset == 0) {
@@ -849,6 +915,7 @@ public class SearchQueryBuilder {
 			ordering = " DESC";
 		}
 
+		myKeysetPagingUnsupported = true;
 		String columnName = "MHD" + (myNextNearnessColumnId++);
 		mySelect.addAliasedColumn(sum, columnName);
 		mySelect.addCustomOrderings(columnName + ordering);
@@ -888,6 +955,7 @@ public class SearchQueryBuilder {
 			boolean theUseAggregate) {
 		if ((dialectIsMySql || dialectIsMsSql)) {
 			// MariaDB, MySQL and MSSQL do not support "NULLS FIRST" and "NULLS LAST" syntax.
+			myKeysetPagingUnsupported = true;
 			String direction = theTheAscending ? " ASC" : " DESC";
 			String sortColumnName =
 					theTheColumnValueNormalized.getTable().getAlias() + "." + theTheColumnValueNormalized.getName();
@@ -932,6 +1000,7 @@ public class SearchQueryBuilder {
 			boolean theUseAggregate) {
 		if ((dialectIsMySql || dialectIsMsSql)) {
 			// MariaDB, MySQL and MSSQL do not support "NULLS FIRST" and "NULLS LAST" syntax.
+			myKeysetPagingUnsupported = true;
 			// Null values are always treated as less than non-null values.
 			// As such special handling is required here.
 			String direction;
@@ -960,6 +1029,7 @@ public class SearchQueryBuilder {
 			boolean theUseAggregate) {
 		if ((dialectIsMySql || dialectIsMsSql)) {
 			// MariaDB, MySQL and MSSQL do not support "NULLS FIRST" and "NULLS LAST" syntax.
+			myKeysetPagingUnsupported = true;
 			String direction = theTheAscending ? " ASC" : " DESC";
 			String sortColumnName =
 					theTheColumnValueNormalized.getTable().getAlias() + "." + theTheColumnValueNormalized.getName();
@@ -1000,6 +1070,76 @@ public class SearchQueryBuilder {
 		OrderObject orderObject = new OrderObject(direction, columnToOrder);
 		orderObject.setNullOrder(theNullOrder);
 		mySelect.addCustomOrderings(orderObject);
+
+		if (theNullOrder == OrderObject.NullOrder.LAST) {
+			myKeysetSortColumns.add(
+					new KeysetSortColumn(theTheColumnValueNormalized, columnToOrder, theTheAscending));
+		} else {
+			myKeysetPagingUnsupported = true;
+		}
+	}
+
+	/**
+	 * Returns <code>true</code> if {@link #addKeysetPaging(SearchKeysetPosition, boolean)} can be used
+	 * with the sort orderings which have been added to this query
+	 *
+	 * @since 7.6.0
+	 */
+	public boolean isKeysetPagingSupported() {
+		return !myKeysetPagingUnsupported;
+	}
+
+	/**
+	 * Adds an ordering on the resource ID after any sort orderings which have already been added, so that
+	 * the results have a stable order, and if a position is supplied, restricts the results to the ones
+	 * which come after it in that order. Sort values which are null are ordered last.
+	 *
+	 * @param thePosition            The position of the last resource before the first result, or <code>null</code>
+	 * @param theSortIsSingleValued If <code>true</code>, each resource has at most one value for the sort
+	 *                               columns, so the position can be compared against individual rows instead of
+	 *                               against the aggregated sort values
+	 * @since 7.6.0
+	 */
+	public void addKeysetPaging(@Nullable SearchKeysetPosition thePosition, boolean theSortIsSingleValued) {
+		Validate.isTrue(isKeysetPagingSupported(), "Keyset paging is not supported for this query");
+		DbColumn resourceIdColumn = getOrCreateFirstPredicateBuilder().getResourceIdColumn();
+
+		if (thePosition != null) {
+			List<Object> sortValues = thePosition.getSortValues();
+			Validate.isTrue(sortValues.size() == myKeysetSortColumns.size(), "Position does not match the sort");
+
+			// Build (sort1, sort2, ..., resourceId) > (value1, value2, ..., pid) from the last column back
+			Condition condition =
+					BinaryCondition.greaterThan(resourceIdColumn, generatePlaceholder(thePosition.getResourcePid()));
+			boolean aggregate = false;
+			for (int i = myKeysetSortColumns.size() - 1; i >= 0; i--) {
+				KeysetSortColumn sortColumn = myKeysetSortColumns.get(i);
+				Object expression = theSortIsSingleValued ? sortColumn.getColumn() : sortColumn.getExpression();
+				aggregate |= expression != sortColumn.getColumn();
+
+				Object value = sortValues.get(i);
+				if (value == null) {
+					condition = ComboCondition.and(UnaryCondition.isNull(expression), condition);
+				} else {
+					String placeholder = generatePlaceholder(value);
+					Condition after = sortColumn.isAscending()
+							? BinaryCondition.greaterThan(expression, placeholder)
+							: BinaryCondition.lessThan(expression, placeholder);
+					condition = ComboCondition.or(
+							after,
+							UnaryCondition.isNull(expression),
+							ComboCondition.and(BinaryCondition.equalTo(expression, placeholder), condition));
+				}
+			}
+
+			if (aggregate) {
+				mySelect.addHaving(condition);
+			} else {
+				addPredicate(condition);
+			}
+		}
+
+		mySelect.addOrderings(resourceIdColumn);
 	}
 
 	/**
@@ -1013,4 +1153,35 @@ public class SearchQueryBuilder {
 	public void setNeedResourceTableRoot(boolean theNeedResourceTableRoot) {
 		myNeedResourceTableRoot = theNeedResourceTableRoot;
 	}
+
+	private static class KeysetSortColumn {
+
+		private final DbColumn myColumn;
+		private final Object myExpression;
+		private final boolean myAscending;
+
+		private KeysetSortColumn(DbColumn theColumn, Object theExpression, boolean theAscending) {
+			myColumn = theColumn;
+			myExpression = theExpression;
+			myAscending = theAscending;
+		}
+
+		/**
+		 * The sorted column
+		 */
+		public DbColumn getColumn() {
+			return myColumn;
+		}
+
+		/**
+		 * The expression the query is ordered by, which is either the column or an aggregate of it
+		 */
+		public Object getExpression() {
+			return myExpression;
+		}
+
+		public boolean isAscending() {
+			return myAscending;
+		}
+	}
 }
@@ -41,6 +41,7 @@ import ca.uhn.fhir.jpa.search.cache.ISearchResultCacheSvc;
 import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
 import ca.uhn.fhir.jpa.util.QueryParameterUtils;
 import ca.uhn.fhir.jpa.util.SearchParameterMapCalculator;
+import ca.uhn.fhir.rest.api.SearchTotalModeEnum;
 import ca.uhn.fhir.rest.api.server.IPreResourceAccessDetails;
 import ca.uhn.fhir.rest.api.server.RequestDetails;
 import ca.uhn.fhir.rest.server.IPagingProvider;
@@ -555,12 +556,13 @@ public class SearchTask implements Callable<Void> {
 		 * before doing anything else.
 		 */
 		boolean myParamWantOnlyCount = isWantOnlyCount(myParams);
-		boolean myParamOrDefaultWantCount = nonNull(myParams.getSearchTotalMode())
-				? isWantCount(myParams)
-				: SearchParameterMapCalculator.isWantCount(myStorageSettings.getDefaultTotalMode());
+		SearchTotalModeEnum totalMode = nonNull(myParams.getSearchTotalMode())
+				? myParams.getSearchTotalMode()
+				: myStorageSettings.getDefaultTotalMode();
+		boolean myParamOrDefaultWantCount = isWantCount(totalMode);
 
 		if (myParamWantOnlyCount || myParamOrDefaultWantCount) {
-			doCountOnlyQuery(myParamWantOnlyCount);
+			doCountOnlyQuery(myParamWantOnlyCount, SearchParameterMapCalculator.isWantEstimatedCount(totalMode));
 			if (myParamWantOnlyCount) {
 				return;
 			}
@@ -695,7 +697,7 @@ public class SearchTask implements Callable<Void> {
 	 * Does the query but only for the count.
 	 * @param theParamWantOnlyCount - if count query is wanted only
 	 */
-	private void doCountOnlyQuery(boolean theParamWantOnlyCount) {
+	private void doCountOnlyQuery(boolean theParamWantOnlyCount, boolean theWantEstimatedCount) {
 		ourLog.trace("Performing count");
 		@SuppressWarnings("rawtypes")
 		ISearchBuilder sb = newSearchBuilder();
@@ -709,7 +711,12 @@ public class SearchTask implements Callable<Void> {
 		 * we will have to clone those parameters here so that
 		 * the "correct" params are used in createQuery below
 		 */
-		Long count = sb.createCountQuery(myParams.clone(), mySearch.getUuid(), myRequest, myRequestPartitionId);
+		Long count;
+		if (theWantEstimatedCount) {
+			count = sb.createEstimatedCountQuery(myParams.clone(), mySearch.getUuid(), myRequest, myRequestPartitionId);
+		} else {
+			count = sb.createCountQuery(myParams.clone(), mySearch.getUuid(), myRequest, myRequestPartitionId);
+		}
 
 		ourLog.trace("Got count {}", count);
 
@@ -166,6 +166,10 @@ public class DatabaseSearchCacheSvcImpl implements ISearchCacheSvc {
 				mySearchDao.findWithCutoffOrExpiry(theResourceType, hashCode, Date.from(theCreatedAfter));
 
 		for (Search nextCandidateSearch : candidates) {
+			if (nextCandidateSearch.isResultsInMemory()) {
+				// The results may be held by another server, which we can't read them from
+				continue;
+			}
 			// We should only reuse our search if it was created within the permitted window
 			// Date.after() is unreliable.  Instant.isAfter() always works.
 			if (queryString.equals(nextCandidateSearch.getSearchQueryString())
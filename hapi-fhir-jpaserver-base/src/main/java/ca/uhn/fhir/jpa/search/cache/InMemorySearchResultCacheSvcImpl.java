@@ -0,0 +1,541 @@
+/*-
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2024 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.search.cache;
+
+import ca.uhn.fhir.i18n.Msg;
+import ca.uhn.fhir.interceptor.model.RequestPartitionId;
+import ca.uhn.fhir.jpa.api.config.JpaStorageSettings;
+import ca.uhn.fhir.jpa.dao.data.ISearchDao;
+import ca.uhn.fhir.jpa.dao.tx.IHapiTransactionService;
+import ca.uhn.fhir.jpa.entity.Search;
+import ca.uhn.fhir.jpa.model.dao.JpaPid;
+import ca.uhn.fhir.jpa.model.sched.HapiJob;
+import ca.uhn.fhir.jpa.model.sched.IHasScheduledJobs;
+import ca.uhn.fhir.jpa.model.sched.ISchedulerService;
+import ca.uhn.fhir.jpa.model.sched.ScheduledJobDefinition;
+import ca.uhn.fhir.rest.api.server.RequestDetails;
+import ca.uhn.fhir.rest.server.exceptions.ResourceGoneException;
+import com.google.common.annotations.VisibleForTesting;
+import org.apache.commons.lang3.time.DateUtils;
+import org.quartz.JobExecutionContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Search result cache which holds the resource PIDs found by each search in memory, compressed,
+ * in front of the database tier provided by {@link DatabaseSearchResultCacheSvcImpl}. This tier
+ * is only used if {@link JpaStorageSettings#setInMemorySearchResultCacheMaxBytes(long)} is set.
+ * <p>
+ * PIDs are stored in blocks of {@link #BLOCK_SIZE}, with each PID encoded as a variable length
+ * delta from the one before it. Searches are evicted in least recently used order once the
+ * configured size is exceeded, and searches which are not held in memory (e.g. because they were
+ * evicted, or because they were performed by another server) are read from the database.
+ * </p>
+ * <p>
+ * Searches evicted to make room for other searches are written to the database by a scheduled
+ * job rather than by the search which caused the eviction, and remain readable from memory until
+ * they have been written. The same job discards searches which have not been used for longer than
+ * {@link JpaStorageSettings#getExpireSearchResultsAfterMillis()}.
+ * </p>
+ */
+public class InMemorySearchResultCacheSvcImpl extends DatabaseSearchResultCacheSvcImpl implements IHasScheduledJobs {
+	private static final Logger ourLog = LoggerFactory.getLogger(InMemorySearchResultCacheSvcImpl.class);
+
+	static final int BLOCK_SIZE = 1024;
+
+	/**
+	 * A single search may use at most this fraction of the configured size, so that one
+	 * very large search can't evict every other search
+	 */
+	private static final int MAX_FRACTION_PER_SEARCH = 8;
+
+	private final LinkedHashMap<Long, CachedResults> myResults = new LinkedHashMap<>(16, 0.75f, true);
+	private final Map<Long, CachedResults> myResultsBeingWritten = new LinkedHashMap<>();
+	private long myTotalBytes;
+
+	@Autowired
+	private JpaStorageSettings myStorageSettings;
+
+	@Autowired
+	private IHapiTransactionService myTxService;
+
+	@Autowired
+	private ISearchDao mySearchDao;
+
+	@Override
+	public List<JpaPid> fetchResultPids(
+			Search theSearch,
+			int theFrom,
+			int theTo,
+			RequestDetails theRequestDetails,
+			RequestPartitionId theRequestPartitionId) {
+		CachedResults results = getCachedResults(theSearch);
+		if (results != null) {
+			List<JpaPid> retVal = results.get(theFrom, theTo);
+			if (retVal != null) {
+				ourLog.debug(
+						"fetchResultPids for range {}-{} returned {} pids from memory",
+						theFrom,
+						theTo,
+						retVal.size());
+				return retVal;
+			}
+		}
+		return fetchFromDatabase(
+				theSearch,
+				theFrom,
+				theRequestDetails,
+				theRequestPartitionId,
+				() -> super.fetchResultPids(theSearch, theFrom, theTo, theRequestDetails, theRequestPartitionId));
+	}
+
+	@Override
+	public List<JpaPid> fetchAllResultPids(
+			Search theSearch, RequestDetails theRequestDetails, RequestPartitionId theRequestPartitionId) {
+		CachedResults results = getCachedResults(theSearch);
+		if (results != null) {
+			List<JpaPid> retVal = results.get(0, Integer.MAX_VALUE);
+			if (retVal != null) {
+				return retVal;
+			}
+		}
+		return fetchFromDatabase(
+				theSearch,
+				0,
+				theRequestDetails,
+				theRequestPartitionId,
+				() -> super.fetchAllResultPids(theSearch, theRequestDetails, theRequestPartitionId));
+	}
+
+	/**
+	 * Reads results from the database. If none are found even though the search found results,
+	 * and the results are still only held in memory by the server which performed the search
+	 * (i.e. another server, or this server before it was restarted), this fails instead of
+	 * returning an empty page.
+	 */
+	private List<JpaPid> fetchFromDatabase(
+			Search theSearch,
+			int theFrom,
+			RequestDetails theRequestDetails,
+			RequestPartitionId theRequestPartitionId,
+			Supplier<List<JpaPid>> theFetcher) {
+		List<JpaPid> retVal = theFetcher.get();
+		if (retVal.isEmpty() && theSearch.isResultsInMemory() && theFrom < theSearch.getNumFound()) {
+			// The copy of the search we were given may predate the results being written
+			Boolean resultsInMemory = myTxService
+					.withRequest(theRequestDetails)
+					.withRequestPartitionId(theRequestPartitionId)
+					.execute(() -> mySearchDao.findResultsInMemory(theSearch.getId()));
+			if (Boolean.TRUE.equals(resultsInMemory)) {
+				throw new ResourceGoneException(Msg.code(2558) + "The results of search " + theSearch.getUuid()
+						+ " are only held in memory by the server which performed it, and can not be loaded by this"
+						+ " server. The search must be performed again.");
+			}
+			retVal = theFetcher.get();
+		}
+		return retVal;
+	}
+
+	@Override
+	public void storeResults(
+			Search theSearch,
+			List<JpaPid> thePreviouslyStoredResourcePids,
+			List<JpaPid> theNewResourcePids,
+			RequestDetails theRequestDetails,
+			RequestPartitionId theRequestPartitionId) {
+		long maxBytes = myStorageSettings.getInMemorySearchResultCacheMaxBytes();
+		if (maxBytes <= 0 || theSearch.getId() == null) {
+			super.storeResults(
+					theSearch,
+					thePreviouslyStoredResourcePids,
+					theNewResourcePids,
+					theRequestDetails,
+					theRequestPartitionId);
+			return;
+		}
+
+		CachedResults tooLarge = null;
+		boolean markResultsInMemory = false;
+		boolean storeInDatabase;
+		synchronized (myResults) {
+			CachedResults results = myResults.get(theSearch.getId());
+			if (results != null && results.size() != thePreviouslyStoredResourcePids.size()) {
+				// This shouldn't happen, but if it does the database is assumed to be authoritative
+				results.markEvicted();
+				evict(results);
+				results = null;
+			}
+			if (results == null && thePreviouslyStoredResourcePids.isEmpty()) {
+				boolean writeThrough = myStorageSettings.isInMemorySearchResultCacheWriteThrough();
+				results = new CachedResults(theSearch, theRequestPartitionId, writeThrough);
+				myResults.put(theSearch.getId(), results);
+				markResultsInMemory = !writeThrough;
+			}
+
+			storeInDatabase = results == null || results.isStoredInDatabase();
+			if (results != null) {
+				myTotalBytes -= results.getBytes();
+				results.add(theNewResourcePids);
+				myTotalBytes += results.getBytes();
+				if (results.getBytes() > maxBytes / MAX_FRACTION_PER_SEARCH) {
+					ourLog.debug(
+							"Search {} with {} results is too large to hold in memory",
+							theSearch.getUuid(),
+							results.size());
+					evict(results);
+					results.markEvicted();
+					if (!storeInDatabase) {
+						tooLarge = results;
+					}
+				}
+			}
+
+			Iterator<CachedResults> iter = myResults.values().iterator();
+			while (myTotalBytes > maxBytes && iter.hasNext()) {
+				CachedResults next = iter.next();
+				iter.remove();
+				myTotalBytes -= next.getBytes();
+				if (next.isStoredInDatabase()) {
+					next.markEvicted();
+				} else {
+					// Written to the database by the scheduled job, and readable from memory until then
+					next.markBeingWritten();
+					myResultsBeingWritten.put(next.getSearch().getId(), next);
+				}
+			}
+		}
+
+		if (markResultsInMemory) {
+			// Lets other servers fail clearly instead of returning empty pages for this search
+			updateResultsInMemory(theSearch, true, theRequestDetails, theRequestPartitionId);
+		}
+
+		if (storeInDatabase) {
+			super.storeResults(
+					theSearch,
+					thePreviouslyStoredResourcePids,
+					theNewResourcePids,
+					theRequestDetails,
+					theRequestPartitionId);
+		} else if (tooLarge != null) {
+			// This search's own results, so they are written as part of the search's own transaction
+			List<JpaPid> pids = tooLarge.getAll();
+			super.storeResults(theSearch, Collections.emptyList(), pids, theRequestDetails, theRequestPartitionId);
+			updateResultsInMemory(theSearch, false, theRequestDetails, theRequestPartitionId);
+		}
+	}
+
+	private void updateResultsInMemory(
+			Search theSearch,
+			boolean theResultsInMemory,
+			RequestDetails theRequestDetails,
+			RequestPartitionId theRequestPartitionId) {
+		myTxService
+				.withRequest(theRequestDetails)
+				.withRequestPartitionId(theRequestPartitionId)
+				.execute(() -> mySearchDao.updateResultsInMemory(theSearch.getId(), theResultsInMemory));
+	}
+
+	private CachedResults getCachedResults(Search theSearch) {
+		if (myStorageSettings.getInMemorySearchResultCacheMaxBytes() <= 0 || theSearch.getId() == null) {
+			return null;
+		}
+		synchronized (myResults) {
+			CachedResults retVal = myResults.get(theSearch.getId());
+			if (retVal != null) {
+				retVal.touch();
+			} else {
+				retVal = myResultsBeingWritten.get(theSearch.getId());
+			}
+			return retVal;
+		}
+	}
+
+	private void evict(CachedResults theResults) {
+		myResults.remove(theResults.getSearch().getId());
+		myTotalBytes -= theResults.getBytes();
+	}
+
+	/**
+	 * Discards stale searches, and writes the results of searches which were evicted to make
+	 * room for others to the database. This is called by a scheduled job, and failures are
+	 * logged rather than thrown.
+	 */
+	public void flushEvictedResults() {
+		List<CachedResults> beingWritten;
+		synchronized (myResults) {
+			expireStaleResults();
+			beingWritten = new ArrayList<>(myResultsBeingWritten.values());
+		}
+
+		for (CachedResults next : beingWritten) {
+			try {
+				storeEvictedResultsInDatabase(next);
+			} catch (Exception e) {
+				// Later page requests for the search will fail clearly, since the search remains
+				// marked as having its results in memory
+				ourLog.warn(
+						"Failed to write in-memory results for evicted search {} to the database: {}",
+						next.getSearch().getUuid(),
+						e.toString());
+			} finally {
+				synchronized (myResults) {
+					myResultsBeingWritten.remove(next.getSearch().getId());
+				}
+				next.markEvicted();
+			}
+		}
+	}
+
+	/**
+	 * Writes the results of an evicted search which were only held in memory to the database, in
+	 * a new transaction. The results remain readable from memory until it has been committed, so
+	 * that page requests never find a partially written search. Nothing is written if the search
+	 * itself has been deleted in the meantime.
+	 */
+	private void storeEvictedResultsInDatabase(CachedResults theResults) {
+		Search search = theResults.getSearch();
+		List<JpaPid> pids = theResults.getAll();
+		ourLog.debug(
+				"Writing {} in-memory results for evicted search {} to the database", pids.size(), search.getUuid());
+		myTxService
+				.withSystemRequest()
+				.withRequestPartitionId(theResults.getRequestPartitionId())
+				.execute(() -> {
+					if (mySearchDao.updateResultsInMemory(search.getId(), false) > 0) {
+						super.storeResults(
+								search, Collections.emptyList(), pids, null, theResults.getRequestPartitionId());
+					}
+				});
+	}
+
+	private void expireStaleResults() {
+		long cutoff = System.currentTimeMillis() - myStorageSettings.getExpireSearchResultsAfterMillis();
+		Iterator<CachedResults> iter = myResults.values().iterator();
+		while (iter.hasNext()) {
+			CachedResults next = iter.next();
+			if (next.getLastAccessed() >= cutoff) {
+				// Entries are in access order, so everything after this one is newer
+				break;
+			}
+			iter.remove();
+			myTotalBytes -= next.getBytes();
+			next.markEvicted();
+		}
+	}
+
+	@Override
+	public void scheduleJobs(ISchedulerService theSchedulerService) {
+		// Each server flushes the results it holds in memory, so this is a local job
+		ScheduledJobDefinition jobDetail = new ScheduledJobDefinition();
+		jobDetail.setId(getClass().getName());
+		jobDetail.setJobClass(Job.class);
+		theSchedulerService.scheduleLocalJob(10 * DateUtils.MILLIS_PER_SECOND, jobDetail);
+	}
+
+	public static class Job implements HapiJob {
+		@Autowired
+		private InMemorySearchResultCacheSvcImpl myTarget;
+
+		@Override
+		public void execute(JobExecutionContext theContext) {
+			if (!myTarget.myStorageSettings.isSchedulingDisabled()) {
+				myTarget.flushEvictedResults();
+			}
+		}
+	}
+
+	@VisibleForTesting
+	long getTotalBytes() {
+		synchronized (myResults) {
+			return myTotalBytes;
+		}
+	}
+
+	/**
+	 * The compressed resource PIDs found by a single search
+	 */
+	private static class CachedResults {
+
+		/**
+		 * Estimated fixed cost of each instance, excluding the PIDs themselves
+		 */
+		private static final int OVERHEAD_BYTES = 128;
+
+		private final Search mySearch;
+		private final RequestPartitionId myRequestPartitionId;
+		private final boolean myStoredInDatabase;
+		private final List<byte[]> myBlocks = new ArrayList<>();
+		private long[] myTail = new long[16];
+		private int myTailSize;
+		private int mySize;
+		private long myBlockBytes;
+		private long myLastAccessed;
+		private boolean myBeingWritten;
+		private boolean myEvicted;
+
+		CachedResults(Search theSearch, RequestPartitionId theRequestPartitionId, boolean theStoredInDatabase) {
+			mySearch = theSearch;
+			myRequestPartitionId = theRequestPartitionId;
+			myStoredInDatabase = theStoredInDatabase;
+			myLastAccessed = System.currentTimeMillis();
+		}
+
+		Search getSearch() {
+			return mySearch;
+		}
+
+		RequestPartitionId getRequestPartitionId() {
+			return myRequestPartitionId;
+		}
+
+		boolean isStoredInDatabase() {
+			return myStoredInDatabase;
+		}
+
+		synchronized void markBeingWritten() {
+			myBeingWritten = true;
+		}
+
+		synchronized void markEvicted() {
+			myEvicted = true;
+		}
+
+		synchronized int size() {
+			return mySize;
+		}
+
+		synchronized long getBytes() {
+			return OVERHEAD_BYTES + myBlockBytes + (long) myTail.length * Long.BYTES;
+		}
+
+		synchronized long getLastAccessed() {
+			return myLastAccessed;
+		}
+
+		synchronized void touch() {
+			myLastAccessed = System.currentTimeMillis();
+		}
+
+		synchronized void add(List<JpaPid> thePids) {
+			for (JpaPid next : thePids) {
+				if (myTailSize == myTail.length) {
+					if (myTailSize == BLOCK_SIZE) {
+						byte[] block = encode(myTail, myTailSize);
+						myBlocks.add(block);
+						myBlockBytes += block.length;
+						myTailSize = 0;
+					} else {
+						myTail = Arrays.copyOf(myTail, Math.min(BLOCK_SIZE, myTail.length * 2));
+					}
+				}
+				myTail[myTailSize++] = next.getId();
+				mySize++;
+			}
+			myLastAccessed = System.currentTimeMillis();
+		}
+
+		synchronized List<JpaPid> getAll() {
+			return getRange(0, mySize);
+		}
+
+		/**
+		 * @return Returns the PIDs in the given range, or <code>null</code> if the range should be
+		 * read from the database instead
+		 */
+		synchronized List<JpaPid> get(int theFrom, int theTo) {
+			if (myEvicted || (myBeingWritten && theTo > mySize)) {
+				// Results added since eviction are only in the database
+				return null;
+			}
+			return getRange(theFrom, theTo);
+		}
+
+		private List<JpaPid> getRange(int theFrom, int theTo) {
+			int to = Math.min(theTo, mySize);
+			if (theFrom >= to) {
+				return Collections.emptyList();
+			}
+
+			List<JpaPid> retVal = new ArrayList<>(to - theFrom);
+			long[] decoded = new long[BLOCK_SIZE];
+			for (int blockIdx = theFrom / BLOCK_SIZE; blockIdx * BLOCK_SIZE < to; blockIdx++) {
+				long[] values;
+				if (blockIdx < myBlocks.size()) {
+					decode(myBlocks.get(blockIdx), decoded);
+					values = decoded;
+				} else {
+					values = myTail;
+				}
+				int blockStart = blockIdx * BLOCK_SIZE;
+				int from = Math.max(theFrom, blockStart) - blockStart;
+				int end = Math.min(to, blockStart + BLOCK_SIZE) - blockStart;
+				for (int i = from; i < end; i++) {
+					retVal.add(JpaPid.fromId(values[i]));
+				}
+			}
+			return retVal;
+		}
+
+		static byte[] encode(long[] theValues, int theCount) {
+			byte[] buffer = new byte[theCount * 10];
+			int pos = 0;
+			long previous = 0;
+			for (int i = 0; i < theCount; i++) {
+				long delta = theValues[i] - previous;
+				previous = theValues[i];
+				long zigZag = (delta << 1) ^ (delta >> 63);
+				while ((zigZag & ~0x7FL) != 0) {
+					buffer[pos++] = (byte) ((zigZag & 0x7F) | 0x80);
+					zigZag >>>= 7;
+				}
+				buffer[pos++] = (byte) zigZag;
+			}
+			return Arrays.copyOf(buffer, pos);
+		}
+
+		static void decode(byte[] theBlock, long[] theValues) {
+			int pos = 0;
+			long previous = 0;
+			for (int i = 0; pos < theBlock.length; i++) {
+				long zigZag = 0;
+				int shift = 0;
+				byte next;
+				do {
+					next = theBlock[pos++];
+					zigZag |= (long) (next & 0x7F) << shift;
+					shift += 7;
+				} while (next < 0);
+				previous += (zigZag >>> 1) ^ -(zigZag & 1);
+				theValues[i] = previous;
+			}
+		}
+	}
+}
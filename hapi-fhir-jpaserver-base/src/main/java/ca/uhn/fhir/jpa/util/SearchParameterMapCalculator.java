@@ -32,7 +32,12 @@ public class SearchParameterMapCalculator {
 	}
 
 	public static boolean isWantCount(SearchTotalModeEnum theSearchTotalModeEnum) {
-		return SearchTotalModeEnum.ACCURATE.equals(theSearchTotalModeEnum);
+		return SearchTotalModeEnum.ACCURATE.equals(theSearchTotalModeEnum)
+				|| SearchTotalModeEnum.ESTIMATED.equals(theSearchTotalModeEnum);
+	}
+
+	public static boolean isWantEstimatedCount(SearchTotalModeEnum theSearchTotalModeEnum) {
+		return SearchTotalModeEnum.ESTIMATED.equals(theSearchTotalModeEnum);
 	}
 
 	public static boolean isWantOnlyCount(SearchParameterMap myParams) {
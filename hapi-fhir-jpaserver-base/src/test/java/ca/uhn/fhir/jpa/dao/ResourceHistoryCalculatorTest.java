@@ -4,6 +4,7 @@ import ca.uhn.fhir.context.FhirContext;
 import ca.uhn.fhir.jpa.model.entity.ResourceEncodingEnum;
 import ca.uhn.fhir.jpa.model.entity.ResourceHistoryTable;
 import ca.uhn.fhir.jpa.model.entity.ResourceTable;
+import ca.uhn.fhir.jpa.model.util.DictionaryDeflateUtil;
 import com.google.common.hash.HashCode;
 import com.google.common.hash.HashFunction;
 import com.google.common.hash.Hashing;
@@ -148,6 +149,47 @@ class ResourceHistoryCalculatorTest {
 		}
 	}
 
+	private static Stream<Arguments> conditionallyAlterHistoryEntityWithTargetEncodingArguments() {
+		return Stream.of(
+			Arguments.of(true, ResourceEncodingEnum.JSONC, ResourceEncodingEnum.JSOND),
+			Arguments.of(true, ResourceEncodingEnum.JSOND, ResourceEncodingEnum.JSONC),
+			Arguments.of(true, ResourceEncodingEnum.JSON, ResourceEncodingEnum.JSOND),
+			Arguments.of(true, ResourceEncodingEnum.JSONC, ResourceEncodingEnum.JSONC),
+			Arguments.of(true, ResourceEncodingEnum.JSONC, ResourceEncodingEnum.ESR),
+			Arguments.of(false, ResourceEncodingEnum.JSONC, ResourceEncodingEnum.JSOND),
+			Arguments.of(false, ResourceEncodingEnum.JSOND, ResourceEncodingEnum.JSONC)
+		);
+	}
+
+	@ParameterizedTest
+	@MethodSource("conditionallyAlterHistoryEntityWithTargetEncodingArguments")
+	void conditionallyAlterHistoryEntity_reencodesBinaryForOracle(boolean theIsOracle, ResourceEncodingEnum theExistingEncoding, ResourceEncodingEnum theTargetEncoding) {
+		final ResourceTable resourceTable = new ResourceTable();
+		resourceTable.setId(123L);
+
+		final ResourceHistoryTable resourceHistoryTable = new ResourceHistoryTable();
+		resourceHistoryTable.setVersion(1);
+		resourceHistoryTable.setResource(ResourceHistoryCalculator.getResourceBinary(theExistingEncoding, ENCODED_RESOURCE_1));
+		resourceHistoryTable.setEncoding(theExistingEncoding);
+
+		final boolean isChanged = getCalculator(theIsOracle)
+			.conditionallyAlterHistoryEntity(resourceTable, resourceHistoryTable, ENCODED_RESOURCE_1, theTargetEncoding);
+
+		if (!theIsOracle) {
+			assertTrue(isChanged);
+			assertNull(resourceHistoryTable.getResource());
+			assertEquals(ENCODED_RESOURCE_1, resourceHistoryTable.getResourceTextVc());
+			assertEquals(ResourceEncodingEnum.JSON, resourceHistoryTable.getEncoding());
+		} else if (theExistingEncoding != theTargetEncoding && theTargetEncoding != ResourceEncodingEnum.ESR) {
+			assertTrue(isChanged);
+			assertEquals(theTargetEncoding, resourceHistoryTable.getEncoding());
+			assertEquals(ENCODED_RESOURCE_1, BaseHapiFhirDao.decodeResource(resourceHistoryTable.getResource(), theTargetEncoding));
+		} else {
+			assertFalse(isChanged);
+			assertEquals(theExistingEncoding, resourceHistoryTable.getEncoding());
+		}
+	}
+
 	private static Stream<Arguments> encodeResourceArguments() {
 		return Stream.of(
 			Arguments.of(FhirContext.forDstu3Cached(), ResourceEncodingEnum.JSONC, EXCLUDED_ELEMENTS_1),
@@ -185,6 +227,8 @@ class ResourceHistoryCalculatorTest {
 		return Stream.of(
 			Arguments.of(ResourceEncodingEnum.JSONC, ENCODED_RESOURCE_1),
 			Arguments.of(ResourceEncodingEnum.JSONC, ENCODED_RESOURCE_2),
+			Arguments.of(ResourceEncodingEnum.JSOND, ENCODED_RESOURCE_1),
+			Arguments.of(ResourceEncodingEnum.JSOND, ENCODED_RESOURCE_2),
 			Arguments.of(ResourceEncodingEnum.DEL, ENCODED_RESOURCE_1),
 			Arguments.of(ResourceEncodingEnum.DEL, ENCODED_RESOURCE_2),
 			Arguments.of(ResourceEncodingEnum.ESR, ENCODED_RESOURCE_1),
@@ -206,6 +250,9 @@ class ResourceHistoryCalculatorTest {
 			case JSONC:
 				assertArrayEquals(GZipUtil.compress(theEncodedResource), resourceBinary);
 				break;
+			case JSOND:
+				assertArrayEquals(DictionaryDeflateUtil.compress(theEncodedResource), resourceBinary);
+				break;
 			case DEL :
 			case ESR :
 			default:
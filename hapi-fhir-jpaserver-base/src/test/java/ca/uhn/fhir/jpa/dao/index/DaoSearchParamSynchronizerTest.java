@@ -8,6 +8,7 @@ import ca.uhn.fhir.jpa.model.entity.ResourceTable;
 import ca.uhn.fhir.jpa.searchparam.extractor.ResourceIndexedSearchParams;
 import ca.uhn.fhir.jpa.util.AddRemoveCount;
 import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -44,6 +45,9 @@ public class DaoSearchParamSynchronizerTest {
 	@Mock
 	private EntityManager entityManager;
 
+	@Mock
+	private Session session;
+
 	private ResourceIndexedSearchParams existingParams;
 
 	@BeforeEach
@@ -75,4 +79,16 @@ public class DaoSearchParamSynchronizerTest {
 		verify(entityManager, never()).remove(any(BaseResourceIndex.class));
 		verify(entityManager, times(1)).merge(THE_SEARCH_PARAM_NUMBER);
 	}
+
+	@Test
+	void synchronizeSearchParamsWithIndexWriteJdbcBatchSize() {
+		JpaStorageSettings storageSettings = new JpaStorageSettings();
+		storageSettings.setIndexWriteJdbcBatchSize(500);
+		subject.setStorageSettings(storageSettings);
+		when(entityManager.unwrap(Session.class)).thenReturn(session);
+
+		subject.synchronizeSearchParamsToDatabase(theParams, theEntity, existingParams);
+
+		verify(session, times(1)).setJdbcBatchSize(500);
+	}
 }
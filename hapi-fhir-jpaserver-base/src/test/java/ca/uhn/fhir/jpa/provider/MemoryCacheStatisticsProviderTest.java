@@ -0,0 +1,71 @@
+package ca.uhn.fhir.jpa.provider;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.context.FhirVersionEnum;
+import ca.uhn.fhir.jpa.api.config.JpaStorageSettings;
+import ca.uhn.fhir.jpa.util.MemoryCacheService;
+import ca.uhn.fhir.test.utilities.server.RestfulServerExtension;
+import org.hl7.fhir.r4.model.CodeType;
+import org.hl7.fhir.r4.model.DecimalType;
+import org.hl7.fhir.r4.model.Parameters;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import static ca.uhn.fhir.rest.server.provider.ProviderConstants.OPERATION_MEMORY_CACHE_STATISTICS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class MemoryCacheStatisticsProviderTest {
+
+	private final MemoryCacheService myMemoryCacheService = new MemoryCacheService(new JpaStorageSettings());
+	@RegisterExtension
+	private RestfulServerExtension myServer = new RestfulServerExtension(FhirVersionEnum.R4)
+		.withServer(server -> server.registerProvider(new MemoryCacheStatisticsProvider(FhirContext.forR4Cached(), myMemoryCacheService)));
+
+	@Test
+	public void testAllCaches() {
+		Parameters outcome = myServer
+			.getFhirClient()
+			.operation()
+			.onServer()
+			.named(OPERATION_MEMORY_CACHE_STATISTICS)
+			.withNoParameters(Parameters.class)
+			.useHttpGet()
+			.execute();
+
+		assertThat(outcome.getParameter()).hasSize(MemoryCacheService.CacheEnum.values().length);
+		assertEquals("TAG_DEFINITION", outcome.getParameter().get(0).getPart().get(0).getValue().primitiveValue());
+	}
+
+	@Test
+	public void testSingleCache() {
+		myMemoryCacheService.get(MemoryCacheService.CacheEnum.MATCH_URL, "Patient?identifier=foo", k -> 123L);
+		myMemoryCacheService.get(MemoryCacheService.CacheEnum.MATCH_URL, "Patient?identifier=foo", k -> 123L);
+
+		Parameters outcome = myServer
+			.getFhirClient()
+			.operation()
+			.onServer()
+			.named(OPERATION_MEMORY_CACHE_STATISTICS)
+			.withParameter(Parameters.class, "cache", new CodeType("MATCH_URL"))
+			.useHttpGet()
+			.execute();
+
+		assertThat(outcome.getParameter()).hasSize(1);
+		Parameters.ParametersParameterComponent cache = outcome.getParameterFirstRep();
+		assertEquals("MATCH_URL", cache.getPart().get(0).getValue().primitiveValue());
+		assertEquals(1, getDecimalPart(cache, "estimatedSize"));
+		assertEquals(1, getDecimalPart(cache, "hitCount"));
+		assertEquals(1, getDecimalPart(cache, "missCount"));
+		assertEquals(0.5, getDecimalPart(cache, "hitRate"));
+		assertEquals(1, getDecimalPart(cache, "loadSuccessCount"));
+	}
+
+	private static double getDecimalPart(Parameters.ParametersParameterComponent theParameter, String theName) {
+		return theParameter.getPart().stream()
+			.filter(t -> t.getName().equals(theName))
+			.map(t -> ((DecimalType) t.getValue()).getValueAsNumber().doubleValue())
+			.findFirst()
+			.orElseThrow();
+	}
+}
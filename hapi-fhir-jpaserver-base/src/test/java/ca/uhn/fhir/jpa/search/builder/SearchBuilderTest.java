@@ -3,6 +3,7 @@ package ca.uhn.fhir.jpa.search.builder;
 import ca.uhn.fhir.context.FhirContext;
 import ca.uhn.fhir.jpa.api.dao.DaoRegistry;
 import ca.uhn.fhir.jpa.model.config.PartitionSettings;
+import ca.uhn.fhir.jpa.model.dao.JpaPid;
 import ca.uhn.fhir.rest.server.util.FhirContextSearchParamRegistry;
 import ca.uhn.fhir.rest.server.util.ISearchParamRegistry;
 import org.junit.jupiter.api.BeforeEach;
@@ -13,9 +14,13 @@ import org.mockito.Mock;
 import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.util.List;
 import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -67,4 +72,22 @@ class SearchBuilderTest {
 		assertThat(types).hasSize(146);
 	}
 
+	@Test
+	void testPidSet_MatchesJpaPidEquality() {
+		SearchBuilder.PidSet pidSet = new SearchBuilder.PidSet(List.of(JpaPid.fromId(1L), JpaPid.fromIdAndVersion(2L, 1L)));
+
+		assertTrue(pidSet.add(3L));
+		assertFalse(pidSet.add(JpaPid.fromIdAndResourceType(3L, "Patient")));
+		assertTrue(pidSet.add(JpaPid.fromIdAndVersion(1L, 2L)));
+		assertTrue(pidSet.add(JpaPid.fromId(2L)));
+		assertFalse(pidSet.add(JpaPid.fromIdAndVersion(2L, 1L)));
+
+		assertTrue(pidSet.contains(JpaPid.fromId(1L)));
+		assertTrue(pidSet.contains(JpaPid.fromIdAndVersion(2L, 1L)));
+		assertFalse(pidSet.contains(JpaPid.fromIdAndVersion(2L, 2L)));
+		assertFalse(pidSet.contains(JpaPid.fromId(4L)));
+		assertEquals(5, pidSet.size());
+		assertEquals(Set.of(JpaPid.fromId(1L), JpaPid.fromId(2L), JpaPid.fromId(3L), JpaPid.fromIdAndVersion(1L, 2L), JpaPid.fromIdAndVersion(2L, 1L)), pidSet.toJpaPids());
+	}
+
 }
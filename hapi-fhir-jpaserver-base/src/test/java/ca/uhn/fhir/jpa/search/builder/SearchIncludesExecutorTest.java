@@ -0,0 +1,41 @@
+package ca.uhn.fhir.jpa.search.builder;
+
+import ca.uhn.fhir.jpa.api.config.JpaStorageSettings;
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SearchIncludesExecutorTest {
+
+	@Test
+	public void testPoolSizeFromSettings() {
+		JpaStorageSettings storageSettings = new JpaStorageSettings();
+		SearchIncludesExecutor executor = new SearchIncludesExecutor(storageSettings, null);
+		assertFalse(executor.isEnabled());
+
+		storageSettings.setIncludesLoadingPoolSize(8);
+		assertEquals(8, executor.getPoolSize());
+		assertTrue(executor.isEnabled());
+	}
+
+	@Test
+	public void testPoolSizeCappedByConnectionPool() {
+		JpaStorageSettings storageSettings = new JpaStorageSettings();
+		storageSettings.setIncludesLoadingPoolSize(8);
+		BasicDataSource dataSource = new BasicDataSource();
+		dataSource.setMaxTotal(10);
+
+		SearchIncludesExecutor executor = new SearchIncludesExecutor(storageSettings, dataSource);
+		assertEquals(5, executor.getPoolSize());
+		assertTrue(executor.isEnabled());
+
+		// Never uses the only spare connection
+		dataSource.setMaxTotal(3);
+		executor = new SearchIncludesExecutor(storageSettings, dataSource);
+		assertEquals(1, executor.getPoolSize());
+		assertFalse(executor.isEnabled());
+	}
+}
@@ -0,0 +1,39 @@
+package ca.uhn.fhir.jpa.search.builder;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class SearchParamCardinalitySvcTest {
+
+	@Test
+	public void testEstimateRowsPerValue() {
+		SearchParamCardinalitySvc.CardinalitySample sample = new SearchParamCardinalitySvc.CardinalitySample();
+		for (int i = 0; i < 1000; i++) {
+			// A status with only two values
+			sample.add(1L, i % 2);
+			// A subject which is nearly unique
+			sample.add(2L, i);
+		}
+
+		// The sample is 1% of the table
+		Map<Object, Double> estimates = sample.estimateRowsPerValue(200000);
+
+		assertEquals(50000.0, estimates.get(1L), 1.0);
+		assertEquals(1.0, estimates.get(2L), 0.01);
+	}
+
+	@Test
+	public void testEstimateRowsPerValue_WholeTableSampled() {
+		SearchParamCardinalitySvc.CardinalitySample sample = new SearchParamCardinalitySvc.CardinalitySample();
+		for (int i = 0; i < 100; i++) {
+			sample.add(1L, i % 4);
+		}
+
+		Map<Object, Double> estimates = sample.estimateRowsPerValue(100);
+
+		assertEquals(25.0, estimates.get(1L), 0.01);
+	}
+}
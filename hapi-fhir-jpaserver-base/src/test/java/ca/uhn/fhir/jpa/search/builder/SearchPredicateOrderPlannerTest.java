@@ -0,0 +1,126 @@
+package ca.uhn.fhir.jpa.search.builder;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.interceptor.api.Pointcut;
+import ca.uhn.fhir.interceptor.executor.InterceptorService;
+import ca.uhn.fhir.interceptor.model.RequestPartitionId;
+import ca.uhn.fhir.jpa.model.config.PartitionSettings;
+import ca.uhn.fhir.jpa.model.entity.BaseResourceIndexedSearchParam;
+import ca.uhn.fhir.jpa.model.search.StorageProcessingMessage;
+import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
+import ca.uhn.fhir.rest.api.RestSearchParameterTypeEnum;
+import ca.uhn.fhir.rest.param.DateParam;
+import ca.uhn.fhir.rest.param.ParamPrefixEnum;
+import ca.uhn.fhir.rest.param.ReferenceParam;
+import ca.uhn.fhir.rest.param.TokenOrListParam;
+import ca.uhn.fhir.rest.param.TokenParam;
+import ca.uhn.fhir.rest.param.TokenParamModifier;
+import ca.uhn.fhir.rest.server.util.FhirContextSearchParamRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class SearchPredicateOrderPlannerTest {
+
+	private static final FhirContext ourCtx = FhirContext.forR4Cached();
+	private final PartitionSettings myPartitionSettings = new PartitionSettings();
+	private final SearchParamCardinalitySvc myCardinalitySvc = new SearchParamCardinalitySvc();
+	private final InterceptorService myInterceptorService = new InterceptorService();
+	private final List<String> myMessages = new ArrayList<>();
+	private SearchPredicateOrderPlanner myPlanner;
+
+	@BeforeEach
+	public void before() {
+		myPlanner = new SearchPredicateOrderPlanner(
+			myCardinalitySvc, new FhirContextSearchParamRegistry(ourCtx), myPartitionSettings, myInterceptorService);
+		myInterceptorService.registerAnonymousInterceptor(Pointcut.JPA_PERFTRACE_INFO, (thePointcut, theArgs) ->
+			myMessages.add(theArgs.get(StorageProcessingMessage.class).getMessage()));
+
+		myCardinalitySvc.setEstimatesForUnitTest(
+			Map.of(RestSearchParameterTypeEnum.TOKEN, Map.of(
+				hashIdentity("status"), 50000.0,
+				hashIdentity("code"), 200.0)),
+			Map.of(SearchParamCardinalitySvc.toResourceLinkKey("Observation", "Observation.subject"), 20.0));
+	}
+
+	@Test
+	public void testMostSelectiveFirst() {
+		SearchParameterMap map = SearchParameterMap.newSynchronous()
+			.add("date", new DateParam(ParamPrefixEnum.GREATERTHAN, "2020-01-01"))
+			.add("status", new TokenParam("final"))
+			.add("code", new TokenParam("http://loinc.org", "1234-5"))
+			.add("subject", new ReferenceParam("Patient/123"));
+
+		myPlanner.orderParameters("Observation", RequestPartitionId.allPartitions(), map, null);
+
+		// Date can't be estimated so it goes last
+		assertThat(map.keySet()).containsExactly("subject", "code", "status", "date");
+		assertThat(myMessages).hasSize(1);
+		assertEquals("Ordered search parameters by estimated matching rows: subject=20, code=200, status=50000, date=?", myMessages.get(0));
+	}
+
+	@Test
+	public void testOrValuesAddUp() {
+		TokenOrListParam codes = new TokenOrListParam();
+		for (int i = 0; i < 300; i++) {
+			codes.add("http://loinc.org", "code" + i);
+		}
+		SearchParameterMap map = SearchParameterMap.newSynchronous()
+			.add("code", codes)
+			.add("status", new TokenParam("final"));
+
+		myPlanner.orderParameters("Observation", RequestPartitionId.allPartitions(), map, null);
+
+		assertThat(map.keySet()).containsExactly("status", "code");
+	}
+
+	@Test
+	public void testModifiersAndChainsNotEstimated() {
+		SearchParameterMap map = SearchParameterMap.newSynchronous()
+			.add("status", new TokenParam("final"))
+			.add("code", new TokenParam("http://loinc.org", "1234-5").setModifier(TokenParamModifier.NOT))
+			.add("subject", new ReferenceParam("name", "smith"));
+
+		myPlanner.orderParameters("Observation", RequestPartitionId.allPartitions(), map, null);
+
+		assertThat(map.keySet()).containsExactly("status", "code", "subject");
+	}
+
+	@Test
+	public void testNoEstimates() {
+		myCardinalitySvc.setEstimatesForUnitTest(Map.of(), Map.of());
+		SearchParameterMap map = SearchParameterMap.newSynchronous()
+			.add("status", new TokenParam("final"))
+			.add("code", new TokenParam("http://loinc.org", "1234-5"));
+
+		myPlanner.orderParameters("Observation", RequestPartitionId.allPartitions(), map, null);
+
+		assertThat(map.keySet()).containsExactly("status", "code");
+		assertThat(myMessages).isEmpty();
+	}
+
+	@Test
+	public void testEstimateMatchingResources() {
+		SearchParameterMap map = SearchParameterMap.newSynchronous()
+			.add("status", new TokenParam("final"))
+			.add("code", new TokenOrListParam().add("http://loinc.org", "1").add("http://loinc.org", "2"));
+		assertEquals(400.0, myPlanner.estimateMatchingResources("Observation", RequestPartitionId.allPartitions(), map));
+
+		// Any parameter which can't be estimated prevents an estimate
+		map.add("date", new DateParam(ParamPrefixEnum.GREATERTHAN, "2020-01-01"));
+		assertNull(myPlanner.estimateMatchingResources("Observation", RequestPartitionId.allPartitions(), map));
+		assertNull(myPlanner.estimateMatchingResources("Observation", RequestPartitionId.allPartitions(), SearchParameterMap.newSynchronous()));
+	}
+
+	private long hashIdentity(String theParamName) {
+		return BaseResourceIndexedSearchParam.calculateHashIdentity(
+			myPartitionSettings, RequestPartitionId.allPartitions(), "Observation", theParamName);
+	}
+}
@@ -0,0 +1,99 @@
+package ca.uhn.fhir.jpa.search.builder;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.context.RuntimeSearchParam;
+import ca.uhn.fhir.interceptor.model.RequestPartitionId;
+import ca.uhn.fhir.jpa.model.entity.NormalizedQuantitySearchLevel;
+import ca.uhn.fhir.jpa.model.entity.StorageSettings;
+import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
+import ca.uhn.fhir.rest.api.SortOrderEnum;
+import ca.uhn.fhir.rest.api.SortSpec;
+import ca.uhn.fhir.rest.param.DateParam;
+import ca.uhn.fhir.rest.param.ParamPrefixEnum;
+import ca.uhn.fhir.rest.param.QuantityParam;
+import ca.uhn.fhir.rest.param.ReferenceParam;
+import ca.uhn.fhir.rest.param.TokenParam;
+import ca.uhn.fhir.rest.param.TokenParamModifier;
+import ca.uhn.fhir.rest.server.util.FhirContextSearchParamRegistry;
+import ca.uhn.fhir.rest.server.util.ISearchParamRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class SearchSqlCacheKeyGeneratorTest {
+
+	private static final FhirContext ourCtx = FhirContext.forR4Cached();
+	private static final ISearchParamRegistry ourSearchParamRegistry = new FhirContextSearchParamRegistry(ourCtx) {
+		@Override
+		public List<RuntimeSearchParam> getActiveComboSearchParams(String theResourceName, Set<String> theParamNames) {
+			return List.of();
+		}
+	};
+	private final StorageSettings myStorageSettings = new StorageSettings();
+	private final SearchSqlCacheKeyGenerator mySvc = new SearchSqlCacheKeyGenerator(ourCtx, ourSearchParamRegistry, myStorageSettings);
+
+	@Test
+	public void testSameShapeDifferentValues() {
+		SearchParameterMap map1 = SearchParameterMap.newSynchronous()
+			.add("code", new TokenParam("http://loinc.org", "1234-5"))
+			.add("date", new DateParam(ParamPrefixEnum.GREATERTHAN, "2020-01-01"));
+		SearchParameterMap map2 = SearchParameterMap.newSynchronous()
+			.add("code", new TokenParam("http://snomed.info/sct", "22298006"))
+			.add("date", new DateParam(ParamPrefixEnum.GREATERTHAN, "2024-12-31"));
+
+		String key1 = generateKey(map1);
+		assertNotNull(key1);
+		assertEquals(key1, generateKey(map2));
+	}
+
+	@Test
+	public void testDifferentShapes() {
+		String key = generateKey(SearchParameterMap.newSynchronous().add("code", new TokenParam("http://loinc.org", "1234-5")));
+
+		// Code without a system
+		assertNotEquals(key, generateKey(SearchParameterMap.newSynchronous().add("code", new TokenParam(null, "1234-5"))));
+		// With a modifier
+		assertNotEquals(key, generateKey(SearchParameterMap.newSynchronous().add("code", new TokenParam("http://loinc.org", "1234-5").setModifier(TokenParamModifier.NOT))));
+		// Different prefix
+		assertNotEquals(
+			generateKey(SearchParameterMap.newSynchronous().add("date", new DateParam(ParamPrefixEnum.GREATERTHAN, "2020-01-01"))),
+			generateKey(SearchParameterMap.newSynchronous().add("date", new DateParam(ParamPrefixEnum.LESSTHAN, "2020-01-01"))));
+		// Sorted
+		assertNotEquals(key, mySvc.generateKey("Observation", RequestPartitionId.allPartitions(), SearchParameterMap.newSynchronous().add("code", new TokenParam("http://loinc.org", "1234-5")), new SortSpec("date", SortOrderEnum.DESC), null, false));
+	}
+
+	@Test
+	public void testUncacheable() {
+		// Chained reference
+		assertNull(generateKey(SearchParameterMap.newSynchronous().add("subject", new ReferenceParam("name", "smith"))));
+		// Modifier which is expanded into many values
+		assertNull(generateKey(SearchParameterMap.newSynchronous().add("code", new TokenParam("http://vs").setModifier(TokenParamModifier.IN))));
+	}
+
+	@Test
+	public void testQuantityUncacheableWithNormalizedSearch() {
+		SearchParameterMap map = SearchParameterMap.newSynchronous().add("value-quantity", new QuantityParam("5||mg"));
+		assertNotNull(generateKey(map));
+
+		// "5||mg" searches the normalized index and "5||zz" the plain one, but both values have the same shape
+		myStorageSettings.setNormalizedQuantitySearchLevel(NormalizedQuantitySearchLevel.NORMALIZED_QUANTITY_SEARCH_SUPPORTED);
+		assertNull(generateKey(map));
+	}
+
+	@Test
+	public void testAppendTextShape() {
+		StringBuilder b = new StringBuilder();
+		SearchSqlCacheKeyGenerator.appendTextShape(b, "http://loinc.org|1234-5");
+		assertEquals("a://a.a|9-9", b.toString());
+	}
+
+	private String generateKey(SearchParameterMap theMap) {
+		return mySvc.generateKey("Observation", RequestPartitionId.allPartitions(), theMap, null, null, false);
+	}
+}
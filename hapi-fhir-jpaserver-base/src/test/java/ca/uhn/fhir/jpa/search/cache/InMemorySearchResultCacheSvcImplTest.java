@@ -0,0 +1,224 @@
+package ca.uhn.fhir.jpa.search.cache;
+
+import ca.uhn.fhir.jpa.api.config.JpaStorageSettings;
+import ca.uhn.fhir.jpa.dao.data.ISearchDao;
+import ca.uhn.fhir.jpa.dao.data.ISearchResultDao;
+import ca.uhn.fhir.jpa.dao.tx.IHapiTransactionService;
+import ca.uhn.fhir.jpa.dao.tx.NonTransactionalHapiTransactionService;
+import ca.uhn.fhir.jpa.entity.Search;
+import ca.uhn.fhir.jpa.entity.SearchResult;
+import ca.uhn.fhir.jpa.model.dao.JpaPid;
+import ca.uhn.fhir.rest.server.exceptions.ResourceGoneException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.SliceImpl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class InMemorySearchResultCacheSvcImplTest {
+
+	@Mock
+	private ISearchResultDao mySearchResultDao;
+
+	@Mock
+	private ISearchDao mySearchDao;
+
+	@Spy
+	private IHapiTransactionService myTransactionService = new NonTransactionalHapiTransactionService();
+
+	@Spy
+	private JpaStorageSettings myStorageSettings = new JpaStorageSettings();
+
+	@InjectMocks
+	private InMemorySearchResultCacheSvcImpl mySvc;
+
+	@Captor
+	private ArgumentCaptor<List<SearchResult>> mySavedResultsCaptor;
+
+	private static Search newSearch(long theId) {
+		Search retVal = mock(Search.class);
+		when(retVal.getId()).thenReturn(theId);
+		return retVal;
+	}
+
+	private static List<JpaPid> newPids(int theCount, long theSeed) {
+		Random random = new Random(theSeed);
+		List<JpaPid> retVal = new ArrayList<>();
+		for (int i = 0; i < theCount; i++) {
+			// Mostly ascending, with the occasional large jump in either direction
+			long next = i % 100 == 99 ? Math.abs(random.nextLong()) : 1000 + i * 3L + random.nextInt(10);
+			retVal.add(JpaPid.fromId(next));
+		}
+		return retVal;
+	}
+
+	private void storeInChunks(Search theSearch, List<JpaPid> thePids, int theChunkSize) {
+		for (int i = 0; i < thePids.size(); i += theChunkSize) {
+			List<JpaPid> previous = thePids.subList(0, i);
+			List<JpaPid> next = thePids.subList(i, Math.min(thePids.size(), i + theChunkSize));
+			mySvc.storeResults(theSearch, new ArrayList<>(previous), new ArrayList<>(next), null, null);
+		}
+	}
+
+	@Test
+	public void testDisabled() {
+		Search search = newSearch(1L);
+		mySvc.storeResults(search, Collections.emptyList(), newPids(3, 0), null, null);
+
+		verify(mySearchResultDao, times(1)).saveAll(any());
+		assertEquals(0, mySvc.getTotalBytes());
+	}
+
+	@Test
+	public void testFetchFromMemory() {
+		myStorageSettings.setInMemorySearchResultCacheMaxBytes(1_000_000);
+		myStorageSettings.setInMemorySearchResultCacheWriteThrough(false);
+
+		Search search = newSearch(1L);
+		List<JpaPid> pids = newPids(5000, 1);
+		storeInChunks(search, pids, 503);
+
+		assertEquals(pids.subList(0, 10), mySvc.fetchResultPids(search, 0, 10, null, null));
+		assertEquals(pids.subList(1020, 1030), mySvc.fetchResultPids(search, 1020, 1030, null, null));
+		assertEquals(pids.subList(2040, 4100), mySvc.fetchResultPids(search, 2040, 4100, null, null));
+		assertEquals(pids.subList(4990, 5000), mySvc.fetchResultPids(search, 4990, 5010, null, null));
+		assertThat(mySvc.fetchResultPids(search, 5000, 5010, null, null)).isEmpty();
+		assertEquals(pids, mySvc.fetchAllResultPids(search, null, null));
+
+		// Compressed to well under the 8 bytes per PID a long[] would need
+		assertThat(mySvc.getTotalBytes()).isLessThan(pids.size() * 4L);
+		verifyNoInteractions(mySearchResultDao);
+	}
+
+	@Test
+	public void testWriteThrough() {
+		myStorageSettings.setInMemorySearchResultCacheMaxBytes(1_000_000);
+		myStorageSettings.setInMemorySearchResultCacheWriteThrough(true);
+
+		Search search = newSearch(1L);
+		List<JpaPid> pids = newPids(100, 2);
+		storeInChunks(search, pids, 50);
+
+		verify(mySearchResultDao, times(2)).saveAll(any());
+		assertEquals(pids.subList(50, 60), mySvc.fetchResultPids(search, 50, 60, null, null));
+		verify(mySearchResultDao, never()).findWithSearchPid(any(), any());
+		verifyNoInteractions(mySearchDao);
+	}
+
+	@Test
+	public void testEvictedResultsWrittenToDatabase() {
+		myStorageSettings.setInMemorySearchResultCacheMaxBytes(80_000);
+		myStorageSettings.setInMemorySearchResultCacheWriteThrough(false);
+		when(mySearchDao.updateResultsInMemory(any(), anyBoolean())).thenReturn(1);
+
+		Search search1 = newSearch(1L);
+		List<JpaPid> pids1 = newPids(1500, 3);
+		storeInChunks(search1, pids1, 1500);
+		verify(mySearchDao).updateResultsInMemory(1L, true);
+
+		// Filling the cache with other searches evicts the least recently used one, which
+		// is still read from memory until the scheduled job has written it
+		for (long i = 2; i <= 20; i++) {
+			storeInChunks(newSearch(i), newPids(1500, i), 1500);
+		}
+		assertEquals(pids1.subList(0, 2), mySvc.fetchResultPids(search1, 0, 2, null, null));
+		verifyNoInteractions(mySearchResultDao);
+
+		mySvc.flushEvictedResults();
+
+		verify(mySearchDao).updateResultsInMemory(1L, false);
+		verify(mySearchResultDao, atLeastOnce()).saveAll(mySavedResultsCaptor.capture());
+		List<SearchResult> saved = mySavedResultsCaptor.getAllValues().get(0);
+		assertThat(saved).hasSize(1500);
+		for (int i = 0; i < saved.size(); i++) {
+			assertEquals(i, saved.get(i).getOrder());
+			assertEquals(pids1.get(i).getId(), saved.get(i).getResourcePid());
+		}
+		assertThat(mySvc.getTotalBytes()).isLessThanOrEqualTo(80_000);
+
+		when(mySearchResultDao.findWithSearchPid(eq(1L), any())).thenReturn(new SliceImpl<>(List.of(1L, 2L)));
+		assertEquals(JpaPid.fromLongList(List.of(1L, 2L)), mySvc.fetchResultPids(search1, 0, 2, null, null));
+	}
+
+	@Test
+	public void testEvictedResultsNotWrittenIfSearchDeleted() {
+		myStorageSettings.setInMemorySearchResultCacheMaxBytes(80_000);
+		myStorageSettings.setInMemorySearchResultCacheWriteThrough(false);
+
+		for (long i = 1; i <= 20; i++) {
+			storeInChunks(newSearch(i), newPids(1500, i), 1500);
+		}
+
+		// The searches no longer exist, so their results would be orphaned
+		mySvc.flushEvictedResults();
+
+		verify(mySearchDao, atLeastOnce()).updateResultsInMemory(any(), eq(false));
+		verifyNoInteractions(mySearchResultDao);
+	}
+
+	@Test
+	public void testResultsHeldInMemoryByAnotherServer() {
+		myStorageSettings.setInMemorySearchResultCacheMaxBytes(1_000_000);
+
+		Search search = newSearch(1L);
+		when(search.isResultsInMemory()).thenReturn(true);
+		when(search.getNumFound()).thenReturn(100);
+		when(mySearchResultDao.findWithSearchPid(eq(1L), any())).thenReturn(new SliceImpl<>(List.of()));
+		when(mySearchDao.findResultsInMemory(1L)).thenReturn(true);
+
+		ResourceGoneException e =
+				assertThrows(ResourceGoneException.class, () -> mySvc.fetchResultPids(search, 0, 10, null, null));
+		assertThat(e.getMessage()).contains("HAPI-2558: ");
+
+		// Once the other server has written the results they are read from the database
+		when(mySearchResultDao.findWithSearchPid(eq(1L), any()))
+				.thenReturn(new SliceImpl<>(List.of()), new SliceImpl<>(List.of(1L, 2L)));
+		when(mySearchDao.findResultsInMemory(1L)).thenReturn(false);
+		assertEquals(JpaPid.fromLongList(List.of(1L, 2L)), mySvc.fetchResultPids(search, 0, 10, null, null));
+	}
+
+	@Test
+	public void testSearchTooLargeForMemory() {
+		myStorageSettings.setInMemorySearchResultCacheMaxBytes(8_000);
+		myStorageSettings.setInMemorySearchResultCacheWriteThrough(false);
+
+		Search search = newSearch(1L);
+		List<JpaPid> pids = newPids(3000, 4);
+		storeInChunks(search, pids, 1000);
+
+		// The first chunk is written when the search overflows, and later chunks are written directly
+		verify(mySearchResultDao, times(3)).saveAll(mySavedResultsCaptor.capture());
+		List<SearchResult> saved = new ArrayList<>();
+		mySavedResultsCaptor.getAllValues().forEach(saved::addAll);
+		assertThat(saved).hasSize(3000);
+		for (int i = 0; i < saved.size(); i++) {
+			assertEquals(i, saved.get(i).getOrder());
+		}
+		assertEquals(0, mySvc.getTotalBytes());
+		verify(mySearchDao).updateResultsInMemory(1L, false);
+	}
+}
@@ -40,6 +40,15 @@ public enum ResourceEncodingEnum {
 	 */
 	JSONC,
 
+	/**
+	 * Json compressed using deflate with a preset dictionary of common FHIR content,
+	 * see {@link ca.uhn.fhir.jpa.model.util.DictionaryDeflateUtil}. This is faster than
+	 * {@link #JSONC} to both write and read, and produces smaller output for typical resources.
+	 *
+	 * @since 7.6.0
+	 */
+	JSOND,
+
 	/**
 	 * Resource was deleted - No contents expected
 	 */
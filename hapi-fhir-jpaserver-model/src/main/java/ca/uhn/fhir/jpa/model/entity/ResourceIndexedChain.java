@@ -0,0 +1,143 @@
+/*-
+ * #%L
+ * HAPI FHIR JPA Model
+ * %%
+ * Copyright (C) 2014 - 2024 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.model.entity;
+
+import ca.uhn.fhir.interceptor.model.RequestPartitionId;
+import ca.uhn.fhir.jpa.model.config.PartitionSettings;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+/**
+ * A row in a declared chain index. Each row records that the source resource
+ * (<code>RES_ID</code>) references a target (<code>TARGET_RES_ID</code>) through the
+ * chain identified by <code>HASH_CHAIN</code> (e.g. <code>Observation?subject.identifier</code>),
+ * and that the target has the leaf value identified by <code>HASH_VALUE</code>. This allows
+ * a chained search to be answered without joining through <code>HFJ_RES_LINK</code>.
+ *
+ * @since 7.6.0
+ */
+@Entity
+@Table(
+		name = ResourceIndexedChain.HFJ_IDX_CHAIN,
+		indexes = {
+			@Index(name = "IDX_IDXCHAIN_HASHV", columnList = "HASH_VALUE,RES_ID,PARTITION_ID", unique = false),
+			@Index(name = "IDX_IDXCHAIN_RES", columnList = "RES_ID", unique = false),
+			@Index(name = "IDX_IDXCHAIN_TARGET", columnList = "TARGET_RES_ID", unique = false)
+		})
+public class ResourceIndexedChain extends BasePartitionable {
+
+	public static final String HFJ_IDX_CHAIN = "HFJ_IDX_CHAIN";
+
+	@SequenceGenerator(name = "SEQ_IDXCHAIN_ID", sequenceName = "SEQ_IDXCHAIN_ID")
+	@GeneratedValue(strategy = GenerationType.AUTO, generator = "SEQ_IDXCHAIN_ID")
+	@Id
+	@Column(name = "PID")
+	private Long myId;
+
+	/**
+	 * This is deliberately not a foreign key, so that deleting a resource does not
+	 * need an extra statement when no chains are indexed. Rows are removed by the
+	 * chain index maintenance when the source resource is deleted.
+	 */
+	@Column(name = "RES_ID", nullable = false)
+	private Long myResourceId;
+
+	@Column(name = "TARGET_RES_ID", nullable = false)
+	private Long myTargetResourceId;
+
+	@Column(name = "HASH_CHAIN", nullable = false)
+	private Long myHashChain;
+
+	@Column(name = "HASH_VALUE", nullable = false)
+	private Long myHashValue;
+
+	/**
+	 * Constructor
+	 */
+	public ResourceIndexedChain() {
+		super();
+	}
+
+	/**
+	 * Constructor
+	 */
+	public ResourceIndexedChain(
+			PartitionablePartitionId thePartitionId,
+			Long theResourceId,
+			Long theTargetResourceId,
+			long theHashChain,
+			long theHashValue) {
+		myResourceId = theResourceId;
+		myTargetResourceId = theTargetResourceId;
+		myHashChain = theHashChain;
+		myHashValue = theHashValue;
+		setPartitionId(thePartitionId);
+	}
+
+	public Long getId() {
+		return myId;
+	}
+
+	public Long getResourceId() {
+		return myResourceId;
+	}
+
+	public Long getTargetResourceId() {
+		return myTargetResourceId;
+	}
+
+	public Long getHashChain() {
+		return myHashChain;
+	}
+
+	public Long getHashValue() {
+		return myHashValue;
+	}
+
+	@Override
+	public String toString() {
+		return new ToStringBuilder(this)
+				.append("id", myId)
+				.append("resourceId", myResourceId)
+				.append("targetResourceId", myTargetResourceId)
+				.append("hashChain", myHashChain)
+				.append("hashValue", myHashValue)
+				.toString();
+	}
+
+	/**
+	 * @param theChain The chain, e.g. <code>subject.identifier</code>
+	 */
+	public static long calculateHashChain(
+			PartitionSettings thePartitionSettings,
+			RequestPartitionId theRequestPartitionId,
+			String theResourceType,
+			String theChain) {
+		return BaseResourceIndexedSearchParam.calculateHashIdentity(
+				thePartitionSettings, theRequestPartitionId, theResourceType, theChain);
+	}
+}
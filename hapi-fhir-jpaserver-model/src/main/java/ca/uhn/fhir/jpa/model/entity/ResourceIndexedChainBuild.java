@@ -0,0 +1,120 @@
+/*-
+ * #%L
+ * HAPI FHIR JPA Model
+ * %%
+ * Copyright (C) 2014 - 2024 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.model.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+/**
+ * The progress of building the {@link ResourceIndexedChain chain index} for a single declared chain
+ * over the resources which existed before it was declared. Searches only use the index for a chain
+ * once its build is complete, and the build starts again if the search parameters the chain is
+ * resolved from change (which changes <code>DEFINITION_HASH</code>).
+ *
+ * @since 7.6.0
+ */
+@Entity
+@Table(name = ResourceIndexedChainBuild.HFJ_IDX_CHAIN_BUILD)
+public class ResourceIndexedChainBuild {
+
+	public static final String HFJ_IDX_CHAIN_BUILD = "HFJ_IDX_CHAIN_BUILD";
+	public static final int CHAIN_NAME_LENGTH = 200;
+
+	/**
+	 * The declared chain, e.g. <code>Observation?subject.identifier</code>
+	 */
+	@Id
+	@Column(name = "CHAIN_NAME", length = CHAIN_NAME_LENGTH, nullable = false)
+	private String myChainName;
+
+	@Column(name = "DEFINITION_HASH", nullable = false)
+	private Long myDefinitionHash;
+
+	/**
+	 * The highest resource ID which has been indexed so far, or <code>null</code> if the build
+	 * hasn't started
+	 */
+	@Column(name = "LAST_RES_ID", nullable = true)
+	private Long myLastResourceId;
+
+	@Column(name = "BUILD_COMPLETE", nullable = false)
+	private boolean myBuildComplete;
+
+	/**
+	 * Constructor
+	 */
+	public ResourceIndexedChainBuild() {
+		super();
+	}
+
+	/**
+	 * Constructor
+	 */
+	public ResourceIndexedChainBuild(String theChainName, long theDefinitionHash) {
+		myChainName = theChainName;
+		myDefinitionHash = theDefinitionHash;
+	}
+
+	public String getChainName() {
+		return myChainName;
+	}
+
+	public Long getDefinitionHash() {
+		return myDefinitionHash;
+	}
+
+	public Long getLastResourceId() {
+		return myLastResourceId;
+	}
+
+	public void setLastResourceId(Long theLastResourceId) {
+		myLastResourceId = theLastResourceId;
+	}
+
+	public boolean isBuildComplete() {
+		return myBuildComplete;
+	}
+
+	public void setBuildComplete(boolean theBuildComplete) {
+		myBuildComplete = theBuildComplete;
+	}
+
+	/**
+	 * Starts the build again from the beginning, for a new definition of the chain
+	 */
+	public void restart(long theDefinitionHash) {
+		myDefinitionHash = theDefinitionHash;
+		myLastResourceId = null;
+		myBuildComplete = false;
+	}
+
+	@Override
+	public String toString() {
+		return new ToStringBuilder(this)
+				.append("chainName", myChainName)
+				.append("definitionHash", myDefinitionHash)
+				.append("lastResourceId", myLastResourceId)
+				.append("buildComplete", myBuildComplete)
+				.toString();
+	}
+}
@@ -143,6 +143,16 @@ public class StorageSettings {
 	 */
 	private boolean myIndexStorageOptimized = false;
 
+	/**
+	 * @since 7.6.0
+	 */
+	private boolean myBatchReferenceTargetResolution = false;
+
+	/**
+	 * @since 7.6.0
+	 */
+	private Integer myIndexWriteJdbcBatchSize;
+
 	/**
 	 * Constructor
 	 */
@@ -1190,6 +1200,79 @@ public class StorageSettings {
 		myValidateResourceStatusForPackageUpload = theValidateResourceStatusForPackageUpload;
 	}
 
+	/**
+	 * If enabled, the targets of all references in a resource being created or updated are
+	 * resolved together before the resource links are indexed, using one database query per
+	 * target resource type instead of one query per reference. References which were already
+	 * resolved earlier in the same transaction, or which are unchanged from the previous version
+	 * of the resource, are not looked up again.
+	 * <p>
+	 * The default is <code>false</code>.
+	 * </p>
+	 *
+	 * @since 7.6.0
+	 */
+	public boolean isBatchReferenceTargetResolution() {
+		return myBatchReferenceTargetResolution;
+	}
+
+	/**
+	 * If enabled, the targets of all references in a resource being created or updated are
+	 * resolved together before the resource links are indexed, using one database query per
+	 * target resource type instead of one query per reference. References which were already
+	 * resolved earlier in the same transaction, or which are unchanged from the previous version
+	 * of the resource, are not looked up again.
+	 * <p>
+	 * The default is <code>false</code>.
+	 * </p>
+	 *
+	 * @since 7.6.0
+	 */
+	public void setBatchReferenceTargetResolution(boolean theBatchReferenceTargetResolution) {
+		myBatchReferenceTargetResolution = theBatchReferenceTargetResolution;
+	}
+
+	/**
+	 * If set, the JDBC batch size used by the database session is raised to this value when search
+	 * parameter index rows are written for a resource. Index rows are ordered by table when the
+	 * session is flushed, so a larger batch size means that writing a large transaction (e.g. a
+	 * Bundle containing many Observations) uses far fewer round trips to the database. On Postgres,
+	 * combining this with the <code>reWriteBatchedInserts=true</code> JDBC driver property causes
+	 * each batch to be sent as a single multi-row <code>INSERT</code>.
+	 * <p>
+	 * The batch size applies to all statements in the session for the rest of the transaction.
+	 * The default is <code>null</code>, meaning that the batch size configured for Hibernate
+	 * (<code>hibernate.jdbc.batch_size</code>) is used.
+	 * </p>
+	 *
+	 * @since 7.6.0
+	 */
+	public Integer getIndexWriteJdbcBatchSize() {
+		return myIndexWriteJdbcBatchSize;
+	}
+
+	/**
+	 * If set, the JDBC batch size used by the database session is raised to this value when search
+	 * parameter index rows are written for a resource. Index rows are ordered by table when the
+	 * session is flushed, so a larger batch size means that writing a large transaction (e.g. a
+	 * Bundle containing many Observations) uses far fewer round trips to the database. On Postgres,
+	 * combining this with the <code>reWriteBatchedInserts=true</code> JDBC driver property causes
+	 * each batch to be sent as a single multi-row <code>INSERT</code>.
+	 * <p>
+	 * The batch size applies to all statements in the session for the rest of the transaction.
+	 * The default is <code>null</code>, meaning that the batch size configured for Hibernate
+	 * (<code>hibernate.jdbc.batch_size</code>) is used.
+	 * </p>
+	 *
+	 * @since 7.6.0
+	 */
+	public void setIndexWriteJdbcBatchSize(Integer theIndexWriteJdbcBatchSize) {
+		Validate.isTrue(
+				theIndexWriteJdbcBatchSize == null || theIndexWriteJdbcBatchSize > 0,
+				"Index write JDBC batch size must be positive");
+		myIndexWriteJdbcBatchSize = theIndexWriteJdbcBatchSize;
+	}
+
 	private static void validateTreatBaseUrlsAsLocal(String theUrl) {
 		Validate.notBlank(theUrl, "Base URL must not be null or empty");
 
@@ -0,0 +1,140 @@
+/*-
+ * #%L
+ * HAPI FHIR JPA Model
+ * %%
+ * Copyright (C) 2014 - 2024 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.model.util;
+
+import ca.uhn.fhir.i18n.Msg;
+import ca.uhn.fhir.jpa.model.entity.ResourceEncodingEnum;
+import ca.uhn.fhir.parser.DataFormatException;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compression used by {@link ResourceEncodingEnum#JSOND}. Resource bodies are compressed
+ * using raw deflate at the fastest compression level, primed with a preset dictionary
+ * of the keys and values which appear in most FHIR JSON resources. Since stored resource
+ * bodies are typically only a few kilobytes, the dictionary lets even the first
+ * occurrence of a common key be stored as a back-reference, which is where gzip spends
+ * most of its output on small inputs.
+ * <p>
+ * The first byte of the output is the version of the dictionary which was used, so that
+ * the dictionary can be extended in future releases without affecting existing rows.
+ * The contents of a published dictionary version must never change.
+ * </p>
+ *
+ * @since 7.6.0
+ */
+public class DictionaryDeflateUtil {
+
+	/**
+	 * The dictionary version used when compressing
+	 */
+	static final byte CURRENT_VERSION = 1;
+
+	/*
+	 * Deflate only looks back 32KB, and matches nearer the end of the dictionary
+	 * are cheaper to encode, so the most common strings are placed last.
+	 */
+	private static final byte[] DICTIONARY_V1 = ("\"http://hl7.org/fhir/StructureDefinition/"
+					+ "\"http://terminology.hl7.org/CodeSystem/v2-0203\",\"code\":\"MR\"}]}"
+					+ "\"http://terminology.hl7.org/CodeSystem/observation-category\",\"code\":\"vital-signs\""
+					+ "\"http://terminology.hl7.org/CodeSystem/condition-clinical\",\"code\":\"active\""
+					+ "\"http://terminology.hl7.org/CodeSystem/v3-ActCode\",\"code\":\"AMB\""
+					+ "\"http://unitsofmeasure.org\",\"code\":\""
+					+ "\"http://snomed.info/sct\",\"code\":\""
+					+ "\"http://loinc.org\",\"code\":\""
+					+ "\"address\":[{\"use\":\"home\",\"line\":[\"\"],\"city\":\"\",\"state\":\"\",\"postalCode\":\"\",\"country\":\"\"}]"
+					+ "\"telecom\":[{\"system\":\"phone\",\"value\":\"\",\"use\":\"home\"}]"
+					+ "\"name\":[{\"use\":\"official\",\"family\":\"\",\"given\":[\"\"]}]"
+					+ "\"gender\":\"female\",\"birthDate\":\"\"\"gender\":\"male\",\"birthDate\":\""
+					+ "\"period\":{\"start\":\"\",\"end\":\"\"}"
+					+ "\"effectiveDateTime\":\"\",\"issued\":\""
+					+ "\"valueQuantity\":{\"value\":,\"unit\":\"\",\"system\":"
+					+ "\"encounter\":{\"reference\":\"Encounter/\"}"
+					+ "\"performer\":[{\"reference\":\"Practitioner/\"}]"
+					+ "\"subject\":{\"reference\":\"Patient/\"}"
+					+ "\"category\":[{\"coding\":[{\"system\":"
+					+ "\"text\":{\"status\":\"generated\",\"div\":\"<div xmlns=\\\"http://www.w3.org/1999/xhtml\\\">\"}"
+					+ "\"extension\":[{\"url\":\"http://\",\"valueString\":\"\"}]"
+					+ "\"identifier\":[{\"system\":\"\",\"value\":\"\"}]"
+					+ "\"status\":\"final\"\"status\":\"active\"\"active\":true"
+					+ "\"code\":{\"coding\":[{\"system\":\"\",\"display\":\"\"}],\"text\":\"\"}"
+					+ "{\"resourceType\":\"\",\"id\":\"\",\"meta\":{\"versionId\":\"\",\"lastUpdated\":\"\",\"source\":\"#\","
+					+ "\"profile\":[\"\"]},\"reference\":\"\",\"system\":\"\",\"value\":\"\"}]}")
+			.getBytes(StandardCharsets.UTF_8);
+
+	private static final ThreadLocal<Deflater> ourDeflater =
+			ThreadLocal.withInitial(() -> new Deflater(Deflater.BEST_SPEED, true));
+	private static final ThreadLocal<Inflater> ourInflater = ThreadLocal.withInitial(() -> new Inflater(true));
+
+	/**
+	 * Non instantiable
+	 */
+	private DictionaryDeflateUtil() {
+		// nothing
+	}
+
+	public static byte[] compress(String theEncoded) {
+		byte[] input = theEncoded.getBytes(StandardCharsets.UTF_8);
+
+		Deflater deflater = ourDeflater.get();
+		deflater.reset();
+		deflater.setDictionary(DICTIONARY_V1);
+		deflater.setInput(input);
+		deflater.finish();
+
+		ByteArrayOutputStream os = new ByteArrayOutputStream(input.length / 4 + 16);
+		os.write(CURRENT_VERSION);
+		byte[] buffer = new byte[4096];
+		while (!deflater.finished()) {
+			int count = deflater.deflate(buffer);
+			os.write(buffer, 0, count);
+		}
+		return os.toByteArray();
+	}
+
+	public static String decompress(byte[] theResource) {
+		if (theResource.length == 0 || theResource[0] != CURRENT_VERSION) {
+			throw new DataFormatException(Msg.code(2551) + "Unknown compression dictionary version");
+		}
+
+		Inflater inflater = ourInflater.get();
+		inflater.reset();
+		inflater.setDictionary(DICTIONARY_V1);
+		inflater.setInput(theResource, 1, theResource.length - 1);
+
+		ByteArrayOutputStream os = new ByteArrayOutputStream(theResource.length * 4);
+		byte[] buffer = new byte[8192];
+		try {
+			while (!inflater.finished()) {
+				int count = inflater.inflate(buffer);
+				if (count == 0 && !inflater.finished() && (inflater.needsInput() || inflater.needsDictionary())) {
+					throw new java.util.zip.DataFormatException("Unexpected end of input");
+				}
+				os.write(buffer, 0, count);
+			}
+		} catch (java.util.zip.DataFormatException e) {
+			throw new DataFormatException(Msg.code(2552) + "Failed to decompress contents", e);
+		}
+		return os.toString(StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,135 @@
+/*-
+ * #%L
+ * HAPI FHIR JPA Model
+ * %%
+ * Copyright (C) 2014 - 2024 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.model.util;
+
+import java.util.Arrays;
+
+/**
+ * A map from primitive <code>long</code> keys, such as resource PIDs, to primitive <code>int</code>
+ * values, such as the position of each resource in a page of search results. Entries are stored in
+ * open-addressing arrays rather than allocating boxed keys, boxed values and a map entry for each
+ * one the way a <code>HashMap&lt;Long, Integer&gt;</code> would.
+ * <p>
+ * This class is not thread safe.
+ * </p>
+ *
+ * @since 7.6.0
+ */
+public final class LongIntMap {
+
+	private static final long EMPTY = Long.MIN_VALUE;
+
+	private long[] myKeys;
+	private int[] myValues;
+	private int mySize;
+	private boolean myContainsEmptyMarker;
+	private int myEmptyMarkerValue;
+
+	/**
+	 * @param theExpectedSize The number of entries the map is expected to hold, used to size the
+	 *                        map so that it doesn't need to be resized while they are added
+	 */
+	public LongIntMap(int theExpectedSize) {
+		int capacity = LongSet.capacityFor(theExpectedSize);
+		myKeys = new long[capacity];
+		Arrays.fill(myKeys, EMPTY);
+		myValues = new int[capacity];
+	}
+
+	/**
+	 * Associates the given value with the given key, replacing any existing value
+	 */
+	public void put(long theKey, int theValue) {
+		if (theKey == EMPTY) {
+			if (!myContainsEmptyMarker) {
+				myContainsEmptyMarker = true;
+				mySize++;
+			}
+			myEmptyMarkerValue = theValue;
+			return;
+		}
+
+		int mask = myKeys.length - 1;
+		int index = LongSet.hash(theKey) & mask;
+		while (true) {
+			long existing = myKeys[index];
+			if (existing == theKey) {
+				myValues[index] = theValue;
+				return;
+			}
+			if (existing == EMPTY) {
+				myKeys[index] = theKey;
+				myValues[index] = theValue;
+				mySize++;
+				if (mySize * 2 > myKeys.length) {
+					resize(myKeys.length * 2);
+				}
+				return;
+			}
+			index = (index + 1) & mask;
+		}
+	}
+
+	/**
+	 * @return Returns the value associated with the given key, or <code>theDefaultValue</code> if
+	 * the map does not contain the key
+	 */
+	public int get(long theKey, int theDefaultValue) {
+		if (theKey == EMPTY) {
+			return myContainsEmptyMarker ? myEmptyMarkerValue : theDefaultValue;
+		}
+
+		int mask = myKeys.length - 1;
+		int index = LongSet.hash(theKey) & mask;
+		while (true) {
+			long existing = myKeys[index];
+			if (existing == theKey) {
+				return myValues[index];
+			}
+			if (existing == EMPTY) {
+				return theDefaultValue;
+			}
+			index = (index + 1) & mask;
+		}
+	}
+
+	public int size() {
+		return mySize;
+	}
+
+	private void resize(int theCapacity) {
+		long[] oldKeys = myKeys;
+		int[] oldValues = myValues;
+		myKeys = new long[theCapacity];
+		Arrays.fill(myKeys, EMPTY);
+		myValues = new int[theCapacity];
+		int mask = theCapacity - 1;
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldKeys[i] != EMPTY) {
+				int index = LongSet.hash(oldKeys[i]) & mask;
+				while (myKeys[index] != EMPTY) {
+					index = (index + 1) & mask;
+				}
+				myKeys[index] = oldKeys[i];
+				myValues[index] = oldValues[i];
+			}
+		}
+	}
+}
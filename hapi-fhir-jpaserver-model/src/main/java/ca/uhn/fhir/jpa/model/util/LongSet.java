@@ -0,0 +1,170 @@
+/*-
+ * #%L
+ * HAPI FHIR JPA Model
+ * %%
+ * Copyright (C) 2014 - 2024 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.model.util;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * A set of primitive <code>long</code> values, such as resource PIDs, which stores its contents
+ * in a single open-addressing array rather than allocating a boxed {@link Long} and a map entry
+ * for every value the way a <code>HashSet&lt;Long&gt;</code> would. This matters when a single
+ * search accumulates hundreds of thousands of PIDs.
+ * <p>
+ * This class is not thread safe.
+ * </p>
+ *
+ * @since 7.6.0
+ */
+public final class LongSet {
+
+	private static final long EMPTY = Long.MIN_VALUE;
+	private static final int MIN_CAPACITY = 16;
+
+	private long[] myValues;
+	private int mySize;
+	private boolean myContainsEmptyMarker;
+
+	public LongSet() {
+		this(MIN_CAPACITY);
+	}
+
+	/**
+	 * @param theExpectedSize The number of values the set is expected to hold, used to size the
+	 *                        set so that it doesn't need to be resized while they are added
+	 */
+	public LongSet(int theExpectedSize) {
+		myValues = newTable(capacityFor(theExpectedSize));
+	}
+
+	/**
+	 * Adds the given value to the set
+	 *
+	 * @return Returns <code>true</code> if the value was not already in the set
+	 */
+	public boolean add(long theValue) {
+		if (theValue == EMPTY) {
+			if (myContainsEmptyMarker) {
+				return false;
+			}
+			myContainsEmptyMarker = true;
+			mySize++;
+			return true;
+		}
+
+		int mask = myValues.length - 1;
+		int index = hash(theValue) & mask;
+		while (true) {
+			long existing = myValues[index];
+			if (existing == theValue) {
+				return false;
+			}
+			if (existing == EMPTY) {
+				myValues[index] = theValue;
+				mySize++;
+				if (mySize * 2 > myValues.length) {
+					resize(myValues.length * 2);
+				}
+				return true;
+			}
+			index = (index + 1) & mask;
+		}
+	}
+
+	public boolean contains(long theValue) {
+		if (theValue == EMPTY) {
+			return myContainsEmptyMarker;
+		}
+
+		int mask = myValues.length - 1;
+		int index = hash(theValue) & mask;
+		while (true) {
+			long existing = myValues[index];
+			if (existing == theValue) {
+				return true;
+			}
+			if (existing == EMPTY) {
+				return false;
+			}
+			index = (index + 1) & mask;
+		}
+	}
+
+	public int size() {
+		return mySize;
+	}
+
+	public boolean isEmpty() {
+		return mySize == 0;
+	}
+
+	/**
+	 * Invokes the given consumer for every value in the set, in no particular order
+	 */
+	public void forEach(LongConsumer theConsumer) {
+		if (myContainsEmptyMarker) {
+			theConsumer.accept(EMPTY);
+		}
+		for (long next : myValues) {
+			if (next != EMPTY) {
+				theConsumer.accept(next);
+			}
+		}
+	}
+
+	private void resize(int theCapacity) {
+		long[] oldValues = myValues;
+		myValues = newTable(theCapacity);
+		int mask = theCapacity - 1;
+		for (long next : oldValues) {
+			if (next != EMPTY) {
+				int index = hash(next) & mask;
+				while (myValues[index] != EMPTY) {
+					index = (index + 1) & mask;
+				}
+				myValues[index] = next;
+			}
+		}
+	}
+
+	private static long[] newTable(int theCapacity) {
+		long[] retVal = new long[theCapacity];
+		Arrays.fill(retVal, EMPTY);
+		return retVal;
+	}
+
+	/**
+	 * Returns a power of two table size which keeps the given number of values at
+	 * or below half full
+	 */
+	static int capacityFor(int theExpectedSize) {
+		int wanted = Math.max(MIN_CAPACITY, theExpectedSize * 2);
+		return Integer.highestOneBit(wanted - 1) << 1;
+	}
+
+	/**
+	 * PIDs are frequently sequential, so the bits are spread before being used as an
+	 * index to avoid long runs of occupied slots
+	 */
+	static int hash(long theValue) {
+		long mixed = theValue * 0x9E3779B97F4A7C15L;
+		return (int) (mixed ^ (mixed >>> 32));
+	}
+}
@@ -0,0 +1,60 @@
+package ca.uhn.fhir.jpa.model.util;
+
+import ca.uhn.fhir.parser.DataFormatException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class DictionaryDeflateUtilTest {
+
+	private static final String OBSERVATION = "{\"resourceType\":\"Observation\",\"id\":\"123\",\"meta\":{\"versionId\":\"1\",\"lastUpdated\":\"2024-01-01T00:00:00.000+00:00\"},\"status\":\"final\",\"code\":{\"coding\":[{\"system\":\"http://loinc.org\",\"code\":\"8867-4\",\"display\":\"Heart rate\"}]},\"subject\":{\"reference\":\"Patient/99\"},\"effectiveDateTime\":\"2024-01-01\",\"valueQuantity\":{\"value\":72,\"unit\":\"beats/min\",\"system\":\"http://unitsofmeasure.org\",\"code\":\"/min\"}}";
+
+	@ParameterizedTest
+	@ValueSource(strings = {"", "a", OBSERVATION, "{\"resourceType\":\"Patient\",\"name\":[{\"family\":\"Smíth 日本\"}]}"})
+	public void testRoundTrip(String theInput) {
+		byte[] compressed = DictionaryDeflateUtil.compress(theInput);
+		assertEquals(DictionaryDeflateUtil.CURRENT_VERSION, compressed[0]);
+		assertEquals(theInput, DictionaryDeflateUtil.decompress(compressed));
+	}
+
+	@Test
+	public void testRoundTripLarge() {
+		String input = OBSERVATION.repeat(1000);
+		assertEquals(input, DictionaryDeflateUtil.decompress(DictionaryDeflateUtil.compress(input)));
+	}
+
+	@Test
+	public void testSmallerThanGzip() throws IOException {
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+		try (GZIPOutputStream gos = new GZIPOutputStream(os)) {
+			gos.write(OBSERVATION.getBytes(StandardCharsets.UTF_8));
+		}
+
+		assertThat(DictionaryDeflateUtil.compress(OBSERVATION).length).isLessThan(os.size() * 2 / 3);
+	}
+
+	@Test
+	public void testDecompressInvalid() {
+		byte[] compressed = DictionaryDeflateUtil.compress(OBSERVATION);
+
+		assertThatThrownBy(() -> DictionaryDeflateUtil.decompress(Arrays.copyOf(compressed, compressed.length / 2)))
+			.isInstanceOf(DataFormatException.class)
+			.hasMessageContaining("HAPI-2552");
+		assertThatThrownBy(() -> DictionaryDeflateUtil.decompress(new byte[]{99, 1, 2}))
+			.isInstanceOf(DataFormatException.class)
+			.hasMessageContaining("HAPI-2551");
+		assertThatThrownBy(() -> DictionaryDeflateUtil.decompress(new byte[0]))
+			.isInstanceOf(DataFormatException.class)
+			.hasMessageContaining("HAPI-2551");
+	}
+}
@@ -0,0 +1,42 @@
+package ca.uhn.fhir.jpa.model.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class LongIntMapTest {
+
+	@Test
+	public void testPutAndGet() {
+		LongIntMap map = new LongIntMap(2);
+		map.put(1L, 10);
+		map.put(Long.MIN_VALUE, 20);
+		map.put(-1L, 30);
+
+		assertEquals(3, map.size());
+		assertEquals(10, map.get(1L, -1));
+		assertEquals(20, map.get(Long.MIN_VALUE, -1));
+		assertEquals(30, map.get(-1L, -1));
+		assertEquals(-1, map.get(2L, -1));
+
+		map.put(1L, 11);
+		map.put(Long.MIN_VALUE, 21);
+		assertEquals(3, map.size());
+		assertEquals(11, map.get(1L, -1));
+		assertEquals(21, map.get(Long.MIN_VALUE, -1));
+	}
+
+	@Test
+	public void testGrow() {
+		LongIntMap map = new LongIntMap(0);
+		for (int i = 0; i < 100_000; i++) {
+			map.put(1000L + i * 7L, i);
+		}
+
+		assertEquals(100_000, map.size());
+		for (int i = 0; i < 100_000; i++) {
+			assertEquals(i, map.get(1000L + i * 7L, -1));
+			assertEquals(-1, map.get(1001L + i * 7L, -1));
+		}
+	}
+}
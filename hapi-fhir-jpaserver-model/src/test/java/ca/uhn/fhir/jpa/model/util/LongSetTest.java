@@ -0,0 +1,66 @@
+package ca.uhn.fhir.jpa.model.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LongSetTest {
+
+	@Test
+	public void testAddAndContains() {
+		LongSet set = new LongSet();
+		assertTrue(set.isEmpty());
+
+		assertTrue(set.add(1L));
+		assertFalse(set.add(1L));
+		assertTrue(set.add(0L));
+		assertTrue(set.add(-5L));
+		assertTrue(set.add(Long.MIN_VALUE));
+		assertFalse(set.add(Long.MIN_VALUE));
+		assertTrue(set.add(Long.MAX_VALUE));
+
+		assertEquals(5, set.size());
+		assertTrue(set.contains(0L));
+		assertTrue(set.contains(Long.MIN_VALUE));
+		assertTrue(set.contains(Long.MAX_VALUE));
+		assertFalse(set.contains(2L));
+
+		Set<Long> values = new HashSet<>();
+		set.forEach(values::add);
+		assertThat(values).containsExactlyInAnyOrder(1L, 0L, -5L, Long.MIN_VALUE, Long.MAX_VALUE);
+	}
+
+	@Test
+	public void testGrowMatchesHashSet() {
+		LongSet set = new LongSet(4);
+		Set<Long> expected = new HashSet<>();
+		Random random = new Random(0);
+		for (int i = 0; i < 100_000; i++) {
+			long next = random.nextInt(10) == 0 ? random.nextLong() : random.nextInt(50_000);
+			assertEquals(expected.add(next), set.add(next));
+		}
+
+		assertEquals(expected.size(), set.size());
+		for (long next : expected) {
+			assertTrue(set.contains(next));
+		}
+		for (long i = 50_000; i < 60_000; i++) {
+			assertEquals(expected.contains(i), set.contains(i));
+		}
+	}
+
+	@Test
+	public void testCapacityFor() {
+		assertEquals(16, LongSet.capacityFor(0));
+		assertEquals(16, LongSet.capacityFor(8));
+		assertEquals(32, LongSet.capacityFor(9));
+		assertEquals(2048, LongSet.capacityFor(1000));
+	}
+}
@@ -27,6 +27,8 @@ import jakarta.annotation.Nonnull;
 import jakarta.annotation.Nullable;
 import org.hl7.fhir.instance.model.api.IBaseResource;
 
+import java.util.Collection;
+
 public interface IResourceLinkResolver {
 
 	/**
@@ -71,4 +73,37 @@ public interface IResourceLinkResolver {
 			TransactionDetails theTransactionDetails);
 
 	void validateTypeOrThrowException(Class<? extends IBaseResource> theType);
+
+	/**
+	 * Called with the references found within a resource that is being created/updated, before
+	 * {@link #findTargetResource(RequestPartitionId, String, PathAndRef, RequestDetails, TransactionDetails)}
+	 * is called for each of them. Implementations may use this to resolve all of the targets at once
+	 * instead of individually. The default implementation does nothing.
+	 *
+	 * @param theRequestPartitionId The partition ID of the target resources
+	 * @param theSourceResourceName The resource type for the resource containing the references
+	 * @param thePathsAndRefs       The references which will be resolved
+	 * @param theRequest            The incoming request, if any
+	 * @param theTransactionDetails The current TransactionDetails object
+	 * @since 7.6.0
+	 */
+	default void prefetchTargetResources(
+			@Nonnull RequestPartitionId theRequestPartitionId,
+			String theSourceResourceName,
+			Collection<PathAndRef> thePathsAndRefs,
+			RequestDetails theRequest,
+			TransactionDetails theTransactionDetails) {
+		// nothing
+	}
+
+	/**
+	 * Discards anything stored by
+	 * {@link #prefetchTargetResources(RequestPartitionId, String, Collection, RequestDetails, TransactionDetails)},
+	 * once the references it was called with have been resolved. The default implementation does nothing.
+	 *
+	 * @since 7.6.0
+	 */
+	default void clearPrefetchedTargetResources(TransactionDetails theTransactionDetails) {
+		// nothing
+	}
 }
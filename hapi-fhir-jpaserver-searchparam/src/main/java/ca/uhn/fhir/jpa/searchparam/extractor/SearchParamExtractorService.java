@@ -543,31 +543,102 @@ public class SearchParamExtractorService {
 			ISearchParamExtractor.SearchParamSet<PathAndRef> theIndexedReferences) {
 		String sourceResourceName = myContext.getResourceType(theResource);
 
-		for (PathAndRef nextPathAndRef : theIndexedReferences) {
-			if (nextPathAndRef.getRef() != null) {
-				if (nextPathAndRef.getRef().getReferenceElement().isLocal()) {
-					continue;
-				}
-
-				RuntimeSearchParam searchParam = mySearchParamRegistry.getActiveSearchParam(
-						sourceResourceName, nextPathAndRef.getSearchParamName());
-				extractResourceLinks(
+		boolean prefetch = theFailOnInvalidReference && myStorageSettings.isBatchReferenceTargetResolution();
+		try {
+			if (prefetch) {
+				prefetchTargetResources(
 						theRequestPartitionId,
 						theExistingParams,
-						theNewParams,
-						theEntity,
 						theTransactionDetails,
 						sourceResourceName,
-						searchParam,
-						nextPathAndRef,
-						theFailOnInvalidReference,
-						theRequest);
+						theRequest,
+						theIndexedReferences);
+			}
+
+			for (PathAndRef nextPathAndRef : theIndexedReferences) {
+				if (nextPathAndRef.getRef() != null) {
+					if (nextPathAndRef.getRef().getReferenceElement().isLocal()) {
+						continue;
+					}
+
+					RuntimeSearchParam searchParam = mySearchParamRegistry.getActiveSearchParam(
+							sourceResourceName, nextPathAndRef.getSearchParamName());
+					extractResourceLinks(
+							theRequestPartitionId,
+							theExistingParams,
+							theNewParams,
+							theEntity,
+							theTransactionDetails,
+							sourceResourceName,
+							searchParam,
+							nextPathAndRef,
+							theFailOnInvalidReference,
+							theRequest);
+				}
+			}
+		} finally {
+			if (prefetch) {
+				myResourceLinkResolver.clearPrefetchedTargetResources(theTransactionDetails);
 			}
 		}
 
 		theEntity.setHasLinks(!theNewParams.myLinks.isEmpty());
 	}
 
+	/**
+	 * Gives the resolver the chance to resolve the targets of all references which will need to be
+	 * looked up individually by {@link #resolveTargetAndCreateResourceLinkOrReturnNull}, so that
+	 * this can be done in a single round trip.
+	 */
+	private void prefetchTargetResources(
+			@Nonnull RequestPartitionId theRequestPartitionId,
+			ResourceIndexedSearchParams theExistingParams,
+			TransactionDetails theTransactionDetails,
+			String theSourceResourceName,
+			RequestDetails theRequest,
+			ISearchParamExtractor.SearchParamSet<PathAndRef> theIndexedReferences) {
+		if (myPartitionSettings.isPartitioningEnabled()
+				&& myPartitionSettings.getAllowReferencesAcrossPartitions()
+						== PartitionSettings.CrossPartitionReferenceMode.ALLOWED_UNQUALIFIED
+				&& CompositeInterceptorBroadcaster.hasHooks(
+						Pointcut.JPA_RESOLVE_CROSS_PARTITION_REFERENCE, myInterceptorBroadcaster, theRequest)) {
+			// Targets are resolved by the interceptor
+			return;
+		}
+
+		List<PathAndRef> pathsAndRefs = new ArrayList<>();
+		for (PathAndRef nextPathAndRef : theIndexedReferences) {
+			if (nextPathAndRef.getRef() == null || nextPathAndRef.isCanonical()) {
+				continue;
+			}
+			IIdType nextId = nextPathAndRef.getRef().getReferenceElement();
+			if (nextId.isLocal()
+					|| LogicalReferenceHelper.isLogicalReference(myStorageSettings, nextId)
+					|| theTransactionDetails.getResolvedResourceId(nextId) != null) {
+				continue;
+			}
+			RuntimeSearchParam searchParam = mySearchParamRegistry.getActiveSearchParam(
+					theSourceResourceName, nextPathAndRef.getSearchParamName());
+			if (searchParam.hasTargets() && !searchParam.getTargets().contains(nextId.getResourceType())) {
+				continue;
+			}
+			if (findMatchingResourceLink(nextPathAndRef, theExistingParams.getResourceLinks())
+					.isPresent()) {
+				continue;
+			}
+			pathsAndRefs.add(nextPathAndRef);
+		}
+
+		if (!pathsAndRefs.isEmpty()) {
+			myResourceLinkResolver.prefetchTargetResources(
+					determineResolverPartitionId(theRequestPartitionId),
+					theSourceResourceName,
+					pathsAndRefs,
+					theRequest,
+					theTransactionDetails);
+		}
+	}
+
 	private void extractResourceLinks(
 			@Nonnull RequestPartitionId theRequestPartitionId,
 			ResourceIndexedSearchParams theExistingParams,
@@ -0,0 +1,270 @@
+package ca.uhn.fhir.jpa.dao.r4;
+
+import ca.uhn.fhir.jpa.api.config.JpaStorageSettings;
+import ca.uhn.fhir.jpa.api.dao.ReindexParameters;
+import ca.uhn.fhir.jpa.dao.index.ChainIndexSvc;
+import ca.uhn.fhir.jpa.model.dao.JpaPid;
+import ca.uhn.fhir.jpa.model.entity.ResourceIndexedChain;
+import ca.uhn.fhir.jpa.model.entity.ResourceIndexedChainBuild;
+import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
+import ca.uhn.fhir.jpa.test.BaseJpaR4Test;
+import ca.uhn.fhir.rest.api.server.IBundleProvider;
+import ca.uhn.fhir.rest.api.server.SystemRequestDetails;
+import ca.uhn.fhir.rest.api.server.storage.TransactionDetails;
+import ca.uhn.fhir.rest.param.ReferenceParam;
+import org.hl7.fhir.instance.model.api.IIdType;
+import org.hl7.fhir.r4.model.Observation;
+import org.hl7.fhir.r4.model.Patient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class FhirResourceDaoR4ChainIndexTest extends BaseJpaR4Test {
+
+	private static final String SYSTEM = "http://acme.org/mrn";
+
+	@Autowired
+	private ChainIndexSvc myChainIndexSvc;
+
+	@AfterEach
+	public void after() {
+		myStorageSettings.setIndexedChains(new JpaStorageSettings().getIndexedChains());
+	}
+
+	@Test
+	public void testSearch_UsesChainIndex() {
+		myStorageSettings.setIndexedChains(Set.of("Observation?subject.identifier"));
+		IIdType patientId = createPatientWithIdentifier("123");
+		IIdType otherPatientId = createPatientWithIdentifier("456");
+		IIdType obsId = createObservation(patientId);
+		createObservation(otherPatientId);
+		myChainIndexSvc.buildChainIndexes();
+
+		myCaptureQueriesListener.clear();
+		assertThat(searchObservationsBySubjectIdentifier(SYSTEM + "|123")).containsExactly(obsId.getValue());
+		String sql = myCaptureQueriesListener.getSelectQueriesForCurrentThread().get(0).getSql(false, false);
+		assertThat(sql).contains("HFJ_IDX_CHAIN");
+		assertThat(sql).doesNotContain("HFJ_RES_LINK");
+
+		assertThat(searchObservationsBySubjectIdentifier("123")).containsExactly(obsId.getValue());
+		assertThat(searchObservationsBySubjectIdentifier("|123")).isEmpty();
+		assertThat(searchObservationsBySubjectIdentifier(SYSTEM + "|")).hasSize(2);
+	}
+
+	@Test
+	public void testSearch_IndexNotBuilt_UsesResourceLinks() {
+		myStorageSettings.setIndexedChains(Set.of("Observation?subject.identifier"));
+		IIdType obsId = createObservation(createPatientWithIdentifier("123"));
+
+		myCaptureQueriesListener.clear();
+		assertThat(searchObservationsBySubjectIdentifier(SYSTEM + "|123")).containsExactly(obsId.getValue());
+		String sql = myCaptureQueriesListener.getSelectQueriesForCurrentThread().get(0).getSql(false, false);
+		assertThat(sql).contains("HFJ_RES_LINK");
+		assertThat(sql).doesNotContain("HFJ_IDX_CHAIN");
+
+		myChainIndexSvc.buildChainIndexes();
+
+		myCaptureQueriesListener.clear();
+		assertThat(searchObservationsBySubjectIdentifier(SYSTEM + "|123")).containsExactly(obsId.getValue());
+		sql = myCaptureQueriesListener.getSelectQueriesForCurrentThread().get(0).getSql(false, false);
+		assertThat(sql).contains("HFJ_IDX_CHAIN");
+	}
+
+	@Test
+	public void testSearch_UndeclaredChain_UsesResourceLinks() {
+		myStorageSettings.setIndexedChains(Set.of("Observation?subject.identifier"));
+		IIdType obsId = createObservation(createPatientWithIdentifier("123"));
+
+		myCaptureQueriesListener.clear();
+		SearchParameterMap map = SearchParameterMap.newSynchronous(
+				Observation.SP_PATIENT, new ReferenceParam("identifier", SYSTEM + "|123"));
+		assertThat(toUnqualifiedVersionlessIdValues(myObservationDao.search(map, mySrd)))
+				.containsExactly(obsId.getValue());
+		String sql = myCaptureQueriesListener.getSelectQueriesForCurrentThread().get(0).getSql(false, false);
+		assertThat(sql).doesNotContain("HFJ_IDX_CHAIN");
+	}
+
+	@Test
+	public void testUpdateTarget_IndexFollowsLeafValue() {
+		myStorageSettings.setIndexedChains(Set.of("Observation?subject.identifier"));
+		IIdType patientId = createPatientWithIdentifier("123");
+		IIdType obsId = createObservation(patientId);
+		myChainIndexSvc.buildChainIndexes();
+
+		Patient patient = new Patient();
+		patient.setId(patientId);
+		patient.addIdentifier().setSystem(SYSTEM).setValue("789");
+		myPatientDao.update(patient, mySrd);
+
+		// The system| row is shared by the old and new identifiers, so only the value rows are replaced
+		assertEquals(3, getChainIndexRows().size());
+		assertThat(searchObservationsBySubjectIdentifier(SYSTEM + "|123")).isEmpty();
+		assertThat(searchObservationsBySubjectIdentifier(SYSTEM + "|789")).containsExactly(obsId.getValue());
+		assertThat(searchObservationsBySubjectIdentifier(SYSTEM + "|")).containsExactly(obsId.getValue());
+
+		patient.addIdentifier().setSystem(SYSTEM).setValue("999");
+		myPatientDao.update(patient, mySrd);
+
+		assertEquals(5, getChainIndexRows().size());
+		assertThat(searchObservationsBySubjectIdentifier(SYSTEM + "|789")).containsExactly(obsId.getValue());
+		assertThat(searchObservationsBySubjectIdentifier(SYSTEM + "|999")).containsExactly(obsId.getValue());
+	}
+
+	/**
+	 * A source written while the leaf value of its target is being changed must wait for the target's
+	 * transaction. Otherwise it would index the previous leaf value, and the target's transaction
+	 * wouldn't see the new row in order to correct it.
+	 */
+	@Test
+	public void testConcurrentSourceAndTargetWrites_IndexFollowsCommittedLeafValue() throws Exception {
+		myStorageSettings.setIndexedChains(Set.of("Observation?subject.identifier"));
+		IIdType patientId = createPatientWithIdentifier("123");
+		myChainIndexSvc.buildChainIndexes();
+
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			CountDownLatch targetUpdated = new CountDownLatch(1);
+			Future<IIdType> obsIdFuture = executor.submit(() -> {
+				targetUpdated.await();
+				return createObservation(patientId);
+			});
+
+			runInTransaction(() -> {
+				Patient patient = new Patient();
+				patient.setId(patientId);
+				patient.addIdentifier().setSystem(SYSTEM).setValue("789");
+				myPatientDao.update(patient, mySrd);
+				targetUpdated.countDown();
+
+				// The source write is blocked until this transaction commits
+				assertThatThrownBy(() -> obsIdFuture.get(500, TimeUnit.MILLISECONDS))
+						.isInstanceOf(TimeoutException.class);
+			});
+
+			IIdType obsId = obsIdFuture.get(10, TimeUnit.SECONDS);
+			assertThat(searchObservationsBySubjectIdentifier(SYSTEM + "|123")).isEmpty();
+			assertThat(searchObservationsBySubjectIdentifier(SYSTEM + "|789")).containsExactly(obsId.getValue());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testUpdateAndDeleteSource_IndexFollowsReference() {
+		myStorageSettings.setIndexedChains(Set.of("Observation?subject.identifier"));
+		IIdType patientId = createPatientWithIdentifier("123");
+		IIdType otherPatientId = createPatientWithIdentifier("456");
+		IIdType obsId = createObservation(patientId);
+		myChainIndexSvc.buildChainIndexes();
+
+		Observation obs = new Observation();
+		obs.setId(obsId);
+		obs.getSubject().setReference(otherPatientId.getValue());
+		myObservationDao.update(obs, mySrd);
+
+		assertThat(searchObservationsBySubjectIdentifier(SYSTEM + "|123")).isEmpty();
+		assertThat(searchObservationsBySubjectIdentifier(SYSTEM + "|456")).containsExactly(obsId.getValue());
+
+		myObservationDao.delete(obsId, mySrd);
+		assertEquals(0, getChainIndexRows().size());
+	}
+
+	@Test
+	public void testBuild_IndexesExistingData() {
+		IIdType obsId = createObservation(createPatientWithIdentifier("123"));
+		createObservation(createPatientWithIdentifier("456"));
+		myStorageSettings.setIndexedChains(Set.of("Observation?subject.identifier"));
+		assertEquals(0, getChainIndexRows().size());
+
+		myChainIndexSvc.buildChainIndexes();
+
+		// Value, system|value and system| for each observation
+		assertEquals(6, getChainIndexRows().size());
+		ResourceIndexedChainBuild build = runInTransaction(
+				() -> myEntityManager.find(ResourceIndexedChainBuild.class, "Observation?subject.identifier"));
+		assertTrue(build.isBuildComplete());
+
+		myCaptureQueriesListener.clear();
+		assertThat(searchObservationsBySubjectIdentifier(SYSTEM + "|123")).containsExactly(obsId.getValue());
+		String sql = myCaptureQueriesListener.getSelectQueriesForCurrentThread().get(0).getSql(false, false);
+		assertThat(sql).contains("HFJ_IDX_CHAIN");
+
+		// Building again once complete changes nothing
+		myChainIndexSvc.buildChainIndexes();
+		assertEquals(6, getChainIndexRows().size());
+	}
+
+	@Test
+	public void testBuild_RemovesBuildForUndeclaredChain() {
+		myStorageSettings.setIndexedChains(Set.of("Observation?subject.identifier"));
+		myChainIndexSvc.buildChainIndexes();
+		assertEquals(1, getChainIndexBuilds().size());
+
+		myStorageSettings.setIndexedChains(Set.of());
+		myChainIndexSvc.buildChainIndexes();
+		assertEquals(0, getChainIndexBuilds().size());
+	}
+
+	@Test
+	public void testReindex_BuildsIndexForExistingData() {
+		IIdType obsId = createObservation(createPatientWithIdentifier("123"));
+		myStorageSettings.setIndexedChains(Set.of("Observation?subject.identifier"));
+		assertEquals(0, getChainIndexRows().size());
+
+		Long obsPid = obsId.getIdPartAsLong();
+		runInTransaction(() -> myObservationDao.reindex(
+				JpaPid.fromIdAndResourceType(obsPid, "Observation"),
+				new ReindexParameters(),
+				new SystemRequestDetails(),
+				new TransactionDetails()));
+
+		// Value, system|value and system|
+		assertEquals(3, getChainIndexRows().size());
+		assertThat(searchObservationsBySubjectIdentifier(SYSTEM + "|123")).containsExactly(obsId.getValue());
+	}
+
+	private List<String> searchObservationsBySubjectIdentifier(String theIdentifier) {
+		SearchParameterMap map = SearchParameterMap.newSynchronous(
+				Observation.SP_SUBJECT, new ReferenceParam("identifier", theIdentifier));
+		IBundleProvider outcome = myObservationDao.search(map, mySrd);
+		return toUnqualifiedVersionlessIdValues(outcome);
+	}
+
+	private List<ResourceIndexedChain> getChainIndexRows() {
+		return runInTransaction(() -> myEntityManager
+				.createQuery("SELECT c FROM ResourceIndexedChain c", ResourceIndexedChain.class)
+				.getResultList());
+	}
+
+	private List<ResourceIndexedChainBuild> getChainIndexBuilds() {
+		return runInTransaction(() -> myEntityManager
+				.createQuery("SELECT b FROM ResourceIndexedChainBuild b", ResourceIndexedChainBuild.class)
+				.getResultList());
+	}
+
+	private IIdType createPatientWithIdentifier(String theValue) {
+		Patient patient = new Patient();
+		patient.addIdentifier().setSystem(SYSTEM).setValue(theValue);
+		return myPatientDao.create(patient, mySrd).getId().toUnqualifiedVersionless();
+	}
+
+	private IIdType createObservation(IIdType theSubject) {
+		Observation obs = new Observation();
+		obs.getSubject().setReference(theSubject.getValue());
+		return myObservationDao.create(obs, mySrd).getId().toUnqualifiedVersionless();
+	}
+}
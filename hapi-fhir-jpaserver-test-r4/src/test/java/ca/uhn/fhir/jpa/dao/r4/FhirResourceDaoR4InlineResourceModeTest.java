@@ -1,11 +1,13 @@
 package ca.uhn.fhir.jpa.dao.r4;
 
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import ca.uhn.fhir.jpa.api.config.JpaStorageSettings;
 import ca.uhn.fhir.jpa.dao.data.IResourceHistoryTableDao;
 import ca.uhn.fhir.jpa.model.entity.ResourceEncodingEnum;
 import ca.uhn.fhir.jpa.model.entity.ResourceHistoryTable;
 import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
 import ca.uhn.fhir.jpa.test.BaseJpaR4Test;
+import ca.uhn.fhir.jpa.util.MemoryCacheService;
 import ca.uhn.fhir.rest.param.DateRangeParam;
 import ca.uhn.fhir.rest.param.HistorySearchDateRangeParam;
 import org.hl7.fhir.instance.model.api.IBaseResource;
@@ -17,8 +19,10 @@ import java.util.HashMap;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.when;
 
 public class FhirResourceDaoR4InlineResourceModeTest extends BaseJpaR4Test {
 
@@ -53,6 +57,37 @@ public class FhirResourceDaoR4InlineResourceModeTest extends BaseJpaR4Test {
 	}
 
 
+	@Test
+	public void testRetrieveNonInlinedResource_ResourceBodyCache() {
+		myStorageSettings.setResourceBodyCacheMaxEntries(100);
+		myStorageSettings.setUpdateWithHistoryRewriteEnabled(true);
+		try {
+			IIdType id = createPatient(withActiveTrue());
+			Long pid = id.getIdPartAsLong();
+			relocateResourceTextToCompressedColumn(pid, 1L);
+
+			MemoryCacheService.ResourceVersionKey key = new MemoryCacheService.ResourceVersionKey(pid, 1L);
+			assertNull(myMemoryCacheService.getIfPresent(MemoryCacheService.CacheEnum.RESOURCE_BODY, key));
+			validatePatient(myPatientDao.read(id.withVersion("1"), mySrd));
+			String cached = myMemoryCacheService.getIfPresent(MemoryCacheService.CacheEnum.RESOURCE_BODY, key);
+			assertThat(cached).contains("\"active\":true");
+
+			// Rewriting the version must invalidate the cached body
+			when(mySrd.isRewriteHistory()).thenReturn(true);
+			Patient p = new Patient();
+			p.setId(id.withVersion("1"));
+			p.setActive(false);
+			myPatientDao.update(p, mySrd);
+			assertNull(myMemoryCacheService.getIfPresent(MemoryCacheService.CacheEnum.RESOURCE_BODY, key));
+
+			relocateResourceTextToCompressedColumn(pid, 1L);
+			assertFalse(myPatientDao.read(id.withVersion("1"), mySrd).getActive());
+		} finally {
+			myStorageSettings.setResourceBodyCacheMaxEntries(new JpaStorageSettings().getResourceBodyCacheMaxEntries());
+			myStorageSettings.setUpdateWithHistoryRewriteEnabled(false);
+		}
+	}
+
 	private void validatePatient(IBaseResource theRead) {
 		assertTrue(((Patient) theRead).getActive());
 	}
@@ -26,14 +26,19 @@ import ca.uhn.fhir.jpa.model.entity.ResourceTable;
 import ca.uhn.fhir.jpa.model.util.JpaConstants;
 import ca.uhn.fhir.jpa.provider.BaseResourceProviderR4Test;
 import ca.uhn.fhir.jpa.search.PersistedJpaSearchFirstPageBundleProvider;
+import ca.uhn.fhir.jpa.search.builder.SearchParamCardinalitySvc;
 import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
 import ca.uhn.fhir.jpa.subscription.triggering.ISubscriptionTriggeringSvc;
 import ca.uhn.fhir.jpa.subscription.triggering.SubscriptionTriggeringSvcImpl;
 import ca.uhn.fhir.jpa.term.TermReadSvcImpl;
 import ca.uhn.fhir.jpa.test.util.SubscriptionTestUtil;
+import ca.uhn.fhir.jpa.util.MemoryCacheService;
 import ca.uhn.fhir.jpa.util.SqlQuery;
+import ca.uhn.fhir.rest.api.Constants;
 import ca.uhn.fhir.rest.api.RestOperationTypeEnum;
+import ca.uhn.fhir.rest.api.SearchTotalModeEnum;
 import ca.uhn.fhir.rest.api.SortSpec;
+import ca.uhn.fhir.rest.api.SummaryEnum;
 import ca.uhn.fhir.rest.api.server.IBundleProvider;
 import ca.uhn.fhir.rest.api.server.SystemRequestDetails;
 import ca.uhn.fhir.rest.param.ReferenceParam;
@@ -47,6 +52,7 @@ import ca.uhn.fhir.test.utilities.ProxyUtil;
 import ca.uhn.fhir.test.utilities.server.HashMapResourceProviderExtension;
 import ca.uhn.fhir.test.utilities.server.RestfulServerExtension;
 import ca.uhn.fhir.util.BundleBuilder;
+import ca.uhn.fhir.util.StopWatch;
 import jakarta.annotation.Nonnull;
 import org.hl7.fhir.instance.model.api.IBaseResource;
 import org.hl7.fhir.instance.model.api.IIdType;
@@ -64,6 +70,7 @@ import org.hl7.fhir.r4.model.ExplanationOfBenefit;
 import org.hl7.fhir.r4.model.Group;
 import org.hl7.fhir.r4.model.IdType;
 import org.hl7.fhir.r4.model.Location;
+import org.hl7.fhir.r4.model.Meta;
 import org.hl7.fhir.r4.model.Narrative;
 import org.hl7.fhir.r4.model.Observation;
 import org.hl7.fhir.r4.model.Parameters;
@@ -97,7 +104,9 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
@@ -150,6 +159,8 @@ public class FhirResourceDaoR4QueryCountTest extends BaseResourceProviderR4Test
 	@Autowired
 	private DeleteExpungeStep myDeleteExpungeStep;
 	@Autowired
+	private SearchParamCardinalitySvc mySearchParamCardinalitySvc;
+	@Autowired
 	protected SubscriptionTestUtil mySubscriptionTestUtil;
 	private ReindexTestHelper myReindexTestHelper;
 
@@ -159,15 +170,18 @@ public class FhirResourceDaoR4QueryCountTest extends BaseResourceProviderR4Test
 		myStorageSettings.setAllowMultipleDelete(new JpaStorageSettings().isAllowMultipleDelete());
 		myStorageSettings.setAutoCreatePlaceholderReferenceTargets(new JpaStorageSettings().isAutoCreatePlaceholderReferenceTargets());
 		myStorageSettings.setAutoVersionReferenceAtPaths(new JpaStorageSettings().getAutoVersionReferenceAtPaths());
+		myStorageSettings.setBatchReferenceTargetResolution(new JpaStorageSettings().isBatchReferenceTargetResolution());
 		myStorageSettings.setDeleteEnabled(new JpaStorageSettings().isDeleteEnabled());
 		myStorageSettings.setHistoryCountMode(JpaStorageSettings.DEFAULT_HISTORY_COUNT_MODE);
 		myStorageSettings.setIndexMissingFields(new JpaStorageSettings().getIndexMissingFields());
+		myStorageSettings.setIndexWriteJdbcBatchSize(new JpaStorageSettings().getIndexWriteJdbcBatchSize());
 		myStorageSettings.setMassIngestionMode(new JpaStorageSettings().isMassIngestionMode());
 		myStorageSettings.setMatchUrlCacheEnabled(new JpaStorageSettings().isMatchUrlCacheEnabled());
 		myStorageSettings.setPopulateIdentifierInAutoCreatedPlaceholderReferenceTargets(new JpaStorageSettings().isPopulateIdentifierInAutoCreatedPlaceholderReferenceTargets());
 		myStorageSettings.setResourceClientIdStrategy(new JpaStorageSettings().getResourceClientIdStrategy());
 		myStorageSettings.setResourceMetaCountHardLimit(new JpaStorageSettings().getResourceMetaCountHardLimit());
 		myStorageSettings.setRespectVersionsForSearchIncludes(new JpaStorageSettings().isRespectVersionsForSearchIncludes());
+		myStorageSettings.setSearchSqlCacheEnabled(new JpaStorageSettings().isSearchSqlCacheEnabled());
 		myStorageSettings.setTagStorageMode(new JpaStorageSettings().getTagStorageMode());
 		myStorageSettings.setExpungeEnabled(false);
 		myStorageSettings.setUniqueIndexesEnabled(new JpaStorageSettings().isUniqueIndexesEnabled());
@@ -680,6 +694,88 @@ public class FhirResourceDaoR4QueryCountTest extends BaseResourceProviderR4Test
 
 	}
 
+	/**
+	 * See the class javadoc before changing the counts in this test!
+	 */
+	@Test
+	public void testCreateWithManyReferences_BatchReferenceTargetResolution() {
+		myStorageSettings.setIndexMissingFields(JpaStorageSettings.IndexEnabledEnum.DISABLED);
+		for (String id : List.of("A", "B", "C")) {
+			Patient p = new Patient();
+			p.setId("Patient/" + id);
+			p.setActive(true);
+			myPatientDao.update(p, mySrd);
+		}
+		Practitioner pr = new Practitioner();
+		pr.setId("Practitioner/PR");
+		pr.setActive(true);
+		myPractitionerDao.update(pr, mySrd);
+
+		Supplier<Observation> observationSupplier = () -> {
+			Observation obs = new Observation();
+			obs.setStatus(Observation.ObservationStatus.FINAL);
+			obs.getSubject().setReference("Patient/A");
+			obs.addPerformer().setReference("Patient/B");
+			obs.addPerformer().setReference("Patient/C");
+			obs.addPerformer().setReference("Practitioner/PR");
+			return obs;
+		};
+
+		// Each target is resolved individually
+		myCaptureQueriesListener.clear();
+		myObservationDao.create(observationSupplier.get(), mySrd);
+		myCaptureQueriesListener.logSelectQueriesForCurrentThread();
+		int unbatchedSelectCount = myCaptureQueriesListener.getSelectQueriesForCurrentThread().size();
+
+		// Targets are resolved with one query per resource type
+		myStorageSettings.setBatchReferenceTargetResolution(true);
+		myCaptureQueriesListener.clear();
+		IIdType id = myObservationDao.create(observationSupplier.get(), mySrd).getId().toUnqualifiedVersionless();
+		myCaptureQueriesListener.logSelectQueriesForCurrentThread();
+		assertThat(myCaptureQueriesListener.getSelectQueriesForCurrentThread()).hasSize(unbatchedSelectCount - 2);
+
+		Observation actual = myObservationDao.read(id, mySrd);
+		assertEquals("Patient/A", actual.getSubject().getReference());
+		assertEquals("Practitioner/PR", actual.getPerformer().get(2).getReference());
+		assertThat(myObservationDao.search(SearchParameterMap.newSynchronous(Observation.SP_PERFORMER, new ReferenceParam("Patient/C")), mySrd).size()).isEqualTo(2);
+	}
+
+	@Test
+	public void testTransactionWithManyObservations_IndexWriteJdbcBatchSize() {
+		myStorageSettings.setIndexMissingFields(JpaStorageSettings.IndexEnabledEnum.DISABLED);
+		Supplier<Bundle> bundleSupplier = () -> {
+			BundleBuilder bb = new BundleBuilder(myFhirContext);
+			for (int i = 0; i < 100; i++) {
+				Observation obs = new Observation();
+				obs.setStatus(Observation.ObservationStatus.FINAL);
+				obs.getCode().addCoding().setSystem("http://loinc.org").setCode("code" + i);
+				obs.setValue(new Quantity(i));
+				bb.addTransactionCreateEntry(obs);
+			}
+			return bb.getBundleTyped();
+		};
+
+		// Index rows are sent in batches of the size configured for Hibernate
+		myCaptureQueriesListener.clear();
+		mySystemDao.transaction(mySrd, bundleSupplier.get());
+		int unbatchedInsertCount = myCaptureQueriesListener.countInsertQueriesForCurrentThread();
+
+		// Index rows are sent in one batch per table
+		myStorageSettings.setIndexWriteJdbcBatchSize(1000);
+		myCaptureQueriesListener.clear();
+		StopWatch sw = new StopWatch();
+		mySystemDao.transaction(mySrd, bundleSupplier.get());
+		List<SqlQuery> insertQueries = myCaptureQueriesListener.getInsertQueriesForCurrentThread();
+		long rowCount = insertQueries.stream().mapToLong(SqlQuery::getSize).sum();
+		ourLog.info(
+			"Inserted {} rows in {} statements ({} rows/sec)",
+			rowCount,
+			insertQueries.size(),
+			sw.formatThroughput(rowCount, TimeUnit.SECONDS));
+		assertThat(insertQueries.size()).isLessThan(unbatchedInsertCount);
+		assertThat(insertQueries.stream().filter(t -> t.getSql(false, false).toLowerCase().contains("insert into hfj_spidx_token "))).hasSize(1);
+	}
+
 	/**
 	 * See the class javadoc before changing the counts in this test!
 	 */
@@ -1381,6 +1477,173 @@ public class FhirResourceDaoR4QueryCountTest extends BaseResourceProviderR4Test
 	}
 
 
+	/**
+	 * See the class javadoc before changing the counts in this test!
+	 */
+	@Test
+	public void testSearchWithSearchSqlCache() {
+		myStorageSettings.setSearchSqlCacheEnabled(true);
+		for (String code : List.of("A", "B", "C")) {
+			Observation obs = new Observation();
+			obs.setStatus(Observation.ObservationStatus.FINAL);
+			obs.getCode().addCoding().setSystem("http://foo").setCode(code);
+			myObservationDao.create(obs, mySrd);
+		}
+		long initialHitCount = myMemoryCacheService.getStatistics(MemoryCacheService.CacheEnum.SEARCH_SQL).getHitCount();
+
+		Function<String, List<String>> searchFunction = code -> {
+			SearchParameterMap map = SearchParameterMap.newSynchronous();
+			map.add(Observation.SP_CODE, new TokenParam("http://foo", code));
+			map.add(Observation.SP_STATUS, new TokenParam("final"));
+			return toUnqualifiedVersionlessIdValues(myObservationDao.search(map, mySrd));
+		};
+
+		// First search renders the SQL
+		myCaptureQueriesListener.clear();
+		assertThat(searchFunction.apply("A")).hasSize(1);
+		String firstSql = getTokenSearchSql();
+
+		// Search with the same shape reuses it
+		myCaptureQueriesListener.clear();
+		List<String> outcome = searchFunction.apply("B");
+		assertThat(outcome).hasSize(1);
+		assertEquals(firstSql, getTokenSearchSql());
+		assertEquals(initialHitCount + 1, myMemoryCacheService.getStatistics(MemoryCacheService.CacheEnum.SEARCH_SQL).getHitCount());
+		assertThat(searchFunction.apply("C")).doesNotContainAnyElementsOf(outcome);
+	}
+
+	/**
+	 * See the class javadoc before changing the counts in this test!
+	 */
+	@Test
+	public void testSearchWithTotalEstimated_CountIsCachedUntilTypeChanges() {
+		for (int i = 0; i < 3; i++) {
+			Observation obs = new Observation();
+			obs.setStatus(Observation.ObservationStatus.FINAL);
+			myObservationDao.create(obs, mySrd);
+		}
+
+		Supplier<Integer> searchFunction = () -> {
+			SearchParameterMap map = SearchParameterMap.newSynchronous();
+			map.add(Observation.SP_STATUS, new TokenParam("final"));
+			map.setSearchTotalMode(SearchTotalModeEnum.ESTIMATED);
+			return myObservationDao.search(map, mySrd).size();
+		};
+
+		// First search performs the count
+		myCaptureQueriesListener.clear();
+		assertEquals(3, searchFunction.get());
+		assertEquals(1, countCountQueries());
+
+		// Second search reuses it
+		myCaptureQueriesListener.clear();
+		assertEquals(3, searchFunction.get());
+		assertEquals(0, countCountQueries());
+
+		// Writing an Observation invalidates the count
+		Observation obs = new Observation();
+		obs.setStatus(Observation.ObservationStatus.FINAL);
+		myObservationDao.create(obs, mySrd);
+		myCaptureQueriesListener.clear();
+		assertEquals(4, searchFunction.get());
+		assertEquals(1, countCountQueries());
+	}
+
+	/**
+	 * See the class javadoc before changing the counts in this test!
+	 */
+	@Test
+	public void testSearchWithTotalEstimated_ChainedCountIsNotCached() {
+		Patient patient = new Patient();
+		patient.setId("P");
+		patient.addName().setFamily("SMITH");
+		myPatientDao.update(patient, mySrd);
+		Observation obs = new Observation();
+		obs.getSubject().setReference("Patient/P");
+		myObservationDao.create(obs, mySrd);
+
+		Supplier<Integer> searchFunction = () -> {
+			SearchParameterMap map = SearchParameterMap.newSynchronous();
+			map.add(Observation.SP_SUBJECT, new ReferenceParam("name", "smith"));
+			map.setSearchTotalMode(SearchTotalModeEnum.ESTIMATED);
+			return myObservationDao.search(map, mySrd).size();
+		};
+
+		myCaptureQueriesListener.clear();
+		assertEquals(1, searchFunction.get());
+		assertEquals(1, countCountQueries());
+
+		// The count depends on the Patients too, so it is counted again
+		myCaptureQueriesListener.clear();
+		assertEquals(1, searchFunction.get());
+		assertEquals(1, countCountQueries());
+	}
+
+	/**
+	 * See the class javadoc before changing the counts in this test!
+	 */
+	@Test
+	public void testSearchWithTotalEstimated_TagCountIsNotCached() {
+		Observation obs = new Observation();
+		obs.setStatus(Observation.ObservationStatus.FINAL);
+		IIdType id = myObservationDao.create(obs, mySrd).getId().toUnqualifiedVersionless();
+
+		Supplier<Integer> searchFunction = () -> {
+			SearchParameterMap map = SearchParameterMap.newSynchronous();
+			map.add(Constants.PARAM_TAG, new TokenParam("http://foo", "bar"));
+			map.setSearchTotalMode(SearchTotalModeEnum.ESTIMATED);
+			return myObservationDao.search(map, mySrd).size();
+		};
+
+		myCaptureQueriesListener.clear();
+		assertEquals(0, searchFunction.get());
+		assertEquals(1, countCountQueries());
+
+		// $meta-add doesn't write a new version, so the count is never cached
+		Meta meta = new Meta();
+		meta.addTag("http://foo", "bar", null);
+		myObservationDao.metaAddOperation(id, meta, mySrd);
+		myCaptureQueriesListener.clear();
+		assertEquals(1, searchFunction.get());
+		assertEquals(1, countCountQueries());
+	}
+
+	@Test
+	public void testSearchWithTotalEstimated_CountOnlyForUnknownValue() {
+		for (int i = 0; i < 20; i++) {
+			Patient patient = new Patient();
+			patient.addIdentifier().setSystem("http://foo").setValue("id" + (i % 2));
+			myPatientDao.create(patient, mySrd);
+		}
+		mySearchParamCardinalitySvc.refresh();
+
+		SearchParameterMap map = SearchParameterMap.newSynchronous();
+		map.add(Patient.SP_IDENTIFIER, new TokenParam("http://foo", "nonexistent"));
+		map.setSummaryMode(SummaryEnum.COUNT);
+		map.setSearchTotalMode(SearchTotalModeEnum.ESTIMATED);
+		assertEquals(0, myPatientDao.search(map, mySrd).size());
+
+		map = SearchParameterMap.newSynchronous();
+		map.add(Patient.SP_IDENTIFIER, new TokenParam("http://foo", "id0"));
+		map.setSummaryMode(SummaryEnum.COUNT);
+		map.setSearchTotalMode(SearchTotalModeEnum.ESTIMATED);
+		assertEquals(10, myPatientDao.search(map, mySrd).size());
+	}
+
+	private long countCountQueries() {
+		return myCaptureQueriesListener.getSelectQueriesForCurrentThread().stream()
+			.filter(t -> t.getSql(false, false).toLowerCase().contains("count("))
+			.count();
+	}
+
+	private String getTokenSearchSql() {
+		return myCaptureQueriesListener.getSelectQueriesForCurrentThread().stream()
+			.map(t -> t.getSql(false, false))
+			.filter(t -> t.contains("HFJ_SPIDX_TOKEN"))
+			.findFirst()
+			.orElseThrow();
+	}
+
 	/**
 	 * See the class javadoc before changing the counts in this test!
 	 */
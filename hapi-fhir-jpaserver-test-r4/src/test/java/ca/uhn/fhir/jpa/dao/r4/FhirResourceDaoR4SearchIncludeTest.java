@@ -7,6 +7,7 @@ import ca.uhn.fhir.jpa.api.config.JpaStorageSettings;
 import ca.uhn.fhir.jpa.api.dao.IFhirResourceDao;
 import ca.uhn.fhir.jpa.model.search.StorageProcessingMessage;
 import ca.uhn.fhir.jpa.search.PersistedJpaSearchFirstPageBundleProvider;
+import ca.uhn.fhir.jpa.search.builder.SearchIncludesExecutor;
 import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
 import ca.uhn.fhir.jpa.test.BaseJpaR4Test;
 import ca.uhn.fhir.jpa.util.SqlQuery;
@@ -37,12 +38,14 @@ import org.junit.jupiter.params.provider.CsvSource;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.mockito.Mock;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.Date;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -63,10 +66,13 @@ public class FhirResourceDaoR4SearchIncludeTest extends BaseJpaR4Test {
 	private IAnonymousInterceptor myAnonymousInterceptor;
 	@Captor
 	private ArgumentCaptor<HookParams> myParamsCaptor;
+	@Autowired
+	private SearchIncludesExecutor mySearchIncludesExecutor;
 
 	@AfterEach
 	public void afterEach() {
 		myStorageSettings.setMaximumIncludesToLoadPerPage(JpaStorageSettings.DEFAULT_MAXIMUM_INCLUDES_TO_LOAD_PER_PAGE);
+		myStorageSettings.setIncludesLoadingPoolSize(new JpaStorageSettings().getIncludesLoadingPoolSize());
 		myInterceptorRegistry.unregisterInterceptor(myAnonymousInterceptor);
 	}
 
@@ -361,6 +367,49 @@ public class FhirResourceDaoR4SearchIncludeTest extends BaseJpaR4Test {
 
 	}
 
+	@ParameterizedTest
+	@CsvSource({"true", "false"})
+	public void testIncludesLoadedConcurrently(boolean theSynchronous) {
+		myStorageSettings.setIncludesLoadingPoolSize(4);
+		createOrganizationWithReferencingEpisodesOfCare(3);
+		createPatientWithReferencingCarePlan(2);
+
+		SearchParameterMap map = new SearchParameterMap()
+			.setLoadSynchronous(theSynchronous)
+			.add("_id", new TokenParam("ORG-0"))
+			.addInclude(Organization.INCLUDE_PARTOF)
+			.addRevInclude(EpisodeOfCare.INCLUDE_ORGANIZATION)
+			.addRevInclude(Organization.INCLUDE_PARTOF)
+			.addRevInclude(CarePlan.INCLUDE_SUBJECT);
+		myCaptureQueriesListener.clear();
+		IBundleProvider results = myOrganizationDao.search(map, mySrd);
+		List<String> ids = toUnqualifiedVersionlessIdValues(results);
+		assertThat(ids).as(ids.toString()).containsExactlyInAnyOrder("Organization/ORG-0", "Organization/ORG-P", "EpisodeOfCare/EOC-0", "EpisodeOfCare/EOC-1", "EpisodeOfCare/EOC-2");
+
+		// The includes must actually have been loaded on the includes executor, not only on the calling
+		// thread, unless the connection pool is too small for that
+		if (mySearchIncludesExecutor.isEnabled()) {
+			Set<String> threadNames = myCaptureQueriesListener
+				.getSelectQueries()
+				.stream()
+				.map(SqlQuery::getThreadName)
+				.collect(Collectors.toSet());
+			assertThat(threadNames).as(threadNames.toString()).hasSizeGreaterThan(1);
+			assertThat(threadNames).as(threadNames.toString()).anyMatch(t -> t.startsWith("search-includes-"));
+		}
+
+		// :iterate rounds are still processed one after the other
+		map = new SearchParameterMap()
+			.setLoadSynchronous(theSynchronous)
+			.add("_id", new TokenParam("EOC-0"))
+			.addInclude(EpisodeOfCare.INCLUDE_ORGANIZATION)
+			.addInclude(EpisodeOfCare.INCLUDE_PATIENT)
+			.addInclude(Organization.INCLUDE_PARTOF.asRecursive());
+		results = myEpisodeOfCareDao.search(map, mySrd);
+		ids = toUnqualifiedVersionlessIdValues(results);
+		assertThat(ids).as(ids.toString()).containsExactlyInAnyOrder("EpisodeOfCare/EOC-0", "Organization/ORG-0", "Organization/ORG-P");
+	}
+
 	private void createOrganizationWithReferencingEpisodesOfCare(int theEocCount) {
 		Organization org = new Organization();
 		org.setId("Organization/ORG-P");
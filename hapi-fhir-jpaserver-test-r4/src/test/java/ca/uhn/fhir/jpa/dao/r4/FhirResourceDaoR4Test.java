@@ -4,6 +4,8 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import ca.uhn.fhir.i18n.Msg;
+import ca.uhn.fhir.interceptor.api.IAnonymousInterceptor;
+import ca.uhn.fhir.interceptor.api.Pointcut;
 import ca.uhn.fhir.interceptor.model.RequestPartitionId;
 import ca.uhn.fhir.jpa.api.config.JpaStorageSettings;
 import ca.uhn.fhir.jpa.api.dao.IFhirResourceDao;
@@ -22,6 +24,7 @@ import ca.uhn.fhir.jpa.model.entity.ResourceIndexedSearchParamString;
 import ca.uhn.fhir.jpa.model.entity.ResourceIndexedSearchParamToken;
 import ca.uhn.fhir.jpa.model.entity.ResourceTable;
 import ca.uhn.fhir.jpa.model.entity.TagTypeEnum;
+import ca.uhn.fhir.jpa.model.search.SearchRuntimeDetails;
 import ca.uhn.fhir.jpa.model.search.SearchStatusEnum;
 import ca.uhn.fhir.jpa.model.util.UcumServiceUtil;
 import ca.uhn.fhir.jpa.searchparam.SearchParamConstants;
@@ -38,6 +41,7 @@ import ca.uhn.fhir.rest.api.MethodOutcome;
 import ca.uhn.fhir.rest.api.SortOrderEnum;
 import ca.uhn.fhir.rest.api.SortSpec;
 import ca.uhn.fhir.rest.api.server.IBundleProvider;
+import ca.uhn.fhir.rest.api.server.IStreamingBundleProvider;
 import ca.uhn.fhir.rest.api.server.SystemRequestDetails;
 import ca.uhn.fhir.rest.api.server.storage.IResourcePersistentId;
 import ca.uhn.fhir.rest.param.DateParam;
@@ -134,6 +138,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
@@ -150,9 +155,11 @@ import static ca.uhn.fhir.rest.api.Constants.PARAM_HAS;
 import static org.apache.commons.lang3.StringUtils.countMatches;
 import static org.apache.commons.lang3.StringUtils.defaultString;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.junit.jupiter.api.Assertions.fail;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
 
 
 @SuppressWarnings({"unchecked", "deprecation", "Duplicates"})
@@ -4316,6 +4323,73 @@ public class FhirResourceDaoR4Test extends BaseJpaR4Test {
 		assertEquals(ids, createdIds);
 	}
 
+	@Test
+	void testSearchForResources_Streaming() {
+		// given - more than one batch worth of matches
+		Set<String> createdIds = IntStream.range(0, 300)
+			.mapToObj(i -> createObservation().getIdPart())
+			.collect(Collectors.toSet());
+
+		// when
+		List<Observation> streamed = new ArrayList<>();
+		myObservationDao.searchForResources(new SearchParameterMap(), mySrd, streamed::add);
+
+		// then
+		assertThat(streamed).hasSize(300);
+		assertEquals(createdIds, streamed.stream().map(t -> t.getIdElement().getIdPart()).collect(Collectors.toSet()));
+
+		SearchParameterMap includeMap = new SearchParameterMap().addInclude(Observation.INCLUDE_PATIENT);
+		assertThatThrownBy(() -> myObservationDao.searchForResources(includeMap, mySrd, t -> {}))
+			.isInstanceOf(InvalidRequestException.class)
+			.hasMessageContaining(Msg.code(2549));
+	}
+
+	@Test
+	void testSearchForResources_StreamingHonoursLoadUpToAndFiresSearchComplete() {
+		// given
+		IntStream.range(0, 10).forEach(i -> createObservation());
+		List<SearchRuntimeDetails> completedSearches = new ArrayList<>();
+		IAnonymousInterceptor interceptor = (thePointcut, theArgs) -> completedSearches.add(theArgs.get(SearchRuntimeDetails.class));
+		myInterceptorRegistry.registerAnonymousInterceptor(Pointcut.JPA_PERFTRACE_SEARCH_COMPLETE, interceptor);
+		try {
+			// when
+			List<Observation> streamed = new ArrayList<>();
+			SearchParameterMap map = SearchParameterMap.newSynchronous();
+			map.setLoadSynchronousUpTo(4);
+			myObservationDao.searchForResources(map, mySrd, streamed::add);
+
+			// then
+			assertThat(streamed).hasSize(4);
+			assertThat(completedSearches).hasSize(1);
+			assertEquals(SearchStatusEnum.FINISHED, completedSearches.get(0).getSearchStatus());
+		} finally {
+			myInterceptorRegistry.unregisterInterceptor(interceptor);
+		}
+	}
+
+	@Test
+	void testSearch_StreamBundleResponsesReturnsStreamingProvider() {
+		// given - more than one batch worth of matches
+		Set<String> createdIds = IntStream.range(0, 300)
+			.mapToObj(i -> createObservation().getIdPart())
+			.collect(Collectors.toSet());
+		when(mySrd.getServer().isStreamBundleResponses()).thenReturn(true);
+
+		// when
+		IBundleProvider outcome = myObservationDao.search(SearchParameterMap.newSynchronous(), mySrd);
+
+		// then
+		assertThat(outcome).isInstanceOf(IStreamingBundleProvider.class);
+		assertEquals(300, outcome.sizeOrThrowNpe());
+		Set<String> streamedIds = ((IStreamingBundleProvider) outcome).streamResources(0, 300, theResources -> {
+			Set<String> ids = new HashSet<>();
+			theResources.forEachRemaining(t -> ids.add(t.getIdElement().getIdPart()));
+			return ids;
+		});
+		assertEquals(createdIds, streamedIds);
+		assertThat(outcome.getResources(0, 10)).hasSize(10);
+	}
+
 	public static void assertConflictException(String theResourceType, ResourceVersionConflictException e) {
 		assertThat(e.getMessage()).matches(Msg.code(550) + Msg.code(515) + "Unable to delete [a-zA-Z]+/[0-9]+ because at least one resource has a reference to this resource. First reference found was resource " + theResourceType + "/[0-9]+ in path [a-zA-Z]+.[a-zA-Z]+");
 
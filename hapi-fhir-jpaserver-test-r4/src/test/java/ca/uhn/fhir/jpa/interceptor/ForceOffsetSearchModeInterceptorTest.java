@@ -2,6 +2,7 @@ package ca.uhn.fhir.jpa.interceptor;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import ca.uhn.fhir.jpa.api.config.JpaStorageSettings;
 import ca.uhn.fhir.jpa.provider.BaseResourceProviderR4Test;
 import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
 import ca.uhn.fhir.rest.api.Constants;
@@ -12,6 +13,9 @@ import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import static org.assertj.core.api.Assertions.assertThat;
 
 public class ForceOffsetSearchModeInterceptorTest extends BaseResourceProviderR4Test {
@@ -36,6 +40,7 @@ public class ForceOffsetSearchModeInterceptorTest extends BaseResourceProviderR4
 
 		myInterceptorRegistry.unregisterInterceptor(mySvc);
 		myServer.setDefaultPageSize(myInitialDefaultPageSize);
+		myStorageSettings.setSearchKeysetPagingEnabled(new JpaStorageSettings().isSearchKeysetPagingEnabled());
 	}
 
 	@Test
@@ -92,6 +97,77 @@ public class ForceOffsetSearchModeInterceptorTest extends BaseResourceProviderR4
 		assertNull(outcome.getLink("next"));
 	}
 
+	@Test
+	public void testSearch_KeysetPaging_SortOnDate() {
+		myStorageSettings.setSearchKeysetPagingEnabled(true);
+		myServer.setDefaultPageSize(5);
+
+		// Pairs of patients share a birth date, so the resource ID has to break the ties
+		for (int i = 0; i < 12; i++) {
+			createPatient(withId("A" + i), withActiveTrue(), withBirthdate("2020-01-" + (10 + i / 2)));
+		}
+		createPatient(withId("A12"), withActiveTrue());
+		createPatient(withId("A13"), withActiveTrue());
+
+		// First page
+		Bundle outcome = myClient
+			.search()
+			.forResource("Patient")
+			.where(Patient.ACTIVE.exactly().code("true"))
+			.sort().ascending(Patient.BIRTHDATE)
+			.returnBundle(Bundle.class)
+			.execute();
+		assertThat(toUnqualifiedVersionlessIdValues(outcome)).containsExactly("Patient/A0", "Patient/A1", "Patient/A2", "Patient/A3", "Patient/A4");
+
+		// Second page
+		myCaptureQueriesListener.clear();
+		outcome = myClient.loadPage().next(outcome).execute();
+		assertThat(toUnqualifiedVersionlessIdValues(outcome)).containsExactly("Patient/A5", "Patient/A6", "Patient/A7", "Patient/A8", "Patient/A9");
+		myCaptureQueriesListener.logSelectQueries();
+		String sql = myCaptureQueriesListener.getSelectQueries().get(0).getSql(true, false);
+		assertThat(sql).contains("HAVING");
+		assertThat(sql).doesNotContain("offset");
+
+		// Third page - Patients without a birth date come last
+		myCaptureQueriesListener.clear();
+		outcome = myClient.loadPage().next(outcome).execute();
+		assertThat(toUnqualifiedVersionlessIdValues(outcome)).containsExactly("Patient/A10", "Patient/A11", "Patient/A12", "Patient/A13");
+		assertThat(myCaptureQueriesListener.getSelectQueries().get(0).getSql(true, false)).doesNotContain("offset");
+		assertNull(outcome.getLink("next"));
+	}
+
+	@Test
+	public void testSearch_KeysetPaging_SortOnLastUpdated() {
+		myStorageSettings.setSearchKeysetPagingEnabled(true);
+		myServer.setDefaultPageSize(5);
+
+		for (int i = 0; i < 10; i++) {
+			createPatient(withId("A" + i), withActiveTrue());
+		}
+
+		// First page
+		Bundle outcome = myClient
+			.search()
+			.forResource("Patient")
+			.where(Patient.ACTIVE.exactly().code("true"))
+			.sort().descending(Constants.PARAM_LASTUPDATED)
+			.returnBundle(Bundle.class)
+			.execute();
+		List<String> ids = new ArrayList<>(toUnqualifiedVersionlessIdValues(outcome));
+		assertThat(ids).hasSize(5);
+
+		// Second page - Resources have a single last updated time, so the seek doesn't need the aggregate
+		myCaptureQueriesListener.clear();
+		outcome = myClient.loadPage().next(outcome).execute();
+		ids.addAll(toUnqualifiedVersionlessIdValues(outcome));
+		assertThat(ids).containsExactlyInAnyOrder("Patient/A0", "Patient/A1", "Patient/A2", "Patient/A3", "Patient/A4", "Patient/A5", "Patient/A6", "Patient/A7", "Patient/A8", "Patient/A9");
+		myCaptureQueriesListener.logSelectQueries();
+		String sql = myCaptureQueriesListener.getSelectQueries().get(0).getSql(true, false);
+		assertThat(sql).doesNotContain("HAVING");
+		assertThat(sql).doesNotContain("offset");
+		assertNull(outcome.getLink("next"));
+	}
+
 	@Test
 	public void testPagingNextLink_whenAllResourcesHaveBeenReturned_willNotBePresent(){
 
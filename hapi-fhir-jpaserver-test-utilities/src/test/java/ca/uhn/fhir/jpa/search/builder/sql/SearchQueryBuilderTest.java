@@ -7,6 +7,8 @@ import ca.uhn.fhir.jpa.model.config.PartitionSettings;
 import ca.uhn.fhir.jpa.model.dialect.HapiFhirMariaDBDialect;
 import ca.uhn.fhir.jpa.model.dialect.HapiFhirOracleDialect;
 import ca.uhn.fhir.jpa.model.entity.StorageSettings;
+import ca.uhn.fhir.jpa.search.builder.predicate.QuantityNormalizedPredicateBuilder;
+import ca.uhn.fhir.jpa.search.builder.predicate.QuantityPredicateBuilder;
 import ca.uhn.fhir.jpa.search.builder.predicate.ResourceTablePredicateBuilder;
 import com.google.common.collect.Lists;
 import org.hibernate.dialect.DerbyDialect;
@@ -28,6 +30,8 @@ import java.util.Locale;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
 
 @ExtendWith(SpringExtension.class)
 @ContextConfiguration(classes = {SearchQueryBuilderTest.MyConfig.class})
@@ -428,10 +432,70 @@ public class SearchQueryBuilderTest {
 		assertThat(generated.getBindVariables()).as(generated.getBindVariables().toString()).containsExactly("Patient", 500L, 501L, 10, 5);
 
 	}
-	
+
+	@Test
+	public void testGenerateFromTemplate() {
+		HibernatePropertiesProvider dialectProvider = new HibernatePropertiesProvider();
+		dialectProvider.setDialectForUnitTest(new PostgreSQLDialect());
+		SearchQueryBuilder builder = new SearchQueryBuilder(myFhirContext, myStorageSettings, myPartitionSettings, myRequestPartitionId, "Patient", mySqlBuilderFactory, dialectProvider, false);
+		builder.addResourceIdsPredicate(Lists.newArrayList(500L, 501L));
+		GeneratedSqlTemplate template = builder.generateTemplate(null);
+
+		// Same structure with different values reuses the template
+		builder = new SearchQueryBuilder(myFhirContext, myStorageSettings, myPartitionSettings, myRequestPartitionId, "Patient", mySqlBuilderFactory, dialectProvider, false);
+		builder.addResourceIdsPredicate(Lists.newArrayList(600L, 601L));
+		assertSame(template, builder.generateTemplate(template));
+		GeneratedSql generated = builder.generate(template, null, 10);
+		assertEquals("SELECT t0.RES_ID FROM HFJ_RESOURCE t0 WHERE (((t0.RES_TYPE = ?) AND (t0.RES_DELETED_AT IS NULL)) AND (t0.RES_ID IN (?,?) )) fetch first ? rows only", generated.getSql());
+		assertThat(generated.getBindVariables()).as(generated.getBindVariables().toString()).containsExactly("Patient", 600L, 601L, 10);
+
+		// Different structure renders a new template
+		builder = new SearchQueryBuilder(myFhirContext, myStorageSettings, myPartitionSettings, myRequestPartitionId, "Patient", mySqlBuilderFactory, dialectProvider, false);
+		builder.addResourceIdsPredicate(Lists.newArrayList(700L));
+		GeneratedSqlTemplate newTemplate = builder.generateTemplate(template);
+		assertNotSame(template, newTemplate);
+		assertThat(builder.generate(newTemplate, null, null).getBindVariables()).containsExactly("Patient", 700L);
+	}
+
+	@Test
+	public void testGenerateFromTemplateWithDifferentTables() {
+		HibernatePropertiesProvider dialectProvider = new HibernatePropertiesProvider();
+		dialectProvider.setDialectForUnitTest(new PostgreSQLDialect());
+		SearchQueryBuilder builder = new SearchQueryBuilder(myFhirContext, myStorageSettings, myPartitionSettings, myRequestPartitionId, "Observation", mySqlBuilderFactory, dialectProvider, false);
+		QuantityPredicateBuilder quantity = builder.addQuantityPredicateBuilder(null);
+		builder.addPredicate(quantity.createHashIdentityPredicate("Observation", "value-quantity"));
+		GeneratedSqlTemplate template = builder.generateTemplate(null);
+		assertThat(template.getSql()).contains("HFJ_SPIDX_QUANTITY ");
+
+		// Same number and type of bind variables, but a different index table
+		builder = new SearchQueryBuilder(myFhirContext, myStorageSettings, myPartitionSettings, myRequestPartitionId, "Observation", mySqlBuilderFactory, dialectProvider, false);
+		QuantityNormalizedPredicateBuilder normalized = builder.addQuantityNormalizedPredicateBuilder(null);
+		builder.addPredicate(normalized.createHashIdentityPredicate("Observation", "value-quantity"));
+		GeneratedSqlTemplate newTemplate = builder.generateTemplate(template);
+		assertNotSame(template, newTemplate);
+		assertThat(newTemplate.getSql()).contains("HFJ_SPIDX_QUANTITY_NRML");
+	}
+
 	@Configuration
 	public static class MyConfig {
 
+		@Bean
+		public FhirContext fhirContext() {
+			return FhirContext.forR4Cached();
+		}
+
+		@Bean
+		@Scope("prototype")
+		public QuantityPredicateBuilder QuantityPredicateBuilder(SearchQueryBuilder theSearchQueryBuilder) {
+			return new QuantityPredicateBuilder(theSearchQueryBuilder);
+		}
+
+		@Bean
+		@Scope("prototype")
+		public QuantityNormalizedPredicateBuilder QuantityNormalizedPredicateBuilder(SearchQueryBuilder theSearchQueryBuilder) {
+			return new QuantityNormalizedPredicateBuilder(theSearchQueryBuilder);
+		}
+
 		@Bean
 		@Scope("prototype")
 		public ResourceTablePredicateBuilder ResourceTablePredicateBuilder(SearchQueryBuilder theSearchQueryBuilder) {
@@ -1,10 +1,12 @@
 package ca.uhn.fhir.jpa.util;
 
 import ca.uhn.fhir.jpa.api.config.JpaStorageSettings;
+import ca.uhn.fhir.jpa.api.model.MemoryCacheSettings;
 import ca.uhn.fhir.jpa.model.entity.TagDefinition;
 import ca.uhn.fhir.jpa.model.entity.TagTypeEnum;
 import ca.uhn.fhir.sl.cache.Cache;
 import ca.uhn.fhir.sl.cache.CacheFactory;
+import ca.uhn.fhir.sl.cache.CacheStatistics;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Disabled;
@@ -15,6 +17,7 @@ import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
@@ -25,6 +28,7 @@ import java.util.concurrent.TimeoutException;
 import java.util.function.Predicate;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -64,6 +68,43 @@ class MemoryCacheServiceTest {
 		assertEquals(tagDef, retVal);
 	}
 
+	@Test
+	public void testStatisticsRecorded() {
+		String key = "Patient/123";
+		assertNull(mySvc.getIfPresent(MemoryCacheService.CacheEnum.MATCH_URL, key));
+		mySvc.get(MemoryCacheService.CacheEnum.MATCH_URL, key, k -> 123L);
+		mySvc.get(MemoryCacheService.CacheEnum.MATCH_URL, key, k -> 456L);
+
+		CacheStatistics statistics = mySvc.getStatistics(MemoryCacheService.CacheEnum.MATCH_URL);
+		assertEquals(1, statistics.getHitCount());
+		assertEquals(2, statistics.getMissCount());
+		assertEquals(1, statistics.getLoadSuccessCount());
+		assertEquals(1.0 / 3.0, statistics.getHitRate(), 0.001);
+	}
+
+	@Test
+	public void testPerCacheMaximumSize() {
+		JpaStorageSettings storageSettings = new JpaStorageSettings();
+		storageSettings.setMemoryCacheSettings(
+			MemoryCacheService.CacheEnum.FORCED_ID_TO_PID, new MemoryCacheSettings().setMaximumSize(10L));
+		storageSettings.setMemoryCacheSettings(
+			MemoryCacheService.CacheEnum.PID_TO_FORCED_ID, new MemoryCacheSettings().setMaximumWeightBytes(1000L));
+		mySvc = new MemoryCacheService(storageSettings);
+
+		for (long i = 0; i < 100; i++) {
+			mySvc.put(MemoryCacheService.CacheEnum.FORCED_ID_TO_PID, "Patient/" + i, i);
+			mySvc.put(MemoryCacheService.CacheEnum.PID_TO_FORCED_ID, i, Optional.of("Patient/" + i));
+			mySvc.put(MemoryCacheService.CacheEnum.MATCH_URL, "Patient?identifier=" + i, i);
+		}
+
+		// Evictions are applied asynchronously
+		await().until(() -> mySvc.getEstimatedSize(MemoryCacheService.CacheEnum.FORCED_ID_TO_PID) <= 10);
+		// Each entry weighs roughly 150 bytes
+		await().until(() -> mySvc.getEstimatedSize(MemoryCacheService.CacheEnum.PID_TO_FORCED_ID) <= 10);
+		assertEquals(100, mySvc.getEstimatedSize(MemoryCacheService.CacheEnum.MATCH_URL));
+		assertThat(mySvc.getStatistics(MemoryCacheService.CacheEnum.FORCED_ID_TO_PID).getEvictionCount()).isGreaterThanOrEqualTo(90);
+	}
+
 	@Nested
 	public static class CaffeineAbuseTest {
 
@@ -0,0 +1,53 @@
+/*
+ * #%L
+ * HAPI FHIR - Server Framework
+ * %%
+ * Copyright (C) 2014 - 2024 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.rest.api.server;
+
+import org.hl7.fhir.instance.model.api.IBaseResource;
+
+import java.util.Iterator;
+import java.util.function.Function;
+
+/**
+ * A bundle provider which can supply the resources for a page one at a time as they are
+ * loaded, instead of loading the whole page first. If
+ * {@link ca.uhn.fhir.rest.server.RestfulServer#setStreamBundleResponses(boolean) streaming}
+ * is enabled, search responses from such a provider are written as the resources are loaded,
+ * as long as the provider knows its {@link #size()} and no <code>_include</code> or
+ * <code>_revinclude</code> parameters were requested. Otherwise
+ * {@link #getResources(int, int, ca.uhn.fhir.rest.server.method.ResponsePage.ResponsePageBuilder)}
+ * is used as usual.
+ *
+ * @since 7.6.0
+ */
+public interface IStreamingBundleProvider extends IBundleProvider {
+
+	/**
+	 * Passes an iterator over the resources in the given range to the given callback. The
+	 * resources are the same as those which would be returned by
+	 * {@link #getResources(int, int)}, but they are loaded as the iterator is advanced, and the
+	 * iterator may only be used until the callback returns.
+	 *
+	 * @param theFromIndex The low index (inclusive) to return
+	 * @param theToIndex   The high index (exclusive) to return
+	 * @param theCallback  Receives the resources
+	 * @return Returns the value returned by the callback
+	 */
+	<T> T streamResources(int theFromIndex, int theToIndex, Function<Iterator<IBaseResource>, T> theCallback);
+}
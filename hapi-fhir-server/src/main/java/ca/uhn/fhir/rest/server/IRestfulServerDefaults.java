@@ -99,6 +99,21 @@ public interface IRestfulServerDefaults {
 	 */
 	boolean isDefaultPrettyPrint();
 
+	/**
+	 * Should Bundle responses for searches be streamed to the client entry by entry, instead of first being
+	 * built completely in memory and then encoded. Bundle responses are never streamed if any interceptor
+	 * is registered for the {@link ca.uhn.fhir.interceptor.api.Pointcut#SERVER_OUTGOING_RESPONSE} pointcut,
+	 * since those interceptors are given the complete response Bundle.
+	 * <p>
+	 * The default is <code>false</code>
+	 * </p>
+	 *
+	 * @since 7.6.0
+	 */
+	default boolean isStreamBundleResponses() {
+		return false;
+	}
+
 	/**
 	 * Returns the interceptor service for this server
 	 */
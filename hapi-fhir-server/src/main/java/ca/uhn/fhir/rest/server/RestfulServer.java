@@ -156,6 +156,7 @@ public class RestfulServer extends HttpServlet implements IRestfulServer<Servlet
 	private Integer myDefaultPageSize;
 	private Integer myMaximumPageSize;
 	private boolean myStatelessPagingDefault = false;
+	private boolean myStreamBundleResponses = false;
 	private Lock myProviderRegistrationMutex = new ReentrantLock();
 	private Map<String, ResourceBinding> myResourceNameToBinding = new HashMap<>();
 	private IServerAddressStrategy myServerAddressStrategy = new IncomingRequestAddressStrategy();
@@ -1567,6 +1568,43 @@ public class RestfulServer extends HttpServlet implements IRestfulServer<Servlet
 		myDefaultPrettyPrint = theDefaultPrettyPrint;
 	}
 
+	/**
+	 * Should Bundle responses for searches be streamed to the client entry by entry, instead of first being
+	 * built completely in memory and then encoded (default is <code>false</code>). Each entry is only
+	 * created as it is written to the response. If the search returns an
+	 * {@link ca.uhn.fhir.rest.api.server.IStreamingBundleProvider}, the resources themselves are also
+	 * only loaded as they are written.
+	 * <p>
+	 * Bundle responses are never streamed if any interceptor is registered for the
+	 * {@link Pointcut#SERVER_OUTGOING_RESPONSE} pointcut, since those interceptors are given the
+	 * complete response Bundle.
+	 * </p>
+	 *
+	 * @since 7.6.0
+	 */
+	@Override
+	public boolean isStreamBundleResponses() {
+		return myStreamBundleResponses;
+	}
+
+	/**
+	 * Should Bundle responses for searches be streamed to the client entry by entry, instead of first being
+	 * built completely in memory and then encoded (default is <code>false</code>). Each entry is only
+	 * created as it is written to the response. If the search returns an
+	 * {@link ca.uhn.fhir.rest.api.server.IStreamingBundleProvider}, the resources themselves are also
+	 * only loaded as they are written.
+	 * <p>
+	 * Bundle responses are never streamed if any interceptor is registered for the
+	 * {@link Pointcut#SERVER_OUTGOING_RESPONSE} pointcut, since those interceptors are given the
+	 * complete response Bundle.
+	 * </p>
+	 *
+	 * @since 7.6.0
+	 */
+	public void setStreamBundleResponses(boolean theStreamBundleResponses) {
+		myStreamBundleResponses = theStreamBundleResponses;
+	}
+
 	/**
 	 * If set to <code>true</code> (the default is <code>true</code>) this server will not
 	 * use the parsed request parameters (URL parameters and HTTP POST form contents) but
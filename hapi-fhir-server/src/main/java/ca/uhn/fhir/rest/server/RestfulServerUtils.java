@@ -58,7 +58,9 @@ import jakarta.servlet.http.HttpServletRequest;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.math.NumberUtils;
 import org.hl7.fhir.instance.model.api.IAnyResource;
+import org.hl7.fhir.instance.model.api.IBase;
 import org.hl7.fhir.instance.model.api.IBaseBinary;
+import org.hl7.fhir.instance.model.api.IBaseBundle;
 import org.hl7.fhir.instance.model.api.IBaseReference;
 import org.hl7.fhir.instance.model.api.IBaseResource;
 import org.hl7.fhir.instance.model.api.IDomainResource;
@@ -913,10 +915,7 @@ public class RestfulServerUtils {
 		}
 
 		if (theAddContentLocationHeader && fullId != null) {
-			if (theRequestDetails.getRequestType() == RequestTypeEnum.POST) {
-				response.addHeader(Constants.HEADER_LOCATION, fullId.getValue());
-			}
-			response.addHeader(Constants.HEADER_CONTENT_LOCATION, fullId.getValue());
+			addContentLocationHeaders(theRequestDetails, fullId);
 		}
 
 		if (theServer.getETagSupport() == ETagSupportEnum.ENABLED) {
@@ -1018,24 +1017,7 @@ public class RestfulServerUtils {
 		} else {
 			contentType = responseEncoding.getResourceContentType();
 		}
-		String charset = Constants.CHARSET_NAME_UTF8;
-
-		Writer writer = response.getResponseWriter(theStatusCode, contentType, charset, respondGzip);
-
-		// Interceptor call: SERVER_OUTGOING_WRITER_CREATED
-		if (theServer.getInterceptorService() != null
-				&& theServer.getInterceptorService().hasHooks(Pointcut.SERVER_OUTGOING_WRITER_CREATED)) {
-			HookParams params = new HookParams()
-					.add(Writer.class, writer)
-					.add(RequestDetails.class, theRequestDetails)
-					.addIfMatchesType(ServletRequestDetails.class, theRequestDetails);
-			Object newWriter = theServer
-					.getInterceptorService()
-					.callHooksAndReturnObject(Pointcut.SERVER_OUTGOING_WRITER_CREATED, params);
-			if (newWriter != null) {
-				writer = (Writer) newWriter;
-			}
-		}
+		Writer writer = createResponseWriter(theServer, theRequestDetails, theStatusCode, contentType, respondGzip);
 
 		if (theResource == null) {
 			// No response is being returned
@@ -1058,6 +1040,93 @@ public class RestfulServerUtils {
 		return response.commitResponse(writer);
 	}
 
+	/**
+	 * Streams a Bundle response, where the <code>Bundle.entry</code> values are supplied by an iterator and
+	 * each one is written to the response as soon as it is produced, instead of first being collected
+	 * into the Bundle. See {@link IParser#encodeBundleToWriter(IBaseBundle, Iterator, Writer)} for details
+	 * on the values which may be supplied by the iterator.
+	 *
+	 * @since 7.6.0
+	 */
+	public static Object streamResponseAsBundle(
+			IRestfulServerDefaults theServer,
+			IBaseBundle theBundle,
+			Iterator<? extends IBase> theEntries,
+			int theStatusCode,
+			boolean theAddContentLocationHeader,
+			boolean respondGzip,
+			RequestDetails theRequestDetails)
+			throws IOException {
+		IRestfulResponse response = theRequestDetails.getResponse();
+
+		if (theAddContentLocationHeader && theBundle.getIdElement() != null) {
+			IIdType fullId = fullyQualifyResourceIdOrReturnNull(
+					theServer, theBundle, theRequestDetails.getFhirServerBase(), theBundle.getIdElement());
+			if (fullId != null) {
+				addContentLocationHeaders(theRequestDetails, fullId);
+			}
+		}
+
+		ResponseEncoding responseEncoding = RestfulServerUtils.determineResponseEncodingNoDefault(
+				theRequestDetails, theServer.getDefaultResponseEncoding());
+		if (responseEncoding == null) {
+			responseEncoding =
+					new ResponseEncoding(theServer.getFhirContext(), theServer.getDefaultResponseEncoding(), null);
+		}
+
+		IPrimitiveType<Date> lastUpdated = extractLastUpdatedFromResource(theBundle);
+		if (lastUpdated != null && lastUpdated.isEmpty() == false) {
+			response.addHeader(Constants.HEADER_LAST_MODIFIED, DateUtils.formatDate(lastUpdated.getValue()));
+		}
+
+		String contentType = responseEncoding.getResourceContentType();
+		Writer writer = createResponseWriter(theServer, theRequestDetails, theStatusCode, contentType, respondGzip);
+
+		FhirVersionEnum forVersion = theBundle.getStructureFhirVersionEnum();
+		IParser parser = getNewParser(theServer.getFhirContext(), forVersion, theRequestDetails);
+		parser.encodeBundleToWriter(theBundle, theEntries, writer);
+
+		return response.commitResponse(writer);
+	}
+
+	private static void addContentLocationHeaders(RequestDetails theRequestDetails, IIdType theFullId) {
+		IRestfulResponse response = theRequestDetails.getResponse();
+		if (theRequestDetails.getRequestType() == RequestTypeEnum.POST) {
+			response.addHeader(Constants.HEADER_LOCATION, theFullId.getValue());
+		}
+		response.addHeader(Constants.HEADER_CONTENT_LOCATION, theFullId.getValue());
+	}
+
+	private static Writer createResponseWriter(
+			IRestfulServerDefaults theServer,
+			RequestDetails theRequestDetails,
+			int theStatusCode,
+			String theContentType,
+			boolean respondGzip)
+			throws IOException {
+		String charset = Constants.CHARSET_NAME_UTF8;
+
+		Writer writer = theRequestDetails
+				.getResponse()
+				.getResponseWriter(theStatusCode, theContentType, charset, respondGzip);
+
+		// Interceptor call: SERVER_OUTGOING_WRITER_CREATED
+		if (theServer.getInterceptorService() != null
+				&& theServer.getInterceptorService().hasHooks(Pointcut.SERVER_OUTGOING_WRITER_CREATED)) {
+			HookParams params = new HookParams()
+					.add(Writer.class, writer)
+					.add(RequestDetails.class, theRequestDetails)
+					.addIfMatchesType(ServletRequestDetails.class, theRequestDetails);
+			Object newWriter = theServer
+					.getInterceptorService()
+					.callHooksAndReturnObject(Pointcut.SERVER_OUTGOING_WRITER_CREATED, params);
+			if (newWriter != null) {
+				writer = (Writer) newWriter;
+			}
+		}
+		return writer;
+	}
+
 	private static String getBinaryContentTypeOrDefault(IBaseBinary theBinary) {
 		String contentType;
 		if (isNotBlank(theBinary.getContentType())) {
@@ -141,6 +141,20 @@ public abstract class BaseResourceReturningMethodBinding extends BaseMethodBindi
 	}
 
 	public IBaseResource doInvokeServer(IRestfulServer<?> theServer, RequestDetails theRequest) {
+		return (IBaseResource) doInvokeServer(theServer, theRequest, false);
+	}
+
+	/**
+	 * Invokes the method and builds the response.
+	 *
+	 * @param theStreamBundle If <code>true</code>, a Bundle response built from an {@link IBundleProvider} is
+	 *                        returned as a {@link ResponseBundleBuilder.StreamedResponseBundle} so that its
+	 *                        entries can be streamed. If the provider is an
+	 *                        {@link ca.uhn.fhir.rest.api.server.IStreamingBundleProvider}, its resources are
+	 *                        also only loaded while the response is written. Otherwise, the response is always
+	 *                        an {@link IBaseResource}.
+	 */
+	protected Object doInvokeServer(IRestfulServer<?> theServer, RequestDetails theRequest, boolean theStreamBundle) {
 		Object[] params = createMethodParams(theRequest);
 
 		Object resultObj = invokeServer(theServer, theRequest, params);
@@ -198,6 +212,9 @@ public abstract class BaseResourceReturningMethodBinding extends BaseMethodBindi
 							count,
 							responseBundleType,
 							linkSelf);
+					if (theStreamBundle) {
+						return myResponseBundleBuilder.buildStreamedResponseBundle(responseBundleRequest);
+					}
 					responseObject = myResponseBundleBuilder.buildResponseBundle(responseBundleRequest);
 				}
 				break;
@@ -272,7 +289,22 @@ public abstract class BaseResourceReturningMethodBinding extends BaseMethodBindi
 	@Override
 	public Object invokeServer(IRestfulServer<?> theServer, RequestDetails theRequest)
 			throws BaseServerResponseException, IOException {
-		IBaseResource response = doInvokeServer(theServer, theRequest);
+		boolean streamBundle = theServer.isStreamBundleResponses() && !hasOutgoingResponseHooks(theRequest);
+		Object responseObject = doInvokeServer(theServer, theRequest, streamBundle);
+		if (responseObject instanceof ResponseBundleBuilder.StreamedResponseBundle) {
+			ResponseBundleBuilder.StreamedResponseBundle streamedBundle =
+					(ResponseBundleBuilder.StreamedResponseBundle) responseObject;
+			return streamedBundle.write((theBundle, theEntries) -> RestfulServerUtils.streamResponseAsBundle(
+					theServer,
+					theBundle,
+					theEntries,
+					Constants.STATUS_HTTP_200_OK,
+					isAddContentLocationHeader(),
+					theRequest.isRespondGzip(),
+					theRequest));
+		}
+
+		IBaseResource response = (IBaseResource) responseObject;
 		/*
 		When we write directly to an HttpServletResponse, the invocation returns null. However, we still want to invoke
 		the SERVER_OUTGOING_RESPONSE pointcut.
@@ -330,6 +362,11 @@ public abstract class BaseResourceReturningMethodBinding extends BaseMethodBindi
 		RESOURCE
 	}
 
+	private static boolean hasOutgoingResponseHooks(RequestDetails theRequest) {
+		return theRequest.getInterceptorBroadcaster() != null
+				&& theRequest.getInterceptorBroadcaster().hasHooks(Pointcut.SERVER_OUTGOING_RESPONSE);
+	}
+
 	public static boolean callOutgoingResponseHook(RequestDetails theRequest, ResponseDetails theResponseDetails) {
 		HttpServletRequest servletRequest = null;
 		HttpServletResponse servletResponse = null;
@@ -74,17 +74,20 @@ public class PageMethodBinding extends BaseResourceReturningMethodBinding {
 	public Object invokeServer(IRestfulServer<?> theServer, RequestDetails theRequest, Object[] theMethodParams)
 			throws InvalidRequestException, InternalErrorException {
 		return handlePagingRequest(
-				theServer, theRequest, theRequest.getParameters().get(Constants.PARAM_PAGINGACTION)[0]);
+				theServer, theRequest, theRequest.getParameters().get(Constants.PARAM_PAGINGACTION)[0], false);
 	}
 
 	@Override
-	public IBaseResource doInvokeServer(IRestfulServer<?> theServer, RequestDetails theRequest) {
+	protected Object doInvokeServer(IRestfulServer<?> theServer, RequestDetails theRequest, boolean theStreamBundle) {
 		return handlePagingRequest(
-				theServer, theRequest, theRequest.getParameters().get(Constants.PARAM_PAGINGACTION)[0]);
+				theServer,
+				theRequest,
+				theRequest.getParameters().get(Constants.PARAM_PAGINGACTION)[0],
+				theStreamBundle);
 	}
 
-	private IBaseResource handlePagingRequest(
-			IRestfulServer<?> theServer, RequestDetails theRequest, String thePagingAction) {
+	private Object handlePagingRequest(
+			IRestfulServer<?> theServer, RequestDetails theRequest, String thePagingAction, boolean theStreamBundle) {
 		IPagingProvider pagingProvider = theServer.getPagingProvider();
 		if (pagingProvider == null) {
 			throw new InvalidRequestException(Msg.code(416) + "This server does not support paging");
@@ -96,6 +99,9 @@ public class PageMethodBinding extends BaseResourceReturningMethodBinding {
 
 		ResponseBundleRequest responseBundleRequest =
 				buildResponseBundleRequest(theServer, theRequest, thePagingAction, pagingProvider);
+		if (theStreamBundle) {
+			return myResponseBundleBuilder.buildStreamedResponseBundle(responseBundleRequest);
+		}
 		return myResponseBundleBuilder.buildResponseBundle(responseBundleRequest);
 	}
 
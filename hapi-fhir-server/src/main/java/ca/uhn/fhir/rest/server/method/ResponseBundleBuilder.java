@@ -19,27 +19,42 @@
  */
 package ca.uhn.fhir.rest.server.method;
 
+import ca.uhn.fhir.context.BaseRuntimeChildDefinition;
+import ca.uhn.fhir.context.BaseRuntimeElementCompositeDefinition;
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.context.RuntimeResourceDefinition;
 import ca.uhn.fhir.i18n.Msg;
 import ca.uhn.fhir.rest.api.BundleLinks;
 import ca.uhn.fhir.rest.api.IVersionSpecificBundleFactory;
 import ca.uhn.fhir.rest.api.RestOperationTypeEnum;
 import ca.uhn.fhir.rest.api.server.IBundleProvider;
 import ca.uhn.fhir.rest.api.server.IRestfulServer;
+import ca.uhn.fhir.rest.api.server.IStreamingBundleProvider;
 import ca.uhn.fhir.rest.api.server.RequestDetails;
 import ca.uhn.fhir.rest.server.IPagingProvider;
 import ca.uhn.fhir.rest.server.RestfulServerUtils;
 import ca.uhn.fhir.rest.server.exceptions.InternalErrorException;
 import org.apache.commons.lang3.StringUtils;
+import org.hl7.fhir.instance.model.api.IBase;
 import org.hl7.fhir.instance.model.api.IBaseBundle;
 import org.hl7.fhir.instance.model.api.IBaseOperationOutcome;
 import org.hl7.fhir.instance.model.api.IBaseResource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
 
 /**
  * Service to build a FHIR Bundle from a request and a Bundle Provider
@@ -54,7 +69,7 @@ public class ResponseBundleBuilder {
 	}
 
 	IBaseBundle buildResponseBundle(ResponseBundleRequest theResponseBundleRequest) {
-		final ResponsePage responsePage = buildResponsePage(theResponseBundleRequest);
+		final ResponsePage responsePage = buildResponsePage(theResponseBundleRequest, IBundleProvider::getResources);
 
 		removeNulls(responsePage.getResourceList());
 		validateIds(responsePage.getResourceList());
@@ -64,15 +79,60 @@ public class ResponseBundleBuilder {
 		return buildBundle(theResponseBundleRequest, responsePage, links);
 	}
 
+	/**
+	 * Like {@link #buildResponseBundle(ResponseBundleRequest)}, but the returned Bundle has no entries.
+	 * The entries are instead supplied by {@link StreamedResponseBundle#write(IStreamedBundleWriter)},
+	 * and each one is only created as it is iterated. If the bundle provider is an
+	 * {@link IStreamingBundleProvider}, the resources themselves are also only loaded as they are
+	 * iterated.
+	 */
+	StreamedResponseBundle buildStreamedResponseBundle(ResponseBundleRequest theResponseBundleRequest) {
+		final IBundleProvider bundleProvider = theResponseBundleRequest.bundleProvider;
+		if (bundleProvider instanceof IStreamingBundleProvider
+				&& bundleProvider.size() != null
+				&& bundleProvider.getCurrentPageId() == null
+				&& theResponseBundleRequest.includes.isEmpty()) {
+			// The page is only loaded while the response is written, and the links only depend on the size
+			int[] range = new int[2];
+			final ResponsePage responsePage = buildResponsePage(
+					theResponseBundleRequest, (theProvider, theFromIndex, theToIndex, theResponsePageBuilder) -> {
+						range[0] = theFromIndex;
+						range[1] = theToIndex;
+						return new ArrayList<>();
+					});
+
+			BundleLinks links = buildLinks(theResponseBundleRequest, responsePage);
+
+			IBaseBundle bundle = (IBaseBundle) buildBundleRoot(theResponseBundleRequest, links).getResourceBundle();
+			return new StreamedResponseBundle(
+					bundle, theCallback -> ((IStreamingBundleProvider) bundleProvider)
+							.streamResources(
+									range[0],
+									range[1],
+									t -> theCallback.apply(new StreamedEntryIterator(
+											theResponseBundleRequest, t, Collections.emptyList(), links.serverBase))));
+		}
+
+		final ResponsePage responsePage = buildResponsePage(theResponseBundleRequest, IBundleProvider::getResources);
+
+		removeNulls(responsePage.getResourceList());
+		validateIds(responsePage.getResourceList());
+
+		BundleLinks links = buildLinks(theResponseBundleRequest, responsePage);
+
+		IBaseBundle bundle = (IBaseBundle) buildBundleRoot(theResponseBundleRequest, links).getResourceBundle();
+		List<IBaseResource> resources = responsePage.getResourceList();
+		return new StreamedResponseBundle(
+				bundle,
+				theCallback -> theCallback.apply(new StreamedEntryIterator(
+						theResponseBundleRequest, resources.iterator(), resources, links.serverBase)));
+	}
+
 	private static IBaseBundle buildBundle(
 			ResponseBundleRequest theResponseBundleRequest, ResponsePage pageResponse, BundleLinks links) {
 		final IRestfulServer<?> server = theResponseBundleRequest.server;
-		final IVersionSpecificBundleFactory bundleFactory =
-				server.getFhirContext().newBundleFactory();
-		final IBundleProvider bundleProvider = theResponseBundleRequest.bundleProvider;
+		final IVersionSpecificBundleFactory bundleFactory = buildBundleRoot(theResponseBundleRequest, links);
 
-		bundleFactory.addRootPropertiesToBundle(
-				bundleProvider.getUuid(), links, bundleProvider.size(), bundleProvider.getPublished());
 		bundleFactory.addResourcesToBundle(
 				new ArrayList<>(pageResponse.getResourceList()),
 				theResponseBundleRequest.bundleType,
@@ -83,7 +143,20 @@ public class ResponseBundleBuilder {
 		return (IBaseBundle) bundleFactory.getResourceBundle();
 	}
 
-	private ResponsePage buildResponsePage(ResponseBundleRequest theResponseBundleRequest) {
+	private static IVersionSpecificBundleFactory buildBundleRoot(
+			ResponseBundleRequest theResponseBundleRequest, BundleLinks links) {
+		final IVersionSpecificBundleFactory bundleFactory =
+				theResponseBundleRequest.server.getFhirContext().newBundleFactory();
+		final IBundleProvider bundleProvider = theResponseBundleRequest.bundleProvider;
+
+		bundleFactory.addRootPropertiesToBundle(
+				bundleProvider.getUuid(), links, bundleProvider.size(), bundleProvider.getPublished());
+
+		return bundleFactory;
+	}
+
+	private ResponsePage buildResponsePage(
+			ResponseBundleRequest theResponseBundleRequest, IPageResourceLoader theResourceLoader) {
 		final IRestfulServer<?> server = theResponseBundleRequest.server;
 		final IBundleProvider bundleProvider = theResponseBundleRequest.bundleProvider;
 		final RequestedPage requestedPage = theResponseBundleRequest.requestedPage;
@@ -99,7 +172,8 @@ public class ResponseBundleBuilder {
 			pageSize = offsetCalculatePageSize(server, requestedPage, bundleProvider.size());
 			numToReturn = pageSize;
 
-			resourceList = offsetBuildResourceList(bundleProvider, requestedPage, numToReturn, responsePageBuilder);
+			resourceList = offsetBuildResourceList(
+					bundleProvider, requestedPage, numToReturn, responsePageBuilder, theResourceLoader);
 			RestfulServerUtils.validateResourceListNotNull(resourceList);
 		} else {
 			pageSize = pagingCalculatePageSize(requestedPage, server.getPagingProvider());
@@ -111,8 +185,8 @@ public class ResponseBundleBuilder {
 				numToReturn = Math.min(pageSize, size.intValue() - theResponseBundleRequest.offset);
 			}
 
-			resourceList =
-					pagingBuildResourceList(theResponseBundleRequest, bundleProvider, numToReturn, responsePageBuilder);
+			resourceList = pagingBuildResourceList(
+					theResponseBundleRequest, bundleProvider, numToReturn, responsePageBuilder, theResourceLoader);
 			RestfulServerUtils.validateResourceListNotNull(resourceList);
 
 			searchId = pagingBuildSearchId(theResponseBundleRequest, numToReturn, bundleProvider.size());
@@ -157,10 +231,12 @@ public class ResponseBundleBuilder {
 			ResponseBundleRequest theResponseBundleRequest,
 			IBundleProvider theBundleProvider,
 			int theNumToReturn,
-			ResponsePage.ResponsePageBuilder theResponsePageBuilder) {
+			ResponsePage.ResponsePageBuilder theResponsePageBuilder,
+			IPageResourceLoader theResourceLoader) {
 		final List<IBaseResource> retval;
 		if (theNumToReturn > 0 || theBundleProvider.getCurrentPageId() != null) {
-			retval = theBundleProvider.getResources(
+			retval = theResourceLoader.load(
+					theBundleProvider,
 					theResponseBundleRequest.offset,
 					theNumToReturn + theResponseBundleRequest.offset,
 					theResponsePageBuilder);
@@ -182,15 +258,16 @@ public class ResponseBundleBuilder {
 			IBundleProvider theBundleProvider,
 			RequestedPage theRequestedPage,
 			int theNumToReturn,
-			ResponsePage.ResponsePageBuilder theResponsePageBuilder) {
+			ResponsePage.ResponsePageBuilder theResponsePageBuilder,
+			IPageResourceLoader theResourceLoader) {
 		final List<IBaseResource> retval;
 		if ((theRequestedPage.offset != null && !myIsOffsetModeHistory)
 				|| theBundleProvider.getCurrentPageOffset() != null) {
 			// When offset query is done theResult already contains correct amount (+ their includes etc.) so return
 			// everything
-			retval = theBundleProvider.getResources(0, Integer.MAX_VALUE, theResponsePageBuilder);
+			retval = theResourceLoader.load(theBundleProvider, 0, Integer.MAX_VALUE, theResponsePageBuilder);
 		} else if (theNumToReturn > 0) {
-			retval = theBundleProvider.getResources(0, theNumToReturn, theResponsePageBuilder);
+			retval = theResourceLoader.load(theBundleProvider, 0, theNumToReturn, theResponsePageBuilder);
 		} else {
 			retval = Collections.emptyList();
 		}
@@ -272,6 +349,161 @@ public class ResponseBundleBuilder {
 		return retval;
 	}
 
+	/**
+	 * Loads the resources for a page from a bundle provider
+	 */
+	@FunctionalInterface
+	private interface IPageResourceLoader {
+		List<IBaseResource> load(
+				IBundleProvider theBundleProvider,
+				int theFromIndex,
+				int theToIndex,
+				ResponsePage.ResponsePageBuilder theResponsePageBuilder);
+	}
+
+	/**
+	 * Writes a response Bundle along with the entries to stream into it
+	 */
+	@FunctionalInterface
+	interface IStreamedBundleWriter {
+		Object write(IBaseBundle theBundle, Iterator<IBase> theEntries) throws IOException;
+	}
+
+	/**
+	 * A response Bundle without any entries, along with the entries to stream into it
+	 */
+	static class StreamedResponseBundle {
+		private final IBaseBundle myBundle;
+		private final Function<Function<Iterator<IBase>, Object>, Object> myEntries;
+
+		private StreamedResponseBundle(
+				IBaseBundle theBundle, Function<Function<Iterator<IBase>, Object>, Object> theEntries) {
+			myBundle = theBundle;
+			myEntries = theEntries;
+		}
+
+		IBaseBundle getBundle() {
+			return myBundle;
+		}
+
+		/**
+		 * Passes the Bundle and its entries to the given writer. The entries may only be
+		 * used until the writer returns.
+		 *
+		 * @return Returns the value returned by the writer
+		 */
+		Object write(IStreamedBundleWriter theWriter) throws IOException {
+			try {
+				return myEntries.apply(t -> {
+					try {
+						return theWriter.write(myBundle, t);
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				});
+			} catch (UncheckedIOException e) {
+				throw e.getCause();
+			}
+		}
+	}
+
+	/**
+	 * Creates the <code>Bundle.entry</code> values for a page of resources one resource at a time, using
+	 * the same rules as {@link IVersionSpecificBundleFactory#addResourcesToBundle}. Any resources included
+	 * by a resource are supplied directly after it, and are skipped if they have already been supplied or
+	 * are part of the page itself.
+	 */
+	private static class StreamedEntryIterator implements Iterator<IBase> {
+		private final ResponseBundleRequest myResponseBundleRequest;
+		private final Iterator<IBaseResource> myResources;
+		private final String myServerBase;
+		private final Set<String> mySuppliedResourceIds = new HashSet<>();
+		private final Deque<IBase> myPendingEntries = new ArrayDeque<>();
+
+		/**
+		 * @param theResources     The page resources to create entries for
+		 * @param thePageResources The page resources which are already known, so that resources they
+		 *                         include are never supplied before them
+		 */
+		private StreamedEntryIterator(
+				ResponseBundleRequest theResponseBundleRequest,
+				Iterator<IBaseResource> theResources,
+				List<IBaseResource> thePageResources,
+				String theServerBase) {
+			myResponseBundleRequest = theResponseBundleRequest;
+			myResources = theResources;
+			myServerBase = theServerBase;
+
+			FhirContext context = theResponseBundleRequest.server.getFhirContext();
+			for (IBaseResource next : thePageResources) {
+				mySuppliedResourceIds.add(toResourceId(context, next));
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			while (myPendingEntries.isEmpty() && myResources.hasNext()) {
+				addEntriesForNextResource();
+			}
+			return !myPendingEntries.isEmpty();
+		}
+
+		@Override
+		public IBase next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			return myPendingEntries.removeFirst();
+		}
+
+		private void addEntriesForNextResource() {
+			IBaseResource resource = myResources.next();
+			if (resource == null) {
+				return;
+			}
+			validateIds(Collections.singletonList(resource));
+
+			IRestfulServer<?> server = myResponseBundleRequest.server;
+			FhirContext context = server.getFhirContext();
+			mySuppliedResourceIds.add(toResourceId(context, resource));
+			IVersionSpecificBundleFactory bundleFactory = context.newBundleFactory();
+			bundleFactory.addResourcesToBundle(
+					Collections.singletonList(resource),
+					myResponseBundleRequest.bundleType,
+					myServerBase,
+					server.getBundleInclusionRule(),
+					myResponseBundleRequest.includes);
+
+			IBaseResource bundle = bundleFactory.getResourceBundle();
+			RuntimeResourceDefinition bundleDef = context.getResourceDefinition(bundle);
+			BaseRuntimeChildDefinition entryChild = bundleDef.getChildByName("entry");
+			BaseRuntimeElementCompositeDefinition<?> entryDef =
+					(BaseRuntimeElementCompositeDefinition<?>) entryChild.getChildByName("entry");
+			BaseRuntimeChildDefinition resourceChild = entryDef.getChildByName("resource");
+
+			List<IBase> entries = entryChild.getAccessor().getValues(bundle);
+			for (int i = 0; i < entries.size(); i++) {
+				IBase entry = entries.get(i);
+				// The first entry is the page resource itself, the rest are resources it included
+				if (i > 0) {
+					IBaseResource included = resourceChild
+							.getAccessor()
+							.<IBaseResource>getFirstValueOrNull(entry)
+							.orElse(null);
+					if (included != null && !mySuppliedResourceIds.add(toResourceId(context, included))) {
+						continue;
+					}
+				}
+				myPendingEntries.add(entry);
+			}
+		}
+
+		private static String toResourceId(FhirContext theContext, IBaseResource theResource) {
+			return theContext.getResourceType(theResource) + "/"
+					+ theResource.getIdElement().getIdPart();
+		}
+	}
+
 	private boolean isEverythingOperation(RequestDetails theRequest) {
 		return (theRequest.getRestOperationType() == RestOperationTypeEnum.EXTENDED_OPERATION_TYPE
 						|| theRequest.getRestOperationType() == RestOperationTypeEnum.EXTENDED_OPERATION_INSTANCE)
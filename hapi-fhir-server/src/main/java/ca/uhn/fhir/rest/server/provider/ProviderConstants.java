@@ -226,6 +226,11 @@ public class ProviderConstants {
 	 */
 	public static final String OPERATION_REINDEX_TERMINOLOGY = "$reindex-terminology";
 
+	/**
+	 * Operation name for the $memory-cache-statistics operation
+	 */
+	public static final String OPERATION_MEMORY_CACHE_STATISTICS = "$memory-cache-statistics";
+
 	@Deprecated
 	public static final String MARK_ALL_RESOURCES_FOR_REINDEXING = "$mark-all-resources-for-reindexing";
 	/**
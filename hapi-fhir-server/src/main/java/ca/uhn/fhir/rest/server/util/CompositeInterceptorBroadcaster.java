@@ -43,8 +43,15 @@ public class CompositeInterceptorBroadcaster {
 			@Nullable RequestDetails theRequestDetails,
 			Pointcut thePointcut,
 			HookParams theParams) {
-		return newCompositeBroadcaster(theInterceptorBroadcaster, theRequestDetails)
-				.callHooks(thePointcut, theParams);
+		boolean retVal = true;
+		if (theInterceptorBroadcaster != null) {
+			retVal = theInterceptorBroadcaster.callHooks(thePointcut, theParams);
+		}
+		IInterceptorBroadcaster requestBroadcaster = getRequestBroadcaster(theRequestDetails);
+		if (requestBroadcaster != null && retVal) {
+			requestBroadcaster.callHooks(thePointcut, theParams);
+		}
+		return retVal;
 	}
 
 	/**
@@ -56,15 +63,37 @@ public class CompositeInterceptorBroadcaster {
 			RequestDetails theRequestDetails,
 			Pointcut thePointcut,
 			HookParams theParams) {
-		return newCompositeBroadcaster(theInterceptorBroadcaster, theRequestDetails)
-				.callHooksAndReturnObject(thePointcut, theParams);
+		Object retVal = true;
+		if (theInterceptorBroadcaster != null) {
+			retVal = theInterceptorBroadcaster.callHooksAndReturnObject(thePointcut, theParams);
+		}
+		IInterceptorBroadcaster requestBroadcaster = getRequestBroadcaster(theRequestDetails);
+		if (requestBroadcaster != null && retVal == null) {
+			retVal = requestBroadcaster.callHooksAndReturnObject(thePointcut, theParams);
+		}
+		return retVal;
 	}
 
 	// TODO: JA - Refactor to make thePointcut the last argument in order to be consistent with thr other methods here
 	public static boolean hasHooks(
 			Pointcut thePointcut, IInterceptorBroadcaster theInterceptorBroadcaster, RequestDetails theRequestDetails) {
-		return newCompositeBroadcaster(theInterceptorBroadcaster, theRequestDetails)
-				.hasHooks(thePointcut);
+		if (theInterceptorBroadcaster != null && theInterceptorBroadcaster.hasHooks(thePointcut)) {
+			return true;
+		}
+		IInterceptorBroadcaster requestBroadcaster = getRequestBroadcaster(theRequestDetails);
+		return requestBroadcaster != null && requestBroadcaster.hasHooks(thePointcut);
+	}
+
+	/**
+	 * Returns the interceptor broadcaster associated with the request, or <code>null</code>
+	 * if there is no request or it has no interceptors of its own.
+	 */
+	@Nullable
+	private static IInterceptorBroadcaster getRequestBroadcaster(@Nullable RequestDetails theRequestDetails) {
+		if (theRequestDetails == null) {
+			return null;
+		}
+		return theRequestDetails.getInterceptorBroadcaster();
 	}
 
 	/**
@@ -75,40 +104,19 @@ public class CompositeInterceptorBroadcaster {
 		return new IInterceptorBroadcaster() {
 			@Override
 			public boolean callHooks(Pointcut thePointcut, HookParams theParams) {
-				boolean retVal = true;
-				if (theInterceptorBroadcaster != null) {
-					retVal = theInterceptorBroadcaster.callHooks(thePointcut, theParams);
-				}
-				if (theRequestDetails != null && theRequestDetails.getInterceptorBroadcaster() != null && retVal) {
-					IInterceptorBroadcaster interceptorBroadcaster = theRequestDetails.getInterceptorBroadcaster();
-					interceptorBroadcaster.callHooks(thePointcut, theParams);
-				}
-				return retVal;
+				return doCallHooks(theInterceptorBroadcaster, theRequestDetails, thePointcut, theParams);
 			}
 
 			@Override
 			public Object callHooksAndReturnObject(Pointcut thePointcut, HookParams theParams) {
-				Object retVal = true;
-				if (theInterceptorBroadcaster != null) {
-					retVal = theInterceptorBroadcaster.callHooksAndReturnObject(thePointcut, theParams);
-				}
-				if (theRequestDetails != null
-						&& theRequestDetails.getInterceptorBroadcaster() != null
-						&& retVal == null) {
-					IInterceptorBroadcaster interceptorBroadcaster = theRequestDetails.getInterceptorBroadcaster();
-					retVal = interceptorBroadcaster.callHooksAndReturnObject(thePointcut, theParams);
-				}
-				return retVal;
+				return doCallHooksAndReturnObject(
+						theInterceptorBroadcaster, theRequestDetails, thePointcut, theParams);
 			}
 
 			@Override
 			public boolean hasHooks(Pointcut thePointcut) {
-				if (theInterceptorBroadcaster != null && theInterceptorBroadcaster.hasHooks(thePointcut)) {
-					return true;
-				}
-				return theRequestDetails != null
-						&& theRequestDetails.getInterceptorBroadcaster() != null
-						&& theRequestDetails.getInterceptorBroadcaster().hasHooks(thePointcut);
+				return CompositeInterceptorBroadcaster.hasHooks(
+						thePointcut, theInterceptorBroadcaster, theRequestDetails);
 			}
 		};
 	}
@@ -50,4 +50,15 @@ public interface Cache<K, V> {
 	long estimatedSize();
 
 	void cleanUp();
+
+	/**
+	 * Returns the statistics recorded by this cache, or <code>null</code> if the cache was
+	 * not created with statistics recording enabled.
+	 *
+	 * @see CacheFactory#build(long, long, CacheWeigher, boolean)
+	 * @since 7.6.0
+	 */
+	default CacheStatistics getStatistics() {
+		return null;
+	}
 }
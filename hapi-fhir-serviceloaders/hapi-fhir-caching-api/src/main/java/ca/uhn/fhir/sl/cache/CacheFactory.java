@@ -62,4 +62,29 @@ public class CacheFactory {
 		CacheProvider<K, V> cacheProvider = getCacheProvider();
 		return cacheProvider.create(theTimeoutMillis, theMaximumSize, cacheLoader);
 	}
+
+	/**
+	 * Builds a cache which is bounded by the total weight of its entries rather than by
+	 * their number.
+	 *
+	 * @since 7.6.0
+	 */
+	public static <K, V> Cache<K, V> buildWeighted(
+			long theTimeoutMillis, long theMaximumWeight, CacheWeigher<K, V> theWeigher) {
+		CacheProvider<K, V> cacheProvider = getCacheProvider();
+		return cacheProvider.create(theTimeoutMillis, theMaximumWeight, theWeigher);
+	}
+
+	/**
+	 * Builds a cache which optionally records {@link Cache#getStatistics() statistics}.
+	 *
+	 * @param theMaximum The maximum total weight of the entries if a weigher is supplied, or the maximum number of entries otherwise
+	 * @param theWeigher The weigher, or <code>null</code> to bound the cache by number of entries
+	 * @since 7.6.0
+	 */
+	public static <K, V> Cache<K, V> build(
+			long theTimeoutMillis, long theMaximum, CacheWeigher<K, V> theWeigher, boolean theRecordStatistics) {
+		CacheProvider<K, V> cacheProvider = getCacheProvider();
+		return cacheProvider.create(theTimeoutMillis, theMaximum, theWeigher, theRecordStatistics);
+	}
 }
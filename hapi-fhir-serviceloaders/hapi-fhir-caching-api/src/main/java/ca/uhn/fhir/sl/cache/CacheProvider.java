@@ -28,4 +28,34 @@ public interface CacheProvider<K, V> {
 	LoadingCache create(long timeoutMillis, CacheLoader<K, V> cacheLoader);
 
 	LoadingCache create(long timeoutMillis, long maximumSize, CacheLoader<K, V> cacheLoader);
+
+	/**
+	 * Creates a cache which evicts entries once the total weight of its entries, as calculated
+	 * by the given weigher, exceeds the given maximum.
+	 * <p>
+	 * Providers which do not support weighted caches fall back to a cache holding at most
+	 * <code>maximumWeight</code> entries, which is the bound the weighted cache would have if
+	 * every entry had a weight of 1.
+	 * </p>
+	 *
+	 * @since 7.6.0
+	 */
+	default Cache create(long timeoutMillis, long maximumWeight, CacheWeigher<K, V> weigher) {
+		return create(timeoutMillis, maximumWeight);
+	}
+
+	/**
+	 * Creates a cache which is bounded by the total weight of its entries if a weigher is
+	 * supplied, or by the number of entries otherwise, and which optionally records
+	 * {@link Cache#getStatistics() statistics}.
+	 * <p>
+	 * Providers which do not support recording statistics ignore <code>recordStatistics</code>,
+	 * and the caches they create return <code>null</code> from {@link Cache#getStatistics()}.
+	 * </p>
+	 *
+	 * @since 7.6.0
+	 */
+	default Cache create(long timeoutMillis, long maximum, CacheWeigher<K, V> weigher, boolean recordStatistics) {
+		return weigher != null ? create(timeoutMillis, maximum, weigher) : create(timeoutMillis, maximum);
+	}
 }
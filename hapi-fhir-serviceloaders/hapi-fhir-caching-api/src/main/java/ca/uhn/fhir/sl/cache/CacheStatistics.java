@@ -0,0 +1,103 @@
+package ca.uhn.fhir.sl.cache;
+
+/*-
+ * #%L
+ * HAPI FHIR - ServiceLoaders - Caching API
+ * %%
+ * Copyright (C) 2014 - 2024 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+/**
+ * An immutable snapshot of the statistics recorded by a {@link Cache} since it was created.
+ *
+ * @see Cache#getStatistics()
+ * @since 7.6.0
+ */
+public class CacheStatistics {
+
+	private final long myHitCount;
+	private final long myMissCount;
+	private final long myLoadSuccessCount;
+	private final long myLoadFailureCount;
+	private final long myTotalLoadTimeNanos;
+	private final long myEvictionCount;
+
+	public CacheStatistics(
+			long theHitCount,
+			long theMissCount,
+			long theLoadSuccessCount,
+			long theLoadFailureCount,
+			long theTotalLoadTimeNanos,
+			long theEvictionCount) {
+		myHitCount = theHitCount;
+		myMissCount = theMissCount;
+		myLoadSuccessCount = theLoadSuccessCount;
+		myLoadFailureCount = theLoadFailureCount;
+		myTotalLoadTimeNanos = theTotalLoadTimeNanos;
+		myEvictionCount = theEvictionCount;
+	}
+
+	public long getHitCount() {
+		return myHitCount;
+	}
+
+	public long getMissCount() {
+		return myMissCount;
+	}
+
+	/**
+	 * Returns the ratio of lookups which were hits, or <code>1.0</code> if there have not been any lookups
+	 */
+	public double getHitRate() {
+		long requestCount = myHitCount + myMissCount;
+		return requestCount == 0 ? 1.0 : (double) myHitCount / requestCount;
+	}
+
+	public long getLoadSuccessCount() {
+		return myLoadSuccessCount;
+	}
+
+	public long getLoadFailureCount() {
+		return myLoadFailureCount;
+	}
+
+	public long getTotalLoadTimeNanos() {
+		return myTotalLoadTimeNanos;
+	}
+
+	/**
+	 * Returns the average time spent loading a value, or <code>0.0</code> if no values have been loaded
+	 */
+	public double getAverageLoadPenaltyNanos() {
+		long loadCount = myLoadSuccessCount + myLoadFailureCount;
+		return loadCount == 0 ? 0.0 : (double) myTotalLoadTimeNanos / loadCount;
+	}
+
+	/**
+	 * Returns the number of entries which were evicted because of the size or weight bound.
+	 * Entries which expired or were invalidated are not counted.
+	 */
+	public long getEvictionCount() {
+		return myEvictionCount;
+	}
+
+	@Override
+	public String toString() {
+		return "CacheStatistics[hitCount=" + myHitCount + ", missCount=" + myMissCount + ", loadSuccessCount="
+				+ myLoadSuccessCount + ", loadFailureCount=" + myLoadFailureCount + ", totalLoadTimeNanos="
+				+ myTotalLoadTimeNanos + ", evictionCount=" + myEvictionCount + "]";
+	}
+}
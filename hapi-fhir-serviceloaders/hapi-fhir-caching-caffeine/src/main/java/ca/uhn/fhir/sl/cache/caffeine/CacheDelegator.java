@@ -20,6 +20,8 @@ package ca.uhn.fhir.sl.cache.caffeine;
  * #L%
  */
 
+import ca.uhn.fhir.sl.cache.CacheStatistics;
+
 import java.util.Map;
 import java.util.function.Function;
 
@@ -80,4 +82,19 @@ public class CacheDelegator<K, V> implements ca.uhn.fhir.sl.cache.Cache<K, V> {
 	public void cleanUp() {
 		cache.cleanUp();
 	}
+
+	@Override
+	public CacheStatistics getStatistics() {
+		if (!cache.policy().isRecordingStats()) {
+			return null;
+		}
+		com.github.benmanes.caffeine.cache.stats.CacheStats stats = cache.stats();
+		return new CacheStatistics(
+				stats.hitCount(),
+				stats.missCount(),
+				stats.loadSuccessCount(),
+				stats.loadFailureCount(),
+				stats.totalLoadTime(),
+				stats.evictionCount());
+	}
 }
@@ -22,6 +22,7 @@ package ca.uhn.fhir.sl.cache.caffeine;
 
 import ca.uhn.fhir.sl.cache.Cache;
 import ca.uhn.fhir.sl.cache.CacheLoader;
+import ca.uhn.fhir.sl.cache.CacheWeigher;
 import ca.uhn.fhir.sl.cache.LoadingCache;
 import com.github.benmanes.caffeine.cache.Caffeine;
 
@@ -29,6 +30,13 @@ import java.util.concurrent.TimeUnit;
 
 public class CacheProvider<K, V> implements ca.uhn.fhir.sl.cache.CacheProvider<K, V> {
 
+	/**
+	 * Caffeine locks the whole array when growing the hash table, so caches are presized to their
+	 * maximum size. The maximum can be configured though, so the presized capacity is capped to
+	 * avoid allocating very large tables up front.
+	 */
+	private static final int MAX_INITIAL_CAPACITY = 1_000_000;
+
 	public Cache<K, V> create(long timeoutMillis) {
 		return new CacheDelegator<K, V>(Caffeine.newBuilder()
 				.expireAfterWrite(timeoutMillis, TimeUnit.MILLISECONDS)
@@ -44,9 +52,7 @@ public class CacheProvider<K, V> implements ca.uhn.fhir.sl.cache.CacheProvider<K
 	public Cache<K, V> create(long timeoutMillis, long maximumSize) {
 		return new CacheDelegator<K, V>(Caffeine.newBuilder()
 				.expireAfterWrite(timeoutMillis, TimeUnit.MILLISECONDS)
-				// Caffeine locks the whole array when growing the hash table.
-				// Set initial capacity to max to avoid this.  All our caches are <1M entries.
-				.initialCapacity((int) maximumSize)
+				.initialCapacity(initialCapacity(maximumSize))
 				.maximumSize(maximumSize)
 				.build());
 	}
@@ -54,10 +60,33 @@ public class CacheProvider<K, V> implements ca.uhn.fhir.sl.cache.CacheProvider<K
 	public LoadingCache<K, V> create(long timeoutMillis, long maximumSize, CacheLoader<K, V> loading) {
 		return new LoadingCacheDelegator<K, V>(Caffeine.newBuilder()
 				.expireAfterWrite(timeoutMillis, TimeUnit.MILLISECONDS)
-				// Caffeine locks the whole array when growing the hash table.
-				// Set initial capacity to max to avoid this.  All our caches are <1M entries.
-				.initialCapacity((int) maximumSize)
+				.initialCapacity(initialCapacity(maximumSize))
 				.maximumSize(maximumSize)
 				.build(loading::load));
 	}
+
+	public Cache<K, V> create(long timeoutMillis, long maximumWeight, CacheWeigher<K, V> weigher) {
+		return new CacheDelegator<K, V>(Caffeine.newBuilder()
+				.expireAfterWrite(timeoutMillis, TimeUnit.MILLISECONDS)
+				.maximumWeight(maximumWeight)
+				.weigher(weigher::weigh)
+				.build());
+	}
+
+	public Cache<K, V> create(long timeoutMillis, long maximum, CacheWeigher<K, V> weigher, boolean recordStatistics) {
+		Caffeine<Object, Object> builder = Caffeine.newBuilder().expireAfterWrite(timeoutMillis, TimeUnit.MILLISECONDS);
+		if (recordStatistics) {
+			builder.recordStats();
+		}
+		if (weigher != null) {
+			return new CacheDelegator<K, V>(
+					builder.maximumWeight(maximum).weigher(weigher::weigh).build());
+		}
+		return new CacheDelegator<K, V>(
+				builder.initialCapacity(initialCapacity(maximum)).maximumSize(maximum).build());
+	}
+
+	private static int initialCapacity(long theMaximumSize) {
+		return (int) Math.max(0, Math.min(theMaximumSize, MAX_INITIAL_CAPACITY));
+	}
 }
@@ -19,8 +19,10 @@ import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @TestMethodOrder(MethodOrderer.OrderAnnotation.class)
 public class CacheLoaderTest {
@@ -56,4 +58,25 @@ public class CacheLoaderTest {
 		});
 		assertNull(cache.get("1"));
 	}
+
+	@Order(2)
+	@Test
+	void weightedCacheEvictsByWeightTest() {
+		Cache<String, String> cache = CacheFactory.buildWeighted(60000, 100, (key, value) -> value.length());
+		for (int i = 0; i < 50; i++) {
+			cache.put("key" + i, "0123456789");
+		}
+		cache.cleanUp();
+		assertTrue(cache.estimatedSize() <= 10);
+	}
+
+	@Order(3)
+	@Test
+	void largeMaximumSizeDoesNotPresizeTest() {
+		// Larger than an int, so this would overflow if the cache was presized to its maximum size
+		Cache<String, String> cache = CacheFactory.build(60000, 3_000_000_000L, null, true);
+		cache.put("key", "value");
+		assertEquals("value", cache.getIfPresent("key"));
+		assertNotNull(cache.getStatistics());
+	}
 }
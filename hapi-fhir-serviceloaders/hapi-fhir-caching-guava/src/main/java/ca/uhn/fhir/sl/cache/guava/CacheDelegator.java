@@ -21,6 +21,7 @@ package ca.uhn.fhir.sl.cache.guava;
  */
 
 import ca.uhn.fhir.i18n.Msg;
+import ca.uhn.fhir.sl.cache.CacheStatistics;
 import com.google.common.cache.CacheLoader;
 import com.google.common.util.concurrent.UncheckedExecutionException;
 
@@ -31,9 +32,15 @@ import java.util.function.Function;
 public class CacheDelegator<K, V> implements ca.uhn.fhir.sl.cache.Cache<K, V> {
 
 	com.google.common.cache.Cache<K, V> cache;
+	boolean recordingStatistics;
 
 	public CacheDelegator(com.google.common.cache.Cache<K, V> impl) {
+		this(impl, false);
+	}
+
+	public CacheDelegator(com.google.common.cache.Cache<K, V> impl, boolean recordingStatistics) {
 		this.cache = impl;
+		this.recordingStatistics = recordingStatistics;
 	}
 
 	@Override
@@ -99,4 +106,19 @@ public class CacheDelegator<K, V> implements ca.uhn.fhir.sl.cache.Cache<K, V> {
 	public void cleanUp() {
 		cache.cleanUp();
 	}
+
+	@Override
+	public CacheStatistics getStatistics() {
+		if (!recordingStatistics) {
+			return null;
+		}
+		com.google.common.cache.CacheStats stats = cache.stats();
+		return new CacheStatistics(
+				stats.hitCount(),
+				stats.missCount(),
+				stats.loadSuccessCount(),
+				stats.loadExceptionCount(),
+				stats.totalLoadTime(),
+				stats.evictionCount());
+	}
 }
@@ -22,6 +22,7 @@ package ca.uhn.fhir.sl.cache.guava;
 
 import ca.uhn.fhir.sl.cache.Cache;
 import ca.uhn.fhir.sl.cache.CacheLoader;
+import ca.uhn.fhir.sl.cache.CacheWeigher;
 import ca.uhn.fhir.sl.cache.LoadingCache;
 import com.google.common.cache.CacheBuilder;
 
@@ -64,4 +65,25 @@ public class CacheProvider<K, V> implements ca.uhn.fhir.sl.cache.CacheProvider<K
 					}
 				}));
 	}
+
+	public Cache<K, V> create(long timeoutMillis, long maximumWeight, CacheWeigher<K, V> weigher) {
+		return new CacheDelegator<K, V>(CacheBuilder.newBuilder()
+				.expireAfterWrite(timeoutMillis, TimeUnit.MILLISECONDS)
+				.maximumWeight(maximumWeight)
+				.weigher(weigher::weigh)
+				.build());
+	}
+
+	public Cache<K, V> create(long timeoutMillis, long maximum, CacheWeigher<K, V> weigher, boolean recordStatistics) {
+		CacheBuilder<Object, Object> builder =
+				CacheBuilder.newBuilder().expireAfterWrite(timeoutMillis, TimeUnit.MILLISECONDS);
+		if (recordStatistics) {
+			builder.recordStats();
+		}
+		if (weigher != null) {
+			return new CacheDelegator<K, V>(
+					builder.maximumWeight(maximum).weigher(weigher::weigh).build(), recordStatistics);
+		}
+		return new CacheDelegator<K, V>(builder.maximumSize(maximum).build(), recordStatistics);
+	}
 }
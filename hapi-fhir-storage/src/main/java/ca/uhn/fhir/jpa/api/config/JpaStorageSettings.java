@@ -21,9 +21,11 @@ package ca.uhn.fhir.jpa.api.config;
 
 import ca.uhn.fhir.context.support.IValidationSupport;
 import ca.uhn.fhir.jpa.api.model.HistoryCountModeEnum;
+import ca.uhn.fhir.jpa.api.model.MemoryCacheSettings;
 import ca.uhn.fhir.jpa.api.model.WarmCacheEntry;
 import ca.uhn.fhir.jpa.model.entity.ResourceEncodingEnum;
 import ca.uhn.fhir.jpa.model.entity.StorageSettings;
+import ca.uhn.fhir.jpa.util.MemoryCacheService;
 import ca.uhn.fhir.rest.api.SearchTotalModeEnum;
 import ca.uhn.fhir.system.HapiSystemProperties;
 import ca.uhn.fhir.util.HapiExtensions;
@@ -42,7 +44,9 @@ import org.slf4j.LoggerFactory;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
 
@@ -368,6 +372,57 @@ public class JpaStorageSettings extends StorageSettings {
 	 */
 	private boolean myWriteToLegacyLobColumns = false;
 
+	/**
+	 * @since 7.6.0
+	 */
+	private long myInMemorySearchResultCacheMaxBytes = 0;
+
+	/**
+	 * @since 7.6.0
+	 */
+	private boolean myInMemorySearchResultCacheWriteThrough = false;
+
+	/**
+	 * @since 7.6.0
+	 */
+	private int myIncludesLoadingPoolSize = 1;
+
+	/**
+	 * @since 7.6.0
+	 */
+	private int myResourceBodyCacheMaxEntries = 0;
+
+	/**
+	 * @since 7.6.0
+	 */
+	private long myResourceIdCacheMaxBytes = 0;
+
+	/**
+	 * @since 7.6.0
+	 */
+	private final Map<MemoryCacheService.CacheEnum, MemoryCacheSettings> myMemoryCacheSettings =
+			new EnumMap<>(MemoryCacheService.CacheEnum.class);
+
+	/**
+	 * @since 7.6.0
+	 */
+	private boolean mySearchSqlCacheEnabled = false;
+
+	/**
+	 * @since 7.6.0
+	 */
+	private boolean mySearchPredicateOrderingEnabled = false;
+
+	/**
+	 * @since 7.6.0
+	 */
+	private boolean mySearchKeysetPagingEnabled = false;
+
+	/**
+	 * @since 7.6.0
+	 */
+	private Set<String> myIndexedChains = Collections.emptySet();
+
 	/**
 	 * Constructor
 	 */
@@ -622,7 +677,8 @@ public class JpaStorageSettings extends StorageSettings {
 	 * setting this value to {@link SearchTotalModeEnum#ACCURATE} will force a
 	 * count to always be calculated for all searches. This can have a performance impact
 	 * since it means that a count query will always be performed, but this is desirable
-	 * for some solutions.
+	 * for some solutions. Setting it to {@link SearchTotalModeEnum#ESTIMATED} allows
+	 * a recently cached count, or an estimate based on index statistics, to be used instead.
 	 */
 	public SearchTotalModeEnum getDefaultTotalMode() {
 		return myDefaultTotalMode;
@@ -634,7 +690,8 @@ public class JpaStorageSettings extends StorageSettings {
 	 * setting this value to {@link SearchTotalModeEnum#ACCURATE} will force a
 	 * count to always be calculated for all searches. This can have a performance impact
 	 * since it means that a count query will always be performed, but this is desirable
-	 * for some solutions.
+	 * for some solutions. Setting it to {@link SearchTotalModeEnum#ESTIMATED} allows
+	 * a recently cached count, or an estimate based on index statistics, to be used instead.
 	 */
 	public void setDefaultTotalMode(SearchTotalModeEnum theDefaultTotalMode) {
 		myDefaultTotalMode = theDefaultTotalMode;
@@ -1000,10 +1057,30 @@ public class JpaStorageSettings extends StorageSettings {
 		myExpungeThreadCount = Math.max(myExpungeThreadCount, 1); // Minimum of 1
 	}
 
+	/**
+	 * The encoding used to store resource bodies in the resource history table. This setting only
+	 * applies to databases where resource bodies are stored as binary (currently Oracle), since other
+	 * databases store them inline as {@link ResourceEncodingEnum#JSON} text. Rows which were written
+	 * using a different encoding remain readable, and can be re-encoded using the <code>$reindex</code>
+	 * operation with <code>optimizeStorage</code> enabled.
+	 * <p>
+	 * The default value for this setting is {@link ResourceEncodingEnum#JSONC}.
+	 * </p>
+	 */
 	public ResourceEncodingEnum getResourceEncoding() {
 		return myResourceEncoding;
 	}
 
+	/**
+	 * The encoding used to store resource bodies in the resource history table. This setting only
+	 * applies to databases where resource bodies are stored as binary (currently Oracle), since other
+	 * databases store them inline as {@link ResourceEncodingEnum#JSON} text. Rows which were written
+	 * using a different encoding remain readable, and can be re-encoded using the <code>$reindex</code>
+	 * operation with <code>optimizeStorage</code> enabled.
+	 * <p>
+	 * The default value for this setting is {@link ResourceEncodingEnum#JSONC}.
+	 * </p>
+	 */
 	public void setResourceEncoding(ResourceEncodingEnum theResourceEncoding) {
 		myResourceEncoding = theResourceEncoding;
 	}
@@ -2517,6 +2594,437 @@ public class JpaStorageSettings extends StorageSettings {
 		myRestDeleteByUrlResourceIdThreshold = theRestDeleteByUrlResourceIdThreshold;
 	}
 
+	/**
+	 * If set to a value greater than zero, the resource PIDs found by searches are held in memory
+	 * on the server which performed the search, compressed, in addition to (or instead of - see
+	 * {@link #setInMemorySearchResultCacheWriteThrough(boolean)}) being stored in the
+	 * <code>HFJ_SEARCH_RESULT</code> table. Requests for subsequent pages of the search which
+	 * reach the same server are then answered without querying the database. This value is the
+	 * maximum number of bytes of compressed PIDs to hold, across all searches. Searches which
+	 * are too large to be held, or which are evicted to make room for others, are stored in the
+	 * database.
+	 * <p>
+	 * The default is <code>0</code>, meaning that search results are only stored in the database.
+	 * </p>
+	 *
+	 * @since 7.6.0
+	 */
+	public long getInMemorySearchResultCacheMaxBytes() {
+		return myInMemorySearchResultCacheMaxBytes;
+	}
+
+	/**
+	 * If set to a value greater than zero, the resource PIDs found by searches are held in memory
+	 * on the server which performed the search, compressed, in addition to (or instead of - see
+	 * {@link #setInMemorySearchResultCacheWriteThrough(boolean)}) being stored in the
+	 * <code>HFJ_SEARCH_RESULT</code> table. Requests for subsequent pages of the search which
+	 * reach the same server are then answered without querying the database. This value is the
+	 * maximum number of bytes of compressed PIDs to hold, across all searches. Searches which
+	 * are too large to be held, or which are evicted to make room for others, are stored in the
+	 * database.
+	 * <p>
+	 * The default is <code>0</code>, meaning that search results are only stored in the database.
+	 * </p>
+	 *
+	 * @since 7.6.0
+	 */
+	public void setInMemorySearchResultCacheMaxBytes(long theInMemorySearchResultCacheMaxBytes) {
+		Validate.isTrue(theInMemorySearchResultCacheMaxBytes >= 0, "Maximum bytes must not be negative");
+		myInMemorySearchResultCacheMaxBytes = theInMemorySearchResultCacheMaxBytes;
+	}
+
+	/**
+	 * If the {@link #setInMemorySearchResultCacheMaxBytes(long) in-memory search result cache} is
+	 * enabled, this setting controls whether search results held in memory are also written to the
+	 * <code>HFJ_SEARCH_RESULT</code> table as they are found.
+	 * <p>
+	 * If this is set to <code>false</code>, results held in memory are only written to the database
+	 * if they are evicted from memory, which avoids most inserts into (and later deletes from) that
+	 * table. Until then, a request for a page of the search which reaches a different server fails
+	 * with HTTP 410 Gone, so this should be enabled on servers which share their database with other
+	 * servers unless all requests for a given search are routed to the server which performed it.
+	 * Searches whose results are only held in memory are never reused (see
+	 * {@link #setReuseCachedSearchResultsForMillis(Long)}).
+	 * </p>
+	 * <p>
+	 * The default is <code>false</code>.
+	 * </p>
+	 *
+	 * @since 7.6.0
+	 */
+	public boolean isInMemorySearchResultCacheWriteThrough() {
+		return myInMemorySearchResultCacheWriteThrough;
+	}
+
+	/**
+	 * If the {@link #setInMemorySearchResultCacheMaxBytes(long) in-memory search result cache} is
+	 * enabled, this setting controls whether search results held in memory are also written to the
+	 * <code>HFJ_SEARCH_RESULT</code> table as they are found.
+	 * <p>
+	 * If this is set to <code>false</code>, results held in memory are only written to the database
+	 * if they are evicted from memory, which avoids most inserts into (and later deletes from) that
+	 * table. Until then, a request for a page of the search which reaches a different server fails
+	 * with HTTP 410 Gone, so this should be enabled on servers which share their database with other
+	 * servers unless all requests for a given search are routed to the server which performed it.
+	 * Searches whose results are only held in memory are never reused (see
+	 * {@link #setReuseCachedSearchResultsForMillis(Long)}).
+	 * </p>
+	 * <p>
+	 * The default is <code>false</code>.
+	 * </p>
+	 *
+	 * @since 7.6.0
+	 */
+	public void setInMemorySearchResultCacheWriteThrough(boolean theInMemorySearchResultCacheWriteThrough) {
+		myInMemorySearchResultCacheWriteThrough = theInMemorySearchResultCacheWriteThrough;
+	}
+
+	/**
+	 * Specifies the maximum number of <code>_include</code> and <code>_revinclude</code> parameters
+	 * which will be loaded concurrently within a single round of include loading (each
+	 * <code>:iterate</code> round is still processed after the previous one completes). Each
+	 * parameter loaded concurrently uses its own read-only transaction, and therefore its own
+	 * database connection, so the database connection pool should be sized accordingly. If the
+	 * size of the connection pool can be determined, at most half of its connections are used for
+	 * this.
+	 * <p>
+	 * Includes are only loaded concurrently if the search is not being performed within a
+	 * read-write transaction, since the concurrent queries would not see changes which have not
+	 * yet been committed by that transaction.
+	 * </p>
+	 * <p>
+	 * The default is <code>1</code>, meaning that includes are loaded sequentially.
+	 * </p>
+	 *
+	 * @since 7.6.0
+	 */
+	public int getIncludesLoadingPoolSize() {
+		return myIncludesLoadingPoolSize;
+	}
+
+	/**
+	 * Specifies the maximum number of <code>_include</code> and <code>_revinclude</code> parameters
+	 * which will be loaded concurrently within a single round of include loading (each
+	 * <code>:iterate</code> round is still processed after the previous one completes). Each
+	 * parameter loaded concurrently uses its own read-only transaction, and therefore its own
+	 * database connection, so the database connection pool should be sized accordingly. If the
+	 * size of the connection pool can be determined, at most half of its connections are used for
+	 * this.
+	 * <p>
+	 * Includes are only loaded concurrently if the search is not being performed within a
+	 * read-write transaction, since the concurrent queries would not see changes which have not
+	 * yet been committed by that transaction.
+	 * </p>
+	 * <p>
+	 * The default is <code>1</code>, meaning that includes are loaded sequentially.
+	 * </p>
+	 *
+	 * @since 7.6.0
+	 */
+	public void setIncludesLoadingPoolSize(int theIncludesLoadingPoolSize) {
+		Validate.isTrue(theIncludesLoadingPoolSize >= 1, "Pool size must be at least 1");
+		myIncludesLoadingPoolSize = theIncludesLoadingPoolSize;
+	}
+
+	/**
+	 * If set to a value greater than <code>0</code>, the decoded (i.e. decompressed) body of
+	 * stored resources is kept in a memory cache with up to this many entries, keyed by resource
+	 * PID and version. This avoids repeatedly decompressing resources which are loaded often, such
+	 * as resources which are returned by <code>_include</code> in many searches. Cached entries are
+	 * invalidated if the body of a given resource version is rewritten.
+	 * <p>
+	 * The cache size is determined when the server starts, so changing this setting afterwards
+	 * only enables or disables the cache.
+	 * </p>
+	 * <p>
+	 * The default is <code>0</code>, meaning that the cache is disabled.
+	 * </p>
+	 *
+	 * @since 7.6.0
+	 */
+	public int getResourceBodyCacheMaxEntries() {
+		return myResourceBodyCacheMaxEntries;
+	}
+
+	/**
+	 * If set to a value greater than <code>0</code>, the decoded (i.e. decompressed) body of
+	 * stored resources is kept in a memory cache with up to this many entries, keyed by resource
+	 * PID and version. This avoids repeatedly decompressing resources which are loaded often, such
+	 * as resources which are returned by <code>_include</code> in many searches. Cached entries are
+	 * invalidated if the body of a given resource version is rewritten.
+	 * <p>
+	 * The cache size is determined when the server starts, so changing this setting afterwards
+	 * only enables or disables the cache.
+	 * </p>
+	 * <p>
+	 * The default is <code>0</code>, meaning that the cache is disabled.
+	 * </p>
+	 *
+	 * @since 7.6.0
+	 */
+	public void setResourceBodyCacheMaxEntries(int theResourceBodyCacheMaxEntries) {
+		Validate.isTrue(theResourceBodyCacheMaxEntries >= 0, "Maximum entries must not be negative");
+		myResourceBodyCacheMaxEntries = theResourceBodyCacheMaxEntries;
+	}
+
+	/**
+	 * If set to a value greater than <code>0</code>, the memory caches used to translate between
+	 * resource IDs and PIDs are bounded by the approximate number of bytes they use, instead of
+	 * by a fixed number of entries. Since client assigned IDs vary greatly in length, this allows
+	 * these caches to be sized according to the memory available, which is normally much larger
+	 * than the default limit allows for on large databases.
+	 * <p>
+	 * This setting is read when the server starts.
+	 * </p>
+	 * <p>
+	 * The default is <code>0</code>, meaning that these caches hold up to 10000 entries each.
+	 * </p>
+	 *
+	 * @since 7.6.0
+	 */
+	public long getResourceIdCacheMaxBytes() {
+		return myResourceIdCacheMaxBytes;
+	}
+
+	/**
+	 * If set to a value greater than <code>0</code>, the memory caches used to translate between
+	 * resource IDs and PIDs are bounded by the approximate number of bytes they use, instead of
+	 * by a fixed number of entries. Since client assigned IDs vary greatly in length, this allows
+	 * these caches to be sized according to the memory available, which is normally much larger
+	 * than the default limit allows for on large databases.
+	 * <p>
+	 * This setting is read when the server starts.
+	 * </p>
+	 * <p>
+	 * The default is <code>0</code>, meaning that these caches hold up to 10000 entries each.
+	 * </p>
+	 *
+	 * @since 7.6.0
+	 */
+	public void setResourceIdCacheMaxBytes(long theResourceIdCacheMaxBytes) {
+		Validate.isTrue(theResourceIdCacheMaxBytes >= 0, "Maximum bytes must not be negative");
+		myResourceIdCacheMaxBytes = theResourceIdCacheMaxBytes;
+	}
+
+	/**
+	 * Returns the sizing overrides for the given {@link MemoryCacheService memory cache}, or <code>null</code>
+	 * if the cache uses its default sizing.
+	 *
+	 * @since 7.6.0
+	 */
+	@Nullable
+	public MemoryCacheSettings getMemoryCacheSettings(@Nonnull MemoryCacheService.CacheEnum theCache) {
+		return myMemoryCacheSettings.get(theCache);
+	}
+
+	/**
+	 * Overrides the maximum size, maximum weight and/or expiry time of the given
+	 * {@link MemoryCacheService memory cache}. By default most of these caches hold up to 10000 entries
+	 * for one minute, which is too small for large databases where the same IDs, match URLs and tags are
+	 * used repeatedly. Use {@link MemoryCacheService#getStatistics(MemoryCacheService.CacheEnum)} to see
+	 * how well each cache is performing.
+	 * <p>
+	 * This setting is read when the server starts. Set to <code>null</code> to restore the default sizing.
+	 * </p>
+	 *
+	 * @since 7.6.0
+	 */
+	public void setMemoryCacheSettings(
+			@Nonnull MemoryCacheService.CacheEnum theCache, @Nullable MemoryCacheSettings theSettings) {
+		Validate.notNull(theCache, "theCache must not be null");
+		if (theSettings == null) {
+			myMemoryCacheSettings.remove(theCache);
+		} else {
+			myMemoryCacheSettings.put(theCache, theSettings);
+		}
+	}
+
+	/**
+	 * If enabled, the SQL generated for a search is cached in the {@link MemoryCacheService}
+	 * ({@link MemoryCacheService.CacheEnum#SEARCH_SQL}), keyed by the shape of the search. The shape
+	 * includes the resource type, the parameter names, modifiers, prefixes and number of values, the
+	 * sort, the partitions being searched, and the form of each value, but not the values themselves.
+	 * Later searches with the same shape reuse the cached SQL, so only the bind variables differ.
+	 * Searches using <code>_has</code>, <code>_filter</code>, chained parameters or parameters which
+	 * are expanded into many values (e.g. <code>:in</code> and <code>:below</code>) are not cached.
+	 * <p>
+	 * Storage and partition settings which change the SQL generated for a search are not part of
+	 * the cache key, so the cache should be invalidated if these are changed while the server is running.
+	 * </p>
+	 * <p>
+	 * The default is <code>false</code>.
+	 * </p>
+	 *
+	 * @since 7.6.0
+	 */
+	public boolean isSearchSqlCacheEnabled() {
+		return mySearchSqlCacheEnabled;
+	}
+
+	/**
+	 * If enabled, the SQL generated for a search is cached in the {@link MemoryCacheService}
+	 * ({@link MemoryCacheService.CacheEnum#SEARCH_SQL}), keyed by the shape of the search. The shape
+	 * includes the resource type, the parameter names, modifiers, prefixes and number of values, the
+	 * sort, the partitions being searched, and the form of each value, but not the values themselves.
+	 * Later searches with the same shape reuse the cached SQL, so only the bind variables differ.
+	 * Searches using <code>_has</code>, <code>_filter</code>, chained parameters or parameters which
+	 * are expanded into many values (e.g. <code>:in</code> and <code>:below</code>) are not cached.
+	 * <p>
+	 * Storage and partition settings which change the SQL generated for a search are not part of
+	 * the cache key, so the cache should be invalidated if these are changed while the server is running.
+	 * </p>
+	 * <p>
+	 * The default is <code>false</code>.
+	 * </p>
+	 *
+	 * @since 7.6.0
+	 */
+	public void setSearchSqlCacheEnabled(boolean theSearchSqlCacheEnabled) {
+		mySearchSqlCacheEnabled = theSearchSqlCacheEnabled;
+	}
+
+	/**
+	 * If enabled, the number of index rows matching a single value of each token, string, URI and
+	 * reference search parameter is periodically estimated by sampling the index tables, and the
+	 * parameters of a search are added to the generated SQL starting with the one expected to match
+	 * the fewest rows. This gives the database a better starting point when the data is skewed, e.g.
+	 * for <code>Observation?status=final&amp;subject=Patient/123</code>, where nearly every
+	 * Observation has the same status.
+	 * <p>
+	 * Decisions are reported through the {@link ca.uhn.fhir.interceptor.api.Pointcut#JPA_PERFTRACE_INFO}
+	 * pointcut, so they can be seen by registering the <code>PerformanceTracingLoggingInterceptor</code>.
+	 * </p>
+	 * <p>
+	 * The default is <code>false</code>.
+	 * </p>
+	 *
+	 * @since 7.6.0
+	 */
+	public boolean isSearchPredicateOrderingEnabled() {
+		return mySearchPredicateOrderingEnabled;
+	}
+
+	/**
+	 * If enabled, the number of index rows matching a single value of each token, string, URI and
+	 * reference search parameter is periodically estimated by sampling the index tables, and the
+	 * parameters of a search are added to the generated SQL starting with the one expected to match
+	 * the fewest rows. This gives the database a better starting point when the data is skewed, e.g.
+	 * for <code>Observation?status=final&amp;subject=Patient/123</code>, where nearly every
+	 * Observation has the same status.
+	 * <p>
+	 * Decisions are reported through the {@link ca.uhn.fhir.interceptor.api.Pointcut#JPA_PERFTRACE_INFO}
+	 * pointcut, so they can be seen by registering the <code>PerformanceTracingLoggingInterceptor</code>.
+	 * </p>
+	 * <p>
+	 * The default is <code>false</code>.
+	 * </p>
+	 *
+	 * @since 7.6.0
+	 */
+	public void setSearchPredicateOrderingEnabled(boolean theSearchPredicateOrderingEnabled) {
+		mySearchPredicateOrderingEnabled = theSearchPredicateOrderingEnabled;
+	}
+
+	/**
+	 * If enabled, searches which are paged using <code>_offset</code> (including searches paged by the
+	 * <code>ForceOffsetSearchModeInterceptor</code>) remember the sort key and resource ID of the last
+	 * resource on each page they return. When the following page is requested, the generated SQL seeks
+	 * directly to that position instead of asking the database to skip over all of the earlier rows, so
+	 * loading a deep page costs about the same as loading the first one.
+	 * <p>
+	 * This applies to searches which are unsorted or sorted by a single <code>_id</code>,
+	 * <code>_lastUpdated</code>, date or token parameter. Other searches, requests which jump
+	 * directly to a page whose predecessor was never loaded, and databases which can not order
+	 * null values (MySQL, MariaDB and MS SQL Server) keep using an SQL offset. Results of searches
+	 * which use this mode are additionally ordered by resource ID, so that pages never overlap.
+	 * </p>
+	 * <p>
+	 * The default is <code>false</code>.
+	 * </p>
+	 *
+	 * @since 7.6.0
+	 */
+	public boolean isSearchKeysetPagingEnabled() {
+		return mySearchKeysetPagingEnabled;
+	}
+
+	/**
+	 * If enabled, searches which are paged using <code>_offset</code> (including searches paged by the
+	 * <code>ForceOffsetSearchModeInterceptor</code>) remember the sort key and resource ID of the last
+	 * resource on each page they return. When the following page is requested, the generated SQL seeks
+	 * directly to that position instead of asking the database to skip over all of the earlier rows, so
+	 * loading a deep page costs about the same as loading the first one.
+	 * <p>
+	 * This applies to searches which are unsorted or sorted by a single <code>_id</code>,
+	 * <code>_lastUpdated</code>, date or token parameter. Other searches, requests which jump
+	 * directly to a page whose predecessor was never loaded, and databases which can not order
+	 * null values (MySQL, MariaDB and MS SQL Server) keep using an SQL offset. Results of searches
+	 * which use this mode are additionally ordered by resource ID, so that pages never overlap.
+	 * </p>
+	 * <p>
+	 * The default is <code>false</code>.
+	 * </p>
+	 *
+	 * @since 7.6.0
+	 */
+	public void setSearchKeysetPagingEnabled(boolean theSearchKeysetPagingEnabled) {
+		mySearchKeysetPagingEnabled = theSearchKeysetPagingEnabled;
+	}
+
+	/**
+	 * Declares chained searches which should be answered from a dedicated chain index instead of
+	 * joining through the resource link table. Each entry takes the form
+	 * <code>[source resource type]?[reference parameter].[leaf parameter]</code>, for example
+	 * <code>Observation?subject.identifier</code>. The index is maintained whenever either end of
+	 * the chain is created, updated or deleted. Resources which already exist when a chain is
+	 * declared are indexed by a scheduled background build, and searches only use the index for
+	 * a chain once its build has completed.
+	 * <p>
+	 * Only leaf parameters of type <code>token</code> are indexed. Chains which use a modifier or a
+	 * resource type qualifier, and servers which index contained resources, keep using the
+	 * regular chained search.
+	 * </p>
+	 * <p>
+	 * The default is an empty set.
+	 * </p>
+	 *
+	 * @since 7.6.0
+	 */
+	@Nonnull
+	public Set<String> getIndexedChains() {
+		return myIndexedChains;
+	}
+
+	/**
+	 * Declares chained searches which should be answered from a dedicated chain index instead of
+	 * joining through the resource link table. Each entry takes the form
+	 * <code>[source resource type]?[reference parameter].[leaf parameter]</code>, for example
+	 * <code>Observation?subject.identifier</code>. The index is maintained whenever either end of
+	 * the chain is created, updated or deleted. Resources which already exist when a chain is
+	 * declared are indexed by a scheduled background build, and searches only use the index for
+	 * a chain once its build has completed.
+	 * <p>
+	 * Only leaf parameters of type <code>token</code> are indexed. Chains which use a modifier or a
+	 * resource type qualifier, and servers which index contained resources, keep using the
+	 * regular chained search.
+	 * </p>
+	 * <p>
+	 * The default is an empty set.
+	 * </p>
+	 *
+	 * @since 7.6.0
+	 */
+	public void setIndexedChains(@Nonnull Set<String> theIndexedChains) {
+		Validate.notNull(theIndexedChains, "theIndexedChains must not be null");
+		for (String next : theIndexedChains) {
+			Validate.isTrue(
+					next.matches("[A-Za-z]+\\?[^.?]+\\.[^.?]+"),
+					"Indexed chain must take the form [resource type]?[reference parameter].[leaf parameter]: %s",
+					next);
+		}
+		myIndexedChains = Collections.unmodifiableSet(new TreeSet<>(theIndexedChains));
+	}
+
 	public enum StoreMetaSourceInformationEnum {
 		NONE(false, false),
 		SOURCE_URI(true, false),
@@ -54,6 +54,7 @@ import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -400,6 +401,21 @@ public interface IFhirResourceDao<T extends IBaseResource> extends IDao {
 		return (List<T>) provider.getAllResources();
 	}
 
+	/**
+	 * Pass each resource matching theParams to the given consumer as it is loaded.
+	 * Unlike {@link #searchForResources(SearchParameterMap, RequestDetails)}, implementations
+	 * may avoid holding the full result set in memory, so this is appropriate for large data sets.
+	 * This call invokes both preaccess and preshow interceptors.
+	 * _include and _revinclude are not supported.
+	 * @param theParams the search
+	 * @param theRequest for partition target info
+	 * @param theConsumer receives each matching resource, in search order
+	 * @since 7.6.0
+	 */
+	default void searchForResources(SearchParameterMap theParams, RequestDetails theRequest, Consumer<T> theConsumer) {
+		searchForResources(theParams, theRequest).forEach(theConsumer);
+	}
+
 	/**
 	 * Return the FHIR Ids matching theParams.
 	 * This call does not currently invoke any interceptors, so should only be used for infrastructure that
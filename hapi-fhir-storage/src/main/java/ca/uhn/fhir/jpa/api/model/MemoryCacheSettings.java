@@ -0,0 +1,81 @@
+/*-
+ * #%L
+ * HAPI FHIR Storage api
+ * %%
+ * Copyright (C) 2014 - 2024 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.api.model;
+
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Overrides the sizing of a single cache in the
+ * {@link ca.uhn.fhir.jpa.util.MemoryCacheService}. Any value which is not set keeps the
+ * default for that cache.
+ *
+ * @see ca.uhn.fhir.jpa.api.config.JpaStorageSettings#setMemoryCacheSettings(ca.uhn.fhir.jpa.util.MemoryCacheService.CacheEnum, MemoryCacheSettings)
+ * @since 7.6.0
+ */
+public class MemoryCacheSettings {
+
+	private Long myMaximumSize;
+	private Long myMaximumWeightBytes;
+	private Long myExpireAfterWriteMillis;
+
+	public Long getMaximumSize() {
+		return myMaximumSize;
+	}
+
+	/**
+	 * The maximum number of entries in the cache. Ignored if {@link #setMaximumWeightBytes(Long) a maximum weight}
+	 * is set.
+	 */
+	public MemoryCacheSettings setMaximumSize(Long theMaximumSize) {
+		Validate.isTrue(theMaximumSize == null || theMaximumSize > 0, "Maximum size must be positive");
+		myMaximumSize = theMaximumSize;
+		return this;
+	}
+
+	public Long getMaximumWeightBytes() {
+		return myMaximumWeightBytes;
+	}
+
+	/**
+	 * The approximate maximum number of bytes used by the entries in the cache. Entry sizes are estimated,
+	 * so this should be treated as a guide rather than a hard limit.
+	 */
+	public MemoryCacheSettings setMaximumWeightBytes(Long theMaximumWeightBytes) {
+		Validate.isTrue(
+				theMaximumWeightBytes == null || theMaximumWeightBytes > 0, "Maximum weight must be positive");
+		myMaximumWeightBytes = theMaximumWeightBytes;
+		return this;
+	}
+
+	public Long getExpireAfterWriteMillis() {
+		return myExpireAfterWriteMillis;
+	}
+
+	/**
+	 * The time after which an entry is removed from the cache, counted from when it was stored
+	 */
+	public MemoryCacheSettings setExpireAfterWriteMillis(Long theExpireAfterWriteMillis) {
+		Validate.isTrue(
+				theExpireAfterWriteMillis == null || theExpireAfterWriteMillis > 0,
+				"Expiry time must be positive");
+		myExpireAfterWriteMillis = theExpireAfterWriteMillis;
+		return this;
+	}
+}
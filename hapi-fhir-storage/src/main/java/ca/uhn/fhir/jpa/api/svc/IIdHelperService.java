@@ -25,6 +25,7 @@ import ca.uhn.fhir.jpa.api.config.JpaStorageSettings;
 import ca.uhn.fhir.jpa.api.model.PersistentIdToForcedIdMap;
 import ca.uhn.fhir.jpa.model.cross.IResourceLookup;
 import ca.uhn.fhir.rest.api.server.storage.IResourcePersistentId;
+import ca.uhn.fhir.rest.server.exceptions.PreconditionFailedException;
 import ca.uhn.fhir.rest.server.exceptions.ResourceNotFoundException;
 import jakarta.annotation.Nonnull;
 import jakarta.annotation.Nullable;
@@ -32,7 +33,9 @@ import org.hl7.fhir.instance.model.api.IAnyResource;
 import org.hl7.fhir.instance.model.api.IBaseResource;
 import org.hl7.fhir.instance.model.api.IIdType;
 
+import java.util.Collection;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -116,6 +119,33 @@ public interface IIdHelperService<T extends IResourcePersistentId> {
 			@Nonnull RequestPartitionId theRequestPartitionId, String theResourceType, String theResourceId)
 			throws ResourceNotFoundException;
 
+	/**
+	 * Resolves a collection of resource IDs (resource type + id) in as few database queries as possible. This
+	 * is equivalent to calling {@link #resolveResourceIdentity(RequestPartitionId, String, String, boolean)}
+	 * for each ID, except that IDs which can not be resolved are simply left out of the returned map rather
+	 * than causing an exception to be thrown. IDs which resolve to more than one resource are also left out,
+	 * so that callers can resolve them individually in order to report the problem.
+	 *
+	 * @return A map whose keys are the unqualified versionless ID (e.g. <code>Patient/123</code>) of each resolved resource
+	 * @since 7.6.0
+	 */
+	@Nonnull
+	default Map<String, IResourceLookup<T>> resolveResourceIdentities(
+			@Nonnull RequestPartitionId theRequestPartitionId, Collection<IIdType> theIds, boolean theExcludeDeleted) {
+		Map<String, IResourceLookup<T>> retVal = new HashMap<>();
+		for (IIdType next : theIds) {
+			try {
+				retVal.put(
+						next.getResourceType() + "/" + next.getIdPart(),
+						resolveResourceIdentity(
+								theRequestPartitionId, next.getResourceType(), next.getIdPart(), theExcludeDeleted));
+			} catch (ResourceNotFoundException | PreconditionFailedException e) {
+				// Left out of the results
+			}
+		}
+		return retVal;
+	}
+
 	/**
 	 * Given a forced ID, convert it to it's Long value. Since you are allowed to use string IDs for resources, we need to
 	 * convert those to the underlying Long values that are stored, for lookup and comparison purposes.
@@ -75,6 +75,35 @@ public interface ISearchBuilder<T extends IResourcePersistentId<?>> {
 			RequestDetails theRequest,
 			RequestPartitionId theRequestPartitionId);
 
+	/**
+	 * Returns the number of resources matching a search using {@link ca.uhn.fhir.rest.api.SearchTotalModeEnum#ESTIMATED}.
+	 * Implementations may return a recently cached count, or an approximation based on index statistics,
+	 * instead of counting the matching resources. The default implementation performs an accurate count.
+	 *
+	 * @since 7.6.0
+	 */
+	default Long createEstimatedCountQuery(
+			SearchParameterMap theParams,
+			String theSearchUuid,
+			RequestDetails theRequest,
+			RequestPartitionId theRequestPartitionId) {
+		return createCountQuery(theParams, theSearchUuid, theRequest, theRequestPartitionId);
+	}
+
+	/**
+	 * Called after a page of a search using <code>_offset</code> has been loaded by {@link #createQuery},
+	 * if there are more results after it. Implementations may remember where the page ended, so that a
+	 * later request for the following page can start from there instead of skipping over all of the
+	 * earlier results. The default implementation does nothing.
+	 *
+	 * @param theNextOffset The offset of the following page
+	 * @param theLastPid    The last resource on the loaded page
+	 * @since 7.6.0
+	 */
+	default void saveOffsetPageEnd(int theNextOffset, T theLastPid) {
+		// nothing
+	}
+
 	void setMaxResultsToFetch(Integer theMaxResultsToFetch);
 
 	void loadResourcesByPid(
@@ -60,12 +60,17 @@ import org.hl7.fhir.instance.model.api.IPrimitiveType;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import java.nio.charset.StandardCharsets;
+import java.util.Collection;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public class DaoResourceLinkResolver<T extends IResourcePersistentId> implements IResourceLinkResolver {
 	private static final org.slf4j.Logger ourLog = org.slf4j.LoggerFactory.getLogger(DaoResourceLinkResolver.class);
+	private static final String PREFETCHED_TARGETS_KEY =
+			DaoResourceLinkResolver.class.getName() + "_PREFETCHED_TARGETS";
 
 	@Autowired
 	private JpaStorageSettings myStorageSettings;
@@ -122,8 +127,12 @@ public class DaoResourceLinkResolver<T extends IResourcePersistentId> implements
 		String idPart = targetResourceId.getIdPart();
 		try {
 			if (persistentId == null) {
-				resolvedResource =
-						myIdHelperService.resolveResourceIdentity(theRequestPartitionId, resourceType, idPart);
+				resolvedResource = getPrefetchedTargetResource(
+						theRequestPartitionId, resourceType, idPart, theTransactionDetails);
+				if (resolvedResource == null) {
+					resolvedResource =
+							myIdHelperService.resolveResourceIdentity(theRequestPartitionId, resourceType, idPart);
+				}
 				ourLog.trace("Translated {}/{} to resource PID {}", type, idPart, resolvedResource);
 			} else {
 				resolvedResource = new ResourceLookupPersistentIdWrapper(persistentId);
@@ -182,6 +191,69 @@ public class DaoResourceLinkResolver<T extends IResourcePersistentId> implements
 		return resolvedResource;
 	}
 
+	/**
+	 * Resolves the targets of the given references using a single lookup, and keeps the results
+	 * so that {@link #findTargetResource} can use them. Targets which are not found are not kept,
+	 * so they are looked up again individually in order to report the problem (or create a
+	 * placeholder) in the usual way.
+	 */
+	@Override
+	public void prefetchTargetResources(
+			@Nonnull RequestPartitionId theRequestPartitionId,
+			String theSourceResourceName,
+			Collection<PathAndRef> thePathsAndRefs,
+			RequestDetails theRequest,
+			TransactionDetails theTransactionDetails) {
+		Map<String, IIdType> targetIds = new HashMap<>();
+		for (PathAndRef next : thePathsAndRefs) {
+			IIdType targetId = next.getRef().getReferenceElement();
+			if (targetId.isEmpty() && next.getRef().getResource() != null) {
+				targetId = next.getRef().getResource().getIdElement();
+			}
+			if (targetId.hasBaseUrl()
+					|| !targetId.hasResourceType()
+					|| !targetId.hasIdPart()
+					|| targetId.getValue().contains("?")
+					|| !myContext.getResourceTypes().contains(targetId.getResourceType())) {
+				continue;
+			}
+			targetId = targetId.toUnqualifiedVersionless();
+			targetIds.put(targetId.getValue(), targetId);
+		}
+
+		// A single target gains nothing from being resolved ahead of time
+		Map<String, IResourceLookup> prefetched = new HashMap<>();
+		if (targetIds.size() > 1) {
+			Map<String, IResourceLookup<T>> resolved =
+					myIdHelperService.resolveResourceIdentities(theRequestPartitionId, targetIds.values(), false);
+			String partitionKey = RequestPartitionId.stringifyForKey(theRequestPartitionId);
+			resolved.forEach((k, v) -> prefetched.put(partitionKey + "/" + k, v));
+		}
+		theTransactionDetails.putUserData(PREFETCHED_TARGETS_KEY, prefetched);
+	}
+
+	@Override
+	public void clearPrefetchedTargetResources(TransactionDetails theTransactionDetails) {
+		theTransactionDetails.clearUserData(PREFETCHED_TARGETS_KEY);
+	}
+
+	@Nullable
+	private IResourceLookup getPrefetchedTargetResource(
+			RequestPartitionId theRequestPartitionId,
+			String theResourceType,
+			String theIdPart,
+			@Nullable TransactionDetails theTransactionDetails) {
+		if (theTransactionDetails == null) {
+			return null;
+		}
+		Map<String, IResourceLookup> prefetched = theTransactionDetails.getUserData(PREFETCHED_TARGETS_KEY);
+		if (prefetched == null) {
+			return null;
+		}
+		return prefetched.get(
+				RequestPartitionId.stringifyForKey(theRequestPartitionId) + "/" + theResourceType + "/" + theIdPart);
+	}
+
 	@Nullable
 	@Override
 	public IBaseResource loadTargetResource(
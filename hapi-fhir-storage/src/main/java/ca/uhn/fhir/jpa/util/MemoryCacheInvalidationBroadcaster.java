@@ -0,0 +1,229 @@
+/*-
+ * #%L
+ * HAPI FHIR Storage api
+ * %%
+ * Copyright (C) 2014 - 2024 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.util;
+
+import ca.uhn.fhir.jpa.subscription.channel.api.ChannelConsumerSettings;
+import ca.uhn.fhir.jpa.subscription.channel.api.ChannelProducerSettings;
+import ca.uhn.fhir.jpa.subscription.channel.api.IChannelFactory;
+import ca.uhn.fhir.jpa.subscription.channel.api.IChannelProducer;
+import ca.uhn.fhir.jpa.subscription.channel.api.IChannelReceiver;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.commons.lang3.Validate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.MessagingException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Sends the keys invalidated in the local {@link MemoryCacheService} to every other server node, and
+ * applies the invalidations sent by other nodes to the local caches. This allows clustered servers
+ * to use much longer expiry times for caches whose entries are explicitly invalidated when they
+ * become stale.
+ * <p>
+ * Keys invalidated within a database transaction are collected and sent once the transaction
+ * commits, with one message per cache. Keys which can not be represented in a message cause the
+ * entire cache to be invalidated on the other nodes.
+ * </p>
+ * <p>
+ * The channel must deliver every message to every node, so when using a message broker where
+ * receivers on the same channel compete for messages, the {@link IChannelFactory} must give each
+ * node its own subscription.
+ * </p>
+ *
+ * @see MemoryCacheInvalidationConfig
+ * @since 7.6.0
+ */
+public class MemoryCacheInvalidationBroadcaster implements MessageHandler {
+	public static final String CHANNEL_NAME = "memory-cache-invalidation";
+	private static final Logger ourLog = LoggerFactory.getLogger(MemoryCacheInvalidationBroadcaster.class);
+
+	private final String myNodeId = UUID.randomUUID().toString();
+	private final MemoryCacheService myMemoryCacheService;
+	private final IChannelProducer myProducer;
+	private final IChannelReceiver myReceiver;
+
+	/**
+	 * Constructor
+	 */
+	public MemoryCacheInvalidationBroadcaster(
+			@Nonnull IChannelFactory theChannelFactory, @Nonnull MemoryCacheService theMemoryCacheService) {
+		Validate.notNull(theChannelFactory);
+		Validate.notNull(theMemoryCacheService);
+		myMemoryCacheService = theMemoryCacheService;
+
+		// Invalidations are idempotent and may be applied in any order
+		ChannelConsumerSettings consumerSettings = new ChannelConsumerSettings().setConcurrentConsumers(1);
+		myReceiver = theChannelFactory.getOrCreateReceiver(
+				CHANNEL_NAME, MemoryCacheInvalidationJsonMessage.class, consumerSettings);
+		ChannelProducerSettings producerSettings = new ChannelProducerSettings().setConcurrentConsumers(1);
+		myProducer = theChannelFactory.getOrCreateProducer(
+				CHANNEL_NAME, MemoryCacheInvalidationJsonMessage.class, producerSettings);
+	}
+
+	@PostConstruct
+	public void start() {
+		myReceiver.subscribe(this);
+		myMemoryCacheService.setInvalidationBroadcaster(this);
+	}
+
+	@PreDestroy
+	public void stop() {
+		myMemoryCacheService.setInvalidationBroadcaster(null);
+		myReceiver.unsubscribe(this);
+	}
+
+	public String getNodeId() {
+		return myNodeId;
+	}
+
+	/**
+	 * Sends an invalidation to the other nodes, once the current transaction commits if one is active
+	 *
+	 * @param theKey The key to invalidate, or <code>null</code> to invalidate every entry in the cache
+	 */
+	void broadcastInvalidation(@Nonnull MemoryCacheService.CacheEnum theCache, @Nullable Object theKey) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			PendingInvalidations pending = new PendingInvalidations();
+			pending.add(theCache, theKey);
+			send(pending);
+			return;
+		}
+
+		PendingInvalidations pending = (PendingInvalidations) TransactionSynchronizationManager.getResource(this);
+		if (pending == null) {
+			PendingInvalidations newPending = new PendingInvalidations();
+			TransactionSynchronizationManager.bindResource(this, newPending);
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCompletion(int theStatus) {
+					TransactionSynchronizationManager.unbindResourceIfPossible(MemoryCacheInvalidationBroadcaster.this);
+					if (theStatus == STATUS_COMMITTED) {
+						send(newPending);
+					}
+				}
+			});
+			pending = newPending;
+		}
+		pending.add(theCache, theKey);
+	}
+
+	private void send(PendingInvalidations thePending) {
+		for (MemoryCacheService.CacheEnum next : thePending.myAllKeys) {
+			MemoryCacheInvalidationJson payload = new MemoryCacheInvalidationJson()
+					.setOriginNodeId(myNodeId)
+					.setCache(next)
+					.setAllKeys(true);
+			myProducer.send(new MemoryCacheInvalidationJsonMessage(payload));
+		}
+		for (Map.Entry<MemoryCacheService.CacheEnum, Set<String>> next : thePending.myKeys.entrySet()) {
+			if (thePending.myAllKeys.contains(next.getKey())) {
+				continue;
+			}
+			MemoryCacheInvalidationJson payload = new MemoryCacheInvalidationJson()
+					.setOriginNodeId(myNodeId)
+					.setCache(next.getKey())
+					.setKeys(new ArrayList<>(next.getValue()));
+			myProducer.send(new MemoryCacheInvalidationJsonMessage(payload));
+		}
+	}
+
+	@Override
+	public void handleMessage(@Nonnull Message<?> theMessage) throws MessagingException {
+		if (!(theMessage.getPayload() instanceof MemoryCacheInvalidationJson)) {
+			return;
+		}
+		MemoryCacheInvalidationJson payload = (MemoryCacheInvalidationJson) theMessage.getPayload();
+		if (myNodeId.equals(payload.getOriginNodeId()) || payload.getCache() == null) {
+			return;
+		}
+
+		MemoryCacheService.CacheEnum cache = payload.getCache();
+		if (payload.isAllKeys()) {
+			ourLog.debug("Invalidating all entries in cache {} from node {}", cache, payload.getOriginNodeId());
+			myMemoryCacheService.invalidateLocally(cache, null);
+		} else {
+			ourLog.debug(
+					"Invalidating {} entries in cache {} from node {}",
+					payload.getKeys().size(),
+					cache,
+					payload.getOriginNodeId());
+			for (String next : payload.getKeys()) {
+				myMemoryCacheService.invalidateLocally(cache, decodeKey(cache, next));
+			}
+		}
+	}
+
+	/**
+	 * @return The encoded key, or <code>null</code> if keys of this type can not be encoded
+	 */
+	@Nullable
+	static String encodeKey(@Nonnull Object theKey) {
+		if (theKey instanceof String || theKey instanceof Long || theKey instanceof Integer) {
+			return theKey.toString();
+		} else if (theKey instanceof MemoryCacheService.ResourceVersionKey) {
+			MemoryCacheService.ResourceVersionKey key = (MemoryCacheService.ResourceVersionKey) theKey;
+			return key.getResourcePid() + "/" + key.getVersion();
+		}
+		return null;
+	}
+
+	static Object decodeKey(MemoryCacheService.CacheEnum theCache, String theKey) {
+		Class<?> keyType = theCache.getKeyType();
+		if (keyType.equals(Long.class)) {
+			return Long.parseLong(theKey);
+		} else if (keyType.equals(Integer.class)) {
+			return Integer.parseInt(theKey);
+		} else if (keyType.equals(MemoryCacheService.ResourceVersionKey.class)) {
+			int idx = theKey.indexOf('/');
+			return new MemoryCacheService.ResourceVersionKey(
+					Long.parseLong(theKey.substring(0, idx)), Long.parseLong(theKey.substring(idx + 1)));
+		}
+		return theKey;
+	}
+
+	private static class PendingInvalidations {
+		private final Map<MemoryCacheService.CacheEnum, Set<String>> myKeys =
+				new EnumMap<>(MemoryCacheService.CacheEnum.class);
+		private final Set<MemoryCacheService.CacheEnum> myAllKeys = EnumSet.noneOf(MemoryCacheService.CacheEnum.class);
+
+		void add(MemoryCacheService.CacheEnum theCache, @Nullable Object theKey) {
+			String key = theKey != null ? encodeKey(theKey) : null;
+			if (key == null) {
+				myAllKeys.add(theCache);
+			} else {
+				myKeys.computeIfAbsent(theCache, t -> new LinkedHashSet<>()).add(key);
+			}
+		}
+	}
+}
@@ -0,0 +1,40 @@
+/*-
+ * #%L
+ * HAPI FHIR Storage api
+ * %%
+ * Copyright (C) 2014 - 2024 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.util;
+
+import ca.uhn.fhir.jpa.subscription.channel.api.IChannelFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Import this configuration on clustered servers in order to send {@link MemoryCacheService} invalidations
+ * to every node using the {@link IChannelFactory}.
+ *
+ * @since 7.6.0
+ */
+@Configuration
+public class MemoryCacheInvalidationConfig {
+
+	@Bean
+	public MemoryCacheInvalidationBroadcaster memoryCacheInvalidationBroadcaster(
+			IChannelFactory theChannelFactory, MemoryCacheService theMemoryCacheService) {
+		return new MemoryCacheInvalidationBroadcaster(theChannelFactory, theMemoryCacheService);
+	}
+}
@@ -0,0 +1,89 @@
+/*-
+ * #%L
+ * HAPI FHIR Storage api
+ * %%
+ * Copyright (C) 2014 - 2024 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.util;
+
+import ca.uhn.fhir.model.api.IModelJson;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lists the keys which have been invalidated in one {@link MemoryCacheService} cache on one server node
+ *
+ * @see MemoryCacheInvalidationBroadcaster
+ * @since 7.6.0
+ */
+public class MemoryCacheInvalidationJson implements IModelJson {
+
+	@JsonProperty("originNodeId")
+	private String myOriginNodeId;
+
+	@JsonProperty("cache")
+	private MemoryCacheService.CacheEnum myCache;
+
+	@JsonProperty("allKeys")
+	private boolean myAllKeys;
+
+	@JsonProperty("keys")
+	private List<String> myKeys;
+
+	public String getOriginNodeId() {
+		return myOriginNodeId;
+	}
+
+	public MemoryCacheInvalidationJson setOriginNodeId(String theOriginNodeId) {
+		myOriginNodeId = theOriginNodeId;
+		return this;
+	}
+
+	public MemoryCacheService.CacheEnum getCache() {
+		return myCache;
+	}
+
+	public MemoryCacheInvalidationJson setCache(MemoryCacheService.CacheEnum theCache) {
+		myCache = theCache;
+		return this;
+	}
+
+	/**
+	 * If <code>true</code>, every entry in the cache should be invalidated and {@link #getKeys()} is ignored
+	 */
+	public boolean isAllKeys() {
+		return myAllKeys;
+	}
+
+	public MemoryCacheInvalidationJson setAllKeys(boolean theAllKeys) {
+		myAllKeys = theAllKeys;
+		return this;
+	}
+
+	public List<String> getKeys() {
+		if (myKeys == null) {
+			myKeys = new ArrayList<>();
+		}
+		return myKeys;
+	}
+
+	public MemoryCacheInvalidationJson setKeys(List<String> theKeys) {
+		myKeys = theKeys;
+		return this;
+	}
+}
@@ -20,11 +20,14 @@
 package ca.uhn.fhir.jpa.util;
 
 import ca.uhn.fhir.jpa.api.config.JpaStorageSettings;
+import ca.uhn.fhir.jpa.api.model.MemoryCacheSettings;
 import ca.uhn.fhir.jpa.api.model.TranslationQuery;
 import ca.uhn.fhir.jpa.model.entity.TagTypeEnum;
 import ca.uhn.fhir.sl.cache.Cache;
 import ca.uhn.fhir.sl.cache.CacheFactory;
+import ca.uhn.fhir.sl.cache.CacheStatistics;
 import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
 import org.apache.commons.lang3.builder.EqualsBuilder;
 import org.apache.commons.lang3.builder.HashCodeBuilder;
 import org.springframework.transaction.support.TransactionSynchronization;
@@ -33,6 +36,7 @@ import org.springframework.transaction.support.TransactionSynchronizationManager
 import java.util.Collection;
 import java.util.EnumMap;
 import java.util.Map;
+import java.util.Optional;
 import java.util.function.Function;
 
 import static java.util.concurrent.TimeUnit.MINUTES;
@@ -42,14 +46,20 @@ import static org.apache.commons.lang3.StringUtils.isNotBlank;
 /**
  * This class acts as a central spot for all of the many Caffeine caches we use in HAPI FHIR.
  * <p>
- * The API is super simplistic, and caches are all 1-minute, max 10000 entries for starters. We could definitely add nuance to this,
- * which will be much easier now that this is being centralized. Some logging/monitoring would be good too.
+ * The API is super simplistic, and most caches are 1-minute, max 10000 entries by default. The sizing of
+ * each cache can be overridden using {@link JpaStorageSettings#setMemoryCacheSettings(CacheEnum, MemoryCacheSettings)},
+ * and the statistics recorded by each cache are available through {@link #getStatistics(CacheEnum)}.
+ * <p>
+ * On clustered servers, invalidations can be sent to the other nodes by a {@link MemoryCacheInvalidationBroadcaster}.
  */
 // TODO: JA2 extract an interface for this class and use it everywhere
 public class MemoryCacheService {
 
+	private static final int ENTRY_OVERHEAD_BYTES = 64;
+
 	private final JpaStorageSettings myStorageSettings;
 	private final EnumMap<CacheEnum, Cache<?, ?>> myCaches = new EnumMap<>(CacheEnum.class);
+	private volatile MemoryCacheInvalidationBroadcaster myInvalidationBroadcaster;
 
 	public MemoryCacheService(JpaStorageSettings theStorageSettings) {
 		myStorageSettings = theStorageSettings;
@@ -64,6 +74,38 @@ public class MemoryCacheService {
 			int maximumSize;
 
 			switch (next) {
+				case RESOURCE_BODY:
+					// Entries never go stale since each key refers to a single resource version
+					timeoutSeconds = SECONDS.convert(60, MINUTES);
+					maximumSize = myStorageSettings.getResourceBodyCacheMaxEntries() > 0
+							? myStorageSettings.getResourceBodyCacheMaxEntries()
+							: 10000;
+					break;
+				case SEARCH_SQL:
+					// Entries only depend on the structure of the search, not on any stored data
+					timeoutSeconds = SECONDS.convert(60, MINUTES);
+					maximumSize = 1000;
+					break;
+				case SEARCH_TOTAL_COUNT_GENERATION:
+					// Entries are invalidated when a resource of the given type is written
+					timeoutSeconds = SECONDS.convert(10, MINUTES);
+					maximumSize = 1000;
+					break;
+				case SEARCH_TOTAL_COUNT:
+					// Entries can no longer be found once the generation they were cached under is invalidated
+					timeoutSeconds = SECONDS.convert(10, MINUTES);
+					maximumSize = 10000;
+					break;
+				case SEARCH_KEYSET_POSITION:
+					// Entries only allow a later page to be found faster, so losing one is harmless
+					timeoutSeconds = SECONDS.convert(10, MINUTES);
+					maximumSize = 10000;
+					break;
+				case CHAIN_INDEX_BUILD:
+					// Entries are refreshed regularly so that builds completed by other nodes are seen
+					timeoutSeconds = SECONDS.convert(1, MINUTES);
+					maximumSize = 1000;
+					break;
 				case CONCEPT_TRANSLATION:
 				case CONCEPT_TRANSLATION_REVERSE:
 					timeoutSeconds =
@@ -88,12 +130,66 @@ public class MemoryCacheService {
 					break;
 			}
 
-			Cache<Object, Object> nextCache = CacheFactory.build(SECONDS.toMillis(timeoutSeconds), maximumSize);
+			long timeoutMillis = SECONDS.toMillis(timeoutSeconds);
+			long maximumWeight = 0;
+			if (isResourceIdCache(next)) {
+				maximumWeight = myStorageSettings.getResourceIdCacheMaxBytes();
+			}
+
+			MemoryCacheSettings settings = myStorageSettings.getMemoryCacheSettings(next);
+			if (settings != null) {
+				if (settings.getExpireAfterWriteMillis() != null) {
+					timeoutMillis = settings.getExpireAfterWriteMillis();
+				}
+				if (settings.getMaximumSize() != null) {
+					maximumSize = (int) Math.min(Integer.MAX_VALUE, settings.getMaximumSize());
+					maximumWeight = 0;
+				}
+				if (settings.getMaximumWeightBytes() != null) {
+					maximumWeight = settings.getMaximumWeightBytes();
+				}
+			}
+
+			Cache<Object, Object> nextCache;
+			if (maximumWeight > 0) {
+				nextCache =
+						CacheFactory.build(timeoutMillis, maximumWeight, MemoryCacheService::estimateEntryBytes, true);
+			} else {
+				nextCache = CacheFactory.build(timeoutMillis, maximumSize, null, true);
+			}
 
 			myCaches.put(next, nextCache);
 		}
 	}
 
+	private static boolean isResourceIdCache(CacheEnum theCache) {
+		return theCache == CacheEnum.FORCED_ID_TO_PID
+				|| theCache == CacheEnum.PID_TO_FORCED_ID
+				|| theCache == CacheEnum.RESOURCE_LOOKUP;
+	}
+
+	/**
+	 * Roughly estimates the heap used by a cache entry. Only strings vary meaningfully in size
+	 * within the resource ID caches, so other objects are given a fixed weight. This is only
+	 * a guide for other caches, whose keys and values are larger objects.
+	 */
+	static int estimateEntryBytes(Object theKey, Object theValue) {
+		return ENTRY_OVERHEAD_BYTES + estimateBytes(theKey) + estimateBytes(theValue);
+	}
+
+	private static int estimateBytes(Object theObject) {
+		if (theObject instanceof String) {
+			return 40 + ((String) theObject).length();
+		} else if (theObject instanceof Optional) {
+			return 16 + estimateBytes(((Optional<?>) theObject).orElse(null));
+		} else if (theObject instanceof Long) {
+			return 16;
+		} else if (theObject == null) {
+			return 0;
+		}
+		return 128;
+	}
+
 	public <K, T> T get(CacheEnum theCache, K theKey, Function<K, T> theSupplier) {
 		assert theCache.getKeyType().isAssignableFrom(theKey.getClass());
 		return doGet(theCache, theKey, theSupplier);
@@ -172,8 +268,32 @@ public class MemoryCacheService {
 		return (Map<K, V>) getCache(theCache).getAllPresent(theKeys);
 	}
 
+	public <K> void invalidate(CacheEnum theCache, K theKey) {
+		assert theCache.getKeyType().isAssignableFrom(theKey.getClass());
+		getCache(theCache).invalidate(theKey);
+		broadcastInvalidation(theCache, theKey);
+	}
+
+	/**
+	 * Invalidates an entry in the cache now, and again once the current database transaction
+	 * completes (whether it commits or rolls back). This ensures that any value placed in the
+	 * cache while the transaction was in progress, which may reflect uncommitted changes, is not
+	 * kept.
+	 */
+	public <K> void invalidateNowAndAfterCompletion(CacheEnum theCache, K theKey) {
+		invalidate(theCache, theKey);
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCompletion(int theStatus) {
+					getCache(theCache).invalidate(theKey);
+				}
+			});
+		}
+	}
+
 	public void invalidateAllCaches() {
-		myCaches.values().forEach(Cache::invalidateAll);
+		invalidateCaches(CacheEnum.values());
 	}
 
 	private <K, T> Cache<K, T> getCache(CacheEnum theCache) {
@@ -184,12 +304,48 @@ public class MemoryCacheService {
 		return getCache(theCache).estimatedSize();
 	}
 
+	/**
+	 * Returns the hit, miss, load and eviction statistics recorded by the given cache
+	 * since it was created.
+	 *
+	 * @since 7.6.0
+	 */
+	@Nullable
+	public CacheStatistics getStatistics(CacheEnum theCache) {
+		return getCache(theCache).getStatistics();
+	}
+
 	public void invalidateCaches(CacheEnum... theCaches) {
 		for (CacheEnum next : theCaches) {
 			getCache(next).invalidateAll();
+			broadcastInvalidation(next, null);
 		}
 	}
 
+	/**
+	 * Invalidates an entry in the local cache without notifying other server nodes
+	 *
+	 * @param theKey The key to invalidate, or <code>null</code> to invalidate every entry in the cache
+	 */
+	void invalidateLocally(CacheEnum theCache, @Nullable Object theKey) {
+		if (theKey == null) {
+			getCache(theCache).invalidateAll();
+		} else {
+			getCache(theCache).invalidate(theKey);
+		}
+	}
+
+	private void broadcastInvalidation(CacheEnum theCache, @Nullable Object theKey) {
+		MemoryCacheInvalidationBroadcaster broadcaster = myInvalidationBroadcaster;
+		if (broadcaster != null) {
+			broadcaster.broadcastInvalidation(theCache, theKey);
+		}
+	}
+
+	void setInvalidationBroadcaster(@Nullable MemoryCacheInvalidationBroadcaster theInvalidationBroadcaster) {
+		myInvalidationBroadcaster = theInvalidationBroadcaster;
+	}
+
 	public enum CacheEnum {
 		TAG_DEFINITION(TagDefinitionCacheKey.class),
 		RESOURCE_LOOKUP(String.class),
@@ -206,7 +362,37 @@ public class MemoryCacheService {
 		RESOURCE_CONDITIONAL_CREATE_VERSION(Long.class),
 		HISTORY_COUNT(HistoryCountKey.class),
 		NAME_TO_PARTITION(String.class),
-		ID_TO_PARTITION(Integer.class);
+		ID_TO_PARTITION(Integer.class),
+		/**
+		 * Key type: {@link ResourceVersionKey}
+		 * Value type: {@literal String} (the decoded resource body)
+		 */
+		RESOURCE_BODY(ResourceVersionKey.class),
+		/**
+		 * Key type: {@literal String} (the shape of a search)
+		 * Value type: The SQL generated for searches with that shape
+		 */
+		SEARCH_SQL(String.class),
+		/**
+		 * Key type: {@literal String} (a resource type)
+		 * Value type: {@literal String} (a random ID which the search totals cached for that type are keyed by)
+		 */
+		SEARCH_TOTAL_COUNT_GENERATION(String.class),
+		/**
+		 * Key type: {@literal String} (a {@link #SEARCH_TOTAL_COUNT_GENERATION} ID followed by a search)
+		 * Value type: {@literal Long} (the number of resources matching the search)
+		 */
+		SEARCH_TOTAL_COUNT(String.class),
+		/**
+		 * Key type: {@literal String} (a search and the offset of one of its pages)
+		 * Value type: The sort key and resource ID of the last resource before that page
+		 */
+		SEARCH_KEYSET_POSITION(String.class),
+		/**
+		 * Key type: {@literal String} (a declared chain and the hash of its definition)
+		 * Value type: {@literal Boolean} (whether the chain index has been built for that definition)
+		 */
+		CHAIN_INDEX_BUILD(String.class);
 
 		public Class<?> getKeyType() {
 			return myKeyType;
@@ -311,4 +497,40 @@ public class MemoryCacheService {
 			return myHashCode;
 		}
 	}
+
+	/**
+	 * Identifies a single version of a resource by its PID
+	 */
+	public static class ResourceVersionKey {
+		private final long myResourcePid;
+		private final long myVersion;
+
+		public ResourceVersionKey(long theResourcePid, long theVersion) {
+			myResourcePid = theResourcePid;
+			myVersion = theVersion;
+		}
+
+		public long getResourcePid() {
+			return myResourcePid;
+		}
+
+		public long getVersion() {
+			return myVersion;
+		}
+
+		@Override
+		public boolean equals(Object theO) {
+			boolean retVal = false;
+			if (theO instanceof ResourceVersionKey) {
+				ResourceVersionKey that = (ResourceVersionKey) theO;
+				retVal = myResourcePid == that.myResourcePid && myVersion == that.myVersion;
+			}
+			return retVal;
+		}
+
+		@Override
+		public int hashCode() {
+			return Long.hashCode(myResourcePid) * 31 + Long.hashCode(myVersion);
+		}
+	}
 }
@@ -0,0 +1,121 @@
+package ca.uhn.fhir.jpa.util;
+
+import ca.uhn.fhir.jpa.api.config.JpaStorageSettings;
+import ca.uhn.fhir.jpa.model.entity.TagTypeEnum;
+import ca.uhn.fhir.jpa.subscription.channel.impl.LinkedBlockingChannelFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class MemoryCacheInvalidationBroadcasterTest {
+
+	private static final String MATCH_URL = "Patient?identifier=http://foo|bar";
+
+	private LinkedBlockingChannelFactory myChannelFactory;
+	private MemoryCacheService myNode1Cache;
+	private MemoryCacheService myNode2Cache;
+	private MemoryCacheInvalidationBroadcaster myNode1Broadcaster;
+	private MemoryCacheInvalidationBroadcaster myNode2Broadcaster;
+
+	@BeforeEach
+	public void before() {
+		myChannelFactory = new LinkedBlockingChannelFactory((theName, theSettings) -> theName);
+		myNode1Cache = new MemoryCacheService(new JpaStorageSettings());
+		myNode2Cache = new MemoryCacheService(new JpaStorageSettings());
+		myNode1Broadcaster = new MemoryCacheInvalidationBroadcaster(myChannelFactory, myNode1Cache);
+		myNode2Broadcaster = new MemoryCacheInvalidationBroadcaster(myChannelFactory, myNode2Cache);
+		myNode1Broadcaster.start();
+		myNode2Broadcaster.start();
+	}
+
+	@AfterEach
+	public void after() {
+		myNode1Broadcaster.stop();
+		myNode2Broadcaster.stop();
+		myChannelFactory.stop();
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+	}
+
+	@Test
+	public void testInvalidateKey() {
+		myNode1Cache.put(MemoryCacheService.CacheEnum.MATCH_URL, MATCH_URL, 123L);
+		myNode2Cache.put(MemoryCacheService.CacheEnum.MATCH_URL, MATCH_URL, 123L);
+		myNode2Cache.put(MemoryCacheService.CacheEnum.MATCH_URL, "Patient?identifier=other", 456L);
+		myNode2Cache.put(MemoryCacheService.CacheEnum.RESOURCE_CONDITIONAL_CREATE_VERSION, 123L, 3L);
+
+		myNode1Cache.invalidate(MemoryCacheService.CacheEnum.MATCH_URL, MATCH_URL);
+		myNode1Cache.invalidate(MemoryCacheService.CacheEnum.RESOURCE_CONDITIONAL_CREATE_VERSION, 123L);
+
+		assertNull(myNode1Cache.getIfPresent(MemoryCacheService.CacheEnum.MATCH_URL, MATCH_URL));
+		await().until(() -> myNode2Cache.getIfPresent(MemoryCacheService.CacheEnum.MATCH_URL, MATCH_URL) == null);
+		await().until(() -> myNode2Cache.getIfPresent(
+			MemoryCacheService.CacheEnum.RESOURCE_CONDITIONAL_CREATE_VERSION, 123L) == null);
+		assertEquals(456L, (Long) myNode2Cache.getIfPresent(MemoryCacheService.CacheEnum.MATCH_URL, "Patient?identifier=other"));
+	}
+
+	@Test
+	public void testInvalidateInTransaction_SentAfterCommit() {
+		myNode2Cache.put(MemoryCacheService.CacheEnum.MATCH_URL, MATCH_URL, 123L);
+		myNode2Cache.put(MemoryCacheService.CacheEnum.RESOURCE_BODY, new MemoryCacheService.ResourceVersionKey(123L, 2L), "{}");
+
+		TransactionSynchronizationManager.initSynchronization();
+		myNode1Cache.invalidate(MemoryCacheService.CacheEnum.MATCH_URL, MATCH_URL);
+		myNode1Cache.invalidateNowAndAfterCompletion(
+			MemoryCacheService.CacheEnum.RESOURCE_BODY, new MemoryCacheService.ResourceVersionKey(123L, 2L));
+		assertNotNull(myNode2Cache.getIfPresent(MemoryCacheService.CacheEnum.MATCH_URL, MATCH_URL));
+
+		complete(TransactionSynchronization.STATUS_COMMITTED);
+
+		await().until(() -> myNode2Cache.getIfPresent(MemoryCacheService.CacheEnum.MATCH_URL, MATCH_URL) == null);
+		await().until(() -> myNode2Cache.getIfPresent(
+			MemoryCacheService.CacheEnum.RESOURCE_BODY, new MemoryCacheService.ResourceVersionKey(123L, 2L)) == null);
+	}
+
+	@Test
+	public void testInvalidateInTransaction_NotSentAfterRollback() {
+		myNode2Cache.put(MemoryCacheService.CacheEnum.MATCH_URL, MATCH_URL, 123L);
+
+		TransactionSynchronizationManager.initSynchronization();
+		myNode1Cache.invalidate(MemoryCacheService.CacheEnum.MATCH_URL, MATCH_URL);
+		complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+		// Messages are delivered in order, so once this one arrives any earlier message would have too
+		myNode2Cache.put(MemoryCacheService.CacheEnum.HISTORY_COUNT, MemoryCacheService.HistoryCountKey.forSystem(), 1);
+		myNode1Cache.invalidateCaches(MemoryCacheService.CacheEnum.HISTORY_COUNT);
+		await().until(() -> myNode2Cache.getEstimatedSize(MemoryCacheService.CacheEnum.HISTORY_COUNT) == 0);
+		assertNotNull(myNode2Cache.getIfPresent(MemoryCacheService.CacheEnum.MATCH_URL, MATCH_URL));
+	}
+
+	@Test
+	public void testInvalidateUnencodableKey_InvalidatesWholeCache() {
+		MemoryCacheService.TagDefinitionCacheKey key1 = new MemoryCacheService.TagDefinitionCacheKey(
+			TagTypeEnum.TAG, "http://foo", "1", null, null);
+		MemoryCacheService.TagDefinitionCacheKey key2 = new MemoryCacheService.TagDefinitionCacheKey(
+			TagTypeEnum.TAG, "http://foo", "2", null, null);
+		myNode1Cache.put(MemoryCacheService.CacheEnum.TAG_DEFINITION, key2, "2");
+		myNode2Cache.put(MemoryCacheService.CacheEnum.TAG_DEFINITION, key1, "1");
+		myNode2Cache.put(MemoryCacheService.CacheEnum.TAG_DEFINITION, key2, "2");
+
+		myNode1Cache.invalidate(MemoryCacheService.CacheEnum.TAG_DEFINITION, key1);
+
+		await().until(() -> myNode2Cache.getEstimatedSize(MemoryCacheService.CacheEnum.TAG_DEFINITION) == 0);
+		// The originating node only invalidates the given key
+		assertEquals("2", myNode1Cache.getIfPresent(MemoryCacheService.CacheEnum.TAG_DEFINITION, key2));
+	}
+
+	private static void complete(int theStatus) {
+		for (TransactionSynchronization next : TransactionSynchronizationManager.getSynchronizations()) {
+			next.afterCompletion(theStatus);
+		}
+		TransactionSynchronizationManager.clearSynchronization();
+	}
+}
@@ -0,0 +1,83 @@
+package ca.uhn.fhir.parser;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.rest.api.EncodingEnum;
+import ca.uhn.fhir.util.ClasspathUtil;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.hl7.fhir.r4.model.Extension;
+import org.hl7.fhir.r4.model.Identifier;
+import org.hl7.fhir.r4.model.Observation;
+import org.hl7.fhir.r4.model.Patient;
+import org.hl7.fhir.r4.model.StringType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Verifies that enabling {@link ca.uhn.fhir.context.ParserOptions#setCompactModel(boolean) compact model}
+ * parsing does not change the parsed content.
+ */
+public class CompactModelR4Test {
+	private static final FhirContext ourCtx = FhirContext.forR4Cached();
+	private static final FhirContext ourCompactCtx = FhirContext.forR4();
+
+	static {
+		ourCompactCtx.getParserOptions().setCompactModel(true);
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = {
+		"/bundle-with-two-patient-resources.json",
+		"/entities-from-cerner.json",
+		"/multi-thread-parsing-issue-bundle.json"
+	})
+	public void testParseClasspathResource(String theResourceName) {
+		String input = ClasspathUtil.loadResource(theResourceName);
+
+		for (EncodingEnum next : new EncodingEnum[] {EncodingEnum.JSON, EncodingEnum.XML}) {
+			String encoded = next.newParser(ourCtx).encodeResourceToString(ourCtx.newJsonParser().parseResource(input));
+
+			IBaseResource expected = next.newParser(ourCtx).parseResource(encoded);
+			IBaseResource actual = next.newParser(ourCompactCtx).parseResource(encoded);
+
+			IParser parser = ourCtx.newJsonParser().setPrettyPrint(true);
+			assertEquals(parser.encodeResourceToString(expected), parser.encodeResourceToString(actual));
+		}
+	}
+
+	@Test
+	public void testRepeatedValuesAreShared() {
+		Observation input = new Observation();
+		input.setStatus(Observation.ObservationStatus.FINAL);
+		input.getCode().addCoding().setSystem("http://loinc.org").setCode("29463-7");
+		input.addExtension("http://example.com/ext", new StringType("hello"));
+		input.getCode().getCodingFirstRep().getCodeElement().addExtension("http://example.com/ext", new StringType("code ext"));
+		String encoded = ourCtx.newJsonParser().encodeResourceToString(input);
+
+		Observation first = ourCompactCtx.newJsonParser().parseResource(Observation.class, encoded);
+		Observation second = ourCompactCtx.newJsonParser().parseResource(Observation.class, encoded);
+
+		assertEquals("http://loinc.org", first.getCode().getCodingFirstRep().getSystem());
+		assertSame(first.getCode().getCodingFirstRep().getSystem(), second.getCode().getCodingFirstRep().getSystem());
+		assertSame(first.getCode().getCodingFirstRep().getCode(), second.getCode().getCodingFirstRep().getCode());
+		assertSame(first.getExtensionFirstRep().getUrl(), second.getExtensionFirstRep().getUrl());
+
+		Extension codeExtension = first.getCode().getCodingFirstRep().getCodeElement().getExtensionFirstRep();
+		assertEquals("code ext", codeExtension.getValueAsPrimitive().getValueAsString());
+	}
+
+	@Test
+	public void testValuesNotSharedWhenDisabled() {
+		String encoded = ourCtx.newJsonParser().encodeResourceToString(new Patient().addIdentifier(new Identifier().setSystem("http://foo")));
+
+		Patient first = ourCtx.newJsonParser().parseResource(Patient.class, encoded);
+		Patient second = ourCtx.newJsonParser().parseResource(Patient.class, encoded);
+
+		assertThat(first.getIdentifierFirstRep().getSystem()).isNotSameAs(second.getIdentifierFirstRep().getSystem());
+	}
+
+}
@@ -0,0 +1,93 @@
+package ca.uhn.fhir.parser;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.context.PerformanceOptionsEnum;
+import ca.uhn.fhir.rest.api.EncodingEnum;
+import ca.uhn.fhir.util.ClasspathUtil;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.hl7.fhir.r4.model.Enumerations;
+import org.hl7.fhir.r4.model.Observation;
+import org.hl7.fhir.r4.model.Patient;
+import org.hl7.fhir.r4.model.Quantity;
+import org.hl7.fhir.r4.model.StringType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Verifies that enabling {@link PerformanceOptionsEnum#COMPILED_PARSER_PLANS} does not
+ * change the output of the parsers.
+ */
+public class CompiledParserPlansR4Test {
+	private static final FhirContext ourCtx = FhirContext.forR4Cached();
+	private static final FhirContext ourPlansCtx = FhirContext.forR4();
+
+	static {
+		ourPlansCtx.setPerformanceOptions(PerformanceOptionsEnum.COMPILED_PARSER_PLANS);
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = {
+		"/bundle-with-two-patient-resources.json",
+		"/entities-from-cerner.json",
+		"/multi-thread-parsing-issue-bundle.json"
+	})
+	public void testParseAndEncodeClasspathResource(String theResourceName) {
+		String input = ClasspathUtil.loadResource(theResourceName);
+
+		for (EncodingEnum next : new EncodingEnum[] {EncodingEnum.JSON, EncodingEnum.XML}) {
+			IBaseResource expected = ourCtx.newJsonParser().parseResource(input);
+			String expectedEncoded = next.newParser(ourCtx).setPrettyPrint(true).encodeResourceToString(expected);
+
+			IBaseResource actual = ourPlansCtx.newJsonParser().parseResource(input);
+			String actualEncoded = next.newParser(ourPlansCtx).setPrettyPrint(true).encodeResourceToString(actual);
+			assertEquals(expectedEncoded, actualEncoded);
+
+			IBaseResource reparsed = next.newParser(ourPlansCtx).parseResource(actualEncoded);
+			assertEquals(expectedEncoded, next.newParser(ourCtx).setPrettyPrint(true).encodeResourceToString(reparsed));
+		}
+	}
+
+	@Test
+	public void testEncodeChoiceAndEnumerationTypes() {
+		Observation obs = new Observation();
+		obs.setStatus(Observation.ObservationStatus.FINAL);
+		obs.setValue(new Quantity().setValue(1.5).setUnit("mg"));
+		Patient patient = new Patient();
+		patient.setGender(Enumerations.AdministrativeGender.FEMALE);
+
+		assertEquals(ourCtx.newJsonParser().encodeResourceToString(obs), ourPlansCtx.newJsonParser().encodeResourceToString(obs));
+		assertEquals(ourCtx.newXmlParser().encodeResourceToString(obs), ourPlansCtx.newXmlParser().encodeResourceToString(obs));
+		assertEquals(ourCtx.newJsonParser().encodeResourceToString(patient), ourPlansCtx.newJsonParser().encodeResourceToString(patient));
+
+		// Values of a different type in the same child must not reuse the cached entry
+		obs.setValue(new StringType("hello"));
+		assertThat(ourPlansCtx.newJsonParser().encodeResourceToString(obs)).contains("\"valueString\":\"hello\"");
+	}
+
+	@Test
+	public void testParseRepeatedNonRepeatingElement() {
+		String input = "<Observation xmlns=\"http://hl7.org/fhir\"><status value=\"final\"/><valueString value=\"A\"/><valueBoolean value=\"true\"/></Observation>";
+
+		Observation obs = ourPlansCtx.newXmlParser().parseResource(Observation.class, input);
+		assertEquals("A", obs.getValueStringType().getValue());
+
+		IParser strict = ourPlansCtx.newXmlParser().setParserErrorHandler(new StrictErrorHandler());
+		assertThatThrownBy(() -> strict.parseResource(Observation.class, input))
+			.isInstanceOf(DataFormatException.class)
+			.hasMessageContaining("Multiple repetitions of non-repeatable element 'value'");
+	}
+
+	@Test
+	public void testPlansOnlyCreatedWhenEnabled() {
+		assertNull(ourCtx.getCompiledParserPlans());
+		assertNotNull(ourPlansCtx.getCompiledParserPlans());
+	}
+
+}
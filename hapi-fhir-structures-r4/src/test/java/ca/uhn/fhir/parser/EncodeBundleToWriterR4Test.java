@@ -0,0 +1,104 @@
+package ca.uhn.fhir.parser;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.rest.api.EncodingEnum;
+import org.hl7.fhir.instance.model.api.IBase;
+import org.hl7.fhir.r4.model.Bundle;
+import org.hl7.fhir.r4.model.Patient;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class EncodeBundleToWriterR4Test {
+	private static final FhirContext ourCtx = FhirContext.forR4Cached();
+
+	private Bundle createHeader() {
+		Bundle bundle = new Bundle();
+		bundle.setId("BUNDLE");
+		bundle.setType(Bundle.BundleType.SEARCHSET);
+		bundle.setTotal(3);
+		bundle.addLink().setRelation("self").setUrl("http://example.com/Patient");
+		bundle.getSignature().setSigFormat("application/jose");
+		return bundle;
+	}
+
+	private List<Bundle.BundleEntryComponent> createEntries() {
+		List<Bundle.BundleEntryComponent> retVal = new ArrayList<>();
+		for (int i = 0; i < 3; i++) {
+			Patient patient = new Patient();
+			patient.setId("http://example.com/Patient/P" + i);
+			patient.addName().setFamily("Family " + i);
+			patient.getManagingOrganization().setReference("Organization/O1");
+
+			Bundle.BundleEntryComponent entry = new Bundle.BundleEntryComponent();
+			entry.setFullUrl(patient.getIdElement().getValue());
+			entry.setResource(patient);
+			entry.getSearch().setMode(Bundle.SearchEntryMode.MATCH);
+			retVal.add(entry);
+		}
+		return retVal;
+	}
+
+	private IParser newParser(EncodingEnum theEncoding) {
+		return theEncoding.newParser(ourCtx).setPrettyPrint(true);
+	}
+
+	@ParameterizedTest
+	@EnumSource(value = EncodingEnum.class, names = {"JSON", "XML"})
+	public void testStreamedEntriesEncodeIdenticallyToBundle(EncodingEnum theEncoding) throws IOException {
+		Bundle expectedBundle = createHeader();
+		createEntries().forEach(expectedBundle::addEntry);
+		String expected = newParser(theEncoding).encodeResourceToString(expectedBundle);
+
+		StringWriter writer = new StringWriter();
+		newParser(theEncoding).encodeBundleToWriter(createHeader(), createEntries().iterator(), writer);
+
+		assertEquals(expected, writer.toString());
+	}
+
+	@ParameterizedTest
+	@EnumSource(value = EncodingEnum.class, names = {"JSON", "XML"})
+	public void testStreamedResourcesAreWrappedInEntries(EncodingEnum theEncoding) throws IOException {
+		Bundle header = createHeader();
+		header.addEntry().setFullUrl("http://example.com/Patient/EXISTING").setResource(new Patient().setActive(true));
+
+		List<IBase> resources = new ArrayList<>();
+		for (Bundle.BundleEntryComponent next : createEntries()) {
+			resources.add(next.getResource());
+		}
+
+		StringWriter writer = new StringWriter();
+		newParser(theEncoding).encodeBundleToWriter(header, resources.iterator(), writer);
+
+		Bundle parsed = (Bundle) newParser(theEncoding).parseResource(writer.toString());
+		assertThat(parsed.getEntry()).hasSize(4);
+		assertEquals("http://example.com/Patient/EXISTING", parsed.getEntry().get(0).getFullUrl());
+		assertEquals("http://example.com/Patient/P0", parsed.getEntry().get(1).getFullUrl());
+		assertEquals("http://example.com/Patient/P2", parsed.getEntry().get(3).getFullUrl());
+		assertEquals("Family 2", ((Patient) parsed.getEntry().get(3).getResource()).getNameFirstRep().getFamily());
+		assertThat(header.getEntry()).hasSize(1);
+	}
+
+	@Test
+	public void testNdJson() throws IOException {
+		StringWriter writer = new StringWriter();
+		ourCtx.newNDJsonParser().encodeBundleToWriter(new Bundle(), createEntries().iterator(), writer);
+
+		String[] lines = writer.toString().split("\n");
+		assertThat(lines).hasSize(3);
+		assertThat(lines[0]).contains("Family 0");
+
+		writer = new StringWriter();
+		ourCtx.newNDJsonParser().encodeBundleToWriter(new Bundle(), Collections.emptyIterator(), writer);
+		assertEquals("", writer.toString());
+	}
+}
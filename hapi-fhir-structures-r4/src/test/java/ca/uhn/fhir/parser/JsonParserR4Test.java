@@ -78,6 +78,13 @@ public class JsonParserR4Test extends BaseTest {
 	private static final Logger ourLog = LoggerFactory.getLogger(JsonParserR4Test.class);
 	private static FhirContext ourCtx = FhirContext.forR4();
 
+	/**
+	 * Subclasses may override this to run all of these tests with a differently configured context
+	 */
+	protected FhirContext getContext() {
+		return ourCtx;
+	}
+
 	private Bundle createBundleWithPatient() {
 		Bundle b = new Bundle();
 		b.setId("BUNDLEID");
@@ -93,7 +100,7 @@ public class JsonParserR4Test extends BaseTest {
 
 	@AfterEach
 	public void afterEach() {
-		ourCtx.getParserOptions().setAutoContainReferenceTargetsWithNoId(true);
+		getContext().getParserOptions().setAutoContainReferenceTargetsWithNoId(true);
 	}
 
 	@Test
@@ -103,7 +110,7 @@ public class JsonParserR4Test extends BaseTest {
 			"  \"resourceType\": \"Binary\",\n" +
 			"  \"id\": \"b123\"\n" +
 			"}\n";
-		IBaseResource iBaseResource = ourCtx.newJsonParser().parseResource(binaryPayload);
+		IBaseResource iBaseResource = getContext().newJsonParser().parseResource(binaryPayload);
 		String resourceType = iBaseResource.getIdElement().getResourceType();
 		assertEquals("Binary", resourceType);
 
@@ -112,14 +119,14 @@ public class JsonParserR4Test extends BaseTest {
 			"  \"resourceType\": \"Observation\",\n" +
 			"  \"id\": \"o123\"\n" +
 			"}\n";
-		IBaseResource obs = ourCtx.newJsonParser().parseResource(observationPayload);
+		IBaseResource obs = getContext().newJsonParser().parseResource(observationPayload);
 		resourceType = obs.getIdElement().getResourceType();
 		assertEquals("Observation", resourceType);
 	}
 
 	@Test
 	public void testEntitiesNotConverted() throws IOException {
-		Device input = loadResource(ourCtx, Device.class, "/entities-from-cerner.json");
+		Device input = loadResource(getContext(), Device.class, "/entities-from-cerner.json");
 		String narrative = input.getText().getDivAsString();
 		ourLog.info(narrative);
 	}
@@ -131,7 +138,7 @@ public class JsonParserR4Test extends BaseTest {
 		p.addExtension("http://foo", new MyUnknownPrimitiveType());
 
 		try {
-			ourCtx.newJsonParser().encodeResourceToString(p);
+			getContext().newJsonParser().encodeResourceToString(p);
 			fail();		} catch (ConfigurationException e) {
 			assertEquals(Msg.code(1844) + "Unable to encode extension, unrecognized child element type: ca.uhn.fhir.parser.JsonParserR4Test.MyUnknownPrimitiveType", e.getMessage());
 		}
@@ -147,12 +154,12 @@ public class JsonParserR4Test extends BaseTest {
 			"</xhtml:div>" +
 			"</text>" +
 			"</Patient>";
-		Patient parsed = ourCtx.newXmlParser().parseResource(Patient.class, input);
+		Patient parsed = getContext().newXmlParser().parseResource(Patient.class, input);
 
 		String expected = "<div xmlns=\"http://www.w3.org/1999/xhtml\"><img src=\"foo\"/>@fhirabend</div>";
 		assertEquals(expected, parsed.getText().getDiv().getValueAsString());
 
-		String encoded = ourCtx.newJsonParser().encodeResourceToString(parsed);
+		String encoded = getContext().newJsonParser().encodeResourceToString(parsed);
 		ourLog.info(encoded);
 		assertThat(encoded).contains("\"div\":\"" + expected.replace("\"", "\\\"") + "\"");
 	}
@@ -160,12 +167,12 @@ public class JsonParserR4Test extends BaseTest {
 	@Test
 	public void testNamespacePrefixStrippedOnJsonParse() {
 		String input = "{\"resourceType\":\"Patient\",\"text\":{\"div\":\"<xhtml:div xmlns:xhtml=\\\"http://www.w3.org/1999/xhtml\\\"><xhtml:img src=\\\"foo\\\"/>@fhirabend</xhtml:div>\"}}";
-		Patient parsed = ourCtx.newJsonParser().parseResource(Patient.class, input);
+		Patient parsed = getContext().newJsonParser().parseResource(Patient.class, input);
 		XhtmlNode div = parsed.getText().getDiv();
 
 		assertEquals("<div xmlns=\"http://www.w3.org/1999/xhtml\"><img src=\"foo\"/>@fhirabend</div>", div.getValueAsString());
 
-		String encoded = ourCtx.newXmlParser().encodeResourceToString(parsed);
+		String encoded = getContext().newXmlParser().encodeResourceToString(parsed);
 		assertEquals("<Patient xmlns=\"http://hl7.org/fhir\"><text><div xmlns=\"http://www.w3.org/1999/xhtml\"><img src=\"foo\"/>@fhirabend</div></text></Patient>", encoded);
 	}
 
@@ -191,9 +198,9 @@ public class JsonParserR4Test extends BaseTest {
 
 		ourLog.info(asXml);
 
-		Bundle bundle = ourCtx.newXmlParser().parseResource(Bundle.class, asXml);
+		Bundle bundle = getContext().newXmlParser().parseResource(Bundle.class, asXml);
 
-		String asString = ourCtx.newJsonParser().setPrettyPrint(true).encodeResourceToString(bundle);
+		String asString = getContext().newJsonParser().setPrettyPrint(true).encodeResourceToString(bundle);
 		ourLog.info(asString);
 		assertThat(asString).doesNotContain("{ }");
 	}
@@ -205,10 +212,10 @@ public class JsonParserR4Test extends BaseTest {
 		Binary b = new Binary();
 		b.getDataElement().addExtension("http://foo", new StringType("AAA"));
 
-		String output = ourCtx.newJsonParser().setSummaryMode(true).encodeResourceToString(b);
+		String output = getContext().newJsonParser().setSummaryMode(true).encodeResourceToString(b);
 		assertEquals("{\"resourceType\":\"Binary\",\"meta\":{\"tag\":[{\"system\":\"http://terminology.hl7.org/CodeSystem/v3-ObservationValue\",\"code\":\"SUBSETTED\",\"display\":\"Resource encoded in summary mode\"}]}}", output);
 
-		output = ourCtx.newJsonParser().setDontEncodeElements(Sets.newHashSet("*.id", "*.meta")).encodeResourceToString(b);
+		output = getContext().newJsonParser().setDontEncodeElements(Sets.newHashSet("*.id", "*.meta")).encodeResourceToString(b);
 		assertEquals("{\"resourceType\":\"Binary\",\"_data\":{\"extension\":[{\"url\":\"http://foo\",\"valueString\":\"AAA\"}]}}", output);
 	}
 
@@ -228,12 +235,12 @@ public class JsonParserR4Test extends BaseTest {
 
 	@Test
 	public void testPrettyPrint() {
-		ourCtx.getParserOptions().setDontStripVersionsFromReferencesAtPaths("QuestionnaireResponse.questionnaire");
+		getContext().getParserOptions().setDontStripVersionsFromReferencesAtPaths("QuestionnaireResponse.questionnaire");
 
 		QuestionnaireResponse qr = new QuestionnaireResponse();
 		qr.getQuestionnaireElement().setValueAsString("Questionnaire/123/_history/456");
 
-		String output = ourCtx.newJsonParser().setPrettyPrint(true).encodeResourceToString(qr);
+		String output = getContext().newJsonParser().setPrettyPrint(true).encodeResourceToString(qr);
 		ourLog.info(output);
 
 		assertThat(output).contains("\n  \"resourceType\"");
@@ -253,7 +260,7 @@ public class JsonParserR4Test extends BaseTest {
 		md.setMedication(new Reference(med));
 		mr.setMedication(new Reference(med));
 
-		String encoded = ourCtx.newJsonParser().setPrettyPrint(true).encodeResourceToString(md);
+		String encoded = getContext().newJsonParser().setPrettyPrint(true).encodeResourceToString(md);
 		ourLog.info(encoded);
 
 		int idx = encoded.indexOf("\"Medication\"");
@@ -273,12 +280,12 @@ public class JsonParserR4Test extends BaseTest {
 		med.getCode().setText("MED");
 		md.setMedication(new Reference(med));
 
-		ourCtx.getParserOptions().setAutoContainReferenceTargetsWithNoId(false);
-		String encoded = ourCtx.newJsonParser().setPrettyPrint(false).encodeResourceToString(md);
+		getContext().getParserOptions().setAutoContainReferenceTargetsWithNoId(false);
+		String encoded = getContext().newJsonParser().setPrettyPrint(false).encodeResourceToString(md);
 		assertEquals("{\"resourceType\":\"MedicationDispense\",\"identifier\":[{\"value\":\"DISPENSE\"}],\"medicationReference\":{}}", encoded);
 
-		ourCtx.getParserOptions().setAutoContainReferenceTargetsWithNoId(true);
-		encoded = ourCtx.newJsonParser().setPrettyPrint(false).encodeResourceToString(md);
+		getContext().getParserOptions().setAutoContainReferenceTargetsWithNoId(true);
+		encoded = getContext().newJsonParser().setPrettyPrint(false).encodeResourceToString(md);
 		assertEquals("{\"resourceType\":\"MedicationDispense\",\"contained\":[{\"resourceType\":\"Medication\",\"id\":\"1\",\"code\":{\"text\":\"MED\"}}],\"identifier\":[{\"value\":\"DISPENSE\"}],\"medicationReference\":{\"reference\":\"#1\"}}", encoded);
 
 	}
@@ -287,7 +294,7 @@ public class JsonParserR4Test extends BaseTest {
 	public void testParseBundleWithMultipleNestedContainedResources() throws Exception {
 		String text = loadResource("/bundle-with-two-patient-resources.json");
 
-		Bundle bundle = ourCtx.newJsonParser().parseResource(Bundle.class, text);
+		Bundle bundle = getContext().newJsonParser().parseResource(Bundle.class, text);
 		assertEquals(Boolean.TRUE, bundle.getUserData(BaseParser.RESOURCE_CREATED_BY_PARSER));
 		assertEquals(Boolean.TRUE, bundle.getEntry().get(0).getResource().getUserData(BaseParser.RESOURCE_CREATED_BY_PARSER));
 		assertEquals(Boolean.TRUE, bundle.getEntry().get(1).getResource().getUserData(BaseParser.RESOURCE_CREATED_BY_PARSER));
@@ -318,7 +325,7 @@ public class JsonParserR4Test extends BaseTest {
 		md.setMedication(new Reference(med));
 		mr.setMedication(new Reference(med));
 
-		String encoded = ourCtx.newJsonParser().setPrettyPrint(true).encodeResourceToString(md);
+		String encoded = getContext().newJsonParser().setPrettyPrint(true).encodeResourceToString(md);
 		ourLog.info(encoded);
 
 		int idx = encoded.indexOf("\"Medication\"");
@@ -351,7 +358,7 @@ public class JsonParserR4Test extends BaseTest {
 		md.getContained().add(mr);
 		md.getContained().add(med);
 
-		String encoded = ourCtx.newJsonParser().setPrettyPrint(true).encodeResourceToString(md);
+		String encoded = getContext().newJsonParser().setPrettyPrint(true).encodeResourceToString(md);
 		ourLog.info(encoded);
 
 		int idx = encoded.indexOf("\"Medication\"");
@@ -410,10 +417,10 @@ public class JsonParserR4Test extends BaseTest {
 	public void testEncodeAndParseUnicodeCharacterInNarrative() {
 		Patient p = new Patient();
 		p.getText().getDiv().setValueAsString("<div>Copy © 1999</div>");
-		String encoded = ourCtx.newJsonParser().encodeResourceToString(p);
+		String encoded = getContext().newJsonParser().encodeResourceToString(p);
 		ourLog.info(encoded);
 
-		p = (Patient) ourCtx.newJsonParser().parseResource(encoded);
+		p = (Patient) getContext().newJsonParser().parseResource(encoded);
 		assertEquals("<div xmlns=\"http://www.w3.org/1999/xhtml\">Copy © 1999</div>", p.getText().getDivAsString());
 	}
 
@@ -430,7 +437,7 @@ public class JsonParserR4Test extends BaseTest {
 			.setFullUrl("urn:uuid:0.0.0.0")
 			.setResource(header);
 
-		String encoded = ourCtx.newJsonParser().setPrettyPrint(true).encodeResourceToString(input);
+		String encoded = getContext().newJsonParser().setPrettyPrint(true).encodeResourceToString(input);
 
 		ourLog.info("Encoded: {}", encoded);
 		assertThat(encoded).containsSubsequence(
@@ -438,7 +445,7 @@ public class JsonParserR4Test extends BaseTest {
 			"\"id\": \"1.1.1.1\""
 		);
 
-		input = ourCtx.newJsonParser().parseResource(Bundle.class, encoded);
+		input = getContext().newJsonParser().parseResource(Bundle.class, encoded);
 		assertEquals("urn:uuid:0.0.0.0", input.getEntry().get(0).getFullUrl());
 		assertEquals("MessageHeader/1.1.1.1", input.getEntry().get(0).getResource().getId());
 
@@ -446,7 +453,7 @@ public class JsonParserR4Test extends BaseTest {
 
 	@Test
 	public void testParseSingleQuotes() {
-		Bundle bundle = ourCtx.newJsonParser().parseResource(Bundle.class, "{ 'resourceType': 'Bundle', 'id': '123' }");
+		Bundle bundle = getContext().newJsonParser().parseResource(Bundle.class, "{ 'resourceType': 'Bundle', 'id': '123' }");
 		assertEquals("123", bundle.getIdElement().getIdPart());
 	}
 
@@ -457,7 +464,7 @@ public class JsonParserR4Test extends BaseTest {
 		b.setContent(new byte[]{0, 1, 2, 3, 4});
 		b.setContentType("application/octet-stream");
 
-		IParser parser = ourCtx.newJsonParser().setPrettyPrint(false);
+		IParser parser = getContext().newJsonParser().setPrettyPrint(false);
 		String output = parser.encodeResourceToString(b);
 		assertEquals("{\"resourceType\":\"Binary\",\"contentType\":\"application/octet-stream\",\"data\":\"AAECAwQ=\"}", output);
 	}
@@ -467,7 +474,7 @@ public class JsonParserR4Test extends BaseTest {
 	public void testAlwaysUseUnixNewlines() {
 		Patient p = new Patient();
 		p.setId("1");
-		String encoded = ourCtx.newJsonParser().setPrettyPrint(true).encodeResourceToString(p);
+		String encoded = getContext().newJsonParser().setPrettyPrint(true).encodeResourceToString(p);
 		assertThat(encoded).isEqualTo("{\n" +
 			"  \"resourceType\": \"Patient\",\n" +
 			"  \"id\": \"1\"\n" +
@@ -482,7 +489,7 @@ public class JsonParserR4Test extends BaseTest {
 		root.setValue(new StringType("ROOT_VALUE"));
 
 		// Lenient error handler
-		IParser parser = ourCtx.newJsonParser();
+		IParser parser = getContext().newJsonParser();
 		String output = parser.encodeResourceToString(p);
 		ourLog.info("Output: {}", output);
 		assertThat(output).contains("ROOT_VALUE");
@@ -510,7 +517,7 @@ public class JsonParserR4Test extends BaseTest {
 
 		// According to issue4129, all error handlers should reject malformed resources
 		// Lenient error handler
-		IParser parser = ourCtx.newJsonParser();
+		IParser parser = getContext().newJsonParser();
 		try {
 			parser.encodeResourceToString(p);
 			fail();		} catch (DataFormatException e) {
@@ -540,7 +547,7 @@ public class JsonParserR4Test extends BaseTest {
 
 		// Lenient error handler - should parse successfully with no error
 		LenientErrorHandler errorHandler = new LenientErrorHandler(true).disableAllErrors();
-		IParser parser = ourCtx.newJsonParser().setParserErrorHandler(errorHandler);
+		IParser parser = getContext().newJsonParser().setParserErrorHandler(errorHandler);
 		String output = parser.encodeResourceToString(p);
 		ourLog.info("Output: {}", output);
 		assertThat(output).contains("http://root");
@@ -566,10 +573,10 @@ public class JsonParserR4Test extends BaseTest {
 		enc.setStatus(Encounter.EncounterStatus.ARRIVED);
 		obs.getEncounter().setResource(enc);
 
-		String encoded = ourCtx.newJsonParser().setPrettyPrint(true).encodeResourceToString(obs);
+		String encoded = getContext().newJsonParser().setPrettyPrint(true).encodeResourceToString(obs);
 		ourLog.info(encoded);
 
-		obs = ourCtx.newJsonParser().parseResource(Observation.class, encoded);
+		obs = getContext().newJsonParser().parseResource(Observation.class, encoded);
 		assertEquals("#1", obs.getContained().get(0).getId());
 		assertEquals("#2", obs.getContained().get(1).getId());
 
@@ -595,10 +602,10 @@ public class JsonParserR4Test extends BaseTest {
 		obs.getEncounter().setReference("#1");
 		obs.getContained().add(enc);
 
-		String encoded = ourCtx.newJsonParser().setPrettyPrint(true).encodeResourceToString(obs);
+		String encoded = getContext().newJsonParser().setPrettyPrint(true).encodeResourceToString(obs);
 		ourLog.info(encoded);
 
-		obs = ourCtx.newJsonParser().parseResource(Observation.class, encoded);
+		obs = getContext().newJsonParser().parseResource(Observation.class, encoded);
 		assertEquals("#1", obs.getContained().get(0).getId());
 		assertEquals("#2", obs.getContained().get(1).getId());
 
@@ -616,14 +623,14 @@ public class JsonParserR4Test extends BaseTest {
 		Practitioner pract = new Practitioner().setActive(true);
 		mr.getRequester().setResource(pract);
 
-		String encoded = ourCtx.newJsonParser().setPrettyPrint(true).encodeResourceToString(mr);
+		String encoded = getContext().newJsonParser().setPrettyPrint(true).encodeResourceToString(mr);
 		ourLog.info(encoded);
-		mr = ourCtx.newJsonParser().parseResource(MedicationRequest.class, encoded);
+		mr = getContext().newJsonParser().parseResource(MedicationRequest.class, encoded);
 
 		mr.setMedication(new Reference(new Medication().setStatus(Medication.MedicationStatus.ACTIVE)));
-		encoded = ourCtx.newJsonParser().setPrettyPrint(true).encodeResourceToString(mr);
+		encoded = getContext().newJsonParser().setPrettyPrint(true).encodeResourceToString(mr);
 		ourLog.info(encoded);
-		mr = ourCtx.newJsonParser().parseResource(MedicationRequest.class, encoded);
+		mr = getContext().newJsonParser().parseResource(MedicationRequest.class, encoded);
 
 		assertEquals("#1", mr.getContained().get(0).getId());
 		assertEquals("#2", mr.getContained().get(1).getId());
@@ -632,7 +639,7 @@ public class JsonParserR4Test extends BaseTest {
 
 	@Test
 	public void testExcludeNothing() {
-		IParser parser = ourCtx.newJsonParser().setPrettyPrint(true);
+		IParser parser = getContext().newJsonParser().setPrettyPrint(true);
 		Set<String> excludes = new HashSet<>();
 //		excludes.add("*.id");
 		parser.setDontEncodeElements(excludes);
@@ -658,7 +665,7 @@ public class JsonParserR4Test extends BaseTest {
 	@Test
 	@Disabled
 	public void testExcludeRootStuff() {
-		IParser parser = ourCtx.newJsonParser().setPrettyPrint(true);
+		IParser parser = getContext().newJsonParser().setPrettyPrint(true);
 		Set<String> excludes = new HashSet<>();
 		excludes.add("id");
 		excludes.add("meta");
@@ -684,7 +691,7 @@ public class JsonParserR4Test extends BaseTest {
 
 	@Test
 	public void testExcludeStarDotStuff() {
-		IParser parser = ourCtx.newJsonParser().setPrettyPrint(true);
+		IParser parser = getContext().newJsonParser().setPrettyPrint(true);
 		Set<String> excludes = new HashSet<>();
 		excludes.add("*.id");
 		excludes.add("*.meta");
@@ -717,7 +724,7 @@ public class JsonParserR4Test extends BaseTest {
 
 		Patient p = new Patient();
 		p.addName().setFamily(longString);
-		String encoded = ourCtx.newJsonParser().setPrettyPrint(true).encodeResourceToString(p);
+		String encoded = getContext().newJsonParser().setPrettyPrint(true).encodeResourceToString(p);
 
 		assertThat(encoded).contains(longString);
 	}
@@ -752,8 +759,8 @@ public class JsonParserR4Test extends BaseTest {
 			"  \"gender\": \"female\"\n" +
 			"}";
 
-		IParser jsonParser = ourCtx.newJsonParser();
-		IParser xmlParser = ourCtx.newXmlParser();
+		IParser jsonParser = getContext().newJsonParser();
+		IParser xmlParser = getContext().newXmlParser();
 		jsonParser.setDontEncodeElements(Sets.newHashSet("id", "meta"));
 		xmlParser.setDontEncodeElements(Sets.newHashSet("id", "meta"));
 
@@ -780,7 +787,7 @@ public class JsonParserR4Test extends BaseTest {
 			"  ]\n" +
 			"}";
 
-		IParser jsonParser = ourCtx.newJsonParser();
+		IParser jsonParser = getContext().newJsonParser();
 		jsonParser.setParserErrorHandler(new StrictErrorHandler());
 		try {
 			jsonParser.parseResource(Patient.class, input);
@@ -806,7 +813,7 @@ public class JsonParserR4Test extends BaseTest {
 		meta.addExtension(extension);
 		appointment.setMeta(meta);
 
-		var parser = ourCtx.newJsonParser();
+		var parser = getContext().newJsonParser();
 		String output = parser.encodeResourceToString(appointment);
 		ourLog.info("Output: {}", output);
 
@@ -828,7 +835,7 @@ public class JsonParserR4Test extends BaseTest {
 			"} ]\n" +
 			"}";
 
-		IParser jsonParser = ourCtx.newJsonParser();
+		IParser jsonParser = getContext().newJsonParser();
 		Basic parsed = jsonParser.parseResource(Basic.class, input);
 		assertEquals("ae644c07-1d4b-4ca4-bbf3-bd2023e294e5", parsed.getExtensionByUrl("http://myValue.url").getValueAsPrimitive().getValueAsString());
 	}
@@ -846,7 +853,7 @@ public class JsonParserR4Test extends BaseTest {
 			"} ]\n" +
 			"}";
 
-		IParser jsonParser = ourCtx.newJsonParser();
+		IParser jsonParser = getContext().newJsonParser();
 		MyCustom parsed = jsonParser.parseResource(MyCustom.class, input);
 		assertEquals("ae644c07-1d4b-4ca4-bbf3-bd2023e294e5", parsed.getValue().getValue());
 	}
@@ -854,7 +861,7 @@ public class JsonParserR4Test extends BaseTest {
 	@Test
 	public void testParseExtensionOnPrimitive() throws IOException {
 		String input = IOUtils.toString(JsonParserR4Test.class.getResourceAsStream("/extension-on-line.txt"), Constants.CHARSET_UTF8);
-		IParser parser = ourCtx.newJsonParser().setPrettyPrint(true);
+		IParser parser = getContext().newJsonParser().setPrettyPrint(true);
 		Patient pt = parser.parseResource(Patient.class, input);
 
 		StringType line0 = pt.getAddressFirstRep().getLine().get(0);
@@ -884,7 +891,7 @@ public class JsonParserR4Test extends BaseTest {
 		String sectionText = "sectionText";
 		Composition composition = createComposition(sectionText);
 
-		String encoded = ourCtx.newJsonParser().encodeResourceToString(composition);
+		String encoded = getContext().newJsonParser().encodeResourceToString(composition);
 		ourLog.info(encoded);
 
 		int idx = encoded.indexOf(sectionText);
@@ -922,7 +929,7 @@ public class JsonParserR4Test extends BaseTest {
 
 		Bundle b = createBigBundle();
 
-		IParser parser = ourCtx.newJsonParser();
+		IParser parser = getContext().newJsonParser();
 
 		for (int i = 0; i < 500; i++) {
 			parser.encodeResourceToWriter(b, new NullWriter());
@@ -960,7 +967,7 @@ public class JsonParserR4Test extends BaseTest {
 
 		Bundle b = createBigBundle();
 
-		IParser parser = ourCtx.newXmlParser();
+		IParser parser = getContext().newXmlParser();
 		StopWatch sw = new StopWatch();
 		for (int i = 0; ; i++) {
 			parser.encodeResourceToWriter(b, new NullWriter());
@@ -995,7 +1002,7 @@ public class JsonParserR4Test extends BaseTest {
 	@Disabled
 	public void testTimingsInput() {
 		Bundle b = createBigBundle();
-		IParser parser = ourCtx.newJsonParser();
+		IParser parser = getContext().newJsonParser();
 		String input = parser.encodeResourceToString(b);
 
 		for (int i = 0; i < 500; i++) {
@@ -1028,7 +1035,7 @@ public class JsonParserR4Test extends BaseTest {
 	@Disabled
 	public void testTimingsInputXml() throws IOException {
 		Bundle b = createBigBundle();
-		IParser parser = ourCtx.newXmlParser();
+		IParser parser = getContext().newXmlParser();
 		String input = parser.encodeResourceToString(b);
 
 		StopWatch sw = new StopWatch();
@@ -1099,8 +1106,8 @@ public class JsonParserR4Test extends BaseTest {
 			"    }\n" +
 			"  } ]\n" +
 			"}";
-		AuditEvent ae = ourCtx.newJsonParser().parseResource(AuditEvent.class, auditEvent);
-		String auditEventAsString = ourCtx.newJsonParser().setPrettyPrint(true).encodeResourceToString(ae);
+		AuditEvent ae = getContext().newJsonParser().parseResource(AuditEvent.class, auditEvent);
+		String auditEventAsString = getContext().newJsonParser().setPrettyPrint(true).encodeResourceToString(ae);
 		assertEquals(auditEvent, auditEventAsString);
 	}
 
@@ -1137,13 +1144,13 @@ public class JsonParserR4Test extends BaseTest {
 			"}";
 
 		ourLog.info("Input: {}", auditEvent);
-		AuditEvent ae = ourCtx.newJsonParser().parseResource(AuditEvent.class, auditEvent);
+		AuditEvent ae = getContext().newJsonParser().parseResource(AuditEvent.class, auditEvent);
 		assertEquals("#A", ae.getContained().get(0).getId());
 		assertEquals("#B", ae.getContained().get(1).getId());
 		assertEquals("#B", ae.getEntity().get(0).getWhat().getReference());
 		assertEquals("#A", ae.getEntity().get(1).getWhat().getReference());
 
-		String serialized = ourCtx.newJsonParser().setPrettyPrint(true).encodeResourceToString(ae);
+		String serialized = getContext().newJsonParser().setPrettyPrint(true).encodeResourceToString(ae);
 		assertEquals(auditEvent, serialized);
 
 	}
@@ -1153,7 +1160,7 @@ public class JsonParserR4Test extends BaseTest {
 	public void testEncodeToString_PrimitiveDataType() {
 		DecimalType object = new DecimalType("123.456000");
 		String expected = "123.456000";
-		String actual = ourCtx.newJsonParser().encodeToString(object);
+		String actual = getContext().newJsonParser().encodeToString(object);
 		assertEquals(expected, actual);
 	}
 
@@ -1165,7 +1172,7 @@ public class JsonParserR4Test extends BaseTest {
 		Reference reference = new Reference("Organization/1");
 		identifier.setAssigner(reference);
 		String expected = "{\"system\":\"http://system.org\",\"value\":\"123\",\"assigner\":{\"reference\":\"Organization/1\"}}";
-		String actual = ourCtx.newJsonParser().encodeToString(identifier);
+		String actual = getContext().newJsonParser().encodeToString(identifier);
 		assertEquals(expected, actual);
 	}
 
@@ -1175,7 +1182,7 @@ public class JsonParserR4Test extends BaseTest {
 		p.setId("Patient/123");
 		p.setActive(true);
 		String expected = "{\"resourceType\":\"Patient\",\"id\":\"123\",\"active\":true}";
-		String actual = ourCtx.newJsonParser().encodeToString(p);
+		String actual = getContext().newJsonParser().encodeToString(p);
 		assertEquals(expected, actual);
 	}
 
@@ -1206,7 +1213,7 @@ public class JsonParserR4Test extends BaseTest {
 			"        }\n" +
 			"    ]\n" +
 			"}\n";
-		Practitioner practitioner = ourCtx.newJsonParser().parseResource(Practitioner.class, resource);
+		Practitioner practitioner = getContext().newJsonParser().parseResource(Practitioner.class, resource);
 		HumanName humanName = practitioner.getNameFirstRep();
 		StringType given = humanName.getGiven().get(0);
 		assertTrue(given.getExtension().stream().allMatch(ext -> DataAbsentReason.MASKED.toCode().equals(ext.getValue().primitiveValue())));
@@ -1220,7 +1227,7 @@ public class JsonParserR4Test extends BaseTest {
 		name.addExtension("http://foo", new StringType("bar"));
 
 		String expected = "{\"extension\":[{\"url\":\"http://foo\",\"valueString\":\"bar\"}],\"family\":\"Simpson\",\"given\":[\"Homer\",\"Jay\"]}";
-		String actual = ourCtx.newJsonParser().encodeToString(name);
+		String actual = getContext().newJsonParser().encodeToString(name);
 		assertEquals(expected, actual);
 	}
 
@@ -1231,7 +1238,7 @@ public class JsonParserR4Test extends BaseTest {
 		communication.getLanguage().setText("English");
 
 		String expected = "{\"language\":{\"text\":\"English\"},\"preferred\":true}";
-		String actual = ourCtx.newJsonParser().encodeToString(communication);
+		String actual = getContext().newJsonParser().encodeToString(communication);
 		assertEquals(expected, actual);
 	}
 
@@ -1239,7 +1246,7 @@ public class JsonParserR4Test extends BaseTest {
 	public void testEncodeBundleWithCrossReferenceFullUrlsAndNoIds() {
 		Bundle bundle = createBundleWithCrossReferenceFullUrlsAndNoIds();
 
-		String output = ourCtx.newJsonParser().setPrettyPrint(true).encodeResourceToString(bundle);
+		String output = getContext().newJsonParser().setPrettyPrint(true).encodeResourceToString(bundle);
 		ourLog.info(output);
 
 		assertThat(output).doesNotContain("\"contained\"");
@@ -1258,7 +1265,7 @@ public class JsonParserR4Test extends BaseTest {
 	public void testEncodeBundleWithCrossReferenceFullUrlsAndNoIds_NestedInParameters() {
 		Parameters parameters = createBundleWithCrossReferenceFullUrlsAndNoIds_NestedInParameters();
 
-		String output = ourCtx.newJsonParser().setPrettyPrint(true).encodeResourceToString(parameters);
+		String output = getContext().newJsonParser().setPrettyPrint(true).encodeResourceToString(parameters);
 		ourLog.info(output);
 
 		assertThat(output).doesNotContain("\"contained\"");
@@ -1278,9 +1285,9 @@ public class JsonParserR4Test extends BaseTest {
 	@Test
 	public void testParseBundleWithCrossReferenceFullUrlsAndNoIds() {
 		Bundle bundle = createBundleWithCrossReferenceFullUrlsAndNoIds();
-		String encoded = ourCtx.newJsonParser().setPrettyPrint(true).encodeResourceToString(bundle);
+		String encoded = getContext().newJsonParser().setPrettyPrint(true).encodeResourceToString(bundle);
 
-		Bundle parsedBundle = ourCtx.newJsonParser().parseResource(Bundle.class, encoded);
+		Bundle parsedBundle = getContext().newJsonParser().parseResource(Bundle.class, encoded);
 		assertEquals("urn:uuid:9e9187c1-db6d-4b6f-adc6-976153c65ed7", parsedBundle.getEntry().get(0).getFullUrl());
 		assertEquals("urn:uuid:9e9187c1-db6d-4b6f-adc6-976153c65ed7", parsedBundle.getEntry().get(0).getResource().getId());
 		assertEquals("urn:uuid:71d7ab79-a001-41dc-9a8e-b3e478ce1cbb", parsedBundle.getEntry().get(1).getFullUrl());
@@ -1336,7 +1343,7 @@ public class JsonParserR4Test extends BaseTest {
 		humanName2.getFormatCommentsPre().add("This is yet another comment");
 		patient.getName().add(humanName2);
 
-		final String patientString = ourCtx.newJsonParser().encodeResourceToString(patient);
+		final String patientString = getContext().newJsonParser().encodeResourceToString(patient);
 		assertThat(patientString).doesNotContain("fhir_comment");
 	}
 
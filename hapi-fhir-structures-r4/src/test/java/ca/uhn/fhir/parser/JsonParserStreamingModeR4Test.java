@@ -0,0 +1,20 @@
+package ca.uhn.fhir.parser;
+
+import ca.uhn.fhir.context.FhirContext;
+
+/**
+ * Runs all of the {@link JsonParserR4Test} tests again with
+ * {@link ca.uhn.fhir.context.ParserOptions#setStreamingJsonParsing(boolean) streaming} JSON parsing enabled.
+ */
+public class JsonParserStreamingModeR4Test extends JsonParserR4Test {
+	private static final FhirContext ourStreamingCtx = FhirContext.forR4();
+
+	static {
+		ourStreamingCtx.getParserOptions().setStreamingJsonParsing(true);
+	}
+
+	@Override
+	protected FhirContext getContext() {
+		return ourStreamingCtx;
+	}
+}
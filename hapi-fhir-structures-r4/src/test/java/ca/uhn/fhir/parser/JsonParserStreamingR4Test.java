@@ -0,0 +1,133 @@
+package ca.uhn.fhir.parser;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.util.ClasspathUtil;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.hl7.fhir.r4.model.Bundle;
+import org.hl7.fhir.r4.model.Observation;
+import org.hl7.fhir.r4.model.Patient;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Verifies that {@link ca.uhn.fhir.context.ParserOptions#setStreamingJsonParsing(boolean) streaming}
+ * JSON parsing produces the same model as the default tree-based parsing.
+ */
+public class JsonParserStreamingR4Test {
+	private static final Logger ourLog = LoggerFactory.getLogger(JsonParserStreamingR4Test.class);
+	private static final FhirContext ourTreeCtx = FhirContext.forR4Cached();
+	private static final FhirContext ourStreamingCtx = FhirContext.forR4();
+
+	static {
+		ourStreamingCtx.getParserOptions().setStreamingJsonParsing(true);
+	}
+
+	private void assertParsesIdentically(String theInput) {
+		IBaseResource tree = ourTreeCtx.newJsonParser().parseResource(theInput);
+		IBaseResource streamed = ourStreamingCtx.newJsonParser().parseResource(theInput);
+
+		String expected = ourTreeCtx.newJsonParser().setPrettyPrint(true).encodeResourceToString(tree);
+		String actual = ourTreeCtx.newJsonParser().setPrettyPrint(true).encodeResourceToString(streamed);
+		ourLog.debug("Streamed: {}", actual);
+		assertEquals(expected, actual);
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = {
+		"/bundle-with-two-patient-resources.json",
+		"/entities-from-cerner.json",
+		"/multi-thread-parsing-issue-bundle.json",
+		"/observation-decimal-element-with-leading-plus.json"
+	})
+	public void testParseClasspathResource(String theResourceName) {
+		assertParsesIdentically(ClasspathUtil.loadResource(theResourceName));
+	}
+
+	@Test
+	public void testParsePrimitiveExtensionBeforeAndAfterValue() {
+		String input = """
+			{
+			  "resourceType": "Patient",
+			  "_gender": { "extension": [ { "url": "http://foo", "valueString": "before" } ] },
+			  "gender": "male",
+			  "birthDate": "2000-01-01",
+			  "_birthDate": { "id": "bd", "extension": [ { "url": "http://bar", "valueString": "after" } ] },
+			  "name": [ { "given": [ "A", null, "C" ], "_given": [ null, { "extension": [ { "url": "http://baz", "valueString": "B" } ] }, null ] } ],
+			  "_active": { "extension": [ { "url": "http://no-value", "valueBoolean": true } ] }
+			}""";
+		assertParsesIdentically(input);
+
+		Patient patient = ourStreamingCtx.newJsonParser().parseResource(Patient.class, input);
+		assertEquals("before", patient.getGenderElement().getExtensionString("http://foo"));
+		assertEquals("after", patient.getBirthDateElement().getExtensionString("http://bar"));
+		assertEquals("bd", patient.getBirthDateElement().getId());
+		assertThat(patient.getNameFirstRep().getGiven()).hasSize(3);
+		assertEquals("B", patient.getNameFirstRep().getGiven().get(1).getExtensionString("http://baz"));
+		assertThat(patient.getActiveElement().getExtension()).hasSize(1);
+	}
+
+	@Test
+	public void testParseResourceTypeNotFirst() {
+		String input = """
+			{
+			  "id": "B",
+			  "type": "collection",
+			  "entry": [ {
+			    "fullUrl": "http://example.com/Observation/O1",
+			    "resource": {
+			      "status": "final",
+			      "contained": [ { "id": "p1", "resourceType": "Patient", "active": true } ],
+			      "subject": { "reference": "#p1" },
+			      "resourceType": "Observation"
+			    }
+			  } ],
+			  "resourceType": "Bundle"
+			}""";
+		assertParsesIdentically(input);
+
+		Bundle bundle = ourStreamingCtx.newJsonParser().parseResource(Bundle.class, input);
+		Observation obs = (Observation) bundle.getEntryFirstRep().getResource();
+		assertEquals("Observation/O1", obs.getIdElement().toUnqualifiedVersionless().getValue());
+		assertEquals(Observation.ObservationStatus.FINAL, obs.getStatus());
+		assertThat(obs.getContained()).hasSize(1);
+		assertEquals("p1", obs.getSubject().getResource().getIdElement().getIdPart());
+	}
+
+	@Test
+	public void testParseNestedResources() {
+		Bundle inner = new Bundle();
+		inner.setType(Bundle.BundleType.COLLECTION);
+		Patient patient = new Patient();
+		patient.setId("Patient/A");
+		patient.addName().setFamily("Family").addGiven("Given");
+		patient.getMeta().addTag("http://system", "code", "display");
+		inner.addEntry().setFullUrl("Patient/A").setResource(patient);
+
+		Bundle outer = new Bundle();
+		outer.setType(Bundle.BundleType.TRANSACTION);
+		outer.addEntry().setResource(inner).getRequest().setMethod(Bundle.HTTPVerb.POST).setUrl("Bundle");
+
+		assertParsesIdentically(ourTreeCtx.newJsonParser().encodeResourceToString(outer));
+	}
+
+	@Test
+	public void testParseInvalidContent() {
+		assertThatThrownBy(() -> ourStreamingCtx.newJsonParser().parseResource("{\"resourceType\": \"Patient\", \"active\": tru }"))
+			.isInstanceOf(DataFormatException.class)
+			.hasMessageContaining("Failed to parse JSON encoded FHIR content");
+		assertThatThrownBy(() -> ourStreamingCtx.newJsonParser().parseResource("{\"active\": true}"))
+			.isInstanceOf(DataFormatException.class)
+			.hasMessageContaining("missing required element: 'resourceType'");
+		assertThatThrownBy(() -> ourStreamingCtx.newJsonParser().parseResource("{\"resourceType\": \"Patient\"} {}"))
+			.isInstanceOf(DataFormatException.class)
+			.hasMessageContaining("Unexpected content found after the end of the resource");
+	}
+
+}
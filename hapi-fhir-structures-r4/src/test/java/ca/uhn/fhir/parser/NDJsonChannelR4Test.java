@@ -0,0 +1,243 @@
+package ca.uhn.fhir.parser;
+
+import ca.uhn.fhir.context.FhirContext;
+import org.apache.commons.lang3.ArrayUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.hl7.fhir.r4.model.Bundle;
+import org.hl7.fhir.r4.model.HumanName;
+import org.hl7.fhir.r4.model.Observation;
+import org.hl7.fhir.r4.model.Patient;
+import org.hl7.fhir.r4.model.Quantity;
+import org.hl7.fhir.r4.model.StringType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class NDJsonChannelR4Test {
+	private static final FhirContext ourCtx = FhirContext.forR4Cached();
+	private static final FhirContext ourStreamingCtx = FhirContext.forR4();
+
+	static {
+		ourStreamingCtx.getParserOptions().setStreamingJsonParsing(true);
+	}
+
+	@TempDir
+	private Path myTempDir;
+
+	private List<IBaseResource> createResources(int theCount) {
+		List<IBaseResource> retVal = new ArrayList<>();
+		for (int i = 0; i < theCount; i++) {
+			if (i % 2 == 0) {
+				Patient patient = new Patient();
+				patient.setId("Patient/P" + i);
+				patient.addName().setFamily("Fämily " + i).addGiven("日本");
+				retVal.add(patient);
+			} else {
+				Observation obs = new Observation();
+				obs.setId("Observation/O" + i);
+				obs.setStatus(Observation.ObservationStatus.FINAL);
+				obs.getSubject().setReference("Patient/P" + (i - 1));
+				retVal.add(obs);
+			}
+		}
+		return retVal;
+	}
+
+	private byte[] toNdJson(List<IBaseResource> theResources) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (NDJsonChannelWriter writer = new NDJsonChannelWriter(ourCtx, Channels.newChannel(bytes))) {
+			for (IBaseResource next : theResources) {
+				writer.write(next);
+			}
+			assertEquals(theResources.size(), writer.getResourceCount());
+		}
+		return bytes.toByteArray();
+	}
+
+	private void assertSameResources(List<IBaseResource> theExpected, List<IBaseResource> theActual) {
+		assertThat(theActual).hasSize(theExpected.size());
+		IParser parser = ourCtx.newJsonParser();
+		for (int i = 0; i < theExpected.size(); i++) {
+			assertEquals(parser.encodeResourceToString(theExpected.get(i)), parser.encodeResourceToString(theActual.get(i)));
+		}
+	}
+
+	@Test
+	public void testWriteAndReadChannel() throws IOException {
+		List<IBaseResource> resources = createResources(10);
+		byte[] ndjson = toNdJson(resources);
+
+		String[] lines = new String(ndjson, StandardCharsets.UTF_8).split("\n");
+		assertThat(lines).hasSize(10);
+		assertEquals(ourCtx.newJsonParser().encodeResourceToString(resources.get(0)), lines[0]);
+
+		try (NDJsonChannelReader reader = new NDJsonChannelReader(ourCtx, Channels.newChannel(new ByteArrayInputStream(ndjson)))) {
+			assertSameResources(resources, reader.readAll());
+			assertEquals(10, reader.getLineNumber());
+		}
+	}
+
+	@Test
+	public void testReadLinesLongerThanBuffer() throws IOException {
+		Patient patient = new Patient();
+		patient.addName().setFamily(StringUtils.repeat("a", 200_000));
+		List<IBaseResource> resources = List.of(patient, new Patient().setActive(true), patient);
+
+		NDJsonChannelReader reader = new NDJsonChannelReader(ourCtx, ByteBuffer.wrap(toNdJson(resources)));
+		assertSameResources(resources, reader.readAll());
+	}
+
+	@Test
+	public void testReadWhitespaceAndTrailingNewline() throws IOException {
+		String ndjson = "  {\"resourceType\":\"Patient\",\"id\":\"A\"}  \r\n\t{\"resourceType\":\"Patient\",\"id\":\"B\"}\r\n";
+		NDJsonChannelReader reader = new NDJsonChannelReader(ourCtx, ByteBuffer.wrap(ndjson.getBytes(StandardCharsets.UTF_8)));
+
+		assertEquals("A", reader.readNext().getIdElement().getIdPart());
+		assertEquals("B", reader.readNext().getIdElement().getIdPart());
+		assertNull(reader.readNext());
+		assertEquals(2, reader.getLineNumber());
+	}
+
+	@Test
+	public void testReadBlankLine() {
+		String ndjson = "{\"resourceType\":\"Patient\",\"id\":\"A\"}\r\n  \r\n{\"resourceType\":\"Patient\",\"id\":\"B\"}";
+		NDJsonChannelReader reader = new NDJsonChannelReader(ourCtx, ByteBuffer.wrap(ndjson.getBytes(StandardCharsets.UTF_8)));
+
+		assertThatThrownBy(reader::readAll)
+			.isInstanceOf(DataFormatException.class)
+			.hasMessageContaining("Failed to parse NDJSON line 2")
+			.hasMessageContaining("Did not find any content to parse");
+	}
+
+	/**
+	 * Blank lines are rejected in the same way whether the content is parsed from a Reader or an InputStream
+	 */
+	@ParameterizedTest
+	@ValueSource(strings = {"\n#A", "#A\n\n#B", "#A\r\n \t\r\n#B", "#A\n\n"})
+	public void testNdJsonParserRejectsBlankLines(String theNdJson) {
+		String ndjson = theNdJson
+			.replace("#A", "{\"resourceType\":\"Patient\",\"id\":\"A\"}")
+			.replace("#B", "{\"resourceType\":\"Patient\",\"id\":\"B\"}");
+		IParser parser = ourCtx.newNDJsonParser();
+
+		assertThatThrownBy(() -> parser.parseResource(Bundle.class, new StringReader(ndjson)))
+			.isInstanceOf(DataFormatException.class)
+			.hasMessageContaining("Did not find any content to parse");
+		assertThatThrownBy(() -> parser.parseResource(Bundle.class, new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8))))
+			.isInstanceOf(DataFormatException.class)
+			.hasMessageContaining("Did not find any content to parse");
+	}
+
+	@Test
+	public void testReadInvalidLine() {
+		String ndjson = "{\"resourceType\":\"Patient\"}\n{\"resourceType\":\"Patient\", \"active\": tru}\n";
+		NDJsonChannelReader reader = new NDJsonChannelReader(ourCtx, ByteBuffer.wrap(ndjson.getBytes(StandardCharsets.UTF_8)));
+
+		assertThatThrownBy(reader::readAll)
+			.isInstanceOf(DataFormatException.class)
+			.hasMessageContaining("Failed to parse NDJSON line 2")
+			.hasMessageContaining("Failed to parse JSON encoded FHIR content");
+
+		NDJsonChannelReader notJsonReader = new NDJsonChannelReader(ourCtx, ByteBuffer.wrap("[]".getBytes(StandardCharsets.UTF_8)));
+		assertThatThrownBy(notJsonReader::readNext)
+			.isInstanceOf(DataFormatException.class)
+			.hasMessageContaining("first non-whitespace character was: '['");
+	}
+
+	@ParameterizedTest
+	@ValueSource(booleans = {false, true})
+	public void testReadNestedResources(boolean theStreamingJsonParsing) throws IOException {
+		FhirContext ctx = theStreamingJsonParsing ? ourStreamingCtx : ourCtx;
+
+		Patient patient = new Patient();
+		patient.setId("Patient/P1");
+		patient.addIdentifier().setSystem("http://mrn").setValue("123").getType().addCoding().setCode("MR");
+		patient.addIdentifier().setSystem("http://ssn").setValue("456");
+		patient.addName().setFamily("Family").addGiven("Given1").addGiven("Given2");
+		patient.addName().setUse(HumanName.NameUse.NICKNAME).addGiven("Nick");
+		patient.getBirthDateElement().setValueAsString("2000-01-01");
+		patient.getBirthDateElement().addExtension("http://ext", new StringType("ext value"));
+		patient.addContact().getName().setFamily("Contact");
+		Observation obs = new Observation();
+		obs.setId("Observation/O1");
+		obs.getCode().addCoding().setSystem("http://loinc.org").setCode("1234-5");
+		obs.setValue(new Quantity().setValue(1.5).setUnit("mg"));
+		obs.addComponent().getCode().setText("component");
+		List<IBaseResource> resources = List.of(patient, obs);
+		byte[] ndjson = toNdJson(resources);
+
+		NDJsonChannelReader reader = new NDJsonChannelReader(ctx, ByteBuffer.wrap(ndjson));
+		assertSameResources(resources, reader.readAll());
+
+		int firstLineLength = ArrayUtils.indexOf(ndjson, (byte) '\n');
+		Patient parsed = ((JsonParser) ctx.newJsonParser()).parseResource(Patient.class, ndjson, 0, firstLineLength);
+		assertThat(parsed.getIdentifier()).hasSize(2);
+		assertEquals("MR", parsed.getIdentifierFirstRep().getType().getCodingFirstRep().getCode());
+		assertThat(parsed.getName()).hasSize(2);
+		assertEquals("Given2", parsed.getNameFirstRep().getGiven().get(1).getValue());
+		assertEquals("ext value", parsed.getBirthDateElement().getExtensionString("http://ext"));
+	}
+
+	@ParameterizedTest
+	@ValueSource(ints = {1, 2, 3, 7, 500})
+	public void testSplitIntoRanges(int theMaxRanges) throws IOException {
+		List<IBaseResource> resources = createResources(101);
+		Path file = myTempDir.resolve("resources.ndjson");
+		Files.write(file, toNdJson(resources));
+
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			List<NDJsonChannelReader.ByteRange> ranges = NDJsonChannelReader.splitIntoRanges(channel, theMaxRanges);
+			assertThat(ranges).hasSizeBetween(1, Math.min(theMaxRanges, resources.size()));
+			assertEquals(0, ranges.get(0).getStart());
+			assertEquals(channel.size(), ranges.get(ranges.size() - 1).getEnd());
+
+			List<IBaseResource> actual = new ArrayList<>();
+			for (int i = 0; i < ranges.size(); i++) {
+				if (i > 0) {
+					assertEquals(ranges.get(i - 1).getEnd(), ranges.get(i).getStart());
+				}
+				actual.addAll(new NDJsonChannelReader(ourCtx, channel, ranges.get(i)).readAll());
+			}
+			assertSameResources(resources, actual);
+
+			MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			assertSameResources(resources, new NDJsonChannelReader(ourCtx, mapped).readAll());
+		}
+	}
+
+	@Test
+	public void testNdJsonParserParsesInputStream() throws IOException {
+		List<IBaseResource> resources = createResources(4);
+		ByteArrayInputStream inputStream = new ByteArrayInputStream(toNdJson(resources));
+
+		Bundle bundle = ourCtx.newNDJsonParser().parseResource(Bundle.class, inputStream);
+
+		assertEquals(Bundle.BundleType.COLLECTION, bundle.getType());
+		List<IBaseResource> actual = new ArrayList<>();
+		bundle.getEntry().forEach(t -> actual.add(t.getResource()));
+		assertSameResources(resources, actual);
+	}
+
+}
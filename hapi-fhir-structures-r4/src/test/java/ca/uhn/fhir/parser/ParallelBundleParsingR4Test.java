@@ -0,0 +1,131 @@
+package ca.uhn.fhir.parser;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.util.ClasspathUtil;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.hl7.fhir.r4.model.Bundle;
+import org.hl7.fhir.r4.model.Observation;
+import org.hl7.fhir.r4.model.Patient;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Verifies that {@link ca.uhn.fhir.context.ParserOptions#setParallelBundleParsingThreshold(int) parallel}
+ * Bundle parsing produces the same model as sequential parsing.
+ */
+public class ParallelBundleParsingR4Test {
+	private static final FhirContext ourCtx = FhirContext.forR4Cached();
+	private static final FhirContext ourParallelCtx = FhirContext.forR4();
+	private static final ForkJoinPool ourPool = new ForkJoinPool(4);
+
+	static {
+		ourParallelCtx.getParserOptions().setParallelBundleParsingThreshold(2).setParallelBundleParsingPool(ourPool);
+	}
+
+	@AfterAll
+	public static void afterAll() {
+		ourPool.shutdown();
+	}
+
+	private String createTransaction(int theCount) {
+		Bundle bundle = new Bundle();
+		bundle.setType(Bundle.BundleType.TRANSACTION);
+		for (int i = 0; i < theCount; i++) {
+			Patient patient = new Patient();
+			patient.addName().setFamily("Family " + i);
+			patient.addIdentifier().setSystem("http://foo").setValue("P" + i);
+			bundle.addEntry()
+				.setFullUrl("urn:uuid:patient-" + i)
+				.setResource(patient)
+				.getRequest().setMethod(Bundle.HTTPVerb.POST).setUrl("Patient");
+
+			Observation obs = new Observation();
+			obs.setStatus(Observation.ObservationStatus.FINAL);
+			obs.getSubject().setReference("urn:uuid:patient-" + i);
+			obs.getCode().setText("Code " + i);
+			bundle.addEntry()
+				.setFullUrl("urn:uuid:observation-" + i)
+				.setResource(obs)
+				.getRequest().setMethod(Bundle.HTTPVerb.POST).setUrl("Observation");
+		}
+		bundle.addEntry().getRequest().setMethod(Bundle.HTTPVerb.DELETE).setUrl("Patient?identifier=http://foo|DELETE");
+		return ourCtx.newJsonParser().encodeResourceToString(bundle);
+	}
+
+	private void assertParsesIdentically(String theInput) {
+		IBaseResource sequential = ourCtx.newJsonParser().parseResource(theInput);
+		IBaseResource parallel = ourParallelCtx.newJsonParser().parseResource(theInput);
+
+		String expected = ourCtx.newJsonParser().setPrettyPrint(true).encodeResourceToString(sequential);
+		String actual = ourCtx.newJsonParser().setPrettyPrint(true).encodeResourceToString(parallel);
+		assertEquals(expected, actual);
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = {
+		"/bundle-with-two-patient-resources.json",
+		"/entities-from-cerner.json",
+		"/multi-thread-parsing-issue-bundle.json"
+	})
+	public void testParseClasspathResource(String theResourceName) {
+		assertParsesIdentically(ClasspathUtil.loadResource(theResourceName));
+	}
+
+	@Test
+	public void testParseTransaction() {
+		String input = createTransaction(500);
+		assertParsesIdentically(input);
+
+		Bundle bundle = ourParallelCtx.newJsonParser().parseResource(Bundle.class, input);
+		assertThat(bundle.getEntry()).hasSize(1001);
+		for (int i = 0; i < 500; i++) {
+			Patient patient = (Patient) bundle.getEntry().get(i * 2).getResource();
+			Observation obs = (Observation) bundle.getEntry().get(i * 2 + 1).getResource();
+			assertEquals("Family " + i, patient.getNameFirstRep().getFamily());
+			assertEquals("urn:uuid:patient-" + i, patient.getIdElement().getValue());
+			assertSame(patient, obs.getSubject().getResource());
+		}
+		assertNull(bundle.getEntry().get(1000).getResource());
+		assertEquals(Bundle.HTTPVerb.DELETE, bundle.getEntry().get(1000).getRequest().getMethod());
+	}
+
+	@Test
+	public void testParseNestedBundle() {
+		Bundle inner = new Bundle();
+		inner.setType(Bundle.BundleType.COLLECTION);
+		inner.addEntry().setFullUrl("Patient/A").setResource(new Patient().setActive(true));
+
+		Bundle outer = new Bundle();
+		outer.setType(Bundle.BundleType.TRANSACTION);
+		outer.addEntry().setResource(inner).getRequest().setMethod(Bundle.HTTPVerb.POST).setUrl("Bundle");
+		outer.addEntry().setResource(new Patient().setActive(false)).getRequest().setMethod(Bundle.HTTPVerb.POST).setUrl("Patient");
+
+		assertParsesIdentically(ourCtx.newJsonParser().encodeResourceToString(outer));
+	}
+
+	@Test
+	public void testParseInvalidEntryResource() {
+		String input = createTransaction(10).replace("\"Code 7\"", "{ \"foo\": true }");
+
+		IParser parser = ourParallelCtx.newJsonParser().setParserErrorHandler(new StrictErrorHandler());
+		assertThatThrownBy(() -> parser.parseResource(Bundle.class, input))
+			.isInstanceOf(DataFormatException.class)
+			.hasMessageContaining("text");
+
+		String unknownType = createTransaction(10).replaceFirst("\"resourceType\":\"Observation\"", "\"resourceType\":\"Foo\"");
+		assertThatThrownBy(() -> ourParallelCtx.newJsonParser().parseResource(Bundle.class, unknownType))
+			.isInstanceOf(DataFormatException.class)
+			.hasMessageContaining("Foo");
+	}
+
+}
@@ -0,0 +1,256 @@
+package ca.uhn.fhir.rest.server;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.interceptor.api.Pointcut;
+import ca.uhn.fhir.model.api.Include;
+import ca.uhn.fhir.model.api.ResourceMetadataKeyEnum;
+import ca.uhn.fhir.model.valueset.BundleEntrySearchModeEnum;
+import ca.uhn.fhir.rest.annotation.IncludeParam;
+import ca.uhn.fhir.rest.annotation.Search;
+import ca.uhn.fhir.rest.api.EncodingEnum;
+import ca.uhn.fhir.rest.api.server.IBundleProvider;
+import ca.uhn.fhir.rest.api.server.IStreamingBundleProvider;
+import ca.uhn.fhir.rest.api.server.ResponseDetails;
+import ca.uhn.fhir.rest.client.api.IGenericClient;
+import ca.uhn.fhir.rest.server.method.ResponsePage;
+import ca.uhn.fhir.test.utilities.server.RestfulServerExtension;
+import jakarta.annotation.Nonnull;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.hl7.fhir.r4.model.Bundle;
+import org.hl7.fhir.r4.model.Organization;
+import org.hl7.fhir.r4.model.Patient;
+import org.hl7.fhir.r4.model.Reference;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+public class StreamBundleResponsesR4Test {
+
+	private static final FhirContext ourCtx = FhirContext.forR4Cached();
+
+	@RegisterExtension
+	public RestfulServerExtension myServer = new RestfulServerExtension(ourCtx)
+		.registerProvider(new DummyPatientResourceProvider())
+		.registerProvider(new DummyOrganizationResourceProvider())
+		.withPagingProvider(new FifoMemoryPagingProvider(10))
+		.withServer(t -> t.setStreamBundleResponses(true));
+
+	@ParameterizedTest
+	@EnumSource(value = EncodingEnum.class, names = {"JSON", "XML"})
+	public void testSearch_StreamedResponseMatchesBuiltResponse(EncodingEnum theEncoding) {
+		Bundle streamed = search(theEncoding, false);
+
+		myServer.getRestfulServer().setStreamBundleResponses(false);
+		Bundle built = search(theEncoding, false);
+
+		assertEquals(built.getTotal(), streamed.getTotal());
+		assertEquals(built.getLink("self").getUrl(), streamed.getLink("self").getUrl());
+		assertEquals(toEntrySummaries(built), toEntrySummaries(streamed));
+		assertThat(streamed.getEntry()).hasSize(10);
+		assertNotNull(streamed.getLink("next"));
+	}
+
+	@Test
+	public void testSearch_IncludedResourcesFollowTheirSourceOnce() {
+		Bundle streamed = search(EncodingEnum.JSON, true);
+
+		assertThat(toEntrySummaries(streamed)).containsExactly(
+			"http://localhost:" + myServer.getPort() + "/Patient/P0|match",
+			"http://localhost:" + myServer.getPort() + "/Organization/O0|include",
+			"http://localhost:" + myServer.getPort() + "/Patient/P1|match",
+			"http://localhost:" + myServer.getPort() + "/Patient/P2|match",
+			"http://localhost:" + myServer.getPort() + "/Organization/O1|include",
+			"http://localhost:" + myServer.getPort() + "/Patient/P3|match",
+			"http://localhost:" + myServer.getPort() + "/Patient/P4|match",
+			"http://localhost:" + myServer.getPort() + "/Organization/O2|include",
+			"http://localhost:" + myServer.getPort() + "/Patient/P5|match",
+			"http://localhost:" + myServer.getPort() + "/Patient/P6|match",
+			"http://localhost:" + myServer.getPort() + "/Organization/O3|include",
+			"http://localhost:" + myServer.getPort() + "/Patient/P7|match",
+			"http://localhost:" + myServer.getPort() + "/Patient/P8|match",
+			"http://localhost:" + myServer.getPort() + "/Organization/O4|include",
+			"http://localhost:" + myServer.getPort() + "/Patient/P9|match"
+		);
+	}
+
+	@Test
+	public void testSearch_NextPageIsStreamed() {
+		Bundle firstPage = search(EncodingEnum.JSON, false);
+
+		Bundle secondPage = myServer.getFhirClient()
+			.loadPage()
+			.next(firstPage)
+			.execute();
+
+		assertThat(secondPage.getEntry()).hasSize(10);
+		assertEquals("Patient/P10", secondPage.getEntry().get(0).getResource().getIdElement().toUnqualifiedVersionless().getValue());
+		assertEquals(25, secondPage.getTotal());
+	}
+
+	@Test
+	public void testSearch_OutgoingResponseHookReceivesCompleteBundle() {
+		List<IBaseResource> responses = new ArrayList<>();
+		myServer.registerAnonymousInterceptor(Pointcut.SERVER_OUTGOING_RESPONSE, (thePointcut, theArgs) ->
+			responses.add(theArgs.get(ResponseDetails.class).getResponseResource()));
+
+		Bundle streamed = search(EncodingEnum.JSON, false);
+
+		assertThat(responses).hasSize(1);
+		assertThat(((Bundle) responses.get(0)).getEntry()).hasSize(10);
+		assertThat(streamed.getEntry()).hasSize(10);
+	}
+
+	@Test
+	public void testSearch_StreamingBundleProviderLoadsResourcesWhileWriting() {
+		DummyOrganizationResourceProvider.ourStreamedRanges.clear();
+		DummyOrganizationResourceProvider.ourLoadedRanges.clear();
+
+		Bundle streamed = myServer.getFhirClient()
+			.search()
+			.forResource(Organization.class)
+			.returnBundle(Bundle.class)
+			.execute();
+
+		assertThat(DummyOrganizationResourceProvider.ourStreamedRanges).containsExactly("0-10");
+		assertThat(DummyOrganizationResourceProvider.ourLoadedRanges).isEmpty();
+		assertEquals(25, streamed.getTotal());
+		assertThat(streamed.getEntry()).hasSize(10);
+		assertEquals("Organization/O0", streamed.getEntry().get(0).getResource().getIdElement().toUnqualifiedVersionless().getValue());
+		assertNotNull(streamed.getLink("next"));
+
+		Bundle secondPage = myServer.getFhirClient()
+			.loadPage()
+			.next(streamed)
+			.execute();
+
+		assertThat(DummyOrganizationResourceProvider.ourStreamedRanges).containsExactly("0-10", "10-20");
+		assertThat(DummyOrganizationResourceProvider.ourLoadedRanges).isEmpty();
+		assertEquals("Organization/O10", secondPage.getEntry().get(0).getResource().getIdElement().toUnqualifiedVersionless().getValue());
+	}
+
+	@Test
+	public void testSearch_StreamingBundleProviderNotStreamedWithOutgoingResponseHook() {
+		DummyOrganizationResourceProvider.ourStreamedRanges.clear();
+		DummyOrganizationResourceProvider.ourLoadedRanges.clear();
+		myServer.registerAnonymousInterceptor(Pointcut.SERVER_OUTGOING_RESPONSE, (thePointcut, theArgs) -> {});
+
+		Bundle built = myServer.getFhirClient()
+			.search()
+			.forResource(Organization.class)
+			.returnBundle(Bundle.class)
+			.execute();
+
+		assertThat(DummyOrganizationResourceProvider.ourStreamedRanges).isEmpty();
+		assertThat(DummyOrganizationResourceProvider.ourLoadedRanges).containsExactly("0-10");
+		assertThat(built.getEntry()).hasSize(10);
+	}
+
+	private Bundle search(EncodingEnum theEncoding, boolean theIncludeOrganizations) {
+		IGenericClient client = myServer.getFhirClient();
+		client.setEncoding(theEncoding);
+		if (theIncludeOrganizations) {
+			return client
+				.search()
+				.forResource(Patient.class)
+				.include(Patient.INCLUDE_ORGANIZATION)
+				.returnBundle(Bundle.class)
+				.execute();
+		}
+		return client
+			.search()
+			.forResource(Patient.class)
+			.returnBundle(Bundle.class)
+			.execute();
+	}
+
+	private static List<String> toEntrySummaries(Bundle theBundle) {
+		return theBundle
+			.getEntry()
+			.stream()
+			.map(t -> t.getFullUrl() + "|" + t.getSearch().getMode().toCode())
+			.collect(Collectors.toList());
+	}
+
+	public static class DummyOrganizationResourceProvider implements IResourceProvider {
+
+		private static final List<String> ourStreamedRanges = new ArrayList<>();
+		private static final List<String> ourLoadedRanges = new ArrayList<>();
+
+		@Override
+		public Class<? extends IBaseResource> getResourceType() {
+			return Organization.class;
+		}
+
+		@Search
+		public IBundleProvider search() {
+			List<IBaseResource> organizations = new ArrayList<>();
+			for (int i = 0; i < 25; i++) {
+				Organization organization = new Organization();
+				organization.setId("Organization/O" + i);
+				organizations.add(organization);
+			}
+			return new StreamingProvider(organizations);
+		}
+
+		private static class StreamingProvider extends SimpleBundleProvider implements IStreamingBundleProvider {
+
+			private StreamingProvider(List<IBaseResource> theResources) {
+				super(theResources);
+			}
+
+			@Nonnull
+			@Override
+			public List<IBaseResource> getResources(int theFromIndex, int theToIndex, @Nonnull ResponsePage.ResponsePageBuilder theResponsePageBuilder) {
+				ourLoadedRanges.add(theFromIndex + "-" + theToIndex);
+				return super.getResources(theFromIndex, theToIndex, theResponsePageBuilder);
+			}
+
+			@Override
+			public <T> T streamResources(int theFromIndex, int theToIndex, Function<Iterator<IBaseResource>, T> theCallback) {
+				ourStreamedRanges.add(theFromIndex + "-" + theToIndex);
+				List<IBaseResource> resources = new ArrayList<>(getList().subList(theFromIndex, Math.min(theToIndex, getList().size())));
+				return theCallback.apply(resources.iterator());
+			}
+		}
+	}
+
+	public static class DummyPatientResourceProvider implements IResourceProvider {
+
+		@Override
+		public Class<? extends IBaseResource> getResourceType() {
+			return Patient.class;
+		}
+
+		@Search
+		public List<Patient> search(@IncludeParam(allow = {"Patient:organization"}) Set<Include> theIncludes) {
+			List<Patient> retVal = new ArrayList<>();
+			Organization organization = null;
+			for (int i = 0; i < 25; i++) {
+				// Each organization is shared by two patients
+				if (i % 2 == 0) {
+					organization = new Organization();
+					organization.setId("Organization/O" + (i / 2));
+					organization.setName("Organization " + (i / 2));
+				}
+				Patient patient = new Patient();
+				patient.setId("Patient/P" + i);
+				patient.setManagingOrganization(new Reference(organization));
+				ResourceMetadataKeyEnum.ENTRY_SEARCH_MODE.put(patient, BundleEntrySearchModeEnum.MATCH);
+				retVal.add(patient);
+			}
+			return retVal;
+		}
+	}
+}